@@ -5,23 +5,33 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import de.unibi.agbi.biodwh2.core.etl.*;
 import de.unibi.agbi.biodwh2.core.exceptions.*;
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
 import de.unibi.agbi.biodwh2.core.model.DataSourceFileType;
 import de.unibi.agbi.biodwh2.core.model.DataSourceMetadata;
 import de.unibi.agbi.biodwh2.core.model.Version;
+import de.unibi.agbi.biodwh2.core.net.DownloadManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
+import java.util.TreeMap;
 
 public abstract class DataSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataSource.class);
     private static final String SOURCE_DIRECTORY_NAME = "source";
+    private static final String SOURCE_FILE_HASH_ALGORITHM = "SHA-256";
+    public static final long DEFAULT_MEMORY_COST_HINT = 512L * 1024 * 1024;
 
     private DataSourceMetadata metadata;
+    private Map<String, String> sourceFileHashes;
 
     public final DataSourceMetadata getMetadata() {
         return metadata;
@@ -47,6 +57,24 @@ public abstract class DataSource {
 
     public abstract MappingDescriber getMappingDescriber();
 
+    /**
+     * Estimated heap usage in bytes while the parsed data is held in memory until the persistent graph is exported.
+     * Data sources known to be large or small should override this hint, as it is the lower bound of all estimates.
+     */
+    protected long getMemoryCostHint() {
+        return DEFAULT_MEMORY_COST_HINT;
+    }
+
+    /**
+     * @return Peak heap usage measured while parsing in a previous run, but at least the declared hint, as the
+     * measurement may miss peaks
+     */
+    public final long getEstimatedMemoryCost() {
+        if (metadata != null && metadata.parseMemoryUsage != null)
+            return Math.max(metadata.parseMemoryUsage, getMemoryCostHint());
+        return getMemoryCostHint();
+    }
+
     final void prepare(final Workspace workspace) throws DataSourceException {
         try {
             createFolderStructureIfNotExists(workspace);
@@ -97,6 +125,7 @@ public abstract class DataSource {
     }
 
     final Updater.UpdateState updateAutomatic(final Workspace workspace) {
+        sourceFileHashes = null;
         Updater.UpdateState state = Updater.UpdateState.FAILED;
         try {
             state = getUpdater().update(workspace);
@@ -134,34 +163,135 @@ public abstract class DataSource {
     }
 
     final Updater.UpdateState updateManually(final Workspace workspace, final String version) {
+        sourceFileHashes = null;
         final Updater.UpdateState state = getUpdater().updateManually(workspace, version);
         metadata.updateSuccessful = state != Updater.UpdateState.FAILED;
         trySaveMetadata(workspace);
         return state;
     }
 
+    /**
+     * @return The parsed data if this data source supports caching it, otherwise null
+     */
+    protected Serializable getParsedData() {
+        return null;
+    }
+
+    /**
+     * Restore the parsed data previously returned by {@link #getParsedData()} instead of parsing.
+     */
+    protected void setParsedData(final Serializable data) {
+    }
+
     final boolean parse(final Workspace workspace) {
+        final Parser<? extends DataSource> parser = getParser();
+        final ParsedDataCache cache = new ParsedDataCache(getFilePath(workspace, DataSourceFileType.PARSED_DATA_CACHE));
+        final String cacheKey = workspace.getConfiguration().shouldCacheParsedData() ? getParsedDataCacheKey(
+                workspace, parser) : null;
+        if (cacheKey == null)
+            cache.delete();
+        else if (tryLoadParsedData(cache, cacheKey)) {
+            metadata.parseSuccessful = true;
+            trySaveMetadata(workspace);
+            return true;
+        }
         try {
-            metadata.parseSuccessful = getParser().parse(workspace);
+            final long usedMemoryBefore = resetPeakHeapUsage();
+            metadata.parseSuccessful = parser.parse(workspace);
+            if (metadata.parseSuccessful)
+                metadata.parseMemoryUsage = Math.max(0, getPeakHeapUsage() - usedMemoryBefore);
         } catch (ParserException e) {
             if (LOGGER.isErrorEnabled())
                 LOGGER.error("Failed to parse data source '" + getId() + "'", e);
             metadata.parseSuccessful = false;
         }
+        if (cacheKey != null)
+            trySaveParsedData(cache, cacheKey);
         trySaveMetadata(workspace);
         return metadata.parseSuccessful;
     }
 
+    /**
+     * @return Key of the parsed data from the parser version and source file hashes or null if they can't be hashed
+     */
+    private String getParsedDataCacheKey(final Workspace workspace, final Parser<? extends DataSource> parser) {
+        final Map<String, String> hashes = getSourceFileHashes(workspace);
+        return hashes == null ? null : parser.getClass().getName() + "#" + parser.getParserVersion() + "#" + hashes;
+    }
+
+    private boolean tryLoadParsedData(final ParsedDataCache cache, final String cacheKey) {
+        try {
+            final Serializable data = cache.read(cacheKey);
+            if (data == null)
+                return false;
+            setParsedData(data);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Using cached parsed data of data source '" + getId() + "'");
+            return true;
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to read cached parsed data of data source '" + getId() + "'", e);
+            cache.delete();
+            return false;
+        }
+    }
+
+    private void trySaveParsedData(final ParsedDataCache cache, final String cacheKey) {
+        final Serializable data = metadata.parseSuccessful ? getParsedData() : null;
+        if (data == null) {
+            cache.delete();
+            return;
+        }
+        try {
+            cache.write(cacheKey, data);
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to cache parsed data of data source '" + getId() + "'", e);
+        }
+    }
+
+    /**
+     * Reset the peak usage of all heap pools, which are shared with concurrently parsing data sources. The peak sum
+     * includes their allocations and garbage, while a reset by another data source hides earlier peaks. Therefore, the
+     * measurement is only an estimate and never used below the {@link #getMemoryCostHint() hint}.
+     *
+     * @return Currently used heap
+     */
+    private static long resetPeakHeapUsage() {
+        long used = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                used += pool.getUsage().getUsed();
+                pool.resetPeakUsage();
+            }
+        return used;
+    }
+
+    /**
+     * @return Sum of the heap pool peaks since the last reset, which is at least the actual peak of the whole heap
+     */
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP && pool.isValid())
+                peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
     final void export(final Workspace workspace) {
-        exportGraph(workspace);
-        unloadData();
-        trySaveMetadata(workspace);
+        if (exportPersistentGraph(workspace) && exportGraphML(workspace))
+            exportMetaGraph(workspace);
     }
 
-    private void exportGraph(final Workspace workspace) {
+    /**
+     * Export the parsed data into the persistent graph and unload the data afterwards, as the following export stages
+     * only read the persistent graph.
+     */
+    final boolean exportPersistentGraph(final Workspace workspace) {
         try {
             final GraphExporter<? extends DataSource> graphExporter = getGraphExporter();
-            metadata.exportSuccessful = graphExporter.export(workspace);
+            metadata.exportSuccessful = graphExporter.exportPersistentGraph(workspace);
+            metadata.exportedSourceFileHashes = metadata.exportSuccessful ? getSourceFileHashes(workspace) : null;
             if (!metadata.exportSuccessful) {
                 if (LOGGER.isErrorEnabled())
                     LOGGER.error("Failed to export data source '" + getId() + "'");
@@ -175,6 +305,26 @@ public abstract class DataSource {
                 LOGGER.error("Failed to export data source '" + getId() + "' in GraphML format", e);
             metadata.exportSuccessful = false;
         }
+        unloadData();
+        trySaveMetadata(workspace);
+        return metadata.exportSuccessful;
+    }
+
+    final boolean exportGraphML(final Workspace workspace) {
+        if (!getGraphExporter().exportGraphML(workspace)) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to export data source '" + getId() + "' in GraphML format");
+            metadata.exportSuccessful = false;
+            metadata.exportedSourceFileHashes = null;
+            trySaveMetadata(workspace);
+            return false;
+        }
+        return true;
+    }
+
+    final boolean exportMetaGraph(final Workspace workspace) {
+        getGraphExporter().exportMetaGraph(workspace);
+        return true;
     }
 
     protected abstract void unloadData();
@@ -195,12 +345,49 @@ public abstract class DataSource {
         return new String[0];
     }
 
-    public final boolean isUpToDate() {
-        return getUpdater().isDataSourceUpToDate();
+    /**
+     * Compare the content hashes of the source files with those recorded at the last successful export. Updaters
+     * may download byte identical files again, for example if the version is derived from file timestamps.
+     */
+    final boolean haveSourceFilesChangedSinceExport(final Workspace workspace) {
+        if (metadata.exportedSourceFileHashes == null)
+            return true;
+        return !metadata.exportedSourceFileHashes.equals(getSourceFileHashes(workspace));
+    }
+
+    private Map<String, String> getSourceFileHashes(final Workspace workspace) {
+        if (sourceFileHashes == null) {
+            final Map<String, String> hashes = new TreeMap<>();
+            for (final String fileName : listSourceFiles(workspace)) {
+                if (fileName.endsWith(DownloadManager.PART_FILE_EXTENSION) || fileName.endsWith(
+                        DownloadManager.PART_FILE_EXTENSION + DownloadManager.SEGMENTS_FILE_EXTENSION) ||
+                    fileName.endsWith(DownloadManager.PART_FILE_EXTENSION + DownloadManager.VALIDATOR_FILE_EXTENSION))
+                    continue;
+                final Path filePath = Paths.get(resolveSourceFilePath(workspace, fileName));
+                try {
+                    hashes.put(fileName, FileUtils.computeChecksum(filePath, SOURCE_FILE_HASH_ALGORITHM));
+                } catch (IOException e) {
+                    if (LOGGER.isWarnEnabled())
+                        LOGGER.warn("Failed to hash source file '" + fileName + "' of data source '" + getId() + "'",
+                                    e);
+                    return null;
+                }
+            }
+            sourceFileHashes = hashes;
+        }
+        return sourceFileHashes;
+    }
+
+    public final boolean isUpToDate(final Workspace workspace) {
+        return getUpdater().isDataSourceUpToDate(workspace);
+    }
+
+    public final boolean isUpToDate(final Version newestVersion) {
+        return getUpdater().isDataSourceUpToDate(newestVersion);
     }
 
-    public final Version getNewestVersion() {
-        return getUpdater().tryGetNewestVersion();
+    public final Version getNewestVersion(final Workspace workspace) {
+        return getUpdater().tryGetNewestVersion(workspace);
     }
 
     public final Map<String, String> getProperties(final Workspace workspace) {
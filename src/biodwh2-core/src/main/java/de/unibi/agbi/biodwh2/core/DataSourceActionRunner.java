@@ -0,0 +1,96 @@
+package de.unibi.agbi.biodwh2.core;
+
+import de.unibi.agbi.biodwh2.core.exceptions.WorkspaceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Runs an action for data sources concurrently on a bounded pool. Actions not finished in time are abandoned and
+ * yield a fallback value, as are failed actions.
+ */
+final class DataSourceActionRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceActionRunner.class);
+
+    private final int numberOfThreads;
+    private final long timeoutMillisPerRound;
+
+    /**
+     * @param timeoutMillisPerRound Time granted for each round of the pool, so the overall timeout grows with the
+     *                              number of data sources sharing a thread
+     */
+    DataSourceActionRunner(final int numberOfThreads, final long timeoutMillisPerRound) {
+        this.numberOfThreads = Math.max(1, numberOfThreads);
+        this.timeoutMillisPerRound = timeoutMillisPerRound;
+    }
+
+    /**
+     * @return Results in the order of the data sources
+     */
+    <T> List<T> run(final DataSource[] dataSources, final String actionName, final Function<DataSource, T> action,
+                    final T fallback) {
+        final List<T> results = new ArrayList<>();
+        if (dataSources.length == 0)
+            return results;
+        final int threads = Math.min(numberOfThreads, dataSources.length);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (final DataSource dataSource : dataSources)
+                futures.add(executor.submit(() -> action.apply(dataSource)));
+            final long rounds = (dataSources.length + threads - 1) / threads;
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillisPerRound * rounds);
+            for (int i = 0; i < futures.size(); i++)
+                results.add(getResult(futures.get(i), deadline, dataSources[i], actionName, fallback));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Run an action reporting success for all data sources and skip those where it failed or timed out.
+     *
+     * @return The data sources for which the action succeeded in time, in their original order
+     */
+    DataSource[] select(final DataSource[] dataSources, final String actionName,
+                        final Function<DataSource, Boolean> action) {
+        final List<Boolean> results = run(dataSources, actionName, action, false);
+        final List<DataSource> selected = new ArrayList<>();
+        for (int i = 0; i < dataSources.length; i++) {
+            if (Boolean.TRUE.equals(results.get(i)))
+                selected.add(dataSources[i]);
+            else if (LOGGER.isErrorEnabled())
+                LOGGER.error("Skipping data source '" + dataSources[i].getId() + "' as its " + actionName +
+                             " did not succeed");
+        }
+        return selected.toArray(new DataSource[0]);
+    }
+
+    private static <T> T getResult(final Future<T> future, final long deadline, final DataSource dataSource,
+                                   final String actionName, final T fallback) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("The " + actionName + " of data source '" + dataSource.getId() + "' timed out");
+        } catch (ExecutionException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("The " + actionName + " of data source '" + dataSource.getId() + "' failed",
+                             e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkspaceException("The " + actionName + " of data sources was interrupted", e);
+        }
+        return fallback;
+    }
+}
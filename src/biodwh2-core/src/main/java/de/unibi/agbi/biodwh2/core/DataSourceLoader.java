@@ -3,37 +3,22 @@ package de.unibi.agbi.biodwh2.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
 
+/**
+ * Loads the data sources registered in "META-INF/services/de.unibi.agbi.biodwh2.core.DataSource" files of the data
+ * source modules. Data sources are only instantiated when they are looked up, and only as many as needed to find the
+ * requested IDs, so the classes of unused data source modules aren't loaded.
+ */
 public final class DataSourceLoader {
     private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceLoader.class);
 
-    private final List<DataSource> dataSources;
+    private final Iterator<DataSource> registeredDataSources;
+    private final Map<String, DataSource> dataSources;
 
     public DataSourceLoader() {
-        dataSources = new ArrayList<>();
-        final List<Class<DataSource>> allDataSourceClasses = Factory.getInstance().getImplementations(DataSource.class);
-        for (final Class<DataSource> dataSourceClass : allDataSourceClasses) {
-            final DataSource dataSource = tryInstantiateDataSource(dataSourceClass);
-            if (dataSource != null)
-                dataSources.add(dataSource);
-        }
-    }
-
-    private DataSource tryInstantiateDataSource(final Class<DataSource> dataSourceClass) {
-        if (Modifier.isAbstract(dataSourceClass.getModifiers()))
-            return null;
-        try {
-            return dataSourceClass.newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
-            if (LOGGER.isErrorEnabled())
-                LOGGER.error("Failed to instantiate data source '" + dataSourceClass.getName() + "'", e);
-        }
-        return null;
+        registeredDataSources = ServiceLoader.load(DataSource.class).iterator();
+        dataSources = new LinkedHashMap<>();
     }
 
     public DataSource[] getDataSources(final String... dataSourceIds) {
@@ -42,15 +27,35 @@ public final class DataSourceLoader {
     }
 
     private DataSource getDataSourceById(final String id) {
-        for (final DataSource dataSource : dataSources)
-            if (dataSource.getId().equals(id))
-                return dataSource;
-        if (LOGGER.isWarnEnabled())
+        DataSource dataSource = dataSources.get(id);
+        while (dataSource == null && loadNextDataSource())
+            dataSource = dataSources.get(id);
+        if (dataSource == null && LOGGER.isWarnEnabled())
             LOGGER.warn("Failed to retrieve data source with id '" + id + "'");
-        return null;
+        return dataSource;
+    }
+
+    /**
+     * @return false if all registered data sources are loaded
+     */
+    private boolean loadNextDataSource() {
+        while (registeredDataSources.hasNext()) {
+            try {
+                final DataSource dataSource = registeredDataSources.next();
+                dataSources.putIfAbsent(dataSource.getId(), dataSource);
+                return true;
+            } catch (ServiceConfigurationError e) {
+                if (LOGGER.isErrorEnabled())
+                    LOGGER.error("Failed to instantiate registered data source", e);
+            }
+        }
+        return false;
     }
 
     public String[] getDataSourceIds() {
-        return dataSources.stream().map(DataSource::getId).toArray(String[]::new);
+        //noinspection StatementWithEmptyBody
+        while (loadNextDataSource()) {
+        }
+        return dataSources.keySet().toArray(new String[0]);
     }
 }
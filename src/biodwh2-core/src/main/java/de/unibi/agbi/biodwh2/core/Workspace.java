@@ -6,22 +6,28 @@ import de.unibi.agbi.biodwh2.core.etl.GraphMapper;
 import de.unibi.agbi.biodwh2.core.etl.GraphMerger;
 import de.unibi.agbi.biodwh2.core.etl.Updater;
 import de.unibi.agbi.biodwh2.core.exceptions.*;
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
 import de.unibi.agbi.biodwh2.core.model.*;
 import de.unibi.agbi.biodwh2.core.model.graph.Graph;
 import de.unibi.agbi.biodwh2.core.model.graph.migration.GraphMigrator;
+import de.unibi.agbi.biodwh2.core.net.HTTPCache;
+import de.unibi.agbi.biodwh2.core.schedule.FileTaskLock;
+import de.unibi.agbi.biodwh2.core.schedule.StagePool;
+import de.unibi.agbi.biodwh2.core.schedule.StageScheduler;
 import de.unibi.agbi.biodwh2.core.text.TableFormatter;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ForkJoinPool;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
 public final class Workspace {
@@ -30,15 +36,35 @@ public final class Workspace {
     public static final int VERSION = 1;
     private static final String SOURCES_DIRECTORY_NAME = "sources";
     private static final String CONFIG_FILE_NAME = "config.json";
+    private static final String HTTP_CACHE_DIRECTORY_NAME = "http-cache";
+    private static final String OUTPUT_VERSIONS_DIRECTORY_NAME = "versions";
+    private static final String CURRENT_OUTPUT_VERSION_FILE_NAME = "current";
+    private static final String BUILDING_MARKER_FILE_NAME = ".building";
+    private static final DateTimeFormatter OUTPUT_VERSION_FORMATTER = DateTimeFormatter.ofPattern(
+            "yyyyMMdd-HHmmss-SSS");
+    private static final int OUTPUT_VERSIONS_TO_KEEP = 2;
+    private static final String PIN_LEASE_FILE_PREFIX = ".pin-";
+    private static final long PIN_LEASE_STALE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final String DELETING_OUTPUT_VERSION_SUFFIX = ".deleting";
+    private static final long DATA_SOURCE_ACTION_TIMEOUT_SECONDS = 120;
+    private static final String WORKER_RUN_FILE_NAME = "worker-run";
+    private static final long WORKER_LOCK_STALE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final long WORKER_POLL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long WORKER_RUN_WAIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
     private final String workingDirectory;
     private final Configuration configuration;
+    private final HTTPCache httpCache;
     private final DataSource[] dataSources;
+    private DataSource[] preparedDataSources = new DataSource[0];
+    private String buildingOutputVersion;
 
     public Workspace(final String workingDirectory) {
         this.workingDirectory = workingDirectory;
         createWorkingDirectoryIfNotExists();
         configuration = createOrLoadConfiguration();
+        httpCache = new HTTPCache(Paths.get(workingDirectory, HTTP_CACHE_DIRECTORY_NAME),
+                                  TimeUnit.MINUTES.toMillis(configuration.getHttpCacheTimeToLiveMinutes()));
         dataSources = getUsedDataSources();
     }
 
@@ -98,24 +124,58 @@ public final class Workspace {
         return configuration;
     }
 
+    /**
+     * @return Cache of website sources, resolved URLs and download validators shared by the updaters of this workspace
+     */
+    public HTTPCache getHTTPCache() {
+        return httpCache;
+    }
+
     public void checkState(final boolean verbose) {
         if (prepareDataSources() && LOGGER.isInfoEnabled()) {
-            LOGGER.info(createStateTable(verbose));
-            final List<String> notUpToDate = Arrays.stream(dataSources).filter(d -> !d.isUpToDate()).map(
-                    DataSource::getId).collect(Collectors.toList());
-            final int countUpToDate = dataSources.length - notUpToDate.size();
-            LOGGER.info((countUpToDate == dataSources.length) ? "All data sources are up-to-date." :
-                        countUpToDate + "/" + dataSources.length + " data sources are up-to-date.");
+            final List<Version> newestVersions = createDataSourceActionRunner().run(
+                    preparedDataSources, "newest version lookup", dataSource -> dataSource.getNewestVersion(this),
+                    null);
+            LOGGER.info(createStateTable(verbose, newestVersions));
+            final List<String> notUpToDate = new ArrayList<>();
+            for (int i = 0; i < preparedDataSources.length; i++)
+                if (!preparedDataSources[i].isUpToDate(newestVersions.get(i)))
+                    notUpToDate.add(preparedDataSources[i].getId());
+            final List<String> skipped = new ArrayList<>();
+            for (final DataSource dataSource : dataSources)
+                if (!ArrayUtils.contains(preparedDataSources, dataSource))
+                    skipped.add(dataSource.getId());
+            final int countUpToDate = preparedDataSources.length - notUpToDate.size();
+            if (countUpToDate == dataSources.length)
+                LOGGER.info("All data sources are up-to-date.");
+            else if (skipped.size() > 0)
+                LOGGER.info(countUpToDate + "/" + dataSources.length + " data sources are up-to-date, " +
+                            skipped.size() + " skipped because preparation failed.");
+            else
+                LOGGER.info(countUpToDate + "/" + dataSources.length + " data sources are up-to-date.");
             if (notUpToDate.size() > 0)
                 LOGGER.info("Data sources to be updated: " + StringUtils.join(notUpToDate, ", "));
+            if (skipped.size() > 0)
+                LOGGER.info("Data sources skipped: " + StringUtils.join(skipped, ", "));
         }
     }
 
+    /**
+     * Prepare the data sources concurrently. Data sources whose preparation failed or timed out have no metadata and
+     * are skipped by the following steps.
+     *
+     * @return false if there are data sources but none of them could be prepared
+     */
     private boolean prepareDataSources() {
-        boolean success = true;
-        for (final DataSource dataSource : dataSources)
-            success = success && prepareDataSource(dataSource);
-        return true;
+        preparedDataSources = createDataSourceActionRunner().select(dataSources, "preparation",
+                                                                    this::prepareDataSource);
+        return dataSources.length == 0 || preparedDataSources.length > 0;
+    }
+
+    private DataSourceActionRunner createDataSourceActionRunner() {
+        // State checks are dominated by request latency, so they use the network thread limit
+        return new DataSourceActionRunner(configuration.getNumberOfNetworkThreads(),
+                                          TimeUnit.SECONDS.toMillis(DATA_SOURCE_ACTION_TIMEOUT_SECONDS));
     }
 
     private boolean prepareDataSource(final DataSource dataSource) {
@@ -129,24 +189,24 @@ public final class Workspace {
         }
     }
 
-    private String createStateTable(final boolean verbose) {
+    private String createStateTable(final boolean verbose, final List<Version> newestVersions) {
         final List<String> headers = new ArrayList<>();
         Collections.addAll(headers, "SourceID", "Version is up-to-date", "Version", "new Version",
                            "Time of latest update", "Parse successful", "Export successful");
         if (verbose)
             headers.add("Files");
         final List<List<String>> rows = new ArrayList<>();
-        for (final DataSource dataSource : dataSources)
-            rows.add(createDataSourceStateRow(dataSource, verbose));
+        for (int i = 0; i < preparedDataSources.length; i++)
+            rows.add(createDataSourceStateRow(preparedDataSources[i], newestVersions.get(i), verbose));
         return new TableFormatter().format(headers, rows);
     }
 
-    private List<String> createDataSourceStateRow(final DataSource dataSource, final boolean verbose) {
+    private List<String> createDataSourceStateRow(final DataSource dataSource, final Version latestVersion,
+                                                  final boolean verbose) {
         final List<String> row = new ArrayList<>();
         final DataSourceMetadata metadata = dataSource.getMetadata();
-        final Version latestVersion = dataSource.getNewestVersion();
         final LocalDateTime updateDateTime = metadata.getLocalUpdateDateTime();
-        Collections.addAll(row, dataSource.getId(), dataSource.isUpToDate() ? "true" : "-",
+        Collections.addAll(row, dataSource.getId(), dataSource.isUpToDate(latestVersion) ? "true" : "-",
                            metadata.version == null ? "-" : metadata.version.toString(),
                            latestVersion == null ? "-" : latestVersion.toString(),
                            updateDateTime == null ? "-" : updateDateTime.toString(),
@@ -165,19 +225,25 @@ public final class Workspace {
         if (prepareDataSources()) {
 
             long start = System.currentTimeMillis();
-            for (final DataSource dataSource : dataSources)
+            for (final DataSource dataSource : preparedDataSources)
                 if (dataSourceId == null || dataSource.getId().equals(dataSourceId))
                     processDataSource(dataSource, version, skipUpdate);
             long stop = System.currentTimeMillis();
             long elapsed = stop - start;
             LOGGER.info("[SEQUENTIAL MODE] Finished update and export of data sources within " + elapsed + " ms (" + elapsed/1000 + "s)");
 
-            mergeDataSources();
-            mapDataSources();
-
+            mergeAndMapDataSources();
         }
     }
 
+    /**
+     * Process data sources as a graph of stages. Updates run in the network pool, parsing, graph export and meta graph
+     * generation in the CPU pool and GraphML writing in the disk pool, so slow downloads don't hold CPU threads and
+     * finished sources are written while others are still parsed. Merging and mapping run once all sources finished.
+     * Parsing of a data source only starts once its estimated memory cost fits into the configured heap budget.
+     *
+     * @param numThreads Number of threads for CPU bound stages
+     */
     public void processDataSourcesInParallel(final String dataSourceId, final String version, final boolean skipUpdate,
                                              final int numThreads) {
         if (configuration.getDataSourceIds().length == 0)
@@ -185,46 +251,235 @@ public final class Workspace {
                                          "have been added to the workspace config.json either directly or via " +
                                          "command line.");
         if (prepareDataSources()) {
+            final StageScheduler scheduler = new StageScheduler();
+            scheduler.setLimit(StagePool.NETWORK, configuration.getNumberOfNetworkThreads());
+            scheduler.setLimit(StagePool.CPU, Math.max(1, numThreads));
+            scheduler.setLimit(StagePool.DISK, configuration.getNumberOfDiskThreads());
+            final long memoryBudget = Runtime.getRuntime().maxMemory() / 100 *
+                                      configuration.getMemoryBudgetPercentage();
+            scheduler.setMemoryBudget(memoryBudget);
+            final List<StageScheduler.Task> dataSourceTasks = new ArrayList<>();
+            for (final DataSource dataSource : preparedDataSources)
+                if (dataSourceId == null || dataSource.getId().equals(dataSourceId))
+                    dataSourceTasks.add(addDataSourceTasks(scheduler, dataSource, version, skipUpdate));
+            // Source graphs are read by the merger, so it waits for all stages of all sources
+            final StageScheduler.Task merge = scheduler.addTaskIgnoringFailures("merge", StagePool.CPU,
+                                                                                this::mergeDataSources,
+                                                                                dataSourceTasks);
+            final StageScheduler.Task map = scheduler.addTask("map", StagePool.CPU, () -> {
+                mapDataSources();
+                return true;
+            }, merge);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("[PARALLEL MODE] Running stages with " + scheduler.getLimit(StagePool.NETWORK) +
+                            " network, " + scheduler.getLimit(StagePool.CPU) + " CPU and " +
+                            scheduler.getLimit(StagePool.DISK) + " disk threads and a memory budget of " +
+                            memoryBudget / (1024 * 1024) + " MB");
+            final long start = System.currentTimeMillis();
+            buildOutputVersion(() -> {
+                try {
+                    scheduler.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new WorkspaceException("Processing of data sources was interrupted", e);
+                }
+                return map.isCompleted();
+            });
+            final long elapsed = System.currentTimeMillis() - start;
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("[PARALLEL MODE] Finished processing of data sources within " + elapsed + " ms (" +
+                            elapsed / 1000 + "s)");
+        }
+    }
 
-            ForkJoinPool threadPool = null;
+    /**
+     * Coordinate a run of worker processes sharing this workspace, possibly on different hosts. The coordinator starts
+     * the run, processes data sources like any worker and merges and maps once all data sources are finished.
+     */
+    public void processDataSourcesAsCoordinator(final boolean skipUpdate) {
+        if (configuration.getDataSourceIds().length == 0)
+            throw new WorkspaceException("No data sources have been selected. Please ensure that data source IDs " +
+                                         "have been added to the workspace config.json either directly or via " +
+                                         "command line.");
+        final String runId = beginWorkerRun();
+        try {
+            if (prepareDataSources() && processWorkerTasks(runId, skipUpdate)) {
+                // Reload the metadata written by other workers
+                prepareDataSources();
+                mergeAndMapDataSources();
+            }
+        } finally {
+            if (runId.equals(readWorkerRunId()))
+                FileUtils.safeDelete(getWorkerRunFilePath());
+        }
+    }
 
-            try {
+    /**
+     * Join the run of a coordinator and process data sources not claimed by other workers until all data sources are
+     * finished. Each data source is claimed through a lock file in its source directory.
+     */
+    public void processDataSourcesAsWorker(final boolean skipUpdate) {
+        final String runId = waitForWorkerRun();
+        if (runId == null) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("No coordinator started a worker run in this workspace");
+            return;
+        }
+        if (prepareDataSources())
+            processWorkerTasks(runId, skipUpdate);
+    }
+
+    private Path getWorkerRunFilePath() {
+        return Paths.get(getSourcesDirectory(), WORKER_RUN_FILE_NAME);
+    }
+
+    private String beginWorkerRun() {
+        final String runId = UUID.randomUUID().toString();
+        final Path filePath = getWorkerRunFilePath();
+        final Path tempFilePath = filePath.resolveSibling(WORKER_RUN_FILE_NAME + ".tmp");
+        try {
+            Files.write(tempFilePath, runId.getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to start the worker run", e);
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Started worker run '" + runId + "'");
+        return runId;
+    }
+
+    private String readWorkerRunId() {
+        final Path filePath = getWorkerRunFilePath();
+        try {
+            return Files.exists(filePath) ? new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8) : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to read the worker run", e);
+        }
+    }
+
+    private String waitForWorkerRun() {
+        final long deadline = System.currentTimeMillis() + WORKER_RUN_WAIT_TIMEOUT_MILLIS;
+        String runId;
+        while ((runId = readWorkerRunId()) == null && System.currentTimeMillis() < deadline)
+            sleepUntilNextWorkerPoll();
+        return runId;
+    }
+
+    private void sleepUntilNextWorkerPoll() {
+        try {
+            Thread.sleep(WORKER_POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorkspaceException("Waiting for workers was interrupted", e);
+        }
+    }
 
-                // init new thread pool for processing
-                LOGGER.info("[PARALLEL MODE] Creating new thread pool with " + numThreads + " threads ... ");
-                threadPool = new ForkJoinPool(numThreads);
-                long start = System.currentTimeMillis();
-                threadPool.submit(() -> Stream.of(dataSources).parallel().forEach(dataSource -> {
-
-                    // submit task to pool
-                    if (dataSourceId == null || dataSource.getId().equals(dataSourceId)) {
-                        processDataSource(dataSource, version, skipUpdate);
-                    }
-
-                })).get();
-
-                long stop = System.currentTimeMillis();
-                long elapsed = stop - start;
-                LOGGER.info("[PARALLEL MODE] Finished update and export of data sources within " + elapsed + " ms (" + elapsed/1000 + "s) with " + numThreads + " threads");
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                // shutting down thread pool (execution continued in common pool)
-                if (threadPool != null) {
-                    LOGGER.info("[PARALLEL MODE] Shutting down thread pool ...");
-                    threadPool.shutdown();
+    /**
+     * Process all unfinished data sources of the run which can be claimed and wait for those claimed by other
+     * workers. A claim of a crashed worker becomes stale and is taken over.
+     *
+     * @return false if the run was ended or replaced by another coordinator before all data sources finished
+     */
+    private boolean processWorkerTasks(final String runId, final boolean skipUpdate) {
+        while (runId.equals(readWorkerRunId())) {
+            boolean pending = false;
+            for (final DataSource dataSource : preparedDataSources) {
+                if (!isWorkerTaskFinished(dataSource, runId))
+                    pending |= !tryProcessWorkerTask(dataSource, runId, skipUpdate);
+            }
+            if (!pending)
+                return true;
+            sleepUntilNextWorkerPoll();
+        }
+        if (LOGGER.isWarnEnabled())
+            LOGGER.warn("Worker run '" + runId + "' was ended by the coordinator");
+        return false;
+    }
+
+    /**
+     * @return false if the data source is claimed by another worker
+     */
+    private boolean tryProcessWorkerTask(final DataSource dataSource, final String runId, final boolean skipUpdate) {
+        final Path lockFilePath = dataSource.getFilePath(this, DataSourceFileType.WORKER_LOCK);
+        try (FileTaskLock lock = FileTaskLock.tryAcquire(lockFilePath, WORKER_LOCK_STALE_TIMEOUT_MILLIS)) {
+            if (lock == null)
+                return false;
+            // Another worker may have finished the data source between the check and the claim
+            if (!isWorkerTaskFinished(dataSource, runId)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Claimed data source '" + dataSource.getId() + "' as " + lock.getOwner());
+                try {
+                    processDataSource(dataSource, null, skipUpdate);
+                } catch (RuntimeException e) {
+                    // The data source is still finished for this run, so other workers don't retry it endlessly
+                    if (LOGGER.isErrorEnabled())
+                        LOGGER.error("Processing of data source '" + dataSource.getId() + "' failed", e);
                 }
+                Files.write(dataSource.getFilePath(this, DataSourceFileType.WORKER_FINISHED_RUN),
+                            runId.getBytes(StandardCharsets.UTF_8));
             }
+            return true;
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to claim data source '" + dataSource.getId() + "'", e);
+        }
+    }
 
-            mergeDataSources();
-            mapDataSources();
+    private boolean isWorkerTaskFinished(final DataSource dataSource, final String runId) {
+        final Path filePath = dataSource.getFilePath(this, DataSourceFileType.WORKER_FINISHED_RUN);
+        try {
+            return Files.exists(filePath) && runId.equals(
+                    new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return false;
         }
     }
 
+    private StageScheduler.Task addDataSourceTasks(final StageScheduler scheduler, final DataSource dataSource,
+                                                   final String version, final boolean skipUpdate) {
+        final String id = dataSource.getId();
+        final StageScheduler.Task update = scheduler.addTask(id + " update", StagePool.NETWORK,
+                                                             () -> updateDataSource(dataSource, version, skipUpdate));
+        final StageScheduler.Task parse = scheduler.addTask(id + " parse", StagePool.CPU, () -> {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Running parser of data source '" + id + "'");
+            return dataSource.parse(this);
+        }, update);
+        final StageScheduler.Task exportGraph = scheduler.addTask(id + " export graph", StagePool.CPU, () -> {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Running exporter of data source '" + id + "'");
+            return dataSource.exportPersistentGraph(this);
+        }, parse);
+        // The parsed data is held in memory until it was exported into the persistent graph
+        scheduler.reserveMemory(parse, exportGraph, dataSource.getEstimatedMemoryCost());
+        final StageScheduler.Task exportGraphML = scheduler.addTask(id + " export GraphML", StagePool.DISK,
+                                                                    () -> dataSource.exportGraphML(this),
+                                                                    exportGraph);
+        return scheduler.addTask(id + " meta graph", StagePool.CPU, () -> dataSource.exportMetaGraph(this),
+                                 exportGraphML);
+    }
+
     private void processDataSource(final DataSource dataSource, final String version, final boolean skipUpdate) {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Processing of data source '" + dataSource.getId() + "' started");
+        if (updateDataSource(dataSource, version, skipUpdate)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Running parser");
+            if (dataSource.parse(this)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Running exporter");
+                dataSource.export(this);
+            }
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Processing of data source '" + dataSource.getId() + "' finished");
+    }
+
+    /**
+     * @return true if the data source needs to be parsed and exported afterwards
+     */
+    private boolean updateDataSource(final DataSource dataSource, final String version, final boolean skipUpdate) {
         Updater.UpdateState updateState;
         if (skipUpdate) {
             updateState = Updater.UpdateState.ALREADY_UP_TO_DATE;
@@ -232,34 +487,35 @@ public final class Workspace {
                 if (LOGGER.isErrorEnabled())
                     LOGGER.error("Update was skipped for data source '" + dataSource.getId() +
                                  "' without successful previous update.");
-                return;
+                return false;
             }
         } else {
             if (LOGGER.isInfoEnabled())
-                LOGGER.info("Running updater");
+                LOGGER.info("Running updater of data source '" + dataSource.getId() + "'");
             updateState = version == null ? dataSource.updateAutomatic(this) : dataSource.updateManually(this, version);
         }
-        if (isDataSourceExportNeeded(updateState, dataSource)) {
-            if (LOGGER.isInfoEnabled())
-                LOGGER.info("Running parser");
-            if (dataSource.parse(this)) {
-                if (LOGGER.isInfoEnabled())
-                    LOGGER.info("Running exporter");
-                dataSource.export(this);
-            }
-        } else if (LOGGER.isInfoEnabled())
-            LOGGER.info("Skipping export of data source '" + dataSource.getId() + "' because nothing changed");
+        if (isDataSourceExportNeeded(updateState, dataSource))
+            return true;
         if (LOGGER.isInfoEnabled())
-            LOGGER.info("Processing of data source '" + dataSource.getId() + "' finished");
+            LOGGER.info("Skipping export of data source '" + dataSource.getId() + "' because nothing changed");
+        return false;
     }
 
     private boolean isDataSourceExportNeeded(final Updater.UpdateState updateState, final DataSource dataSource) {
-        if (updateState == Updater.UpdateState.UPDATED || isDataSourceExportForced(dataSource))
+        if (isDataSourceExportForced(dataSource))
             return true;
         final DataSourceMetadata metadata = dataSource.getMetadata();
-        return metadata.exportSuccessful == null || !metadata.exportSuccessful || areDataSourceExportsMissing(
+        if (metadata.exportSuccessful == null || !metadata.exportSuccessful || areDataSourceExportsMissing(
                 dataSource) || isDataSourceExportOutdated(dataSource, metadata) || isExportedGraphVersionOutdated(
-                dataSource);
+                dataSource))
+            return true;
+        if (updateState != Updater.UpdateState.UPDATED)
+            return false;
+        if (dataSource.haveSourceFilesChangedSinceExport(this))
+            return true;
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Source files of data source '" + dataSource.getId() + "' are unchanged since the last export");
+        return false;
     }
 
     private boolean isDataSourceExportForced(final DataSource dataSource) {
@@ -291,27 +547,348 @@ public final class Workspace {
         return exportedVersion == null || Graph.VERSION > exportedVersion;
     }
 
-    private void mergeDataSources() {
+    /**
+     * Merge and map into a new output version, which only becomes the current version after mapping finished. Readers
+     * of the previous version are not affected while the new version is built.
+     */
+    private void mergeAndMapDataSources() {
+        buildOutputVersion(() -> {
+            if (!mergeDataSources())
+                return false;
+            mapDataSources();
+            return true;
+        });
+    }
+
+    private void buildOutputVersion(final BooleanSupplier build) {
+        beginOutputVersion();
+        boolean published = false;
+        try {
+            if (build.getAsBoolean()) {
+                publishOutputVersion();
+                published = true;
+            }
+        } finally {
+            if (!published)
+                discardOutputVersion();
+        }
+    }
+
+    private boolean mergeDataSources() {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Merging of data sources started");
         try {
-            new GraphMerger().merge(this, dataSources);
+            new GraphMerger().merge(this, preparedDataSources);
             if (LOGGER.isInfoEnabled())
                 LOGGER.info("Merging of data sources finished");
+            return true;
         } catch (MergerException e) {
             if (LOGGER.isErrorEnabled())
                 LOGGER.error("Merging of data sources failed", e);
+            return false;
         }
     }
 
+    /**
+     * Get the path of a workspace output file. While a new output version is built this is the path inside the new
+     * version, otherwise the path inside the current version.
+     */
     public Path getFilePath(final WorkspaceFileType type) {
-        return Paths.get(getSourcesDirectory(), type.getName());
+        if (buildingOutputVersion != null)
+            return getFilePath(buildingOutputVersion, type);
+        // Workspaces without output versions keep their outputs directly in the sources directory
+        return getPublishedFilePath(type);
+    }
+
+    /**
+     * Get the path of a workspace output file in the published output version, even while a new output version is
+     * built. This allows building the new version from the previous outputs.
+     */
+    public Path getPublishedFilePath(final WorkspaceFileType type) {
+        final String currentOutputVersion = getCurrentOutputVersion();
+        return currentOutputVersion != null ? getFilePath(currentOutputVersion, type) : Paths.get(
+                getSourcesDirectory(), type.getName());
+    }
+
+    public Path getFilePath(final String outputVersion, final WorkspaceFileType type) {
+        return getOutputVersionsDirectory().resolve(outputVersion).resolve(type.getName());
+    }
+
+    private Path getOutputVersionsDirectory() {
+        return Paths.get(getSourcesDirectory(), OUTPUT_VERSIONS_DIRECTORY_NAME);
+    }
+
+    private Path getCurrentOutputVersionFilePath() {
+        return getOutputVersionsDirectory().resolve(CURRENT_OUTPUT_VERSION_FILE_NAME);
+    }
+
+    /**
+     * @return Name of the current output version or null if no output version was published yet
+     */
+    public String getCurrentOutputVersion() {
+        final Path filePath = getCurrentOutputVersionFilePath();
+        try {
+            if (Files.exists(filePath)) {
+                final String version = new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8).trim();
+                return version.isEmpty() ? null : version;
+            }
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to read the current output version", e);
+        }
+        return null;
+    }
+
+    /**
+     * @return Names of all existing output versions in ascending order
+     */
+    public String[] getOutputVersions() {
+        final Path directory = getOutputVersionsDirectory();
+        if (!Files.isDirectory(directory))
+            return new String[0];
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(Files::isDirectory).map(p -> p.getFileName().toString()).filter(
+                    name -> !name.endsWith(DELETING_OUTPUT_VERSION_SUFFIX)).sorted().toArray(String[]::new);
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to list output versions", e);
+        }
+    }
+
+    /**
+     * Open a workspace graph of the current output version read-only. The graph stays pinned to this version even if
+     * a newer version is published while it is open, as the version isn't deleted until the graph is closed.
+     */
+    public Graph openGraph(final WorkspaceFileType type) {
+        final String currentOutputVersion = getCurrentOutputVersion();
+        return currentOutputVersion != null ? openGraph(currentOutputVersion, type) : new Graph(
+                Paths.get(getSourcesDirectory(), type.getName()), true, true);
+    }
+
+    /**
+     * Open a workspace graph of a specific output version read-only.
+     */
+    public Graph openGraph(final String outputVersion, final WorkspaceFileType type) {
+        final FileTaskLock lease = acquirePinLease(outputVersion);
+        final Graph graph;
+        try {
+            final Path filePath = getFilePath(outputVersion, type);
+            if (Files.notExists(filePath))
+                throw new WorkspaceException("Graph '" + type.getName() + "' doesn't exist in output version '" +
+                                             outputVersion + "'");
+            graph = new Graph(filePath, true, true);
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+        graph.onClose(lease::close);
+        return graph;
+    }
+
+    /**
+     * Pin an output version with a lease file in its directory, which is refreshed while it is held. Versions with
+     * leases aren't deleted, leases not refreshed within the stale timeout belong to crashed readers.
+     */
+    private FileTaskLock acquirePinLease(final String outputVersion) {
+        final Path leaseFilePath = getOutputVersionsDirectory().resolve(outputVersion).resolve(
+                PIN_LEASE_FILE_PREFIX + UUID.randomUUID());
+        try {
+            final FileTaskLock lease = FileTaskLock.tryAcquire(leaseFilePath, PIN_LEASE_STALE_TIMEOUT_MILLIS);
+            if (lease != null)
+                return lease;
+        } catch (NoSuchFileException e) {
+            throw new WorkspaceException("Output version '" + outputVersion + "' doesn't exist", e);
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to pin output version '" + outputVersion + "'", e);
+        }
+        throw new WorkspaceException("Failed to pin output version '" + outputVersion + "'");
+    }
+
+    private boolean isOutputVersionPinned(final Path directory) {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(p -> p.getFileName().toString().startsWith(PIN_LEASE_FILE_PREFIX)).anyMatch(
+                    this::isPinLeaseAlive);
+        } catch (IOException e) {
+            // Keep versions whose leases can't be checked
+            return true;
+        }
+    }
+
+    private boolean isPinLeaseAlive(final Path leaseFilePath) {
+        try {
+            final long modified = Files.getLastModifiedTime(leaseFilePath).toMillis();
+            return System.currentTimeMillis() - modified <= PIN_LEASE_STALE_TIMEOUT_MILLIS;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Begin building a new output version. An output version whose build was interrupted by a crash, and which is
+     * newer than the current version, is resumed instead, so merging and mapping can continue from their checkpoints.
+     */
+    void beginOutputVersion() {
+        final String interruptedVersion = findInterruptedOutputVersion();
+        if (interruptedVersion != null) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Resuming interrupted output version '" + interruptedVersion + "'");
+            buildingOutputVersion = interruptedVersion;
+            return;
+        }
+        String version = LocalDateTime.now().format(OUTPUT_VERSION_FORMATTER);
+        for (int i = 1; Files.exists(getOutputVersionsDirectory().resolve(version)); i++)
+            version = LocalDateTime.now().format(OUTPUT_VERSION_FORMATTER) + "-" + i;
+        try {
+            Files.createDirectories(getOutputVersionsDirectory().resolve(version));
+            Files.createFile(getOutputVersionsDirectory().resolve(version).resolve(BUILDING_MARKER_FILE_NAME));
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to create output version directory", e);
+        }
+        buildingOutputVersion = version;
+    }
+
+    private String findInterruptedOutputVersion() {
+        final String currentOutputVersion = getCurrentOutputVersion();
+        final String[] versions = getOutputVersions();
+        for (int i = versions.length - 1; i >= 0; i--) {
+            if (currentOutputVersion != null && versions[i].compareTo(currentOutputVersion) <= 0)
+                break;
+            if (Files.exists(getOutputVersionsDirectory().resolve(versions[i]).resolve(BUILDING_MARKER_FILE_NAME)))
+                return versions[i];
+        }
+        return null;
+    }
+
+    /**
+     * Switch the current output version pointer to the version being built. The pointer file is replaced with an
+     * atomic move, so readers see either the old or the new version.
+     */
+    void publishOutputVersion() {
+        final Path filePath = getCurrentOutputVersionFilePath();
+        final Path tempFilePath = filePath.resolveSibling(CURRENT_OUTPUT_VERSION_FILE_NAME + ".tmp");
+        try {
+            Files.write(tempFilePath, buildingOutputVersion.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFilePath, filePath, StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new WorkspaceException("Failed to publish output version '" + buildingOutputVersion + "'", e);
+        }
+        FileUtils.safeDelete(getOutputVersionsDirectory().resolve(buildingOutputVersion).resolve(
+                BUILDING_MARKER_FILE_NAME));
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Published output version '" + buildingOutputVersion + "'");
+        buildingOutputVersion = null;
+        deleteOldOutputVersions();
+    }
+
+    private void discardOutputVersion() {
+        if (buildingOutputVersion != null)
+            deleteOutputVersion(buildingOutputVersion);
+        buildingOutputVersion = null;
+    }
+
+    private void deleteOldOutputVersions() {
+        final List<String> versions = new ArrayList<>(Arrays.asList(getOutputVersions()));
+        final Set<String> remainingVersions = new HashSet<>(versions);
+        versions.remove(getCurrentOutputVersion());
+        // Versions are sorted by creation time, keep the newest previous versions for readers still using them. Older
+        // versions are visited newest first, so a version is only deleted once no remaining version is based on it.
+        for (int i = versions.size() - OUTPUT_VERSIONS_TO_KEEP; i >= 0; i--) {
+            final String version = versions.get(i);
+            if (isOutputVersionReferenced(version, remainingVersions)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Keeping output version '" + version + "' as a newer merged graph is based on it");
+            } else if (deleteOutputVersionIfUnpinned(version))
+                remainingVersions.remove(version);
+        }
+        deleteLeftoverOutputVersions();
+    }
+
+    /**
+     * Merged graphs may be overlays of the merged graph in an older version, which needs to be kept as long as they
+     * exist. Versions whose merged graph can't be inspected keep all older versions.
+     */
+    private boolean isOutputVersionReferenced(final String version, final Set<String> remainingVersions) {
+        final Path directory = getOutputVersionsDirectory().resolve(version).toAbsolutePath().normalize();
+        for (final String remainingVersion : remainingVersions) {
+            if (remainingVersion.compareTo(version) <= 0)
+                continue;
+            final Path graphFilePath = getFilePath(remainingVersion, WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
+            if (!Files.exists(graphFilePath))
+                continue;
+            try {
+                final Path baseFilePath = Graph.peekBaseFilePath(graphFilePath);
+                if (baseFilePath != null && baseFilePath.toAbsolutePath().normalize().startsWith(directory))
+                    return true;
+            } catch (IllegalStateException e) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Failed to read the base graph of output version '" + remainingVersion + "'", e);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Delete the version unless a reader pinned it. The directory is moved away before deleting, so readers can no
+     * longer pin it. A lease created just before the move is found in the moved directory, which is then moved back.
+     *
+     * @return true if the version was deleted
+     */
+    private boolean deleteOutputVersionIfUnpinned(final String version) {
+        final Path directory = getOutputVersionsDirectory().resolve(version);
+        final Path deletingDirectory = directory.resolveSibling(version + DELETING_OUTPUT_VERSION_SUFFIX);
+        if (isOutputVersionPinned(directory)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Keeping output version '" + version + "' while it is in use");
+            return false;
+        }
+        try {
+            Files.move(directory, deletingDirectory, StandardCopyOption.ATOMIC_MOVE);
+            if (isOutputVersionPinned(deletingDirectory)) {
+                Files.move(deletingDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+                return false;
+            }
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to delete output version '" + version + "'", e);
+            return false;
+        }
+        deleteDirectory(deletingDirectory, version);
+        return true;
+    }
+
+    private void deleteLeftoverOutputVersions() {
+        try (Stream<Path> paths = Files.list(getOutputVersionsDirectory())) {
+            paths.filter(p -> p.getFileName().toString().endsWith(DELETING_OUTPUT_VERSION_SUFFIX)).filter(
+                    p -> !isOutputVersionPinned(p)).forEach(p -> deleteDirectory(p, p.getFileName().toString()));
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to list output versions", e);
+        }
+    }
+
+    private void deleteOutputVersion(final String version) {
+        deleteDirectory(getOutputVersionsDirectory().resolve(version), version);
+    }
+
+    private void deleteDirectory(final Path directory, final String version) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(FileUtils::safeDelete);
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to delete output version '" + version + "'", e);
+        }
     }
 
     private void mapDataSources() {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Mapping of data sources started");
-        new GraphMapper().map(this, dataSources);
+        new GraphMapper().map(this, preparedDataSources);
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Mapping of data sources finished");
     }
@@ -0,0 +1,192 @@
+package de.unibi.agbi.biodwh2.core.collections;
+
+import java.util.*;
+
+/**
+ * Set of long values stored as bits in pages of 4096 values each. Only pages containing at least one value are
+ * allocated, so densely allocated ids need a single bit per id while sparse ids still work. Iteration is in ascending
+ * order.
+ */
+public final class LongBitSet extends AbstractSet<Long> {
+    private static final int PAGE_SHIFT = 12;
+    private static final int WORDS_PER_PAGE = 1 << (PAGE_SHIFT - 6);
+    private static final long PAGE_MASK = (1L << PAGE_SHIFT) - 1;
+
+    private long[] pageKeys;
+    private long[][] pages;
+    private int pageCount;
+    private int size;
+
+    public LongBitSet() {
+        pageKeys = new long[4];
+        pages = new long[4][];
+    }
+
+    public LongBitSet(final Collection<Long> values) {
+        this();
+        addAll(values);
+    }
+
+    private int findPage(final long pageKey) {
+        // Values are mostly appended in ascending order, so check the last page first
+        if (pageCount > 0 && pageKeys[pageCount - 1] == pageKey)
+            return pageCount - 1;
+        return Arrays.binarySearch(pageKeys, 0, pageCount, pageKey);
+    }
+
+    private long[] getOrCreatePage(final long pageKey) {
+        int index = findPage(pageKey);
+        if (index >= 0)
+            return pages[index];
+        index = -index - 1;
+        if (pageCount == pageKeys.length) {
+            pageKeys = Arrays.copyOf(pageKeys, pageCount * 2);
+            pages = Arrays.copyOf(pages, pageCount * 2);
+        }
+        System.arraycopy(pageKeys, index, pageKeys, index + 1, pageCount - index);
+        System.arraycopy(pages, index, pages, index + 1, pageCount - index);
+        pageKeys[index] = pageKey;
+        pages[index] = new long[WORDS_PER_PAGE];
+        pageCount++;
+        return pages[index];
+    }
+
+    public boolean add(final long value) {
+        final long[] page = getOrCreatePage(value >> PAGE_SHIFT);
+        final int wordIndex = (int) ((value & PAGE_MASK) >>> 6);
+        final long mask = 1L << value;
+        if ((page[wordIndex] & mask) != 0)
+            return false;
+        page[wordIndex] |= mask;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean add(final Long value) {
+        return add(value.longValue());
+    }
+
+    public boolean contains(final long value) {
+        final int index = findPage(value >> PAGE_SHIFT);
+        return index >= 0 && (pages[index][(int) ((value & PAGE_MASK) >>> 6)] & (1L << value)) != 0;
+    }
+
+    @Override
+    public boolean contains(final Object value) {
+        return value instanceof Long && contains(((Long) value).longValue());
+    }
+
+    public boolean remove(final long value) {
+        final int index = findPage(value >> PAGE_SHIFT);
+        if (index < 0)
+            return false;
+        final long[] page = pages[index];
+        final int wordIndex = (int) ((value & PAGE_MASK) >>> 6);
+        final long mask = 1L << value;
+        if ((page[wordIndex] & mask) == 0)
+            return false;
+        // Empty pages are kept so running iterators stay valid
+        page[wordIndex] &= ~mask;
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean remove(final Object value) {
+        return value instanceof Long && remove(((Long) value).longValue());
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends Long> values) {
+        if (!(values instanceof LongBitSet))
+            return super.addAll(values);
+        final LongBitSet other = (LongBitSet) values;
+        final int previousSize = size;
+        for (int i = 0; i < other.pageCount; i++) {
+            final long[] page = getOrCreatePage(other.pageKeys[i]);
+            final long[] otherPage = other.pages[i];
+            for (int j = 0; j < WORDS_PER_PAGE; j++) {
+                size += Long.bitCount(otherPage[j] & ~page[j]);
+                page[j] |= otherPage[j];
+            }
+        }
+        return size != previousSize;
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> values) {
+        if (!(values instanceof LongBitSet))
+            return super.retainAll(values);
+        final LongBitSet other = (LongBitSet) values;
+        final int previousSize = size;
+        size = 0;
+        for (int i = 0; i < pageCount; i++) {
+            final int otherIndex = other.findPage(pageKeys[i]);
+            final long[] page = pages[i];
+            for (int j = 0; j < WORDS_PER_PAGE; j++) {
+                page[j] = otherIndex >= 0 ? page[j] & other.pages[otherIndex][j] : 0;
+                size += Long.bitCount(page[j]);
+            }
+        }
+        return size != previousSize;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        pageKeys = new long[4];
+        pages = new long[4][];
+        pageCount = 0;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private int pageIndex;
+            private int wordIndex = -1;
+            private long word;
+            private long last;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0) {
+                    wordIndex++;
+                    if (wordIndex == WORDS_PER_PAGE) {
+                        wordIndex = 0;
+                        pageIndex++;
+                    }
+                    if (pageIndex >= pageCount)
+                        return false;
+                    word = pages[pageIndex][wordIndex];
+                }
+                return true;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final int bit = Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                last = (pageKeys[pageIndex] << PAGE_SHIFT) | ((long) wordIndex << 6) | bit;
+                canRemove = true;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove)
+                    throw new IllegalStateException();
+                LongBitSet.this.remove(last);
+                canRemove = false;
+            }
+        };
+    }
+}
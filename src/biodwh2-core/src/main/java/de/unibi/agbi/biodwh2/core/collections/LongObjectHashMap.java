@@ -0,0 +1,179 @@
+package de.unibi.agbi.biodwh2.core.collections;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Open addressing hash map from primitive long keys to object values without boxing the keys. Removed entries are
+ * compacted with backward shift deletion, so no tombstones are needed.
+ *
+ * @param <V> the type of mapped values
+ */
+public final class LongObjectHashMap<V> {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeThreshold;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(final int expectedSize) {
+        allocate(Math.max(16, Integer.highestOneBit((int) (expectedSize / LOAD_FACTOR) + 1) << 1));
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        used = new boolean[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private int findSlot(final long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (used[slot] && keys[slot] != key)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(final long key) {
+        return used[findSlot(key)];
+    }
+
+    public V get(final long key) {
+        final int slot = findSlot(key);
+        //noinspection unchecked
+        return used[slot] ? (V) values[slot] : null;
+    }
+
+    public V put(final long key, final V value) {
+        int slot = findSlot(key);
+        if (used[slot]) {
+            //noinspection unchecked
+            final V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (size >= resizeThreshold) {
+            resize();
+            slot = findSlot(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return null;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final boolean[] oldUsed = used;
+        allocate(keys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = findSlot(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    public V remove(final long key) {
+        int slot = findSlot(key);
+        if (!used[slot])
+            return null;
+        //noinspection unchecked
+        final V previous = (V) values[slot];
+        final int mask = keys.length - 1;
+        // Shift following entries of the probe sequence back so lookups never hit a gap
+        int next = (slot + 1) & mask;
+        while (used[next]) {
+            final int ideal = hash(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[slot] = false;
+        values[slot] = null;
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * @return Iterator over all keys in no particular order, the map must not be modified while iterating
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int slot = advance(0);
+
+            private int advance(int from) {
+                while (from < used.length && !used[from])
+                    from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return slot < used.length;
+            }
+
+            @Override
+            public long nextLong() {
+                if (slot >= used.length)
+                    throw new NoSuchElementException();
+                final long key = keys[slot];
+                slot = advance(slot + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * @return Iterator over all values in no particular order, the map must not be modified while iterating
+     */
+    public Iterator<V> valueIterator() {
+        final PrimitiveIterator.OfLong keyIterator = keyIterator();
+        return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return keyIterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return get(keyIterator.nextLong());
+            }
+        };
+    }
+}
@@ -3,18 +3,26 @@ package de.unibi.agbi.biodwh2.core.etl;
 import de.unibi.agbi.biodwh2.core.DataSource;
 import de.unibi.agbi.biodwh2.core.Workspace;
 import de.unibi.agbi.biodwh2.core.exceptions.ExporterException;
+import de.unibi.agbi.biodwh2.core.exceptions.GraphCacheException;
 import de.unibi.agbi.biodwh2.core.graphics.MetaGraphImage;
 import de.unibi.agbi.biodwh2.core.io.FileUtils;
 import de.unibi.agbi.biodwh2.core.io.graph.GraphMLGraphWriter;
 import de.unibi.agbi.biodwh2.core.model.DataSourceFileType;
+import de.unibi.agbi.biodwh2.core.model.DataSourceMetadata;
 import de.unibi.agbi.biodwh2.core.model.graph.*;
+import de.unibi.agbi.biodwh2.core.model.graph.diff.GraphDiff;
+import de.unibi.agbi.biodwh2.core.model.graph.diff.GraphDiffResult;
 import de.unibi.agbi.biodwh2.core.model.graph.meta.MetaGraph;
+import de.unibi.agbi.biodwh2.core.model.graph.migration.GraphMigrator;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphDynamicVisWriter;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphStatisticsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public abstract class GraphExporter<D extends DataSource> {
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphExporter.class);
@@ -26,24 +34,150 @@ public abstract class GraphExporter<D extends DataSource> {
         this.dataSource = dataSource;
     }
 
+    @FunctionalInterface
+    protected interface Step {
+        void run() throws ExporterException;
+    }
+
     public abstract long getExportVersion();
 
     public final boolean export(final Workspace workspace) throws ExporterException {
-        boolean exportSuccessful;
-        try (Graph g = new Graph(dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH))) {
-            exportSuccessful = exportGraph(workspace, g);
-            if (exportSuccessful) {
-                exportSuccessful = trySaveGraphToFile(workspace, g);
-                if (exportSuccessful)
-                    generateMetaGraphStatistics(workspace, g);
+        if (!exportPersistentGraph(workspace) || !exportGraphML(workspace))
+            return false;
+        exportMetaGraph(workspace);
+        return true;
+    }
+
+    /**
+     * Export the data source into its persistent graph. This is the only export stage needing the parsed data. An
+     * export of the same data interrupted after some of its {@link #runStep steps} completed is resumed.
+     */
+    public final boolean exportPersistentGraph(final Workspace workspace) throws ExporterException {
+        final String runKey = getCheckpointRunKey();
+        final boolean result;
+        try (Graph g = openPersistentGraphForExport(workspace, runKey)) {
+            g.setBlobThreshold(workspace.getConfiguration().getBlobThreshold());
+            if (runKey.equals(g.getCheckpointRunKey())) {
+                final long removed = g.resumeCheckpoints();
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Resuming interrupted '" + dataSource.getId() + "' export after " +
+                                g.getCheckpointCount() + " completed steps, removed " + removed +
+                                " nodes and edges of the interrupted step");
+            } else
+                g.beginCheckpoints(runKey);
+            result = exportGraph(workspace, g);
+            if (result)
+                g.endCheckpoints();
+        }
+        if (result)
+            compareWithPreviousGraph(workspace);
+        return result;
+    }
+
+    private String getCheckpointRunKey() {
+        final DataSourceMetadata metadata = dataSource.getMetadata();
+        return metadata.version + "@" + metadata.updateDateTime + "#" + getExportVersion();
+    }
+
+    private Graph openPersistentGraphForExport(final Workspace workspace, final String runKey) {
+        final Path filePath = dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH);
+        if (Files.exists(filePath)) {
+            final Integer version = GraphMigrator.peekVersion(filePath);
+            if (version != null && version == Graph.VERSION) {
+                final String previousRunKey;
+                // Peek read-only, so a completed graph kept for comparison isn't modified
+                try (Graph graph = new Graph(filePath, true, true)) {
+                    previousRunKey = graph.getCheckpointRunKey();
+                }
+                if (runKey.equals(previousRunKey))
+                    return new Graph(filePath, true);
+                if (previousRunKey == null && workspace.getConfiguration().shouldDiffExportedGraphs())
+                    keepPreviousGraph(workspace, filePath);
             }
         }
-        return exportSuccessful;
+        return new Graph(filePath, false, false, workspace.getConfiguration().shouldUseDenseGraphIds());
+    }
+
+    private void keepPreviousGraph(final Workspace workspace, final Path filePath) {
+        final Path previousFilePath = dataSource.getFilePath(workspace, DataSourceFileType.PREVIOUS_PERSISTENT_GRAPH);
+        try {
+            Files.move(filePath, previousFilePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to keep the previous '" + dataSource.getId() + "' graph for comparison", e);
+            FileUtils.safeDelete(previousFilePath);
+        }
+    }
+
+    /**
+     * Compare the exported graph with the graph of the previous export and write the changes to the change log. If
+     * all records are unchanged, the previous graph is kept, so the merged and mapped graphs don't need to be rebuilt
+     * for this data source.
+     */
+    private void compareWithPreviousGraph(final Workspace workspace) {
+        final Path previousFilePath = dataSource.getFilePath(workspace, DataSourceFileType.PREVIOUS_PERSISTENT_GRAPH);
+        if (!Files.exists(previousFilePath))
+            return;
+        final Path filePath = dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH);
+        final Path changeLogFilePath = dataSource.getFilePath(workspace, DataSourceFileType.GRAPH_CHANGE_LOG);
+        boolean unchanged = false;
+        try (Graph previousGraph = new Graph(previousFilePath, true, true);
+             Graph graph = new Graph(filePath, true, true)) {
+            final GraphDiffResult result = new GraphDiff(previousGraph, graph).compare(changeLogFilePath);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Compared '" + dataSource.getId() + "' graph with the previous export: " +
+                            result.getAddedNodeCount() + " nodes added, " + result.getRemovedNodeCount() +
+                            " removed, " + result.getChangedNodeCount() + " changed, " + result.getAddedEdgeCount() +
+                            " edges added, " + result.getRemovedEdgeCount() + " removed, " +
+                            result.getChangedEdgeCount() + " changed");
+            unchanged = result.isComplete() && !result.hasChanges();
+        } catch (IOException | GraphCacheException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to compare '" + dataSource.getId() + "' graph with the previous export", e);
+        }
+        if (unchanged)
+            restorePreviousGraph(previousFilePath, filePath);
+        else
+            FileUtils.safeDelete(previousFilePath);
+    }
+
+    private void restorePreviousGraph(final Path previousFilePath, final Path filePath) {
+        try {
+            Files.move(previousFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Keeping the unchanged previous '" + dataSource.getId() + "' graph");
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to restore the unchanged previous '" + dataSource.getId() + "' graph", e);
+            FileUtils.safeDelete(previousFilePath);
+        }
     }
 
     protected abstract boolean exportGraph(final Workspace workspace, final Graph graph) throws ExporterException;
 
-    private boolean trySaveGraphToFile(final Workspace workspace, final Graph g) {
+    /**
+     * Run a named sub-step of the export, such as exporting one table or file. Its completion is persisted together
+     * with the nodes and edges it created, so an interrupted export skips the step when resumed. Steps should only
+     * create nodes and edges and must not rely on state of previous steps only kept in memory.
+     */
+    protected final void runStep(final Graph graph, final String name, final Step step) throws ExporterException {
+        if (graph.hasCheckpoint(name)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Skipping completed '" + dataSource.getId() + "' export step '" + name + "'");
+            return;
+        }
+        step.run();
+        graph.completeCheckpoint(name);
+    }
+
+    private Graph openPersistentGraph(final Workspace workspace) {
+        return new Graph(dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH), true, true);
+    }
+
+    /**
+     * Save the previously exported persistent graph in GraphML format.
+     */
+    public final boolean exportGraphML(final Workspace workspace) {
         final GraphMLGraphWriter writer = new GraphMLGraphWriter();
         if (workspace.getConfiguration().shouldSkipGraphMLExport()) {
             if (LOGGER.isInfoEnabled())
@@ -53,10 +187,15 @@ public abstract class GraphExporter<D extends DataSource> {
         }
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Save '" + dataSource.getId() + "' data source graph to GraphML");
-        return writer.write(workspace, dataSource, g);
+        try (Graph g = openPersistentGraph(workspace)) {
+            return writer.write(workspace, dataSource, g);
+        }
     }
 
-    private void generateMetaGraphStatistics(final Workspace workspace, final Graph g) {
+    /**
+     * Generate the meta graph image and statistics of the previously exported persistent graph.
+     */
+    public final void exportMetaGraph(final Workspace workspace) {
         final Path metaGraphImageFilePath = dataSource.getFilePath(workspace, DataSourceFileType.META_GRAPH_IMAGE);
         final Path metaGraphStatsFilePath = dataSource.getFilePath(workspace, DataSourceFileType.META_GRAPH_STATISTICS);
         final Path metaGraphDynamicVisFilePath = dataSource.getFilePath(workspace, DataSourceFileType.META_GRAPH_DYNAMIC_VIS);
@@ -70,7 +209,10 @@ public abstract class GraphExporter<D extends DataSource> {
         }
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Generating '" + dataSource.getId() + "' data source meta graph");
-        final MetaGraph metaGraph = new MetaGraph(g);
+        final MetaGraph metaGraph;
+        try (Graph g = openPersistentGraph(workspace)) {
+            metaGraph = new MetaGraph(g);
+        }
         if (metaGraph.getNodeLabelCount() == 0 && metaGraph.getEdgeLabelCount() == 0) {
             if (LOGGER.isWarnEnabled())
                 LOGGER.warn("Skipping meta graph image generation of empty meta graph");
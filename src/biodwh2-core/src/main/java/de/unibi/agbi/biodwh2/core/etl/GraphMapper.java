@@ -2,22 +2,31 @@ package de.unibi.agbi.biodwh2.core.etl;
 
 import de.unibi.agbi.biodwh2.core.DataSource;
 import de.unibi.agbi.biodwh2.core.Workspace;
+import de.unibi.agbi.biodwh2.core.exceptions.GraphCacheException;
 import de.unibi.agbi.biodwh2.core.graphics.MetaGraphImage;
 import de.unibi.agbi.biodwh2.core.io.FileUtils;
 import de.unibi.agbi.biodwh2.core.io.graph.GraphMLGraphWriter;
+import de.unibi.agbi.biodwh2.core.io.snapshot.GraphSnapshotWriter;
 import de.unibi.agbi.biodwh2.core.model.WorkspaceFileType;
 import de.unibi.agbi.biodwh2.core.model.graph.*;
 import de.unibi.agbi.biodwh2.core.model.graph.meta.MetaGraph;
+import de.unibi.agbi.biodwh2.core.model.graph.migration.GraphMigrator;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphDynamicVisWriter;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphStatisticsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public final class GraphMapper {
@@ -26,36 +35,174 @@ public final class GraphMapper {
     private static final String IDS_NODE_PROPERTY = "ids";
     private static final String NAMES_NODE_PROPERTY = "names";
     private static final String MAPPED_NODE_PROPERTY = "__mapped";
+    private static final String NODES_CHECKPOINT = "nodes";
+    private static final String PATHS_CHECKPOINT_PREFIX = "paths!";
+    private static final int DESCRIBE_BATCH_SIZE = 8192;
+    private static final int DESCRIBE_SLICE_SIZE = 256;
 
+    private final int describeThreads;
+
+    public GraphMapper() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param describeThreads Number of threads describing nodes for mapping concurrently
+     */
+    GraphMapper(final int describeThreads) {
+        this.describeThreads = Math.max(1, describeThreads);
+    }
+
+    /**
+     * Map the merged graph. The mappings of each data source are stored in the mapped graph, so data sources unchanged
+     * since the previously published mapped graph are replayed from it instead of being described again. Mapping all
+     * nodes and each path of a data source are checkpoints, so mapping the same merged graph resumes after the last
+     * completed checkpoint if it was interrupted by a crash.
+     */
     public void map(final Workspace workspace, final DataSource[] dataSources) {
-        copyGraph(workspace);
+        final Path mergedGraphFilePath = workspace.getFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
         final Path graphFilePath = workspace.getFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH);
-        try (Graph graph = new Graph(graphFilePath, true)) {
-            mapGraph(graph, dataSources);
+        final Map<String, String> revisions = getMappingRevisions(mergedGraphFilePath, dataSources);
+        final String runKey = getCheckpointRunKey(revisions, dataSources);
+        try (Graph previousGraph = openPreviousMappedGraph(workspace, graphFilePath);
+             Graph graph = openGraphForMapping(graphFilePath, mergedGraphFilePath, runKey)) {
+            graph.setBlobThreshold(workspace.getConfiguration().getBlobThreshold());
+            mapGraph(graph, previousGraph, dataSources, revisions, runKey);
             saveGraph(graph, workspace);
+            saveGraphSnapshot(graph, workspace);
             generateMetaGraphStatistics(graph, workspace);
         }
     }
 
-    private void copyGraph(final Workspace workspace) {
+    /**
+     * The mappings of a data source can be reused if it was merged from the same exported graph at the same id offset,
+     * so its nodes and edges have the same ids, and its describer maps the same labels and paths.
+     */
+    private Map<String, String> getMappingRevisions(final Path mergedGraphFilePath, final DataSource[] dataSources) {
+        final Map<String, String> revisions = new HashMap<>();
+        try (Graph mergedGraph = new Graph(mergedGraphFilePath, true, true)) {
+            for (final DataSource dataSource : dataSources) {
+                final String revision = mergedGraph.getMergedRevision(dataSource.getId());
+                final Long idOffset = mergedGraph.getMergedIdOffset(dataSource.getId());
+                if (revision != null && idOffset != null)
+                    revisions.put(dataSource.getId(), revision + "#" + idOffset + "#" +
+                                                      getDescriberSignature(dataSource.getMappingDescriber()));
+            }
+        }
+        return revisions;
+    }
+
+    private static String getDescriberSignature(final MappingDescriber describer) {
+        final String[] nodeMappingLabels = describer.getNodeMappingLabels();
+        final List<String> parts = new ArrayList<>();
+        parts.add(describer.getClass().getName());
+        parts.add(String.valueOf(describer.getMappingVersion()));
+        if (nodeMappingLabels != null)
+            parts.addAll(Arrays.asList(nodeMappingLabels));
+        for (final PathMapping path : getNonEmptyPathMappingsForDescriber(describer))
+            parts.add(path.toString());
+        return digest(String.join("|", parts));
+    }
+
+    /**
+     * The run key identifies the merged graph by the revisions of all data sources, so only mapping the same merged
+     * graph is resumed. Without revisions for all data sources mapping isn't resumable.
+     */
+    private static String getCheckpointRunKey(final Map<String, String> revisions, final DataSource[] dataSources) {
+        if (revisions.size() < dataSources.length)
+            return null;
+        return digest(new TreeMap<>(revisions).toString());
+    }
+
+    private static String digest(final String value) {
         try {
-            Files.copy(workspace.getFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH),
-                       workspace.getFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH),
-                       StandardCopyOption.REPLACE_EXISTING);
-        } catch (IOException e) {
-            if (LOGGER.isErrorEnabled())
-                LOGGER.error("Failed to copy merged graph to mapped graph file", e);
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder result = new StringBuilder();
+            for (final byte b : hash)
+                result.append(String.format("%02x", b));
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Graph openGraphForMapping(final Path graphFilePath, final Path mergedGraphFilePath, final String runKey) {
+        if (runKey != null && Files.exists(graphFilePath)) {
+            try {
+                final Integer version = GraphMigrator.peekVersion(graphFilePath);
+                if (version != null && version == Graph.VERSION) {
+                    final Graph graph = new Graph(graphFilePath, true);
+                    if (runKey.equals(graph.getCheckpointRunKey()) && graph.hasCheckpoint(NODES_CHECKPOINT))
+                        return graph;
+                    graph.close();
+                }
+            } catch (IllegalStateException | GraphCacheException e) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Failed to open the interrupted mapped graph, mapping from scratch", e);
+            }
+        }
+        return new Graph(graphFilePath, mergedGraphFilePath);
+    }
+
+    private Graph openPreviousMappedGraph(final Workspace workspace, final Path graphFilePath) {
+        final Path previousFilePath = workspace.getPublishedFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH);
+        if (previousFilePath.equals(graphFilePath) || !Files.exists(previousFilePath))
+            return null;
+        final Integer previousVersion = GraphMigrator.peekVersion(previousFilePath);
+        if (previousVersion == null || previousVersion != Graph.VERSION)
+            return null;
+        try {
+            return new Graph(previousFilePath, true, true);
+        } catch (GraphCacheException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to open the previous mapped graph, mapping all data sources", e);
+            return null;
         }
     }
 
     void mapGraph(final Graph graph, final DataSource[] dataSources) {
+        mapGraph(graph, null, dataSources, new HashMap<>(), null);
+    }
+
+    void mapGraph(final Graph graph, final Graph previousGraph, final DataSource[] dataSources,
+                  final Map<String, String> revisions, final String runKey) {
+        if (runKey != null && runKey.equals(graph.getCheckpointRunKey())) {
+            final long removed = graph.resumeCheckpoints();
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Resuming interrupted mapping after " + graph.getCheckpointCount() +
+                            " completed checkpoints, removed " + removed + " nodes and edges of the interrupted step");
+        } else if (runKey != null)
+            graph.beginCheckpoints(runKey);
         final Map<String, MappingDescriber> map = getDataSourceDescriberMap(dataSources);
-        if (LOGGER.isInfoEnabled())
-            LOGGER.info("Mapping nodes");
-        mapNodes(graph, map);
+        final MappingState state = new MappingState(graph);
+        final MappingState previousState = previousGraph != null ? new MappingState(previousGraph) : null;
+        final Set<String> unchangedDataSourceIds = new HashSet<>();
+        for (final String dataSourceId : map.keySet()) {
+            final String revision = revisions.get(dataSourceId);
+            if (previousState != null && revision != null && revision.equals(previousState.getRevision(dataSourceId)))
+                unchangedDataSourceIds.add(dataSourceId);
+        }
+        if (graph.hasCheckpoint(NODES_CHECKPOINT)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Skipping completed node mapping");
+        } else {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Mapping nodes");
+            final ExecutorService describeExecutor = createDescribeExecutor();
+            try {
+                mapNodes(graph, describeExecutor, map, state, previousState, unchangedDataSourceIds);
+            } finally {
+                if (describeExecutor != null)
+                    describeExecutor.shutdownNow();
+            }
+            graph.completeCheckpoint(NODES_CHECKPOINT);
+        }
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Mapping paths");
-        mapPaths(graph, map);
+        mapPaths(graph, map, state, previousState, unchangedDataSourceIds);
+        for (final String dataSourceId : map.keySet())
+            state.setRevision(dataSourceId, revisions.get(dataSourceId));
+        graph.endCheckpoints();
     }
 
     private Map<String, MappingDescriber> getDataSourceDescriberMap(final DataSource[] dataSources) {
@@ -65,33 +212,142 @@ public final class GraphMapper {
         return map;
     }
 
-    private void mapNodes(final Graph graph, final Map<String, MappingDescriber> dataSourceDescriberMap) {
+    private ExecutorService createDescribeExecutor() {
+        if (describeThreads == 1)
+            return null;
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(describeThreads, runnable -> {
+            final Thread thread = new Thread(runnable, "mapping-describe-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void mapNodes(final Graph graph, final ExecutorService describeExecutor,
+                          final Map<String, MappingDescriber> dataSourceDescriberMap, final MappingState state,
+                          final MappingState previousState, final Set<String> unchangedDataSourceIds) {
         final Map<String, Map<String, Long>> labelIdNodeIdMap = new HashMap<>();
-        for (final MappingDescriber describer : dataSourceDescriberMap.values()) {
-            final String[] localMappingLabels = describer.getNodeMappingLabels();
+        for (final Map.Entry<String, MappingDescriber> entry : dataSourceDescriberMap.entrySet()) {
+            final Map<Long, String[][]> nodeMappings = state.getNodeMappings(entry.getKey());
+            if (unchangedDataSourceIds.contains(entry.getKey())) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Reusing node mappings of unchanged data source '" + entry.getKey() + "'");
+                replayNodeMappings(graph, labelIdNodeIdMap, previousState.getNodeMappings(entry.getKey()),
+                                   nodeMappings);
+                continue;
+            }
+            final String[] localMappingLabels = entry.getValue().getNodeMappingLabels();
             if (localMappingLabels != null)
                 for (final String localMappingLabel : localMappingLabels)
-                    mapNodesWithLabel(graph, labelIdNodeIdMap, describer, localMappingLabel);
+                    mapNodesWithLabel(graph, describeExecutor, labelIdNodeIdMap, entry.getValue(), localMappingLabel,
+                                      nodeMappings);
         }
     }
 
-    private void mapNodesWithLabel(final Graph graph, final Map<String, Map<String, Long>> labelIdNodeIdMap,
-                                   final MappingDescriber describer, final String localMappingLabel) {
+    /**
+     * Map the nodes with the label in batches. The nodes of a batch are described concurrently, which only reads the
+     * graph, before this thread applies the descriptions in node order as the only writer. The mapped graph is the same
+     * as if the nodes were described one after another. Nodes the describers look up in the graph are shared between
+     * threads and rely on the models guarding their lazily decoded properties.
+     */
+    private void mapNodesWithLabel(final Graph graph, final ExecutorService describeExecutor,
+                                   final Map<String, Map<String, Long>> labelIdNodeIdMap,
+                                   final MappingDescriber describer, final String localMappingLabel,
+                                   final Map<Long, String[][]> nodeMappings) {
         final String prefixedMappingLabel = describer.prefixLabel(localMappingLabel);
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Mapping nodes with label '" + prefixedMappingLabel + "'");
+        final List<Node> batch = new ArrayList<>();
         for (final Node node : graph.getNodes(prefixedMappingLabel)) {
-            final NodeMappingDescription[] mappingDescriptions = describer.describe(graph, node, localMappingLabel);
-            if (mappingDescriptions != null)
-                for (final NodeMappingDescription mappingDescription : mappingDescriptions)
-                    if (mappingDescription != null) {
-                        final Map<String, Long> idNodeIdMap = labelIdNodeIdMap.computeIfAbsent(
-                                mappingDescription.getType(), k -> new HashMap<>());
-                        mergeMatchingNodes(graph, mappingDescription, idNodeIdMap, node.getId());
-                    }
+            batch.add(node);
+            if (batch.size() == DESCRIBE_BATCH_SIZE) {
+                mapNodeBatch(graph, describeExecutor, labelIdNodeIdMap, describer, localMappingLabel, batch,
+                             nodeMappings);
+                batch.clear();
+            }
+        }
+        if (batch.size() > 0)
+            mapNodeBatch(graph, describeExecutor, labelIdNodeIdMap, describer, localMappingLabel, batch,
+                         nodeMappings);
+    }
+
+    private void mapNodeBatch(final Graph graph, final ExecutorService describeExecutor,
+                              final Map<String, Map<String, Long>> labelIdNodeIdMap, final MappingDescriber describer,
+                              final String localMappingLabel, final List<Node> nodes,
+                              final Map<Long, String[][]> nodeMappings) {
+        final NodeMappingDescription[][] descriptions = describeNodes(graph, describeExecutor, describer,
+                                                                      localMappingLabel, nodes);
+        for (int i = 0; i < nodes.size(); i++) {
+            if (descriptions[i] == null)
+                continue;
+            final long nodeId = nodes.get(i).getId();
+            final List<String[]> encodedDescriptions = new ArrayList<>();
+            for (final NodeMappingDescription mappingDescription : descriptions[i])
+                if (mappingDescription != null) {
+                    mapNode(graph, labelIdNodeIdMap, mappingDescription, nodeId);
+                    encodedDescriptions.add(MappingState.encode(mappingDescription));
+                }
+            if (encodedDescriptions.size() > 0)
+                nodeMappings.put(nodeId, encodedDescriptions.toArray(new String[0][]));
+        }
+    }
+
+    private NodeMappingDescription[][] describeNodes(final Graph graph, final ExecutorService describeExecutor,
+                                                     final MappingDescriber describer, final String localMappingLabel,
+                                                     final List<Node> nodes) {
+        final NodeMappingDescription[][] result = new NodeMappingDescription[nodes.size()][];
+        if (describeExecutor == null || nodes.size() <= DESCRIBE_SLICE_SIZE) {
+            for (int i = 0; i < nodes.size(); i++)
+                result[i] = describer.describe(graph, nodes.get(i), localMappingLabel);
+            return result;
+        }
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < nodes.size(); start += DESCRIBE_SLICE_SIZE) {
+            final int from = start;
+            final int to = Math.min(nodes.size(), start + DESCRIBE_SLICE_SIZE);
+            // Each thread describes its own copies, as the graph hands out shared cached nodes decoded on first access
+            futures.add(describeExecutor.submit(() -> {
+                for (int i = from; i < to; i++)
+                    result[i] = describer.describe(graph, nodes.get(i).copy(), localMappingLabel);
+            }));
+        }
+        for (final Future<?> future : futures)
+            awaitDescription(future);
+        return result;
+    }
+
+    private static void awaitDescription(final Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Describing nodes for mapping was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException("Failed to describe nodes for mapping", e.getCause());
+        }
+    }
+
+    private void replayNodeMappings(final Graph graph, final Map<String, Map<String, Long>> labelIdNodeIdMap,
+                                    final Map<Long, String[][]> previousNodeMappings,
+                                    final Map<Long, String[][]> nodeMappings) {
+        for (final Map.Entry<Long, String[][]> entry : previousNodeMappings.entrySet()) {
+            for (final String[] encodedDescription : entry.getValue())
+                mapNode(graph, labelIdNodeIdMap, MappingState.decode(encodedDescription), entry.getKey());
+            nodeMappings.put(entry.getKey(), entry.getValue());
         }
     }
 
+    private void mapNode(final Graph graph, final Map<String, Map<String, Long>> labelIdNodeIdMap,
+                         final NodeMappingDescription mappingDescription, final long nodeId) {
+        final Map<String, Long> idNodeIdMap = labelIdNodeIdMap.computeIfAbsent(mappingDescription.getType(),
+                                                                               k -> new HashMap<>());
+        mergeMatchingNodes(graph, mappingDescription, idNodeIdMap, nodeId);
+    }
+
     private void mergeMatchingNodes(final Graph graph, final NodeMappingDescription description,
                                     final Map<String, Long> idNodeIdMap, final long mappedNodeId) {
         final Set<Long> matchedNodeIds = matchNodesFromIds(idNodeIdMap, description);
@@ -143,35 +399,69 @@ public final class GraphMapper {
         return description.getType().equals(node.getLabel());
     }
 
-    private void mapPaths(final Graph graph, final Map<String, MappingDescriber> dataSourceDescriberMap) {
+    private void mapPaths(final Graph graph, final Map<String, MappingDescriber> dataSourceDescriberMap,
+                          final MappingState state, final MappingState previousState,
+                          final Set<String> unchangedDataSourceIds) {
+        NodeLabelLookup nodeLabels = null;
         for (final Map.Entry<String, MappingDescriber> entry : dataSourceDescriberMap.entrySet()) {
+            final String checkpointPrefix = PATHS_CHECKPOINT_PREFIX + entry.getKey();
+            final Map<Long, Object[]> pathMappings = state.getPathMappings(entry.getKey());
+            if (unchangedDataSourceIds.contains(entry.getKey())) {
+                if (graph.hasCheckpoint(checkpointPrefix))
+                    continue;
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Reusing edge path mappings of unchanged data source '" + entry.getKey() + "'");
+                state.truncatePathMappings(entry.getKey());
+                for (final Object[] pathMapping : previousState.getPathMappings(entry.getKey()).values())
+                    addMappedPathEdges(graph, entry.getValue(), pathMappings, (String) pathMapping[0],
+                                       (Long) pathMapping[1], (Long) pathMapping[2]);
+                completePathCheckpoint(graph, state, entry.getKey(), checkpointPrefix);
+                continue;
+            }
             if (LOGGER.isInfoEnabled())
                 LOGGER.info("Mapping edge paths for data source '" + entry.getKey() + "'");
-            for (final PathMapping path : getNonEmptyPathMappingsForDescriber(entry.getValue()))
-                mapPath(graph, entry.getValue(), path);
+            final List<PathMapping> paths = getNonEmptyPathMappingsForDescriber(entry.getValue());
+            for (int i = 0; i < paths.size(); i++) {
+                final String checkpoint = checkpointPrefix + "!" + i;
+                if (graph.hasCheckpoint(checkpoint))
+                    continue;
+                if (nodeLabels == null)
+                    nodeLabels = graph.createNodeLabelLookup();
+                state.truncatePathMappings(entry.getKey());
+                mapPath(graph, nodeLabels, entry.getValue(), paths.get(i), pathMappings);
+                completePathCheckpoint(graph, state, entry.getKey(), checkpoint);
+            }
         }
     }
 
-    private List<PathMapping> getNonEmptyPathMappingsForDescriber(final MappingDescriber describer) {
+    private void completePathCheckpoint(final Graph graph, final MappingState state, final String dataSourceId,
+                                        final String checkpoint) {
+        state.markPathMappingsCompleted(dataSourceId);
+        graph.completeCheckpoint(checkpoint);
+    }
+
+    private static List<PathMapping> getNonEmptyPathMappingsForDescriber(final MappingDescriber describer) {
         return Arrays.stream(describer.getEdgePathMappings()).filter(m -> m != null && m.getSegmentCount() > 0).collect(
                 Collectors.toList());
     }
 
-    private void mapPath(final Graph graph, final MappingDescriber describer, final PathMapping path) {
+    private void mapPath(final Graph graph, final NodeLabelLookup nodeLabels, final MappingDescriber describer,
+                         final PathMapping path, final Map<Long, Object[]> pathMappings) {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Mapping edge paths " + path);
         final PathMapping.Segment segment = path.get(0);
         for (final Node node : graph.getNodes(describer.prefixLabel(segment.fromNodeLabel))) {
             final long[] currentPathIds = new long[path.getSegmentCount() * 2 + 1];
             currentPathIds[0] = node.getId();
-            buildPathRecursively(graph, describer, path, 0, currentPathIds);
+            buildPathRecursively(graph, nodeLabels, describer, path, 0, currentPathIds, pathMappings);
         }
     }
 
-    private void buildPathRecursively(final Graph graph, final MappingDescriber describer, final PathMapping path,
-                                      final int segmentIndex, final long[] currentPathIds) {
+    private void buildPathRecursively(final Graph graph, final NodeLabelLookup nodeLabels,
+                                      final MappingDescriber describer, final PathMapping path, final int segmentIndex,
+                                      final long[] currentPathIds, final Map<Long, Object[]> pathMappings) {
         if (segmentIndex >= path.getSegmentCount()) {
-            mapPathInstance(graph, describer, currentPathIds);
+            mapPathInstance(graph, describer, currentPathIds, pathMappings);
             return;
         }
         final PathMapping.Segment segment = path.get(segmentIndex);
@@ -182,30 +472,31 @@ public final class GraphMapper {
         if (segment.direction == EdgeDirection.BIDIRECTIONAL ||
             segment.direction == EdgeDirection.FORWARD) {
             for (final Edge edge : graph.findEdges(edgeLabel, Edge.FROM_ID_FIELD, fromNodeId)) {
-                final Node nextNode = graph.getNode(edge.getToId());
-                if (nextNode.getLabel().equals(toNodeLabel)) {
+                if (toNodeLabel.equals(nodeLabels.getLabel(edge.getToId()))) {
                     final long[] nextPathIds = Arrays.copyOf(currentPathIds, currentPathIds.length);
                     nextPathIds[currentEdgePathIndex] = edge.getId();
-                    nextPathIds[currentEdgePathIndex + 1] = nextNode.getId();
-                    buildPathRecursively(graph, describer, path, segmentIndex + 1, nextPathIds);
+                    nextPathIds[currentEdgePathIndex + 1] = edge.getToId();
+                    buildPathRecursively(graph, nodeLabels, describer, path, segmentIndex + 1, nextPathIds,
+                                         pathMappings);
                 }
             }
         }
         if (segment.direction == EdgeDirection.BIDIRECTIONAL ||
             segment.direction == EdgeDirection.BACKWARD) {
             for (final Edge edge : graph.findEdges(edgeLabel, Edge.TO_ID_FIELD, fromNodeId)) {
-                final Node nextNode = graph.getNode(edge.getFromId());
-                if (nextNode.getLabel().equals(toNodeLabel)) {
+                if (toNodeLabel.equals(nodeLabels.getLabel(edge.getFromId()))) {
                     final long[] nextPathIds = Arrays.copyOf(currentPathIds, currentPathIds.length);
                     nextPathIds[currentEdgePathIndex] = edge.getId();
-                    nextPathIds[currentEdgePathIndex + 1] = nextNode.getId();
-                    buildPathRecursively(graph, describer, path, segmentIndex + 1, nextPathIds);
+                    nextPathIds[currentEdgePathIndex + 1] = edge.getFromId();
+                    buildPathRecursively(graph, nodeLabels, describer, path, segmentIndex + 1, nextPathIds,
+                                         pathMappings);
                 }
             }
         }
     }
 
-    private void mapPathInstance(final Graph graph, final MappingDescriber describer, final long[] pathIds) {
+    private void mapPathInstance(final Graph graph, final MappingDescriber describer, final long[] pathIds,
+                                 final Map<Long, Object[]> pathMappings) {
         final Node[] nodes = new Node[pathIds.length / 2 + 1];
         for (int i = 0; i < nodes.length; i++)
             nodes[i] = graph.getNode(pathIds[i * 2]);
@@ -213,15 +504,20 @@ public final class GraphMapper {
         for (int i = 0; i < edges.length; i++)
             edges[i] = graph.getEdge(pathIds[i * 2 + 1]);
         final PathMappingDescription mappingDescription = describer.describe(graph, nodes, edges);
-        if (mappingDescription != null) {
-            final Long[] mappedFromNodeIds = graph.getAdjacentNodeIdsForEdgeLabel(pathIds[0], MAPPED_TO_EDGE_LABEL);
-            final Long[] mappedToNodeIds = graph.getAdjacentNodeIdsForEdgeLabel(pathIds[pathIds.length - 1],
-                                                                                MAPPED_TO_EDGE_LABEL);
-            for (final Long fromNodeId : mappedFromNodeIds)
-                for (final Long toNodeId : mappedToNodeIds)
-                    graph.addEdge(fromNodeId, toNodeId, mappingDescription.getType(), "source",
-                                  describer.getDataSourceId());
-        }
+        if (mappingDescription != null)
+            addMappedPathEdges(graph, describer, pathMappings, mappingDescription.getType(), pathIds[0],
+                               pathIds[pathIds.length - 1]);
+    }
+
+    private void addMappedPathEdges(final Graph graph, final MappingDescriber describer,
+                                    final Map<Long, Object[]> pathMappings, final String type, final long firstNodeId,
+                                    final long lastNodeId) {
+        final Long[] mappedFromNodeIds = graph.getAdjacentNodeIdsForEdgeLabel(firstNodeId, MAPPED_TO_EDGE_LABEL);
+        final Long[] mappedToNodeIds = graph.getAdjacentNodeIdsForEdgeLabel(lastNodeId, MAPPED_TO_EDGE_LABEL);
+        for (final Long fromNodeId : mappedFromNodeIds)
+            for (final Long toNodeId : mappedToNodeIds)
+                graph.addEdge(fromNodeId, toNodeId, type, "source", describer.getDataSourceId());
+        pathMappings.put((long) pathMappings.size(), new Object[]{type, firstNodeId, lastNodeId});
     }
 
     private void saveGraph(final Graph graph, final Workspace workspace) {
@@ -237,6 +533,22 @@ public final class GraphMapper {
         new GraphMLGraphWriter().write(outputGraphFilePath, graph);
     }
 
+    private void saveGraphSnapshot(final Graph graph, final Workspace workspace) {
+        final Path outputSnapshotFilePath = workspace.getFilePath(WorkspaceFileType.MAPPED_GRAPH_SNAPSHOT);
+        if (!workspace.getConfiguration().shouldExportGraphSnapshot()) {
+            FileUtils.safeDelete(outputSnapshotFilePath);
+            return;
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Save mapped graph snapshot");
+        if (!new GraphSnapshotWriter().write(outputSnapshotFilePath, graph)) {
+            // A partially written snapshot would be mapped by readers as if it were complete
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to save mapped graph snapshot, removing the incomplete file");
+            FileUtils.safeDelete(outputSnapshotFilePath);
+        }
+    }
+
     private void generateMetaGraphStatistics(final Graph graph, final Workspace workspace) {
         final Path metaGraphImageFilePath = workspace.getFilePath(WorkspaceFileType.MAPPED_META_GRAPH_IMAGE);
         final Path metaGraphStatsFilePath = workspace.getFilePath(WorkspaceFileType.MAPPED_META_GRAPH_STATISTICS);
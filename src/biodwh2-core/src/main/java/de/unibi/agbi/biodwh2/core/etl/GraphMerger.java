@@ -11,28 +11,219 @@ import de.unibi.agbi.biodwh2.core.model.DataSourceFileType;
 import de.unibi.agbi.biodwh2.core.model.WorkspaceFileType;
 import de.unibi.agbi.biodwh2.core.model.graph.Graph;
 import de.unibi.agbi.biodwh2.core.model.graph.meta.MetaGraph;
+import de.unibi.agbi.biodwh2.core.model.graph.migration.GraphMigrator;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphDynamicVisWriter;
 import de.unibi.agbi.biodwh2.core.text.MetaGraphStatisticsWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.*;
 
 public class GraphMerger {
     private static final Logger LOGGER = LoggerFactory.getLogger(GraphMerger.class);
 
+    /**
+     * Merge the exported graphs of all data sources. If the previously published merged graph has the current graph
+     * version, the new merged graph is created as an overlay of it, or of its base if it is an overlay itself, and
+     * only data sources whose exported graph changed since are removed and merged again. Each merged data source is
+     * persisted before the next one is merged, so a merge interrupted by a crash resumes from the merged graph left in
+     * the output version.
+     */
     public final boolean merge(final Workspace workspace, final DataSource[] dataSources) throws MergerException {
-        try (Graph mergedGraph = new Graph(workspace.getFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH))) {
+        final Path mergedGraphFilePath = workspace.getFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
+        final Graph mergedGraph = openIncrementalMergedGraph(workspace, dataSources, mergedGraphFilePath);
+        if (mergedGraph == null)
+            return mergeFully(workspace, dataSources, mergedGraphFilePath);
+        final boolean merged;
+        try {
+            merged = mergeIncrementally(workspace, dataSources, mergedGraph);
+            if (merged) {
+                saveMergedGraph(workspace, mergedGraph);
+                generateMetaGraphStatistics(mergedGraph, workspace);
+            }
+        } catch (final RuntimeException ex) {
+            throw new MergerException(ex);
+        } finally {
+            mergedGraph.close();
+        }
+        return merged || mergeFully(workspace, dataSources, mergedGraphFilePath);
+    }
+
+    private boolean mergeFully(final Workspace workspace, final DataSource[] dataSources,
+                               final Path mergedGraphFilePath) throws MergerException {
+        try (Graph mergedGraph = new Graph(mergedGraphFilePath, false, false,
+                                           workspace.getConfiguration().shouldUseDenseGraphIds())) {
+            mergedGraph.setBlobThreshold(workspace.getConfiguration().getBlobThreshold());
             for (final DataSource dataSource : dataSources)
                 mergeDataSource(workspace, dataSource, mergedGraph);
             saveMergedGraph(workspace, mergedGraph);
             generateMetaGraphStatistics(mergedGraph, workspace);
+        } catch (final MergerException ex) {
+            throw ex;
         } catch (final Exception ex) {
             throw new MergerException(ex);
         }
         return true;
     }
 
+    /**
+     * Remove changed data sources from the merged graph and merge all data sources not up-to-date. Only failures of
+     * the merged graph itself, which may be inconsistent or reference a broken base graph, request a full rebuild.
+     *
+     * @return false if the merged graph needs to be rebuilt fully
+     */
+    private boolean mergeIncrementally(final Workspace workspace, final DataSource[] dataSources,
+                                       final Graph mergedGraph) throws MergerException {
+        try {
+            mergedGraph.setBlobThreshold(workspace.getConfiguration().getBlobThreshold());
+            if (mergedGraph.getMergedDataSourceIds().length == 0) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Rebuilding the merged graph as it doesn't record any merged data sources");
+                return false;
+            }
+            removeChangedDataSources(workspace, dataSources, mergedGraph);
+            for (final DataSource dataSource : dataSources)
+                if (!isMergedDataSourceUpToDate(workspace, dataSource, mergedGraph))
+                    mergeDataSource(workspace, dataSource, mergedGraph);
+            return true;
+        } catch (final GraphCacheException | IllegalStateException ex) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Incremental merge failed, rebuilding the merged graph", ex);
+            return false;
+        }
+    }
+
+    /**
+     * @return The merged graph to update incrementally or null if the merged graph needs to be rebuilt fully
+     */
+    private Graph openIncrementalMergedGraph(final Workspace workspace, final DataSource[] dataSources,
+                                             final Path mergedGraphFilePath) {
+        try {
+            if (isInterruptedMergedGraph(workspace, mergedGraphFilePath))
+                return new Graph(mergedGraphFilePath, true);
+            final Path baseFilePath = findPreviousMergedBaseGraph(workspace, mergedGraphFilePath);
+            return baseFilePath != null ? createMergedOverlayGraph(workspace, dataSources, mergedGraphFilePath,
+                                                                   baseFilePath) : null;
+        } catch (final GraphCacheException | IllegalStateException ex) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to open the previous merged graph, rebuilding the merged graph", ex);
+            return null;
+        }
+    }
+
+    private boolean isInterruptedMergedGraph(final Workspace workspace, final Path mergedGraphFilePath) {
+        if (mergedGraphFilePath.equals(workspace.getPublishedFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH)) ||
+            !Files.exists(mergedGraphFilePath))
+            return false;
+        final Integer version = GraphMigrator.peekVersion(mergedGraphFilePath);
+        if (version == null || version != Graph.VERSION)
+            return false;
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Resuming interrupted merge");
+        return true;
+    }
+
+    /**
+     * Overlays are always created on a fully merged graph, so the chain of base graphs never grows beyond one level.
+     *
+     * @return The fully merged graph the previously published merged graph is based on or null if there is none
+     */
+    private Path findPreviousMergedBaseGraph(final Workspace workspace, final Path mergedGraphFilePath) {
+        final Path previousFilePath = workspace.getPublishedFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
+        if (previousFilePath.equals(mergedGraphFilePath) || !Files.exists(previousFilePath))
+            return null;
+        final Path previousBaseFilePath = Graph.peekBaseFilePath(previousFilePath);
+        final Path baseFilePath = previousBaseFilePath != null ? previousBaseFilePath : previousFilePath;
+        final Integer baseVersion = Files.exists(baseFilePath) ? GraphMigrator.peekVersion(baseFilePath) : null;
+        if (baseVersion == null || baseVersion != Graph.VERSION) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Rebuilding the merged graph as the graph version changed");
+            return null;
+        }
+        return baseFilePath;
+    }
+
+    /**
+     * Create the merged graph as an overlay of the fully merged base graph, taking over its merged data sources. Once
+     * most data sources changed since the base graph was merged, the merged graph is rebuilt fully instead, which
+     * becomes the base of later overlays.
+     */
+    private Graph createMergedOverlayGraph(final Workspace workspace, final DataSource[] dataSources,
+                                           final Path mergedGraphFilePath, final Path baseFilePath) {
+        final Graph mergedGraph = new Graph(mergedGraphFilePath, baseFilePath);
+        try {
+            mergedGraph.inheritMergedDatabases();
+            mergedGraph.commit();
+            final int changed = countChangedDataSources(workspace, dataSources, mergedGraph);
+            if (changed * 2 <= Math.max(1, dataSources.length)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Merging " + changed + " changed data sources into an overlay of the merged graph '" +
+                                baseFilePath + "'");
+                return mergedGraph;
+            }
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Rebuilding the merged graph as " + changed + " of " + dataSources.length +
+                            " data sources changed since it was merged fully");
+        } catch (final RuntimeException ex) {
+            mergedGraph.close();
+            throw ex;
+        }
+        mergedGraph.close();
+        return null;
+    }
+
+    private int countChangedDataSources(final Workspace workspace, final DataSource[] dataSources,
+                                        final Graph mergedGraph) {
+        final Set<String> changed = new HashSet<>(Arrays.asList(mergedGraph.getMergedDataSourceIds()));
+        for (final DataSource dataSource : dataSources) {
+            final String revision = getRevision(workspace, dataSource);
+            if (revision != null && revision.equals(mergedGraph.getMergedRevision(dataSource.getId())))
+                changed.remove(dataSource.getId());
+            else
+                changed.add(dataSource.getId());
+        }
+        return changed.size();
+    }
+
+    private void removeChangedDataSources(final Workspace workspace, final DataSource[] dataSources,
+                                          final Graph mergedGraph) {
+        final Map<String, DataSource> dataSourceIds = new HashMap<>();
+        for (final DataSource dataSource : dataSources)
+            dataSourceIds.put(dataSource.getId(), dataSource);
+        for (final String dataSourceId : mergedGraph.getMergedDataSourceIds()) {
+            final DataSource dataSource = dataSourceIds.get(dataSourceId);
+            if (dataSource == null || !isMergedDataSourceUpToDate(workspace, dataSource, mergedGraph)) {
+                if (LOGGER.isInfoEnabled())
+                    LOGGER.info("Removing previously merged data source " + dataSourceId);
+                mergedGraph.removeMergedDatabase(dataSourceId);
+            }
+        }
+    }
+
+    private boolean isMergedDataSourceUpToDate(final Workspace workspace, final DataSource dataSource,
+                                               final Graph mergedGraph) {
+        final String revision = getRevision(workspace, dataSource);
+        final boolean upToDate = revision != null && revision.equals(mergedGraph.getMergedRevision(dataSource.getId()));
+        if (upToDate && LOGGER.isInfoEnabled())
+            LOGGER.info("Keeping previously merged data source " + dataSource.getId());
+        return upToDate;
+    }
+
+    /**
+     * The exported graph is only written during export, so its size and modification time identify the export.
+     */
+    private static String getRevision(final Workspace workspace, final DataSource dataSource) {
+        final Path filePath = dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH);
+        try {
+            return Files.size(filePath) + "@" + Files.getLastModifiedTime(filePath).toMillis();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     private void mergeDataSource(final Workspace workspace, final DataSource dataSource,
                                  final Graph mergedGraph) throws MergerException {
         if (LOGGER.isInfoEnabled())
@@ -41,12 +232,25 @@ public class GraphMerger {
         if (!intermediateGraphFilePath.toFile().exists())
             throw new MergerException(
                     "Failed to merge data source " + dataSource.getId() + " because the exported graph is missing");
-        try (Graph databaseToMerge = new Graph(intermediateGraphFilePath, true, true)) {
+        final String revision = getRevision(workspace, dataSource);
+        try (Graph databaseToMerge = openExportedGraph(dataSource, intermediateGraphFilePath)) {
             if (LOGGER.isInfoEnabled())
                 LOGGER.info("Adding " + databaseToMerge.getNumberOfNodes() + " nodes and " +
                             databaseToMerge.getNumberOfEdges() + " edges");
-            mergedGraph.mergeDatabase(dataSource.getId(), databaseToMerge);
-        } catch (GraphCacheException e) {
+            mergedGraph.mergeDatabase(dataSource.getId(), databaseToMerge, revision);
+            mergedGraph.commit();
+        }
+    }
+
+    /**
+     * A broken exported graph breaks a full rebuild as well, so failures to open it are not failures of the merged
+     * graph.
+     */
+    private static Graph openExportedGraph(final DataSource dataSource,
+                                           final Path intermediateGraphFilePath) throws MergerException {
+        try {
+            return new Graph(intermediateGraphFilePath, true, true);
+        } catch (GraphCacheException | IllegalStateException e) {
             throw new MergerException("Failed to merge data source " + dataSource.getId(), e);
         }
     }
@@ -10,6 +10,9 @@ public abstract class MappingDescriber {
         this.dataSource = dataSource;
     }
 
+    /**
+     * Describe the node for mapping. Nodes are described concurrently, so implementations must only read the graph.
+     */
     public abstract NodeMappingDescription[] describe(final Graph graph, final Node node,
                                                       final String localMappingLabel);
 
@@ -23,6 +26,14 @@ public abstract class MappingDescriber {
 
     protected abstract PathMapping[] getEdgePathMappings();
 
+    /**
+     * Version of the mapping logic. Increment it whenever the describe methods change their results, so mapping
+     * checkpoints created with the previous logic aren't resumed.
+     */
+    protected int getMappingVersion() {
+        return 1;
+    }
+
     final String getDataSourceId() {
         return dataSource.getId();
     }
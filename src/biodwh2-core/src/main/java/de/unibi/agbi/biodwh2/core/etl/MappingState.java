@@ -0,0 +1,92 @@
+package de.unibi.agbi.biodwh2.core.etl;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.NodeMappingDescription;
+
+import java.util.Map;
+
+/**
+ * Node and path mappings contributed by each data source, stored in the mapped graph. Together with the revision of
+ * the merged data source they allow the next mapping run to replay the mappings of unchanged data sources instead of
+ * describing their nodes and enumerating their paths again.
+ */
+final class MappingState {
+    private static final String REVISIONS_MAP_NAME = "mapping_revisions";
+    private static final String NODE_MAPPINGS_MAP_NAME_PREFIX = "node_mappings!";
+    private static final String PATH_MAPPINGS_MAP_NAME_PREFIX = "path_mappings!";
+    private static final String COMPLETED_PATH_MAPPINGS_MAP_NAME = "completed_path_mappings";
+
+    private final Graph graph;
+    private final Map<String, String> revisions;
+    private final Map<String, Long> completedPathMappings;
+
+    MappingState(final Graph graph) {
+        this.graph = graph;
+        revisions = graph.openMetadataMap(REVISIONS_MAP_NAME);
+        completedPathMappings = graph.openMetadataMap(COMPLETED_PATH_MAPPINGS_MAP_NAME);
+    }
+
+    String getRevision(final String dataSourceId) {
+        return revisions.get(dataSourceId);
+    }
+
+    void setRevision(final String dataSourceId, final String revision) {
+        if (revision != null)
+            revisions.put(dataSourceId, revision);
+    }
+
+    /**
+     * @return Encoded node mapping descriptions by the id of the described node
+     */
+    Map<Long, String[][]> getNodeMappings(final String dataSourceId) {
+        return graph.openMetadataMap(NODE_MAPPINGS_MAP_NAME_PREFIX + dataSourceId);
+    }
+
+    /**
+     * @return Path mapping type, first and last node id of each mapped path instance
+     */
+    Map<Long, Object[]> getPathMappings(final String dataSourceId) {
+        return graph.openMetadataMap(PATH_MAPPINGS_MAP_NAME_PREFIX + dataSourceId);
+    }
+
+    /**
+     * Record the path mappings of the data source stored so far as completed, before completing a checkpoint.
+     */
+    void markPathMappingsCompleted(final String dataSourceId) {
+        completedPathMappings.put(dataSourceId, (long) getPathMappings(dataSourceId).size());
+    }
+
+    /**
+     * Remove path mappings of the data source stored after the last completed checkpoint.
+     */
+    void truncatePathMappings(final String dataSourceId) {
+        final Map<Long, Object[]> pathMappings = getPathMappings(dataSourceId);
+        final long size = pathMappings.size();
+        for (long key = completedPathMappings.getOrDefault(dataSourceId, 0L); key < size; key++)
+            pathMappings.remove(key);
+    }
+
+    static String[] encode(final NodeMappingDescription description) {
+        final String[] names = description.getNames().toArray(new String[0]);
+        final String[] identifiers = description.getIdentifiers().toArray(new String[0]);
+        final String[] result = new String[2 + names.length + identifiers.length];
+        result[0] = description.getType();
+        result[1] = String.valueOf(names.length);
+        System.arraycopy(names, 0, result, 2, names.length);
+        System.arraycopy(identifiers, 0, result, 2 + names.length, identifiers.length);
+        return result;
+    }
+
+    static NodeMappingDescription decode(final String[] encoded) {
+        final NodeMappingDescription description = new NodeMappingDescription(encoded[0]);
+        final int namesCount = Integer.parseInt(encoded[1]);
+        for (int i = 2; i < 2 + namesCount; i++)
+            description.addName(encoded[i]);
+        for (int i = 2 + namesCount; i < encoded.length; i++) {
+            // Identifiers are "type:value" and identifier types don't contain colons
+            final int separator = encoded[i].indexOf(':');
+            description.addIdentifier(encoded[i].substring(0, separator), encoded[i].substring(separator + 1));
+        }
+        return description;
+    }
+}
@@ -5,28 +5,28 @@ import de.unibi.agbi.biodwh2.core.Workspace;
 import de.unibi.agbi.biodwh2.core.exceptions.UpdaterConnectionException;
 import de.unibi.agbi.biodwh2.core.exceptions.UpdaterException;
 import de.unibi.agbi.biodwh2.core.model.Version;
-import de.unibi.agbi.biodwh2.core.net.HTTPClient;
+import de.unibi.agbi.biodwh2.core.net.DownloadManager;
 import de.unibi.agbi.biodwh2.core.net.HTTPFTPClient;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class MultiFileFTPWebUpdater<D extends DataSource> extends Updater<D> {
-    private final HTTPFTPClient client;
-
     public MultiFileFTPWebUpdater(final D dataSource) {
         super(dataSource);
-        client = new HTTPFTPClient(getFTPIndexUrl());
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
+        final HTTPFTPClient client = new HTTPFTPClient(getFTPIndexUrl(), workspace.getHTTPCache());
         try {
             Version latestVersion = null;
-            for (final String filePath : getFilePaths()) {
-                final Version fileVersion = getNewestVersionFromFilePath(Paths.get(filePath));
+            for (final String filePath : getFilePaths(workspace)) {
+                final Version fileVersion = getNewestVersionFromFilePath(client, Paths.get(filePath));
                 if (latestVersion == null || (fileVersion != null && fileVersion.compareTo(latestVersion) > 0))
                     latestVersion = fileVersion;
             }
@@ -36,7 +36,8 @@ public abstract class MultiFileFTPWebUpdater<D extends DataSource> extends Updat
         }
     }
 
-    private Version getNewestVersionFromFilePath(final Path filePath) throws IOException {
+    private static Version getNewestVersionFromFilePath(final HTTPFTPClient client,
+                                                        final Path filePath) throws IOException {
         final Path directoryPath = filePath.getParent();
         final HTTPFTPClient.Entry[] entries = directoryPath == null ? client.listDirectory() : client.listDirectory(
                 directoryPath.toString());
@@ -55,12 +56,16 @@ public abstract class MultiFileFTPWebUpdater<D extends DataSource> extends Updat
 
     @Override
     protected boolean tryUpdateFiles(final Workspace workspace) throws UpdaterException {
+        final List<DownloadManager.Download> downloads = new ArrayList<>();
+        for (final String fileName : getFilePaths(workspace)) {
+            final String localFileName = Paths.get(fileName).getFileName().toString();
+            final String resolvedFilePath = dataSource.resolveSourceFilePath(workspace, localFileName);
+            downloads.add(new DownloadManager.Download(getFTPIndexUrl() + fileName, Paths.get(resolvedFilePath)));
+        }
+        final DownloadManager manager = new DownloadManager();
+        manager.setCache(workspace.getHTTPCache());
         try {
-            for (final String fileName : getFilePaths()) {
-                final String localFileName = Paths.get(fileName).getFileName().toString();
-                final String resolvedFilePath = dataSource.resolveSourceFilePath(workspace, localFileName);
-                HTTPClient.downloadFileAsBrowser(getFTPIndexUrl() + fileName, resolvedFilePath);
-            }
+            manager.download(downloads);
             return true;
         } catch (IOException e) {
             throw new UpdaterConnectionException(e);
@@ -69,5 +74,5 @@ public abstract class MultiFileFTPWebUpdater<D extends DataSource> extends Updat
 
     protected abstract String getFTPIndexUrl();
 
-    protected abstract String[] getFilePaths();
+    protected abstract String[] getFilePaths(final Workspace workspace);
 }
@@ -0,0 +1,62 @@
+package de.unibi.agbi.biodwh2.core.etl;
+
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Binary file cache of the parsed data of a data source. The cached data is only returned if the key it was written
+ * with matches, so keys should identify the source files and the parser version.
+ */
+public final class ParsedDataCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Path filePath;
+
+    public ParsedDataCache(final Path filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * @return The cached data if it was written with the same key, otherwise null
+     * @throws IOException If the cache file exists but can't be read
+     */
+    public Serializable read(final String key) throws IOException {
+        if (!Files.exists(filePath))
+            return null;
+        try (ObjectInputStream stream = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(filePath), BUFFER_SIZE))) {
+            if (stream.readInt() != FORMAT_VERSION || !key.equals(stream.readObject()))
+                return null;
+            return (Serializable) stream.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+
+    /**
+     * Write the data with the given key. The file is replaced only after it was written completely, so an interrupted
+     * write never leaves a truncated cache behind.
+     */
+    public void write(final String key, final Serializable data) throws IOException {
+        final Path tempFilePath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try (ObjectOutputStream stream = new ObjectOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFilePath), BUFFER_SIZE))) {
+            stream.writeInt(FORMAT_VERSION);
+            stream.writeObject(key);
+            stream.writeObject(data);
+        } catch (IOException e) {
+            FileUtils.safeDelete(tempFilePath);
+            throw e;
+        }
+        Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public void delete() {
+        FileUtils.safeDelete(filePath);
+    }
+}
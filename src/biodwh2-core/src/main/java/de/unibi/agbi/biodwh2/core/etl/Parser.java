@@ -12,4 +12,12 @@ public abstract class Parser<D extends DataSource> {
     }
 
     public abstract boolean parse(final Workspace workspace) throws ParserException;
+
+    /**
+     * Version of the parsed data. Increase it whenever the parsed model changes, so cached parsed data of previous
+     * versions isn't used.
+     */
+    public long getParserVersion() {
+        return 1;
+    }
 }
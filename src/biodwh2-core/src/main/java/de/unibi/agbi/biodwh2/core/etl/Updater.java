@@ -29,9 +29,9 @@ public abstract class Updater<D extends DataSource> {
         this.dataSource = dataSource;
     }
 
-    public final Version tryGetNewestVersion() {
+    public final Version tryGetNewestVersion(final Workspace workspace) {
         try {
-            return getNewestVersion();
+            return getNewestVersion(workspace);
         } catch (UpdaterException e) {
             if (LOGGER.isWarnEnabled())
                 LOGGER.warn("Failed to get newest version for data source '" + dataSource.getId() + "'", e);
@@ -39,10 +39,13 @@ public abstract class Updater<D extends DataSource> {
         return null;
     }
 
-    public abstract Version getNewestVersion() throws UpdaterException;
+    /**
+     * @param workspace Workspace whose {@link Workspace#getHTTPCache() HTTP cache} should be used for lookups
+     */
+    public abstract Version getNewestVersion(final Workspace workspace) throws UpdaterException;
 
     public final UpdateState update(final Workspace workspace) throws UpdaterException {
-        final Version newestVersion = getNewestVersion();
+        final Version newestVersion = getNewestVersion(workspace);
         final Version workspaceVersion = dataSource.getMetadata().version;
         final boolean expectedFilesPresent = areExpectedFilesPresent(workspace);
         final boolean isUpToDate = isDataSourceUpToDate(newestVersion, workspaceVersion);
@@ -84,7 +87,7 @@ public abstract class Updater<D extends DataSource> {
     private boolean isDataSourceUpToDate(final Version newestVersion, final Version workspaceVersion) {
         if (versionNotAvailable())
             return false;
-        return workspaceVersion != null && newestVersion.compareTo(workspaceVersion) == 0;
+        return workspaceVersion != null && newestVersion != null && newestVersion.compareTo(workspaceVersion) == 0;
     }
 
     protected boolean versionNotAvailable() {
@@ -119,10 +122,15 @@ public abstract class Updater<D extends DataSource> {
         return UpdateState.UPDATED;
     }
 
-    public final boolean isDataSourceUpToDate() {
-        final Version newestVersion = tryGetNewestVersion();
-        final Version workspaceVersion = dataSource.getMetadata().version;
-        return isDataSourceUpToDate(newestVersion, workspaceVersion);
+    public final boolean isDataSourceUpToDate(final Workspace workspace) {
+        return isDataSourceUpToDate(tryGetNewestVersion(workspace));
+    }
+
+    /**
+     * @param newestVersion Previously looked up newest version, which avoids another lookup
+     */
+    public final boolean isDataSourceUpToDate(final Version newestVersion) {
+        return isDataSourceUpToDate(newestVersion, dataSource.getMetadata().version);
     }
 
     protected static Version convertDateTimeToVersion(final LocalDateTime dateTime) {
@@ -16,6 +16,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
@@ -179,4 +181,27 @@ public final class FileUtils {
         final InputStreamReader reader = new InputStreamReader(stream, charset);
         return new BufferedReader(reader);
     }
+
+    /**
+     * @param algorithm Digest algorithm name such as "MD5" or "SHA-256"
+     * @return Hexadecimal digest of the file content
+     */
+    public static String computeChecksum(final Path filePath, final String algorithm) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Unknown checksum algorithm '" + algorithm + "'", e);
+        }
+        try (InputStream input = Files.newInputStream(filePath)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                digest.update(buffer, 0, read);
+        }
+        final StringBuilder result = new StringBuilder();
+        for (final byte b : digest.digest())
+            result.append(String.format("%02x", b));
+        return result.toString();
+    }
 }
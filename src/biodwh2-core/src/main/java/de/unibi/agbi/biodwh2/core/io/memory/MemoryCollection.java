@@ -0,0 +1,242 @@
+package de.unibi.agbi.biodwh2.core.io.memory;
+
+import de.unibi.agbi.biodwh2.core.collections.LongObjectHashMap;
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
+import de.unibi.agbi.biodwh2.core.io.storage.*;
+import de.unibi.agbi.biodwh2.core.lang.Type;
+import de.unibi.agbi.biodwh2.core.model.graph.Edge;
+
+import java.util.*;
+
+final class MemoryCollection<T extends StorageModel> implements StorageCollection<T> {
+    private final MemoryStorage storage;
+    private final String name;
+    private final LongObjectHashMap<T> objects;
+    private final Map<String, MemoryIndex> indices;
+    private final Map<String, Type> propertyKeyTypes;
+    private final Set<String> columnKeys;
+
+    MemoryCollection(final MemoryStorage storage, final String name) {
+        this.storage = storage;
+        this.name = name;
+        objects = new LongObjectHashMap<>();
+        indices = new LinkedHashMap<>();
+        propertyKeyTypes = new HashMap<>();
+        columnKeys = new LinkedHashSet<>();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public StorageIndex getIndex(final String key) {
+        return getIndex(key, false, StorageIndexType.NON_UNIQUE);
+    }
+
+    @Override
+    public synchronized StorageIndex getIndex(final String key, final boolean arrayIndex,
+                                              final StorageIndexType type) {
+        MemoryIndex index = indices.get(key);
+        if (index == null) {
+            index = new MemoryIndex(storage, name + "$" + key, key, arrayIndex, type);
+            final Iterator<T> values = objects.valueIterator();
+            while (values.hasNext()) {
+                final T obj = values.next();
+                index.put(obj.get(key), obj.getId());
+            }
+            indices.put(key, index);
+        }
+        return index;
+    }
+
+    @Override
+    public synchronized StorageIndex[] getIndices() {
+        return indices.values().toArray(new StorageIndex[0]);
+    }
+
+    @Override
+    public synchronized StorageIndexDescription[] getIndexDescriptions() {
+        return indices.values().stream().filter(
+                i -> !i.getKey().equals(Edge.FROM_ID_FIELD) && !i.getKey().equals(Edge.TO_ID_FIELD)).map(
+                MemoryIndex::getIndexDescription).toArray(StorageIndexDescription[]::new);
+    }
+
+    @Override
+    public synchronized Map<String, Type> getPropertyKeyTypes() {
+        return new HashMap<>(propertyKeyTypes);
+    }
+
+    /**
+     * Objects are held in memory anyway, so columns are only recorded and scans read the objects directly.
+     */
+    @Override
+    public synchronized void addColumn(final String key) {
+        columnKeys.add(key);
+    }
+
+    @Override
+    public synchronized String[] getColumnKeys() {
+        return columnKeys.toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized <V> Iterable<Tuple2<Long, V>> scanColumn(final String key) {
+        final List<Tuple2<Long, V>> values = new ArrayList<>();
+        final Iterator<T> objectsIterator = objects.valueIterator();
+        while (objectsIterator.hasNext()) {
+            final T obj = objectsIterator.next();
+            final V value = obj.getProperty(key);
+            if (value != null)
+                values.add(new Tuple2<>(obj.getId(), value));
+        }
+        return values;
+    }
+
+    @Override
+    public void put(final T obj) {
+        final T copy = obj.copy();
+        copy.resolveBlobs();
+        putInternal(copy);
+    }
+
+    private synchronized void putInternal(final T obj) {
+        final T previous = removeInternal(obj.getId());
+        storage.recordUndo(previous != null ? () -> putInternal(previous) : () -> removeInternal(obj.getId()));
+        objects.put(obj.getId(), obj);
+        PropertyCriteria.updatePropertyKeyTypes(propertyKeyTypes, obj);
+        for (final MemoryIndex index : indices.values())
+            index.put(obj.get(index.getKey()), obj.getId());
+    }
+
+    private synchronized T removeInternal(final long id) {
+        final T previous = objects.remove(id);
+        if (previous != null)
+            for (final MemoryIndex index : indices.values())
+                index.remove(previous.get(index.getKey()), id);
+        return previous;
+    }
+
+    @Override
+    public synchronized T get(final long id) {
+        final T obj = objects.get(id);
+        return obj != null ? obj.copy() : null;
+    }
+
+    @Override
+    public synchronized boolean contains(final long id) {
+        return objects.containsKey(id);
+    }
+
+    @Override
+    public synchronized void remove(final T obj) {
+        final T previous = removeInternal(obj.getId());
+        if (previous != null)
+            storage.recordUndo(() -> putInternal(previous));
+    }
+
+    @Override
+    public Iterable<T> find(final String propertyKey, final Comparable<?> propertyValue) {
+        return find(new String[]{propertyKey}, new Comparable<?>[]{propertyValue});
+    }
+
+    @Override
+    public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                            final Comparable<?> propertyValue2) {
+        return find(new String[]{propertyKey1, propertyKey2}, new Comparable<?>[]{propertyValue1, propertyValue2});
+    }
+
+    @Override
+    public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                            final Comparable<?> propertyValue2, final String propertyKey3,
+                            final Comparable<?> propertyValue3) {
+        return find(new String[]{propertyKey1, propertyKey2, propertyKey3},
+                    new Comparable<?>[]{propertyValue1, propertyValue2, propertyValue3});
+    }
+
+    @Override
+    public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                            final Comparable<?> propertyValue2, final String propertyKey3,
+                            final Comparable<?> propertyValue3, final String propertyKey4,
+                            final Comparable<?> propertyValue4) {
+        return find(new String[]{propertyKey1, propertyKey2, propertyKey3, propertyKey4},
+                    new Comparable<?>[]{propertyValue1, propertyValue2, propertyValue3, propertyValue4});
+    }
+
+    @Override
+    public synchronized Iterable<T> find(final String[] propertyKeys, final Comparable<?>[] propertyValues) {
+        for (final String propertyKey : propertyKeys)
+            if (!propertyKeyTypes.containsKey(propertyKey))
+                return new ArrayList<>();
+        final boolean[] hasIndexFlags = new boolean[propertyKeys.length];
+        Set<Long> ids = null;
+        for (int i = 0; i < propertyKeys.length; i++) {
+            final MemoryIndex index = indices.get(propertyKeys[i]);
+            if (index != null) {
+                hasIndexFlags[i] = true;
+                if (ids == null)
+                    ids = index.find(propertyValues[i]);
+                else
+                    ids.retainAll(index.find(propertyValues[i]));
+            }
+        }
+        final List<T> result = new ArrayList<>();
+        final boolean checkProperties = PropertyCriteria.isFindOnNonIndexedProperties(hasIndexFlags);
+        if (ids != null) {
+            for (final Long id : ids) {
+                final T obj = objects.get(id);
+                if (!checkProperties || PropertyCriteria.modelMatchesCriteria(obj, propertyKeys, propertyValues,
+                                                                              hasIndexFlags))
+                    result.add(obj.copy());
+            }
+        } else {
+            final Iterator<T> values = objects.valueIterator();
+            while (values.hasNext()) {
+                final T obj = values.next();
+                if (PropertyCriteria.modelMatchesCriteria(obj, propertyKeys, propertyValues, hasIndexFlags))
+                    result.add(obj.copy());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Iterable<Long> getIds() {
+        final Set<Long> ids = storage.newIdSet();
+        final PrimitiveIterator.OfLong keys = objects.keyIterator();
+        while (keys.hasNext())
+            ids.add(keys.nextLong());
+        return ids;
+    }
+
+    @Override
+    public synchronized long size() {
+        return objects.size();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final Iterator<Long> ids = getIds().iterator();
+        return new Iterator<T>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                // Objects removed after the ids were collected are skipped
+                while (next == null && ids.hasNext())
+                    next = get(ids.next());
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final T result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+}
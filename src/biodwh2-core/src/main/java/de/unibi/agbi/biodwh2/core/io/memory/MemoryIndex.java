@@ -0,0 +1,116 @@
+package de.unibi.agbi.biodwh2.core.io.memory;
+
+import de.unibi.agbi.biodwh2.core.io.storage.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+final class MemoryIndex implements StorageIndex {
+    private final MemoryStorage storage;
+    private final String name;
+    private final String key;
+    private final boolean arrayIndex;
+    private final StorageIndexType type;
+    private final StorageIndexDescription indexDescription;
+    /**
+     * Keys are normalized, as boxed integral numbers of different types aren't equal in a hash map, but match in
+     * unindexed finds
+     */
+    private final Map<Comparable<?>, Set<Long>> map;
+
+    MemoryIndex(final MemoryStorage storage, final String name, final String key, final boolean arrayIndex,
+                final StorageIndexType type) {
+        this.storage = storage;
+        this.name = name;
+        this.key = key;
+        // Unique array indices aren't supported, which matches the MVStore unique index ignoring the array flag
+        this.arrayIndex = arrayIndex && type != StorageIndexType.UNIQUE;
+        this.type = type;
+        indexDescription = new StorageIndexDescription(key, this.arrayIndex, type);
+        map = new HashMap<>();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean isArrayIndex() {
+        return arrayIndex;
+    }
+
+    @Override
+    public StorageIndexType getType() {
+        return type;
+    }
+
+    @Override
+    public StorageIndexDescription getIndexDescription() {
+        return indexDescription;
+    }
+
+    @Override
+    public synchronized Set<Long> find(final Comparable<?> propertyValue) {
+        final Set<Long> ids = storage.newIdSet();
+        final Set<Long> indexedIds = propertyValue != null ? map.get(
+                PropertyCriteria.normalizeIntegral(propertyValue)) : null;
+        if (indexedIds != null)
+            ids.addAll(indexedIds);
+        return ids;
+    }
+
+    @Override
+    public synchronized boolean contains(final Comparable<?> propertyValue) {
+        return propertyValue != null && map.containsKey(PropertyCriteria.normalizeIntegral(propertyValue));
+    }
+
+    @Override
+    public synchronized void put(final Object propertyValue, final long id) {
+        if (propertyValue instanceof Comparable<?>[] && arrayIndex) {
+            for (final Comparable<?> indexKey : (Comparable<?>[]) propertyValue)
+                put(indexKey, id);
+        } else if (propertyValue instanceof Comparable<?>[] && type == StorageIndexType.UNIQUE)
+            throw new StorageIndexException("Unique array indices are not yet supported!");
+        else if (propertyValue instanceof Comparable<?>)
+            put((Comparable<?>) propertyValue, id);
+    }
+
+    private void put(final Comparable<?> value, final long id) {
+        if (value == null)
+            return;
+        final Comparable<?> indexKey = PropertyCriteria.normalizeIntegral(value);
+        Set<Long> ids = map.get(indexKey);
+        if (ids == null) {
+            ids = storage.newIdSet();
+            map.put(indexKey, ids);
+        } else if (type == StorageIndexType.UNIQUE && !ids.contains(id))
+            throw new StorageIndexException("Unique index " + name + " already has a value for key '" + indexKey + "'");
+        ids.add(id);
+    }
+
+    @Override
+    public synchronized void remove(final Object propertyValue, final long id) {
+        if (propertyValue instanceof Comparable<?>[] && arrayIndex) {
+            for (final Comparable<?> indexKey : (Comparable<?>[]) propertyValue)
+                remove(indexKey, id);
+        } else if (propertyValue instanceof Comparable<?>)
+            remove((Comparable<?>) propertyValue, id);
+    }
+
+    private void remove(final Comparable<?> value, final long id) {
+        final Comparable<?> indexKey = value != null ? PropertyCriteria.normalizeIntegral(value) : null;
+        final Set<Long> ids = indexKey != null ? map.get(indexKey) : null;
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty())
+                map.remove(indexKey);
+        }
+    }
+}
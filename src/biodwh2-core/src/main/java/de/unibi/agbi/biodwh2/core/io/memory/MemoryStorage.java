@@ -0,0 +1,129 @@
+package de.unibi.agbi.biodwh2.core.io.memory;
+
+import de.unibi.agbi.biodwh2.core.collections.LongBitSet;
+import de.unibi.agbi.biodwh2.core.io.mvstore.MVStoreId;
+import de.unibi.agbi.biodwh2.core.io.storage.Storage;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageCollection;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageModel;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageTransaction;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-persistent storage keeping all collections on the heap in primitive long keyed maps. Models are copied on put
+ * and get, so callers observe the same isolation as with the MVStore backend without any serialization.
+ */
+public final class MemoryStorage implements Storage<StorageModel> {
+    private final Map<String, Map<?, ?>> maps;
+    private final Map<String, MemoryCollection<?>> collections;
+    private boolean denseIds;
+    private long nextDenseId;
+    private MemoryTransaction transaction;
+
+    public MemoryStorage() {
+        maps = new HashMap<>();
+        collections = new LinkedHashMap<>();
+    }
+
+    @Override
+    public synchronized <K, V> Map<K, V> openMap(final String name) {
+        //noinspection unchecked
+        return (Map<K, V>) maps.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public synchronized boolean hasCollection(final String name) {
+        return collections.containsKey(name);
+    }
+
+    @Override
+    public synchronized <T extends StorageModel> StorageCollection<T> getCollection(final String name) {
+        MemoryCollection<?> collection = collections.get(name);
+        if (collection == null) {
+            collection = new MemoryCollection<>(this, name);
+            collections.put(name, collection);
+            recordUndo(() -> collections.remove(name));
+        }
+        //noinspection unchecked
+        return (StorageCollection<T>) collection;
+    }
+
+    @Override
+    public synchronized String[] getCollectionNames() {
+        return collections.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public synchronized void removeCollection(final String name) {
+        final MemoryCollection<?> collection = collections.remove(name);
+        if (collection != null)
+            recordUndo(() -> collections.put(name, collection));
+    }
+
+    @Override
+    public synchronized boolean enableDenseIds() {
+        if (!denseIds && collections.isEmpty())
+            denseIds = true;
+        return denseIds;
+    }
+
+    @Override
+    public boolean hasDenseIds() {
+        return denseIds;
+    }
+
+    @Override
+    public void setBlobThreshold(final int blobThreshold) {
+    }
+
+    @Override
+    public synchronized long nextId() {
+        return denseIds ? nextDenseId++ : new MVStoreId().getIdValue();
+    }
+
+    @Override
+    public synchronized long getIdUpperBound() {
+        return denseIds ? nextDenseId : -1;
+    }
+
+    @Override
+    public Set<Long> newIdSet() {
+        return denseIds ? new LongBitSet() : new HashSet<>();
+    }
+
+    /**
+     * Start a transaction over the collection contents. Only one transaction can be active at a time and changes to
+     * plain maps are not reverted on rollback.
+     */
+    @Override
+    public synchronized StorageTransaction beginTransaction() {
+        if (transaction != null)
+            throw new IllegalStateException("Another transaction is still active");
+        transaction = new MemoryTransaction(this);
+        return transaction;
+    }
+
+    /**
+     * Nothing is persisted, so there is nothing to commit.
+     */
+    @Override
+    public void commit() {
+    }
+
+    synchronized void recordUndo(final Runnable undo) {
+        if (transaction != null)
+            transaction.recordUndo(undo);
+    }
+
+    synchronized void endTransaction(final MemoryTransaction transaction) {
+        if (this.transaction == transaction)
+            this.transaction = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        maps.clear();
+        collections.clear();
+    }
+}
@@ -0,0 +1,54 @@
+package de.unibi.agbi.biodwh2.core.io.memory;
+
+import de.unibi.agbi.biodwh2.core.io.storage.StorageTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaction recording an undo action for every collection change, which are replayed in reverse on rollback.
+ */
+final class MemoryTransaction implements StorageTransaction {
+    private final MemoryStorage storage;
+    private final List<Runnable> undoLog;
+    private boolean finished;
+
+    MemoryTransaction(final MemoryStorage storage) {
+        this.storage = storage;
+        undoLog = new ArrayList<>();
+    }
+
+    void recordUndo(final Runnable undo) {
+        undoLog.add(undo);
+    }
+
+    @Override
+    public void commit() {
+        if (finished)
+            throw new IllegalStateException("The transaction is already finished");
+        finish();
+    }
+
+    private void finish() {
+        finished = true;
+        undoLog.clear();
+        storage.endTransaction(this);
+    }
+
+    @Override
+    public void rollback() {
+        if (finished)
+            throw new IllegalStateException("The transaction is already finished");
+        // Stop recording before undoing, as the undo actions change the collections themselves
+        storage.endTransaction(this);
+        for (int i = undoLog.size() - 1; i >= 0; i--)
+            undoLog.get(i).run();
+        finish();
+    }
+
+    @Override
+    public void close() {
+        if (!finished)
+            rollback();
+    }
+}
@@ -0,0 +1,35 @@
+package de.unibi.agbi.biodwh2.core.io.mvstore;
+
+import java.io.Serializable;
+
+/**
+ * Placeholder stored in place of a large property value, which is kept compressed in the blob map of the database.
+ */
+final class BlobReference implements Serializable {
+    private static final long serialVersionUID = -6420875135278451935L;
+
+    private final long handle;
+
+    BlobReference(final long handle) {
+        this.handle = handle;
+    }
+
+    long getHandle() {
+        return handle;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof BlobReference && ((BlobReference) o).handle == handle;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(handle);
+    }
+
+    @Override
+    public String toString() {
+        return "BlobReference{" + "handle=" + handle + '}';
+    }
+}
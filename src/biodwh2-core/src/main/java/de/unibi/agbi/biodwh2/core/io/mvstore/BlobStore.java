@@ -0,0 +1,78 @@
+package de.unibi.agbi.biodwh2.core.io.mvstore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Store for large string property values, which are kept deflate compressed in a separate map and referenced from
+ * models by handle. This keeps the pages of the collection maps small.
+ */
+final class BlobStore {
+    private MVMapWrapper<Long, byte[]> map;
+    private long nextHandle;
+
+    BlobStore(final MVMapWrapper<Long, byte[]> map) {
+        setMap(map);
+    }
+
+    synchronized void setMap(final MVMapWrapper<Long, byte[]> map) {
+        this.map = map;
+        final Long lastHandle = map.lastKey();
+        nextHandle = lastHandle != null ? lastHandle + 1 : 0;
+    }
+
+    synchronized BlobReference put(final String value) {
+        final long handle = nextHandle++;
+        map.put(handle, compress(value.getBytes(StandardCharsets.UTF_8)));
+        return new BlobReference(handle);
+    }
+
+    String get(final BlobReference reference) {
+        final byte[] data = map.get(reference.getHandle());
+        if (data == null)
+            throw new IllegalStateException("Failed to resolve blob with handle " + reference.getHandle());
+        return new String(decompress(data), StandardCharsets.UTF_8);
+    }
+
+    void remove(final BlobReference reference) {
+        map.remove(reference.getHandle());
+    }
+
+    private static byte[] compress(final byte[] data) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2 + 16);
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished())
+                output.write(buffer, 0, deflater.deflate(buffer));
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(final byte[] data) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(data.length * 4);
+            final byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalStateException("Blob data is truncated");
+                output.write(buffer, 0, length);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Failed to decompress blob", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
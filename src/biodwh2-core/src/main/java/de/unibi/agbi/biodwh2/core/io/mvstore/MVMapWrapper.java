@@ -1,5 +1,6 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 
@@ -60,21 +61,30 @@ public final class MVMapWrapper<K, V> implements ConcurrentMap<K, V> {
         lock = null;
     }
 
+    K lastKey() {
+        return mvMap.lastKey();
+    }
+
     V unsafeGet(final Object key) {
         return mvMap.get(key);
     }
 
     @Override
     public V get(final Object key) {
-        lock();
+        // Reads may run concurrently, so each read registers its own version usage instead of the shared lock
+        final MVStore.TxCounter counter = mvStore.registerVersionUsage();
         try {
             return clone(mvMap.get(key));
         } finally {
-            unlock();
+            mvStore.deregisterVersionUsage(counter);
         }
     }
 
     private V clone(final V value) {
+        // Models are copied directly, which keeps their lazily decoded properties encoded
+        if (value instanceof MVStoreModel)
+            //noinspection unchecked
+            return (V) ((MVStoreModel) value).copy();
         try {
             final ByteArrayOutputStream output = new ByteArrayOutputStream();
             new ObjectOutputStream(output).writeObject(value);
@@ -171,6 +181,28 @@ public final class MVMapWrapper<K, V> implements ConcurrentMap<K, V> {
         }
     }
 
+    /**
+     * @return Lazy iterator over all entries in key order. Immutable values are returned without cloning.
+     */
+    Iterator<Entry<K, V>> entryIterator() {
+        final Cursor<K, V> cursor = mvMap.cursor(null);
+        return new Iterator<Entry<K, V>>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                final K key = cursor.next();
+                final V value = cursor.getValue();
+                final boolean immutable = value instanceof String || value instanceof Number ||
+                                          value instanceof Boolean || value instanceof Character;
+                return new AbstractMap.SimpleImmutableEntry<>(key, immutable ? value : MVMapWrapper.this.clone(value));
+            }
+        };
+    }
+
     @Override
     public V putIfAbsent(final K key, final V value) {
         lock();
@@ -1,37 +1,101 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
+import de.unibi.agbi.biodwh2.core.io.storage.PropertyCriteria;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageCollection;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexDescription;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
 import de.unibi.agbi.biodwh2.core.lang.Type;
 import de.unibi.agbi.biodwh2.core.model.graph.Edge;
 
 import java.util.*;
 
-public final class MVStoreCollection<T extends MVStoreModel> implements Iterable<T> {
+public final class MVStoreCollection<T extends MVStoreModel> implements StorageCollection<T> {
     private static final String INDEX_KEYS = "index_keys";
     private static final String INDEX_ARRAY_FLAGS = "index_array_flags";
     private static final String INDEX_TYPES = "index_types";
     private static final String ALL_PROPERTY_KEYS = "all_property_keys";
     private static final String ALL_PROPERTY_TYPES = "all_property_types";
+    private static final String DICTIONARY_EXCLUDED_KEYS = "dictionary_excluded_keys";
+    private static final String COLUMN_KEYS = "column_keys";
 
     private final boolean readOnly;
     private final MVStoreDB db;
     private final String name;
     private final MVMapWrapper<Long, T> map;
     private final MVMapWrapper<String, Object> metaMap;
+    private final StringDictionary dictionary;
+    private final MVStoreCollection<T> base;
+    private final MVMapWrapper<Long, Boolean> tombstones;
     private final Map<String, MVStoreIndex> indices;
     private final Map<String, Type> propertyKeyTypes;
+    private final Map<String, MVMapWrapper<Long, Object>> columns;
     private boolean isDirty;
 
     MVStoreCollection(final MVStoreDB db, final String name, final boolean readOnly) {
+        this(db, name, readOnly, null);
+    }
+
+    MVStoreCollection(final MVStoreDB db, final String name, final boolean readOnly,
+                      final MVStoreCollection<T> base) {
         this.readOnly = readOnly;
         this.db = db;
         this.name = name;
-        map = db.openMap(name);
+        this.base = base;
         metaMap = db.openMap(name + "!meta");
+        dictionary = db.getStringDictionary(name + "!dictionary");
+        dictionary.load((String[]) metaMap.get(DICTIONARY_EXCLUDED_KEYS));
+        map = db.openMap(name, new ModelDataType(dictionary));
+        tombstones = base != null ? db.openMap(name + "!tombstones") : null;
         indices = new HashMap<>();
         propertyKeyTypes = new HashMap<>();
+        columns = new HashMap<>();
         initPropertyKeyTypes();
         isDirty = false;
         initIndices();
+        initColumns();
+        if (base != null && !readOnly) {
+            mirrorBaseIndices();
+            mirrorBaseColumns();
+        }
+    }
+
+    /**
+     * Release all blobs of this collection's objects in preparation of removing the collection.
+     *
+     * @return Names of all maps used by this collection
+     */
+    List<String> drop() {
+        for (final T obj : scanLocalValues())
+            removeBlobs(obj, null);
+        final List<String> mapNames = new ArrayList<>();
+        Collections.addAll(mapNames, name, name + "!meta", name + "!dictionary", name + "!tombstones");
+        for (final String key : columns.keySet())
+            mapNames.add(getColumnName(key));
+        for (final MVStoreIndex index : indices.values())
+            Collections.addAll(mapNames, index.name, index.name + "!pages");
+        return mapNames;
+    }
+
+    private void initColumns() {
+        final String[] columnKeys = (String[]) metaMap.get(COLUMN_KEYS);
+        if (columnKeys != null)
+            for (final String key : columnKeys)
+                columns.put(key, db.openMap(getColumnName(key)));
+    }
+
+    private String getColumnName(final String key) {
+        return name + "#" + key;
+    }
+
+    private void mirrorBaseColumns() {
+        for (final String key : base.getColumnKeys())
+            addColumn(key);
+    }
+
+    private void mirrorBaseIndices() {
+        for (final MVStoreIndex index : base.getIndices())
+            getIndex(index.getKey(), index.isArrayIndex(), index.getType());
     }
 
     private void initIndices() {
@@ -45,7 +109,7 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
                 Arrays.fill(indexTypes, MVStoreIndexType.NON_UNIQUE);
             }
             for (int i = 0; i < indexKeys.length; i++)
-                getIndex(indexKeys[i], indexArrayFlags[i], indexTypes[i], true);
+                getIndex(indexKeys[i], indexArrayFlags[i], indexTypes[i].toStorageIndexType(), true);
         } else
             storeIndicesMetadata(new String[0], new boolean[0], new MVStoreIndexType[0]);
     }
@@ -62,23 +126,25 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
         final String[] keys = (String[]) metaMap.get(ALL_PROPERTY_KEYS);
         final Type[] types = (Type[]) metaMap.get(ALL_PROPERTY_TYPES);
         if (keys == null || types == null)
-            for (final T obj : map.values())
+            for (final T obj : scanLocalValues())
                 updateAllPropertyKeys(obj);
         else
             for (int i = 0; i < keys.length; i++)
                 propertyKeyTypes.put(keys[i], types[i]);
     }
 
+    @Override
     public MVStoreIndex getIndex(final String key) {
-        return getIndex(key, false, MVStoreIndexType.NON_UNIQUE, false);
+        return getIndex(key, false, StorageIndexType.NON_UNIQUE, false);
     }
 
-    public MVStoreIndex getIndex(final String key, final boolean arrayIndex, final MVStoreIndexType type) {
+    @Override
+    public MVStoreIndex getIndex(final String key, final boolean arrayIndex, final StorageIndexType type) {
         return getIndex(key, arrayIndex, type, false);
     }
 
-    private MVStoreIndex getIndex(final String key, final boolean arrayIndex, final MVStoreIndexType type,
-                                  final boolean reopen) {
+    private synchronized MVStoreIndex getIndex(final String key, final boolean arrayIndex,
+                                               final StorageIndexType type, final boolean reopen) {
         MVStoreIndex index = indices.get(key);
         if (index == null) {
             final String indexName = name + "$" + key;
@@ -109,30 +175,153 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
         arrayFlags[arrayFlags.length - 1] = index.isArrayIndex();
         MVStoreIndexType[] types = (MVStoreIndexType[]) metaMap.get(INDEX_TYPES);
         types = types == null ? new MVStoreIndexType[1] : Arrays.copyOf(types, types.length + 1);
-        types[types.length - 1] = index.getType();
+        types[types.length - 1] = MVStoreIndexType.from(index.getType());
         storeIndicesMetadata(keys, arrayFlags, types);
     }
 
     private void populateNewIndexIfDirty(final MVStoreIndex index) {
         if (isDirty)
-            for (final T obj : map.values())
+            for (final T obj : scanLocalValues())
                 index.put(obj.get(index.getKey()), obj.getId());
     }
 
-    public MVIndexDescription[] getIndexDescriptions() {
+    @Override
+    public synchronized void addColumn(final String key) {
+        if (readOnly || columns.containsKey(key))
+            return;
+        final MVMapWrapper<Long, Object> column = db.openMap(getColumnName(key));
+        for (final T obj : scanLocalValues())
+            putColumnValue(column, obj.getId(), obj.get(key));
+        columns.put(key, column);
+        metaMap.put(COLUMN_KEYS, columns.keySet().toArray(new String[0]));
+    }
+
+    private static void putColumnValue(final MVMapWrapper<Long, Object> column, final long id, final Object value) {
+        if (value != null)
+            column.put(id, value);
+        else if (column.containsKey(id))
+            column.remove(id);
+    }
+
+    @Override
+    public String[] getColumnKeys() {
+        return columns.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public <V> Iterable<Tuple2<Long, V>> scanColumn(final String key) {
+        return () -> {
+            final Iterator<Tuple2<Long, V>> localValues = scanLocalColumn(key);
+            if (base == null)
+                return localValues;
+            final Iterator<Tuple2<Long, V>> baseValues = base.<V>scanColumn(key).iterator();
+            return new Iterator<Tuple2<Long, V>>() {
+                private Tuple2<Long, V> next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next == null)
+                        next = advance();
+                    return next != null;
+                }
+
+                private Tuple2<Long, V> advance() {
+                    if (localValues.hasNext())
+                        return localValues.next();
+                    while (baseValues.hasNext()) {
+                        final Tuple2<Long, V> value = baseValues.next();
+                        if (!isShadowingBase(value.getFirst()))
+                            return value;
+                    }
+                    return null;
+                }
+
+                @Override
+                public Tuple2<Long, V> next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    final Tuple2<Long, V> result = next;
+                    next = null;
+                    return result;
+                }
+            };
+        };
+    }
+
+    private <V> Iterator<Tuple2<Long, V>> scanLocalColumn(final String key) {
+        final MVMapWrapper<Long, Object> column = columns.get(key);
+        if (column != null) {
+            final Iterator<Map.Entry<Long, Object>> entries = column.entryIterator();
+            return new Iterator<Tuple2<Long, V>>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public Tuple2<Long, V> next() {
+                    final Map.Entry<Long, Object> entry = entries.next();
+                    //noinspection unchecked
+                    return new Tuple2<>(entry.getKey(), (V) entry.getValue());
+                }
+            };
+        }
+        final Iterator<Map.Entry<Long, T>> entries = map.entryIterator();
+        return new Iterator<Tuple2<Long, V>>() {
+            private Tuple2<Long, V> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && entries.hasNext()) {
+                    final Map.Entry<Long, T> entry = entries.next();
+                    final V value = attach(entry.getValue()).getProperty(key);
+                    if (value != null)
+                        next = new Tuple2<>(entry.getKey(), value);
+                }
+                return next != null;
+            }
+
+            @Override
+            public Tuple2<Long, V> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final Tuple2<Long, V> result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    @Override
+    public StorageIndexDescription[] getIndexDescriptions() {
         return indices.values().stream().filter(
                 i -> !i.getKey().equals(Edge.FROM_ID_FIELD) && !i.getKey().equals(Edge.TO_ID_FIELD)).map(
-                MVStoreIndex::getIndexDescription).toArray(MVIndexDescription[]::new);
+                MVStoreIndex::getIndexDescription).toArray(StorageIndexDescription[]::new);
     }
 
+    @Override
     public Map<String, Type> getPropertyKeyTypes() {
-        return new HashMap<>(propertyKeyTypes);
+        final Map<String, Type> result = base != null ? base.getPropertyKeyTypes() : new HashMap<>();
+        result.putAll(propertyKeyTypes);
+        return result;
     }
 
+    private boolean hasPropertyKey(final String key) {
+        return propertyKeyTypes.containsKey(key) || (base != null && base.hasPropertyKey(key));
+    }
+
+    @Override
     public void put(final T obj) {
         isDirty = true;
-        removeOldVersionFromIndices(map.get(obj.getId()));
-        map.put(obj.getId(), obj);
+        if (!readOnly && dictionary.register(obj))
+            metaMap.put(DICTIONARY_EXCLUDED_KEYS, dictionary.getExcludedKeys());
+        final T oldModel = attach(map.get(obj.getId()));
+        removeOldVersionFromIndices(oldModel);
+        map.put(obj.getId(), storeLargeValuesOutOfLine(obj, oldModel));
+        for (final Map.Entry<String, MVMapWrapper<Long, Object>> column : columns.entrySet())
+            putColumnValue(column.getValue(), obj.getId(), obj.get(column.getKey()));
+        if (isTombstone(obj.getId()))
+            tombstones.remove(obj.getId());
         updateAllPropertyKeys(obj);
         for (final MVStoreIndex index : indices.values()) {
             final Object property = obj.get(index.getKey());
@@ -141,6 +330,74 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
         }
     }
 
+    private T attach(final T obj) {
+        if (obj != null)
+            obj.setBlobStore(db.getBlobStore());
+        return obj;
+    }
+
+    /**
+     * @return Lazy cursor over the objects of this collection, so they don't need to be loaded at once
+     */
+    private Iterable<T> scanLocalValues() {
+        return () -> {
+            final Iterator<Map.Entry<Long, T>> entries = map.entryIterator();
+            return new Iterator<T>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    return attach(entries.next().getValue());
+                }
+            };
+        };
+    }
+
+    /**
+     * Replace large string values with references to the blob store. References still owned by the previous version
+     * of the object are kept, all others are resolved and stored again so every blob has a single owner.
+     *
+     * @return Model to store, which is a copy if any value was replaced
+     */
+    private T storeLargeValuesOutOfLine(final T obj, final T oldModel) {
+        final BlobStore blobs = db.getBlobStore();
+        T result = obj;
+        boolean keptReference = false;
+        for (final String key : obj.keySet()) {
+            final Object value = obj.getUnresolved(key);
+            if (value instanceof BlobReference && obj.getBlobStore() == blobs && oldModel != null &&
+                value.equals(oldModel.getUnresolved(key))) {
+                keptReference = true;
+                continue;
+            }
+            final Object resolvedValue = value instanceof BlobReference ? obj.get(key) : value;
+            final boolean outOfLine = resolvedValue instanceof String && !indices.containsKey(key) &&
+                                      ((String) resolvedValue).length() >= db.getBlobThreshold();
+            if (outOfLine || resolvedValue != value) {
+                if (result == obj)
+                    result = obj.copy();
+                result.put(key, outOfLine ? blobs.put((String) resolvedValue) : resolvedValue);
+            }
+        }
+        // The map keeps the stored instance in memory, so the caller resolving references later must not affect it
+        if (keptReference && result == obj)
+            result = obj.copy();
+        removeBlobs(oldModel, result);
+        return result;
+    }
+
+    private void removeBlobs(final T oldModel, final T newModel) {
+        if (oldModel != null)
+            for (final String key : oldModel.keySet()) {
+                final Object value = oldModel.getUnresolved(key);
+                if (value instanceof BlobReference && (newModel == null || !value.equals(newModel.getUnresolved(key))))
+                    db.getBlobStore().remove((BlobReference) value);
+            }
+    }
+
     private void removeOldVersionFromIndices(final T oldModel) {
         if (oldModel != null)
             for (final String key : oldModel.keySet()) {
@@ -155,26 +412,7 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
 
     private void updateAllPropertyKeys(final T obj) {
         final int previousSize = propertyKeyTypes.size();
-        boolean changed = false;
-        for (final String key : obj.keySet()) {
-            final Object value = obj.getProperty(key);
-            if (value == null)
-                continue;
-            if (!propertyKeyTypes.containsKey(key)) {
-                propertyKeyTypes.put(key, Type.fromObject(value));
-                changed = true;
-            } else if (propertyKeyTypes.get(key) != null) {
-                final Type oldType = propertyKeyTypes.get(key);
-                final Type newType = Type.fromObject(value);
-                if (oldType.isList() && newType.getComponentType() != null) {
-                    if (oldType.getComponentType() == null || newType.getComponentType().isAssignableFrom(
-                            oldType.getComponentType())) {
-                        propertyKeyTypes.put(key, newType);
-                        changed = true;
-                    }
-                }
-            }
-        }
+        final boolean changed = PropertyCriteria.updatePropertyKeyTypes(propertyKeyTypes, obj);
         if (changed || previousSize != propertyKeyTypes.size()) {
             final String[] keys = propertyKeyTypes.keySet().toArray(new String[0]);
             final Type[] types = new Type[keys.length];
@@ -187,27 +425,50 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
         }
     }
 
+    private boolean isTombstone(final long id) {
+        return tombstones != null && tombstones.containsKey(id);
+    }
+
+    private boolean isShadowingBase(final long id) {
+        return map.containsKey(id) || isTombstone(id);
+    }
+
     public T get(final MVStoreId id) {
-        return map.getOrDefault(id.getIdValue(), null);
+        return get(id.getIdValue());
     }
 
+    @Override
     public T get(final long id) {
-        return map.getOrDefault(id, null);
+        final T obj = attach(map.getOrDefault(id, null));
+        if (obj != null || base == null || isTombstone(id))
+            return obj;
+        return base.get(id);
     }
 
+    @Override
+    public boolean contains(final long id) {
+        if (map.containsKey(id))
+            return true;
+        return base != null && !isTombstone(id) && base.contains(id);
+    }
+
+    @Override
     public String getName() {
         return name;
     }
 
+    @Override
     public Iterable<T> find(final String propertyKey, final Comparable<?> propertyValue) {
         return find(new String[]{propertyKey}, new Comparable<?>[]{propertyValue});
     }
 
+    @Override
     public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
                             final Comparable<?> propertyValue2) {
         return find(new String[]{propertyKey1, propertyKey2}, new Comparable<?>[]{propertyValue1, propertyValue2});
     }
 
+    @Override
     public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
                             final Comparable<?> propertyValue2, final String propertyKey3,
                             final Comparable<?> propertyValue3) {
@@ -215,6 +476,7 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
                     new Comparable<?>[]{propertyValue1, propertyValue2, propertyValue3});
     }
 
+    @Override
     public Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
                             final Comparable<?> propertyValue2, final String propertyKey3,
                             final Comparable<?> propertyValue3, final String propertyKey4,
@@ -223,16 +485,28 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
                     new Comparable<?>[]{propertyValue1, propertyValue2, propertyValue3, propertyValue4});
     }
 
+    @Override
     public synchronized Iterable<T> find(final String[] propertyKeys, final Comparable<?>[] propertyValues) {
         for (final String propertyKey : propertyKeys)
-            if (!propertyKeyTypes.containsKey(propertyKey))
+            if (!hasPropertyKey(propertyKey))
                 return new ArrayList<>();
+        final Set<Long> ids = findIds(propertyKeys, propertyValues);
+        if (base != null)
+            for (final Long id : base.findIds(propertyKeys, propertyValues))
+                if (!isShadowingBase(id))
+                    ids.add(id);
+        return () -> ids.stream().map(this::get).iterator();
+    }
+
+    private synchronized Set<Long> findIds(final String[] propertyKeys, final Comparable<?>[] propertyValues) {
+        for (final String propertyKey : propertyKeys)
+            if (!propertyKeyTypes.containsKey(propertyKey))
+                return db.newIdSet();
         final boolean[] hasIndexFlags = new boolean[propertyKeys.length];
         Set<Long> ids = retainIndexedIds(propertyKeys, propertyValues, hasIndexFlags);
-        if (isFindOnNonIndexedProperties(hasIndexFlags))
+        if (PropertyCriteria.isFindOnNonIndexedProperties(hasIndexFlags))
             ids = retainUnindexedIds(propertyKeys, propertyValues, hasIndexFlags, ids);
-        final Set<Long> finalIds = ids != null ? ids : new HashSet<>();
-        return () -> finalIds.stream().map(this::get).iterator();
+        return ids != null ? ids : db.newIdSet();
     }
 
     private Set<Long> retainIndexedIds(final String[] propertyKeys, final Comparable<?>[] propertyValues,
@@ -251,22 +525,15 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
         return ids;
     }
 
-    private boolean isFindOnNonIndexedProperties(final boolean[] hasIndexFlags) {
-        for (final boolean hasIndexFlag : hasIndexFlags)
-            if (!hasIndexFlag)
-                return true;
-        return false;
-    }
-
     private Set<Long> retainUnindexedIds(final String[] propertyKeys, final Comparable<?>[] propertyValues,
                                          final boolean[] hasIndexFlags, Set<Long> ids) {
         if (ids == null) {
-            ids = new HashSet<>();
-            for (final Long id : map.keySet())
+            ids = db.newIdSet();
+            for (final Long id : getLocalIds())
                 if (modelMatchesCriteria(id, propertyKeys, propertyValues, hasIndexFlags))
                     ids.add(id);
         } else {
-            final Set<Long> matchedIds = new HashSet<>();
+            final Set<Long> matchedIds = db.newIdSet();
             for (final Long id : ids)
                 if (modelMatchesCriteria(id, propertyKeys, propertyValues, hasIndexFlags))
                     matchedIds.add(id);
@@ -277,73 +544,112 @@ public final class MVStoreCollection<T extends MVStoreModel> implements Iterable
 
     private boolean modelMatchesCriteria(final Long id, final String[] propertyKeys,
                                          final Comparable<?>[] propertyValues, final boolean[] hasIndexFlags) {
-        final T obj = map.get(id);
-        boolean matched = false;
-        for (int i = 0; i < propertyKeys.length; i++) {
-            if (hasIndexFlags[i])
-                continue;
-            final Comparable<?> searchValue = propertyValues[i];
-            final Object value = obj.get(propertyKeys[i]);
-            if (value instanceof Comparable<?>) {
-                if (!propertyMatchesCriteria((Comparable<?>) value, searchValue))
-                    return false;
-            } else if (value instanceof Comparable<?>[]) {
-                final Comparable<?>[] valueArray = (Comparable<?>[]) value;
-                boolean matchedAnyInArray = false;
-                for (final Comparable<?> comparable : valueArray) {
-                    if (propertyMatchesCriteria(comparable, searchValue)) {
-                        matchedAnyInArray = true;
-                        break;
-                    }
-                }
-                if (!matchedAnyInArray)
-                    return false;
-            } else
-                return false;
-            matched = true;
-        }
-        return matched;
-    }
-
-    private boolean propertyMatchesCriteria(final Comparable<?> a, final Comparable<?> b) {
-        if (a == null || b == null)
-            return false;
-        if (a instanceof Long || a instanceof Integer || a instanceof Short || a instanceof Byte)
-            if (b instanceof Long || b instanceof Integer || b instanceof Short || b instanceof Byte)
-                return ((Number) a).longValue() == ((Number) b).longValue();
-        return a.equals(b);
+        return PropertyCriteria.modelMatchesCriteria(attach(map.get(id)), propertyKeys, propertyValues, hasIndexFlags);
     }
 
     @Override
     public Iterator<T> iterator() {
-        final Set<Long> keys = map.keySet();
+        final Iterator<Long> ids = idIterator();
         return new Iterator<T>() {
-            final Iterator<Long> entries = keys.iterator();
-
             @Override
             public boolean hasNext() {
-                return entries.hasNext();
+                return ids.hasNext();
             }
 
             @Override
             public T next() {
-                return get(entries.next());
+                return get(ids.next());
             }
         };
     }
 
+    /**
+     * @return Ids of all objects in this collection without loading the objects
+     */
+    @Override
+    public Iterable<Long> getIds() {
+        return this::idIterator;
+    }
+
+    private Set<Long> getLocalIds() {
+        if (!db.hasDenseIds())
+            return map.keySet();
+        final Set<Long> ids = db.newIdSet();
+        map.lock();
+        try {
+            ids.addAll(map.unsafeKeySet());
+        } finally {
+            map.unlock();
+        }
+        return ids;
+    }
+
+    private Iterator<Long> idIterator() {
+        final Iterator<Long> localIds = getLocalIds().iterator();
+        if (base == null)
+            return localIds;
+        final Iterator<Long> baseIds = base.idIterator();
+        return new Iterator<Long>() {
+            private Long next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null)
+                    next = advance();
+                return next != null;
+            }
+
+            private Long advance() {
+                if (localIds.hasNext())
+                    return localIds.next();
+                while (baseIds.hasNext()) {
+                    final Long id = baseIds.next();
+                    if (!isShadowingBase(id))
+                        return id;
+                }
+                return null;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                final Long result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    @Override
     public long size() {
-        return map.sizeAsLong();
+        if (base == null)
+            return map.sizeAsLong();
+        long shadowedCount = 0;
+        for (final Long id : map.keySet())
+            if (base.contains(id))
+                shadowedCount++;
+        return base.size() + map.sizeAsLong() - shadowedCount - tombstones.sizeAsLong();
     }
 
+    @Override
     public MVStoreIndex[] getIndices() {
         return indices.values().toArray(new MVStoreIndex[0]);
     }
 
+    @Override
     public void remove(final T obj) {
         if (map.containsKey(obj.getId())) {
-            removeOldVersionFromIndices(map.get(obj.getId()));
+            final T oldModel = attach(map.get(obj.getId()));
+            removeOldVersionFromIndices(oldModel);
+            removeBlobs(oldModel, null);
             map.remove(obj.getId());
+            for (final MVMapWrapper<Long, Object> column : columns.values())
+                column.remove(obj.getId());
+            isDirty = true;
+        }
+        if (base != null && base.contains(obj.getId()) && !isTombstone(obj.getId())) {
+            tombstones.put(obj.getId(), true);
             isDirty = true;
         }
     }
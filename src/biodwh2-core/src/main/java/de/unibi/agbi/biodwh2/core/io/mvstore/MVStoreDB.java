@@ -1,15 +1,34 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.collections.LongBitSet;
+import de.unibi.agbi.biodwh2.core.io.storage.Storage;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageTransaction;
+import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
+import org.h2.mvstore.type.DataType;
 
 import java.util.*;
 
-public final class MVStoreDB implements AutoCloseable {
+public final class MVStoreDB implements Storage<MVStoreModel> {
+    private static final String ID_COUNTER_KEY = "id_counter";
+    private static final int ID_RESERVATION_SIZE = 1024;
+    private static final String BLOBS_MAP_NAME = "!blobs";
+    private static final String REMOVED_BASE_COLLECTION_NAMES_KEY = "removed_base_collection_names";
+    public static final int DEFAULT_BLOB_THRESHOLD = 4096;
+
     private final boolean readOnly;
     private final MVStore store;
     private final MVMapWrapper<String, Object> metaMap;
     private final Map<String, MVStoreCollection<?>> collections;
     private final List<String> collectionNames;
+    private final Set<String> removedBaseCollectionNames;
+    private final Map<String, StringDictionary> dictionaries;
+    private final BlobStore blobs;
+    private int blobThreshold;
+    private MVStoreDB base;
+    private boolean denseIds;
+    private long nextDenseId;
+    private long reservedDenseIdLimit;
 
     public MVStoreDB(final String filePath) {
         this(filePath, false);
@@ -24,37 +43,241 @@ public final class MVStoreDB implements AutoCloseable {
         metaMap = openMap("!meta");
         collections = new HashMap<>();
         collectionNames = new ArrayList<>();
+        removedBaseCollectionNames = new HashSet<>();
+        dictionaries = new HashMap<>();
+        blobs = new BlobStore(openMap(BLOBS_MAP_NAME));
+        blobThreshold = DEFAULT_BLOB_THRESHOLD;
+        loadCollectionNames();
+        final Long idCounter = (Long) metaMap.get(ID_COUNTER_KEY);
+        if (idCounter != null) {
+            denseIds = true;
+            nextDenseId = idCounter;
+            reservedDenseIdLimit = idCounter;
+        }
+    }
+
+    private void loadCollectionNames() {
+        collectionNames.clear();
         final String[] collectionNamesArray = (String[]) metaMap.get("collection_names");
         if (collectionNamesArray != null)
             Collections.addAll(collectionNames, collectionNamesArray);
+        removedBaseCollectionNames.clear();
+        final String[] removedNamesArray = (String[]) metaMap.get(REMOVED_BASE_COLLECTION_NAMES_KEY);
+        if (removedNamesArray != null)
+            Collections.addAll(removedBaseCollectionNames, removedNamesArray);
     }
 
+    @Override
     public <K, V> MVMapWrapper<K, V> openMap(final String name) {
         return new MVMapWrapper<>(store, store.openMap(name));
     }
 
-    public <T extends MVStoreModel> MVStoreCollection<T> getCollection(final String name) {
+    <K, V> MVMapWrapper<K, V> openMap(final String name, final DataType valueType) {
+        return new MVMapWrapper<>(store, store.openMap(name, new MVMap.Builder<K, V>().valueType(valueType)));
+    }
+
+    /**
+     * @return Minimum length of string property values to be stored out-of-line in the compressed blob map
+     */
+    public int getBlobThreshold() {
+        return blobThreshold;
+    }
+
+    /**
+     * @param blobThreshold Minimum length of string property values to be stored out-of-line in the compressed blob
+     *                      map or {@link Integer#MAX_VALUE} to store all values inline
+     */
+    @Override
+    public void setBlobThreshold(final int blobThreshold) {
+        this.blobThreshold = blobThreshold;
+    }
+
+    BlobStore getBlobStore() {
+        return blobs;
+    }
+
+    /**
+     * Use the provided read-only database as the immutable base of this database. Collections read through to the
+     * base and only store changes locally, removals of base objects are recorded as tombstones.
+     *
+     * @param base Read-only base database
+     */
+    public void setBase(final MVStoreDB base) {
+        if (collections.size() > 0)
+            throw new IllegalStateException("The base database can only be set before any collection is opened");
+        if (!base.readOnly)
+            throw new IllegalArgumentException("The base database needs to be opened read-only");
+        this.base = base;
+        if (denseIds && base.denseIds)
+            nextDenseId = Math.max(nextDenseId, base.nextDenseId);
+    }
+
+    /**
+     * Switch this database to dense id allocation. Ids are handed out from a per-database counter starting at zero, or
+     * after the last id of the base database, which is persisted in the "!meta" map. Dense ids are only enabled for
+     * empty databases or overlays of a base database using dense ids.
+     *
+     * @return true if the database uses dense ids afterwards
+     */
+    @Override
+    public synchronized boolean enableDenseIds() {
+        if (denseIds)
+            return true;
+        if (readOnly || collectionNames.size() > 0 || (base != null && !base.denseIds))
+            return false;
+        denseIds = true;
+        nextDenseId = base != null ? base.nextDenseId : 0;
+        reserveDenseIds();
+        return true;
+    }
+
+    private void reserveDenseIds() {
+        reservedDenseIdLimit = nextDenseId + ID_RESERVATION_SIZE;
+        metaMap.put(ID_COUNTER_KEY, reservedDenseIdLimit);
+    }
+
+    @Override
+    public boolean hasDenseIds() {
+        return denseIds;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        if (!denseIds)
+            return new MVStoreId().getIdValue();
+        // Ids are reserved in blocks so the counter isn't written for every id, unused ids of a block are skipped
+        if (nextDenseId >= reservedDenseIdLimit)
+            reserveDenseIds();
+        return nextDenseId++;
+    }
+
+    /**
+     * @return Exclusive upper bound of all ids allocated by this database if dense ids are used, otherwise -1
+     */
+    @Override
+    public synchronized long getIdUpperBound() {
+        return denseIds ? nextDenseId : -1;
+    }
+
+    /**
+     * @return Empty set for ids of this database, backed by a bitset if dense ids are used
+     */
+    @Override
+    public Set<Long> newIdSet() {
+        return denseIds ? new LongBitSet() : new HashSet<>();
+    }
+
+    /**
+     * Dictionaries are shared by all instances of a collection, as the open map keeps using the data type of the
+     * first instance.
+     */
+    synchronized StringDictionary getStringDictionary(final String name) {
+        return dictionaries.computeIfAbsent(name, k -> new StringDictionary(openMap(name)));
+    }
+
+    @Override
+    public boolean hasCollection(final String name) {
+        return collectionNames.contains(name) || hasBaseCollection(name);
+    }
+
+    private boolean hasBaseCollection(final String name) {
+        return base != null && !removedBaseCollectionNames.contains(name) && base.hasCollection(name);
+    }
+
+    /**
+     * @return The database this database is an overlay of or null
+     */
+    public MVStoreDB getBase() {
+        return base;
+    }
+
+    @Override
+    public synchronized <T extends MVStoreModel> MVStoreCollection<T> getCollection(final String name) {
         MVStoreCollection<?> collection = collections.get(name);
         if (collection == null) {
-            collection = new MVStoreCollection<>(this, name, readOnly);
+            final MVStoreCollection<T> baseCollection =
+                    hasBaseCollection(name) ? base.getCollection(name) : null;
+            collection = new MVStoreCollection<>(this, name, readOnly, baseCollection);
             collections.put(name, collection);
             if (!collectionNames.contains(name)) {
                 collectionNames.add(name);
-                metaMap.put("collection_names", getCollectionNames());
+                if (!readOnly)
+                    metaMap.put("collection_names", collectionNames.toArray(new String[0]));
             }
         }
         //noinspection unchecked
         return (MVStoreCollection<T>) collection;
     }
 
+    /**
+     * Remove a collection with all its objects. A collection of the base database is hidden instead, so the base stays
+     * untouched and a collection created later with the same name starts empty.
+     */
+    @Override
+    public synchronized void removeCollection(final String name) {
+        if (readOnly)
+            throw new IllegalStateException("Collections can't be removed from a read-only database");
+        if (!collectionNames.contains(name) && !hasBaseCollection(name))
+            return;
+        final MVStoreCollection<?> collection = getCollection(name);
+        for (final String mapName : collection.drop())
+            if (store.hasMap(mapName))
+                store.removeMap(mapName);
+        dictionaries.remove(name + "!dictionary");
+        collections.remove(name);
+        collectionNames.remove(name);
+        metaMap.put("collection_names", collectionNames.toArray(new String[0]));
+        if (hasBaseCollection(name)) {
+            removedBaseCollectionNames.add(name);
+            metaMap.put(REMOVED_BASE_COLLECTION_NAMES_KEY, removedBaseCollectionNames.toArray(new String[0]));
+        }
+    }
+
     @Override
     public void close() {
-        if (store != null && !store.isClosed())
+        if (store != null && !store.isClosed()) {
+            if (denseIds && !readOnly)
+                metaMap.put(ID_COUNTER_KEY, nextDenseId);
             store.close();
+        }
+        if (base != null)
+            base.close();
     }
 
+    @Override
     public String[] getCollectionNames() {
-        return collectionNames.toArray(new String[0]);
+        if (base == null)
+            return collectionNames.toArray(new String[0]);
+        final Set<String> names = new LinkedHashSet<>(Arrays.asList(base.getCollectionNames()));
+        names.removeAll(removedBaseCollectionNames);
+        names.addAll(collectionNames);
+        return names.toArray(new String[0]);
+    }
+
+    @Override
+    public StorageTransaction beginTransaction() {
+        return new MVStoreTransaction(this, store);
+    }
+
+    @Override
+    public void commit() {
+        // The persisted id counter is the limit of the reserved id block, which is always ahead of all used ids
+        if (!readOnly)
+            store.commit();
+    }
+
+    /**
+     * Forget all opened collections after the store was rolled back, as their cached state may no longer match.
+     */
+    void reload() {
+        collections.clear();
+        // Maps created after the rollback version are closed, so dictionaries need to reopen their map
+        for (final Map.Entry<String, StringDictionary> entry : dictionaries.entrySet())
+            entry.getValue().setMap(openMap(entry.getKey()));
+        blobs.setMap(openMap(BLOBS_MAP_NAME));
+        loadCollectionNames();
+        // Force a new id reservation, as the persisted counter may have been rolled back as well
+        reservedDenseIdLimit = 0;
     }
 
     public MVStore.TxCounter getLock() {
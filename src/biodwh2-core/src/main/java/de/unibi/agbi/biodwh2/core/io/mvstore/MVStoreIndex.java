@@ -1,40 +1,46 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndex;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexDescription;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 
-public abstract class MVStoreIndex {
+public abstract class MVStoreIndex implements StorageIndex {
     protected static final Logger LOGGER = LoggerFactory.getLogger(MVStoreIndex.class);
 
     protected final String name;
     protected final String key;
     protected final boolean arrayIndex;
     protected final boolean readOnly;
-    private final MVIndexDescription indexDescription;
+    private final StorageIndexDescription indexDescription;
 
     protected MVStoreIndex(final String name, final String key, final boolean arrayIndex, final boolean readOnly) {
         this.name = name;
         this.key = key;
         this.arrayIndex = arrayIndex;
         this.readOnly = readOnly;
-        indexDescription = new MVIndexDescription(key, arrayIndex, getType());
+        indexDescription = new StorageIndexDescription(key, arrayIndex, getType());
     }
 
+    @Override
     public final String getName() {
         return name;
     }
 
+    @Override
     public final String getKey() {
         return key;
     }
 
+    @Override
     public final boolean isArrayIndex() {
         return arrayIndex;
     }
 
-    public abstract MVStoreIndexType getType();
+    public abstract StorageIndexType getType();
 
     public abstract Set<Long> find(final Comparable<?> propertyValue);
 
@@ -44,7 +50,8 @@ public abstract class MVStoreIndex {
 
     public abstract boolean contains(final Comparable<?> propertyValue);
 
-    public final MVIndexDescription getIndexDescription() {
+    @Override
+    public final StorageIndexDescription getIndexDescription() {
         return indexDescription;
     }
 }
@@ -1,6 +1,8 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
-public class MVStoreIndexException extends RuntimeException {
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexException;
+
+public class MVStoreIndexException extends StorageIndexException {
     private static final long serialVersionUID = -214953597637206495L;
 
     public MVStoreIndexException() {
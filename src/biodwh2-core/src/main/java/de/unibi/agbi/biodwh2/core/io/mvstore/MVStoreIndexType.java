@@ -1,6 +1,20 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
+
+/**
+ * Index type persisted in the collection metadata, which is kept separate from {@link StorageIndexType} so stored
+ * graphs don't depend on the storage interfaces.
+ */
 public enum MVStoreIndexType {
     UNIQUE,
-    NON_UNIQUE
+    NON_UNIQUE;
+
+    static MVStoreIndexType from(final StorageIndexType type) {
+        return type == StorageIndexType.UNIQUE ? UNIQUE : NON_UNIQUE;
+    }
+
+    StorageIndexType toStorageIndexType() {
+        return this == UNIQUE ? StorageIndexType.UNIQUE : StorageIndexType.NON_UNIQUE;
+    }
 }
@@ -1,41 +1,119 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.io.storage.StorageModel;
+
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.lang.reflect.Array;
+import java.util.*;
 
-public abstract class MVStoreModel implements Serializable {
+/**
+ * Base of all models stored in an {@link MVStoreDB}. Collections hand out shared cached instances which decode their
+ * properties lazily, so every access of the properties is guarded by the monitor of the model.
+ */
+public abstract class MVStoreModel implements Serializable, Cloneable, StorageModel {
     private static final long serialVersionUID = 3622312710000754490L;
     public static final String ID_FIELD = "__id";
     private Map<String, Object> properties;
+    private transient BlobStore blobStore;
+    private transient volatile byte[] encodedProperties;
+    private transient ModelDataType propertyDecoder;
 
     protected MVStoreModel() {
         properties = new HashMap<>();
     }
 
-    public final void put(final String key, final Object value) {
+    public final synchronized void put(final String key, final Object value) {
         properties.put(key, value);
     }
 
-    public final void setProperty(final String key, final Object value) {
+    public final synchronized void setProperty(final String key, final Object value) {
         properties.put(key, value);
     }
 
+    @Override
     public final Object get(final String key) {
-        return properties.get(key);
+        final Object value = getUnresolved(key);
+        return value instanceof BlobReference ? resolveBlob(key, (BlobReference) value) : value;
     }
 
+    @Override
     public final <T> T getProperty(final String key) {
-        final Object value = properties.get(key);
+        final Object value = get(key);
         //noinspection unchecked
         return value != null ? (T) value : null;
     }
 
-    private void writeObject(final ObjectOutputStream s) throws IOException {
+    private synchronized Object resolveBlob(final String key, final BlobReference reference) {
+        if (blobStore == null)
+            throw new IllegalStateException("Failed to resolve property '" + key + "' stored out-of-line");
+        final String value = blobStore.get(reference);
+        properties.put(key, value);
+        return value;
+    }
+
+    /**
+     * Load all property values stored out-of-line, so the model no longer depends on the database it was read from.
+     */
+    @Override
+    public final synchronized void resolveBlobs() {
+        decodeProperties();
+        for (final Map.Entry<String, Object> entry : properties.entrySet())
+            if (entry.getValue() instanceof BlobReference)
+                resolveBlob(entry.getKey(), (BlobReference) entry.getValue());
+    }
+
+    final synchronized Object getUnresolved(final String key) {
+        final Object value = properties.get(key);
+        if (value != null || encodedProperties == null)
+            return value;
+        decodeProperties();
+        return properties.get(key);
+    }
+
+    /**
+     * Attach the encoded section of all properties not decoded yet. The section is decoded on first access of any
+     * property which isn't already present.
+     */
+    final synchronized void setEncodedProperties(final byte[] encodedProperties,
+                                                 final ModelDataType propertyDecoder) {
+        this.propertyDecoder = propertyDecoder;
+        this.encodedProperties = encodedProperties;
+    }
+
+    private synchronized void decodeProperties() {
+        final byte[] data = encodedProperties;
+        if (data == null)
+            return;
+        // The section is decoded into a local map first, so the properties are never seen half decoded. The first
+        // occurrence of a key in the section wins, as rewritten models store their changed values first.
+        final Map<String, Object> decoded = new HashMap<>();
+        propertyDecoder.readProperties(data, decoded::putIfAbsent);
+        // Properties set after reading take precedence over the encoded values
+        for (final Map.Entry<String, Object> entry : decoded.entrySet())
+            if (!properties.containsKey(entry.getKey()))
+                properties.put(entry.getKey(), entry.getValue());
+        propertyDecoder = null;
+        encodedProperties = null;
+    }
+
+    final synchronized int estimateMemory() {
+        final byte[] data = encodedProperties;
+        return 64 + properties.size() * 48 + (data != null ? data.length : 0);
+    }
+
+    final BlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    final void setBlobStore(final BlobStore blobStore) {
+        this.blobStore = blobStore;
+    }
+
+    private synchronized void writeObject(final ObjectOutputStream s) throws IOException {
+        decodeProperties();
         s.writeObject(properties);
     }
 
@@ -44,20 +122,99 @@ public abstract class MVStoreModel implements Serializable {
         properties = (HashMap<String, Object>) s.readObject();
     }
 
+    /**
+     * Create an independent copy of this model without serialization. Array, collection and map property values are
+     * copied as well, all other property values are expected to be immutable. Properties not decoded yet stay encoded
+     * in the copy.
+     *
+     * @return Copy of this model of the same class
+     */
+    @Override
+    public final synchronized <T extends StorageModel> T copy() {
+        final MVStoreModel result;
+        try {
+            // Cloning copies the encoded section together with its decoder
+            result = (MVStoreModel) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        result.properties = new HashMap<>(properties.size() * 2);
+        for (final Map.Entry<String, Object> entry : properties.entrySet())
+            result.properties.put(entry.getKey(), copyValue(entry.getValue()));
+        //noinspection unchecked
+        return (T) result;
+    }
+
+    /**
+     * Snapshot the decoded properties and the encoded section not decoded yet without decoding it. Models cached by
+     * the store are written while readers copy them, so writing must not modify the model.
+     *
+     * @return Copy of the decoded properties together with the encoded section and its decoder
+     */
+    final synchronized PropertiesSnapshot snapshotProperties() {
+        return new PropertiesSnapshot(new HashMap<>(properties), encodedProperties, propertyDecoder);
+    }
+
+    private static Object copyValue(final Object value) {
+        if (value == null)
+            return null;
+        if (value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            final Object result = Array.newInstance(value.getClass().getComponentType(), length);
+            //noinspection SuspiciousSystemArraycopy
+            System.arraycopy(value, 0, result, 0, length);
+            return result;
+        }
+        if (value instanceof SortedSet)
+            return new TreeSet<>((SortedSet<?>) value);
+        if (value instanceof LinkedHashSet)
+            return new LinkedHashSet<>((Set<?>) value);
+        if (value instanceof Set)
+            return new HashSet<>((Set<?>) value);
+        if (value instanceof Collection)
+            return new ArrayList<>((Collection<?>) value);
+        if (value instanceof SortedMap)
+            return new TreeMap<>((SortedMap<?, ?>) value);
+        if (value instanceof Map)
+            return new LinkedHashMap<>((Map<?, ?>) value);
+        return value;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + super.toString();
     }
 
+    @Override
     public final Long getId() {
         return this.getProperty(ID_FIELD);
     }
 
-    public final boolean hasProperty(final String key) {
+    public final synchronized boolean hasProperty(final String key) {
+        if (!properties.containsKey(key))
+            decodeProperties();
         return properties.containsKey(key);
     }
 
-    public final Set<String> keySet() {
-        return properties.keySet();
+    /**
+     * @return Snapshot of the property keys, as the model may be shared with other threads
+     */
+    @Override
+    public final synchronized Set<String> keySet() {
+        decodeProperties();
+        return new HashSet<>(properties.keySet());
+    }
+
+    static final class PropertiesSnapshot {
+        final Map<String, Object> properties;
+        final byte[] encodedProperties;
+        final ModelDataType propertyDecoder;
+
+        PropertiesSnapshot(final Map<String, Object> properties, final byte[] encodedProperties,
+                           final ModelDataType propertyDecoder) {
+            this.properties = properties;
+            this.encodedProperties = encodedProperties;
+            this.propertyDecoder = propertyDecoder;
+        }
     }
 }
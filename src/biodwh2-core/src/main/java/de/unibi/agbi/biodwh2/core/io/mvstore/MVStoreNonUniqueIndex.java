@@ -2,6 +2,7 @@ package de.unibi.agbi.biodwh2.core.io.mvstore;
 
 import de.unibi.agbi.biodwh2.core.collections.ConcurrentDoublyLinkedList;
 import de.unibi.agbi.biodwh2.core.collections.Tuple2;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -52,8 +53,8 @@ public class MVStoreNonUniqueIndex extends MVStoreIndex {
     }
 
     @Override
-    public MVStoreIndexType getType() {
-        return MVStoreIndexType.NON_UNIQUE;
+    public StorageIndexType getType() {
+        return StorageIndexType.NON_UNIQUE;
     }
 
     @Override
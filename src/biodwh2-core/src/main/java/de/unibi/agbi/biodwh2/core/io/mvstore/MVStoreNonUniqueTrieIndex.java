@@ -1,11 +1,12 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
 import de.unibi.agbi.biodwh2.core.collections.LongTrie;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
 
-import java.util.HashSet;
 import java.util.Set;
 
 public class MVStoreNonUniqueTrieIndex extends MVStoreIndex {
+    private final MVStoreDB db;
     private final MVMapWrapper<Comparable<?>, LongTrie> map;
 
     public MVStoreNonUniqueTrieIndex(final MVStoreDB db, final String name, final String key,
@@ -16,14 +17,15 @@ public class MVStoreNonUniqueTrieIndex extends MVStoreIndex {
     MVStoreNonUniqueTrieIndex(final MVStoreDB db, final String name, final String key, final boolean arrayIndex,
                               final boolean readOnly) {
         super(name, key, arrayIndex, readOnly);
+        this.db = db;
         map = db.openMap(name);
         if (LOGGER.isDebugEnabled())
             LOGGER.debug("Open MVStore non-unique trie index " + name + "[isArray=" + arrayIndex + "]");
     }
 
     @Override
-    public MVStoreIndexType getType() {
-        return MVStoreIndexType.NON_UNIQUE;
+    public StorageIndexType getType() {
+        return StorageIndexType.NON_UNIQUE;
     }
 
     @Override
@@ -75,7 +77,10 @@ public class MVStoreNonUniqueTrieIndex extends MVStoreIndex {
         map.lock();
         try {
             final LongTrie trie = map.unsafeGet(indexKey);
-            return trie == null ? new HashSet<>() : new HashSet<>(trie);
+            final Set<Long> ids = db.newIdSet();
+            if (trie != null)
+                ids.addAll(trie);
+            return ids;
         } finally {
             map.unlock();
         }
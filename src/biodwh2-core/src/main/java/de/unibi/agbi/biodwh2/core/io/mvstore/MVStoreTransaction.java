@@ -0,0 +1,50 @@
+package de.unibi.agbi.biodwh2.core.io.mvstore;
+
+import de.unibi.agbi.biodwh2.core.io.storage.StorageTransaction;
+import org.h2.mvstore.MVStore;
+
+/**
+ * Transaction on top of the MVStore versioning. Beginning a transaction commits the current state and keeps the
+ * resulting version alive, so a rollback can revert the whole store to it.
+ */
+final class MVStoreTransaction implements StorageTransaction {
+    private final MVStoreDB db;
+    private final MVStore store;
+    private final long version;
+    private MVStore.TxCounter versionUsage;
+
+    MVStoreTransaction(final MVStoreDB db, final MVStore store) {
+        this.db = db;
+        this.store = store;
+        version = store.commit();
+        versionUsage = store.registerVersionUsage();
+    }
+
+    @Override
+    public void commit() {
+        if (versionUsage == null)
+            throw new IllegalStateException("The transaction is already finished");
+        store.commit();
+        finish();
+    }
+
+    private void finish() {
+        store.deregisterVersionUsage(versionUsage);
+        versionUsage = null;
+    }
+
+    @Override
+    public void rollback() {
+        if (versionUsage == null)
+            throw new IllegalStateException("The transaction is already finished");
+        store.rollbackTo(version);
+        finish();
+        db.reload();
+    }
+
+    @Override
+    public void close() {
+        if (versionUsage != null)
+            rollback();
+    }
+}
@@ -1,5 +1,6 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import de.unibi.agbi.biodwh2.core.io.storage.StorageIndexType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,8 +25,8 @@ public final class MVStoreUniqueIndex extends MVStoreIndex {
     }
 
     @Override
-    public MVStoreIndexType getType() {
-        return MVStoreIndexType.UNIQUE;
+    public StorageIndexType getType() {
+        return StorageIndexType.UNIQUE;
     }
 
     @Override
@@ -0,0 +1,214 @@
+package de.unibi.agbi.biodwh2.core.io.mvstore;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Edge;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.DataType;
+import org.h2.mvstore.type.ObjectDataType;
+
+import java.lang.reflect.Constructor;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact value type for collection maps. Models are written as a list of key value pairs, where the class name,
+ * property keys and registered string values are replaced by codes of the collection's {@link StringDictionary}. All
+ * other values are written using the default {@link ObjectDataType}. Values written by older versions with the default
+ * data type are detected by their first byte and still readable.
+ * <p>
+ * The id, label and edge endpoints are written first as a header, followed by a length prefixed section with all other
+ * properties. Reading only decodes the header and keeps the property section as bytes in the model until a property
+ * outside the header is accessed, so structural traversals never decode other properties.
+ */
+final class ModelDataType implements DataType {
+    private static final byte FORMAT_MARKER = (byte) 0xB1;
+    private static final byte LAZY_FORMAT_MARKER = (byte) 0xB2;
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING_CODE = 1;
+    private static final byte TAG_STRING = 2;
+    private static final byte TAG_STRING_ARRAY = 3;
+    private static final byte TAG_OBJECT = 4;
+
+    private static final Set<String> HEADER_KEYS = new HashSet<>(
+            Arrays.asList(MVStoreModel.ID_FIELD, Node.LABEL_FIELD, Edge.FROM_ID_FIELD, Edge.TO_ID_FIELD));
+    private static final Map<String, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    private final StringDictionary dictionary;
+    private final ObjectDataType objectDataType;
+
+    ModelDataType(final StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        objectDataType = new ObjectDataType();
+    }
+
+    @Override
+    public int compare(final Object a, final Object b) {
+        return objectDataType.compare(a, b);
+    }
+
+    @Override
+    public int getMemory(final Object obj) {
+        if (obj instanceof MVStoreModel)
+            return ((MVStoreModel) obj).estimateMemory();
+        return objectDataType.getMemory(obj);
+    }
+
+    @Override
+    public void write(final WriteBuffer buffer, final Object[] obj, final int len, final boolean key) {
+        for (int i = 0; i < len; i++)
+            write(buffer, obj[i]);
+    }
+
+    @Override
+    public void write(final WriteBuffer buffer, final Object obj) {
+        if (!(obj instanceof MVStoreModel)) {
+            objectDataType.write(buffer, obj);
+            return;
+        }
+        final MVStoreModel.PropertiesSnapshot snapshot = ((MVStoreModel) obj).snapshotProperties();
+        final Map<String, Object> properties = snapshot.properties;
+        ByteBuffer encodedSection = null;
+        int encodedCount = 0;
+        if (snapshot.encodedProperties != null) {
+            if (snapshot.propertyDecoder == this) {
+                // The section uses the codes of this dictionary, so it is copied as is
+                encodedSection = ByteBuffer.wrap(snapshot.encodedProperties);
+                encodedCount = DataUtils.readVarInt(encodedSection);
+            } else
+                snapshot.propertyDecoder.readProperties(snapshot.encodedProperties, properties::putIfAbsent);
+        }
+        buffer.put(LAZY_FORMAT_MARKER);
+        writeString(buffer, obj.getClass().getName());
+        int headerCount = 0;
+        for (final String propertyKey : properties.keySet())
+            if (HEADER_KEYS.contains(propertyKey))
+                headerCount++;
+        buffer.putVarInt(headerCount);
+        for (final Map.Entry<String, Object> property : properties.entrySet())
+            if (HEADER_KEYS.contains(property.getKey()))
+                writeProperty(buffer, property.getKey(), property.getValue());
+        // The property section length is patched in afterwards, so it can be skipped without decoding
+        final int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        // Decoded properties are written before the copied section, so they take precedence when reading
+        buffer.putVarInt(properties.size() - headerCount + encodedCount);
+        for (final Map.Entry<String, Object> property : properties.entrySet())
+            if (!HEADER_KEYS.contains(property.getKey()))
+                writeProperty(buffer, property.getKey(), property.getValue());
+        if (encodedSection != null)
+            buffer.put(encodedSection);
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - Integer.BYTES);
+    }
+
+    private void writeProperty(final WriteBuffer buffer, final String propertyKey, final Object value) {
+        writeString(buffer, propertyKey);
+        writeValue(buffer, value);
+    }
+
+    private void writeValue(final WriteBuffer buffer, final Object value) {
+        if (value == null)
+            buffer.put(TAG_NULL);
+        else if (value instanceof String)
+            writeString(buffer, (String) value);
+        else if (value instanceof String[]) {
+            final String[] array = (String[]) value;
+            buffer.put(TAG_STRING_ARRAY).putVarInt(array.length);
+            for (final String element : array)
+                if (element == null)
+                    buffer.put(TAG_NULL);
+                else
+                    writeString(buffer, element);
+        } else {
+            buffer.put(TAG_OBJECT);
+            objectDataType.write(buffer, value);
+        }
+    }
+
+    private void writeString(final WriteBuffer buffer, final String value) {
+        final int code = dictionary.getCode(value);
+        if (code != -1)
+            buffer.put(TAG_STRING_CODE).putVarInt(code);
+        else
+            buffer.put(TAG_STRING).putVarInt(value.length()).putStringData(value, value.length());
+    }
+
+    @Override
+    public void read(final ByteBuffer buffer, final Object[] obj, final int len, final boolean key) {
+        for (int i = 0; i < len; i++)
+            obj[i] = read(buffer);
+    }
+
+    @Override
+    public Object read(final ByteBuffer buffer) {
+        final byte marker = buffer.get(buffer.position());
+        if (marker != FORMAT_MARKER && marker != LAZY_FORMAT_MARKER)
+            return objectDataType.read(buffer);
+        buffer.get();
+        final MVStoreModel model = newModel((String) readValue(buffer, buffer.get()));
+        readProperties(buffer, model::put);
+        if (marker == LAZY_FORMAT_MARKER) {
+            final byte[] encodedProperties = new byte[buffer.getInt()];
+            buffer.get(encodedProperties);
+            model.setEncodedProperties(encodedProperties, this);
+        }
+        return model;
+    }
+
+    /**
+     * Decode a property section previously attached to a model with {@link MVStoreModel#setEncodedProperties}.
+     */
+    void readProperties(final byte[] encodedProperties, final BiConsumer<String, Object> consumer) {
+        readProperties(ByteBuffer.wrap(encodedProperties), consumer);
+    }
+
+    private void readProperties(final ByteBuffer buffer, final BiConsumer<String, Object> consumer) {
+        final int propertyCount = DataUtils.readVarInt(buffer);
+        for (int i = 0; i < propertyCount; i++) {
+            final String propertyKey = (String) readValue(buffer, buffer.get());
+            consumer.accept(propertyKey, readValue(buffer, buffer.get()));
+        }
+    }
+
+    private Object readValue(final ByteBuffer buffer, final byte tag) {
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING_CODE:
+                return dictionary.getValue(DataUtils.readVarInt(buffer));
+            case TAG_STRING:
+                return DataUtils.readString(buffer, DataUtils.readVarInt(buffer));
+            case TAG_STRING_ARRAY:
+                final String[] array = new String[DataUtils.readVarInt(buffer)];
+                for (int i = 0; i < array.length; i++)
+                    array[i] = (String) readValue(buffer, buffer.get());
+                return array;
+            case TAG_OBJECT:
+                return objectDataType.read(buffer);
+            default:
+                throw new IllegalStateException("Unknown model value tag " + tag);
+        }
+    }
+
+    private static MVStoreModel newModel(final String className) {
+        final Constructor<?> constructor = CONSTRUCTORS.computeIfAbsent(className, ModelDataType::getConstructor);
+        try {
+            return (MVStoreModel) constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create model of type '" + className + "'", e);
+        }
+    }
+
+    private static Constructor<?> getConstructor(final String className) {
+        try {
+            final Constructor<?> constructor = Class.forName(className).getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to find the default constructor of model type '" + className + "'",
+                                            e);
+        }
+    }
+}
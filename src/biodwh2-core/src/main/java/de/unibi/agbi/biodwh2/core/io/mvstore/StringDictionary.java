@@ -0,0 +1,118 @@
+package de.unibi.agbi.biodwh2.core.io.mvstore;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-collection dictionary of repeated strings such as labels, property keys and enum-like property values. Strings
+ * are registered when a model is put into the collection and are then written as small integer codes. Property keys
+ * exceeding a number of distinct values are excluded from encoding, as they are unlikely to be low-cardinality.
+ */
+final class StringDictionary {
+    private static final int MAX_SIZE = 1 << 16;
+    private static final int MAX_VALUES_PER_KEY = 256;
+    private static final int MAX_VALUE_LENGTH = 128;
+
+    private MVMapWrapper<Integer, String> map;
+    private final Map<String, Integer> codes;
+    private final Map<String, Integer> keyValueCounts;
+    private final Set<String> excludedKeys;
+    private volatile String[] values;
+    private int size;
+
+    StringDictionary(final MVMapWrapper<Integer, String> map) {
+        this.map = map;
+        codes = new ConcurrentHashMap<>();
+        keyValueCounts = new HashMap<>();
+        excludedKeys = new HashSet<>();
+        values = new String[16];
+    }
+
+    synchronized void setMap(final MVMapWrapper<Integer, String> map) {
+        this.map = map;
+    }
+
+    /**
+     * (Re)load the dictionary from the persisted map, which is also required after the store was rolled back.
+     */
+    synchronized void load(final String[] excludedKeys) {
+        codes.clear();
+        keyValueCounts.clear();
+        this.excludedKeys.clear();
+        if (excludedKeys != null)
+            Collections.addAll(this.excludedKeys, excludedKeys);
+        final String[] loadedValues = new String[Math.max(16, map.size())];
+        size = 0;
+        for (final Map.Entry<Integer, String> entry : map.entrySet()) {
+            loadedValues[entry.getKey()] = entry.getValue();
+            codes.put(entry.getValue(), entry.getKey());
+            size = Math.max(size, entry.getKey() + 1);
+        }
+        values = loadedValues;
+    }
+
+    /**
+     * @return Code of the string or -1 if the string isn't part of the dictionary
+     */
+    int getCode(final String value) {
+        final Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String getValue(final int code) {
+        return values[code];
+    }
+
+    String[] getExcludedKeys() {
+        return excludedKeys.toArray(new String[0]);
+    }
+
+    /**
+     * Register the class name, property keys and low-cardinality string values of the model.
+     *
+     * @return true if a property key was newly excluded from encoding
+     */
+    synchronized boolean register(final MVStoreModel obj) {
+        register(obj.getClass().getName());
+        boolean excludedKeysChanged = false;
+        for (final String key : obj.keySet()) {
+            register(key);
+            if (excludedKeys.contains(key))
+                continue;
+            final Object value = obj.getUnresolved(key);
+            if (value instanceof String)
+                excludedKeysChanged |= registerValue(key, (String) value);
+            else if (value instanceof String[])
+                for (final String element : (String[]) value)
+                    if (element != null)
+                        excludedKeysChanged |= registerValue(key, element);
+        }
+        return excludedKeysChanged;
+    }
+
+    private boolean registerValue(final String key, final String value) {
+        if (codes.containsKey(value) || excludedKeys.contains(key))
+            return false;
+        final int count = keyValueCounts.getOrDefault(key, 0);
+        if (count >= MAX_VALUES_PER_KEY || value.length() > MAX_VALUE_LENGTH) {
+            excludedKeys.add(key);
+            return true;
+        }
+        if (register(value))
+            keyValueCounts.put(key, count + 1);
+        return false;
+    }
+
+    private boolean register(final String value) {
+        if (codes.containsKey(value) || size >= MAX_SIZE)
+            return false;
+        if (size == values.length)
+            values = Arrays.copyOf(values, size * 2);
+        values[size] = value;
+        // The persisted entry has to exist before any model using the code is written
+        map.put(size, value);
+        codes.put(value, size);
+        size++;
+        return true;
+    }
+}
@@ -0,0 +1,373 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+import de.unibi.agbi.biodwh2.core.model.graph.Edge;
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Writes a read-only snapshot of a {@link Graph} which can be opened with {@link SnapshotGraph}. Nodes and edges are
+ * stored in label grouped tables with one column of value offsets per property, adjacency is stored in compressed
+ * sparse row form for both directions. Ids and adjacency arrays are built in memory, property values are streamed.
+ */
+public final class GraphSnapshotWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphSnapshotWriter.class);
+    static final long MAGIC = 0x4244574832435352L;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int TABLE_HEADER_SIZE = 12;
+    private static final int LABEL_ENTRY_SIZE = 16;
+    private static final int COLUMN_ENTRY_SIZE = 12;
+    private static final Set<String> NODE_HEADER_FIELDS = new HashSet<>(
+            Arrays.asList(Node.ID_FIELD, Node.LABEL_FIELD));
+    private static final Set<String> EDGE_HEADER_FIELDS = new HashSet<>(
+            Arrays.asList(Edge.ID_FIELD, Edge.LABEL_FIELD, Edge.FROM_ID_FIELD, Edge.TO_ID_FIELD));
+
+    private static final class Table {
+        final String[] labels;
+        final String[][] columnKeys;
+        final int[] labelStarts;
+        final int[] labelLengths;
+        long[] ids;
+        int count;
+        int[] fromIndices;
+        int[] toIndices;
+        long[] sortedIds;
+        int[] sortedPositions;
+        Path columnsFilePath;
+        long[][] relativeColumnOffsets;
+
+        Table(final String[] labels) {
+            this.labels = labels;
+            columnKeys = new String[labels.length][];
+            labelStarts = new int[labels.length];
+            labelLengths = new int[labels.length];
+            relativeColumnOffsets = new long[labels.length][];
+            ids = new long[1024];
+        }
+
+        void addId(final long id) {
+            if (count == ids.length)
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            ids[count++] = id;
+        }
+
+        long getHeaderSize() {
+            long size = TABLE_HEADER_SIZE + (long) LABEL_ENTRY_SIZE * labels.length;
+            for (final String[] keys : columnKeys)
+                size += (long) COLUMN_ENTRY_SIZE * keys.length;
+            return size;
+        }
+
+        long getColumnsRegionOffset(final long tableOffset) {
+            final long arraysSize = (long) count * (Long.BYTES * 2 + Integer.BYTES) +
+                                    (fromIndices != null ? (long) count * Integer.BYTES * 2 : 0);
+            return tableOffset + getHeaderSize() + arraysSize;
+        }
+
+        long getSize() throws IOException {
+            return getColumnsRegionOffset(0) + Files.size(columnsFilePath);
+        }
+    }
+
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+
+    public boolean write(final Path outputFilePath, final Graph graph) {
+        strings.clear();
+        stringIndices.clear();
+        final Path valuesFilePath = outputFilePath.resolveSibling(outputFilePath.getFileName() + ".values.tmp");
+        Table nodes = null;
+        Table edges = null;
+        try {
+            try (DataOutputStream valuesOutput = openOutput(valuesFilePath)) {
+                final CountingOutputStream valuesCounter = new CountingOutputStream(valuesOutput);
+                final DataOutputStream values = new DataOutputStream(valuesCounter);
+                nodes = createTable(graph.getNodeLabels(), graph::getPropertyKeyTypesForNodeLabel,
+                                    NODE_HEADER_FIELDS, outputFilePath.resolveSibling(
+                                outputFilePath.getFileName() + ".nodes.tmp"));
+                for (int i = 0; i < nodes.labels.length; i++)
+                    writeLabel(nodes, i, graph.getNodes(nodes.labels[i]), values, valuesCounter);
+                sortIds(nodes);
+                edges = createTable(graph.getEdgeLabels(), graph::getPropertyKeyTypesForEdgeLabel,
+                                    EDGE_HEADER_FIELDS, outputFilePath.resolveSibling(
+                                outputFilePath.getFileName() + ".edges.tmp"));
+                edges.fromIndices = new int[(int) graph.getNumberOfEdges()];
+                edges.toIndices = new int[edges.fromIndices.length];
+                for (int i = 0; i < edges.labels.length; i++)
+                    writeEdgeLabel(nodes, edges, i, graph.getEdges(edges.labels[i]), values, valuesCounter);
+                sortIds(edges);
+                values.flush();
+            }
+            writeSnapshotFile(outputFilePath, nodes, edges, valuesFilePath);
+        } catch (IOException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Failed to write graph snapshot file", e);
+            return false;
+        } finally {
+            FileUtils.safeDelete(valuesFilePath);
+            if (nodes != null && nodes.columnsFilePath != null)
+                FileUtils.safeDelete(nodes.columnsFilePath);
+            if (edges != null && edges.columnsFilePath != null)
+                FileUtils.safeDelete(edges.columnsFilePath);
+        }
+        return true;
+    }
+
+    private static DataOutputStream openOutput(final Path filePath) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(filePath)));
+    }
+
+    private int getStringIndex(final String value) {
+        return stringIndices.computeIfAbsent(value, (k) -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    private Table createTable(final String[] labels, final Function<String, Map<String, ?>> propertyKeysProvider,
+                              final Set<String> headerFields, final Path columnsFilePath) throws IOException {
+        Arrays.sort(labels);
+        final Table table = new Table(labels);
+        table.columnsFilePath = columnsFilePath;
+        Files.deleteIfExists(columnsFilePath);
+        Files.createFile(columnsFilePath);
+        for (int i = 0; i < labels.length; i++) {
+            getStringIndex(labels[i]);
+            table.columnKeys[i] = propertyKeysProvider.apply(labels[i]).keySet().stream().filter(
+                    k -> !headerFields.contains(k)).sorted().toArray(String[]::new);
+            for (final String key : table.columnKeys[i])
+                getStringIndex(key);
+        }
+        return table;
+    }
+
+    private void writeLabel(final Table table, final int labelIndex, final Iterable<Node> nodes,
+                            final DataOutputStream values, final CountingOutputStream valuesCounter)
+            throws IOException {
+        final ColumnsWriter columns = new ColumnsWriter(table, labelIndex);
+        for (final Node node : nodes) {
+            table.addId(node.getId());
+            columns.addRow(node::getProperty, values, valuesCounter);
+        }
+        columns.finish();
+    }
+
+    private void writeEdgeLabel(final Table nodes, final Table table, final int labelIndex, final Iterable<Edge> edges,
+                                final DataOutputStream values, final CountingOutputStream valuesCounter)
+            throws IOException {
+        final ColumnsWriter columns = new ColumnsWriter(table, labelIndex);
+        for (final Edge edge : edges) {
+            final int fromIndex = findPosition(nodes, edge.getFromId());
+            final int toIndex = findPosition(nodes, edge.getToId());
+            if (fromIndex == -1 || toIndex == -1) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Skipping edge " + edge.getId() + " with missing node for graph snapshot");
+                continue;
+            }
+            if (table.count == table.fromIndices.length) {
+                table.fromIndices = Arrays.copyOf(table.fromIndices, table.fromIndices.length * 2 + 1);
+                table.toIndices = Arrays.copyOf(table.toIndices, table.fromIndices.length);
+            }
+            table.fromIndices[table.count] = fromIndex;
+            table.toIndices[table.count] = toIndex;
+            table.addId(edge.getId());
+            columns.addRow(edge::getProperty, values, valuesCounter);
+        }
+        columns.finish();
+    }
+
+    private final class ColumnsWriter {
+        private final Table table;
+        private final int labelIndex;
+        private final String[] keys;
+        private final long[][] offsets;
+        private final int start;
+        private int rows;
+
+        ColumnsWriter(final Table table, final int labelIndex) {
+            this.table = table;
+            this.labelIndex = labelIndex;
+            keys = table.columnKeys[labelIndex];
+            offsets = new long[keys.length][1024];
+            start = table.count;
+        }
+
+        void addRow(final Function<String, Object> properties, final DataOutputStream values,
+                    final CountingOutputStream valuesCounter) throws IOException {
+            for (int i = 0; i < keys.length; i++) {
+                if (rows == offsets[i].length)
+                    offsets[i] = Arrays.copyOf(offsets[i], offsets[i].length * 2);
+                final Object value = properties.apply(keys[i]);
+                if (value == null)
+                    offsets[i][rows] = -1;
+                else {
+                    offsets[i][rows] = valuesCounter.getByteCount();
+                    SnapshotValueCodec.write(values, value);
+                }
+            }
+            rows++;
+        }
+
+        void finish() throws IOException {
+            table.labelStarts[labelIndex] = start;
+            table.labelLengths[labelIndex] = rows;
+            table.relativeColumnOffsets[labelIndex] = new long[keys.length];
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(table.columnsFilePath, StandardOpenOption.APPEND)))) {
+                final long columnsFileSize = Files.size(table.columnsFilePath);
+                for (int i = 0; i < keys.length; i++) {
+                    table.relativeColumnOffsets[labelIndex][i] = columnsFileSize + (long) i * rows * Long.BYTES;
+                    for (int j = 0; j < rows; j++)
+                        output.writeLong(offsets[i][j]);
+                }
+            }
+        }
+    }
+
+    private static int findPosition(final Table nodes, final long id) {
+        final int index = Arrays.binarySearch(nodes.sortedIds, id);
+        return index >= 0 ? nodes.sortedPositions[index] : -1;
+    }
+
+    private static void sortIds(final Table table) {
+        table.sortedIds = Arrays.copyOf(table.ids, table.count);
+        table.sortedPositions = new int[table.count];
+        for (int i = 0; i < table.count; i++)
+            table.sortedPositions[i] = i;
+        sort(table.sortedIds, table.sortedPositions, 0, table.count - 1);
+    }
+
+    private static void sort(final long[] keys, final int[] values, int low, int high) {
+        while (low < high) {
+            final long pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[i] < pivot)
+                    i++;
+                while (keys[j] > pivot)
+                    j--;
+                if (i <= j) {
+                    final long key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    final int value = values[i];
+                    values[i] = values[j];
+                    values[j] = value;
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller partition to bound the stack depth
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+    }
+
+    private void writeSnapshotFile(final Path outputFilePath, final Table nodes, final Table edges,
+                                   final Path valuesFilePath) throws IOException {
+        final byte[] stringsBlock = getStringsBlock();
+        final long stringsOffset = HEADER_SIZE;
+        final long nodesOffset = stringsOffset + stringsBlock.length;
+        final long edgesOffset = nodesOffset + nodes.getSize();
+        final long outAdjacencyOffset = edgesOffset + edges.getSize();
+        final long adjacencySize = (long) (nodes.count + 1) * Long.BYTES + (long) edges.count * Integer.BYTES;
+        final long inAdjacencyOffset = outAdjacencyOffset + adjacencySize;
+        final long valuesOffset = inAdjacencyOffset + adjacencySize;
+        try (DataOutputStream output = openOutput(outputFilePath)) {
+            output.writeLong(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(0);
+            output.writeLong(stringsOffset);
+            output.writeLong(nodesOffset);
+            output.writeLong(edgesOffset);
+            output.writeLong(outAdjacencyOffset);
+            output.writeLong(inAdjacencyOffset);
+            output.writeLong(valuesOffset);
+            output.write(stringsBlock);
+            writeTable(output, nodes, nodesOffset);
+            writeTable(output, edges, edgesOffset);
+            writeAdjacency(output, nodes.count, edges, edges.fromIndices);
+            writeAdjacency(output, nodes.count, edges, edges.toIndices);
+            Files.copy(valuesFilePath, output);
+        }
+    }
+
+    private byte[] getStringsBlock() throws IOException {
+        final ByteArrayOutputStream block = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(block);
+        output.writeInt(strings.size());
+        for (final String value : strings) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        output.flush();
+        return block.toByteArray();
+    }
+
+    private void writeTable(final DataOutputStream output, final Table table, final long tableOffset)
+            throws IOException {
+        final long columnsRegionOffset = table.getColumnsRegionOffset(tableOffset);
+        output.writeLong(table.count);
+        output.writeInt(table.labels.length);
+        for (int i = 0; i < table.labels.length; i++) {
+            output.writeInt(getStringIndex(table.labels[i]));
+            output.writeInt(table.labelStarts[i]);
+            output.writeInt(table.labelLengths[i]);
+            output.writeInt(table.columnKeys[i].length);
+            for (int j = 0; j < table.columnKeys[i].length; j++) {
+                output.writeInt(getStringIndex(table.columnKeys[i][j]));
+                output.writeLong(columnsRegionOffset + table.relativeColumnOffsets[i][j]);
+            }
+        }
+        for (int i = 0; i < table.count; i++)
+            output.writeLong(table.ids[i]);
+        if (table.fromIndices != null) {
+            for (int i = 0; i < table.count; i++)
+                output.writeInt(table.fromIndices[i]);
+            for (int i = 0; i < table.count; i++)
+                output.writeInt(table.toIndices[i]);
+        }
+        for (int i = 0; i < table.count; i++)
+            output.writeLong(table.sortedIds[i]);
+        for (int i = 0; i < table.count; i++)
+            output.writeInt(table.sortedPositions[i]);
+        Files.copy(table.columnsFilePath, output);
+    }
+
+    private static void writeAdjacency(final DataOutputStream output, final int nodeCount, final Table edges,
+                                       final int[] nodeIndices) throws IOException {
+        final long[] offsets = new long[nodeCount + 1];
+        for (int i = 0; i < edges.count; i++)
+            offsets[nodeIndices[i] + 1]++;
+        for (int i = 0; i < nodeCount; i++)
+            offsets[i + 1] += offsets[i];
+        final int[] entries = new int[edges.count];
+        final long[] fillPositions = Arrays.copyOf(offsets, nodeCount);
+        // Edges are visited in table order, so the entries of each node end up sorted by edge position
+        for (int i = 0; i < edges.count; i++)
+            entries[(int) fillPositions[nodeIndices[i]]++] = i;
+        for (final long offset : offsets)
+            output.writeLong(offset);
+        for (final int entry : entries)
+            output.writeInt(entry);
+    }
+}
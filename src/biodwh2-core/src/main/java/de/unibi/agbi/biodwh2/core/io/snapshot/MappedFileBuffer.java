@@ -0,0 +1,80 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a file mapped into memory in chunks, as a single {@link MappedByteBuffer} is limited to 2 GB.
+ */
+final class MappedFileBuffer implements AutoCloseable {
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    MappedFileBuffer(final Path filePath) throws IOException {
+        channel = FileChannel.open(filePath, StandardOpenOption.READ);
+        size = channel.size();
+        chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+        for (int i = 0; i < chunks.length; i++) {
+            final long position = (long) i * CHUNK_SIZE;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte getByte(final long position) {
+        return chunks[(int) (position / CHUNK_SIZE)].get((int) (position % CHUNK_SIZE));
+    }
+
+    int getInt(final long position) {
+        final int offset = (int) (position % CHUNK_SIZE);
+        final MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+        if (offset + Integer.BYTES <= chunk.limit())
+            return chunk.getInt(offset);
+        return (int) getSplitValue(position, Integer.BYTES);
+    }
+
+    long getLong(final long position) {
+        final int offset = (int) (position % CHUNK_SIZE);
+        final MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+        if (offset + Long.BYTES <= chunk.limit())
+            return chunk.getLong(offset);
+        return getSplitValue(position, Long.BYTES);
+    }
+
+    private long getSplitValue(final long position, final int length) {
+        long result = 0;
+        for (int i = 0; i < length; i++)
+            result = (result << 8) | (getByte(position + i) & 0xFF);
+        return result;
+    }
+
+    String getString(final long position, final int length) {
+        final byte[] bytes = new byte[length];
+        final int offset = (int) (position % CHUNK_SIZE);
+        final MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+        if (offset + length <= chunk.limit()) {
+            final ByteBuffer view = chunk.duplicate();
+            view.position(offset);
+            view.get(bytes);
+        } else
+            for (int i = 0; i < length; i++)
+                bytes[i] = getByte(position + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
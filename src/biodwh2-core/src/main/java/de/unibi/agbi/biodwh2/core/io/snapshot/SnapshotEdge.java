@@ -0,0 +1,42 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+public final class SnapshotEdge {
+    private final SnapshotTable table;
+    private final SnapshotTable nodes;
+    private final int position;
+
+    SnapshotEdge(final SnapshotTable table, final SnapshotTable nodes, final int position) {
+        this.table = table;
+        this.nodes = nodes;
+        this.position = position;
+    }
+
+    public long getId() {
+        return table.getId(position);
+    }
+
+    public String getLabel() {
+        return table.getLabel(position);
+    }
+
+    public long getFromId() {
+        return nodes.getId(table.getFromIndex(position));
+    }
+
+    public long getToId() {
+        return nodes.getId(table.getToIndex(position));
+    }
+
+    public String[] getPropertyKeys() {
+        return table.getPropertyKeys(position);
+    }
+
+    public <T> T getProperty(final String key) {
+        //noinspection unchecked
+        return (T) table.getValue(position, key);
+    }
+
+    public boolean hasProperty(final String key) {
+        return table.getValue(position, key) != null;
+    }
+}
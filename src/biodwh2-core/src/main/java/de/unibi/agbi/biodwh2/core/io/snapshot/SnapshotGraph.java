@@ -0,0 +1,175 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import de.unibi.agbi.biodwh2.core.model.graph.EdgeDirection;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Read-only graph backed by a memory-mapped snapshot file written by {@link GraphSnapshotWriter}. Nodes and edges are
+ * lightweight views into the mapped file and property values are only decoded when accessed.
+ */
+public final class SnapshotGraph implements AutoCloseable {
+    private final MappedFileBuffer buffer;
+    private final SnapshotTable nodes;
+    private final SnapshotTable edges;
+    private final long outAdjacencyOffset;
+    private final long inAdjacencyOffset;
+
+    public SnapshotGraph(final Path filePath) throws IOException {
+        buffer = new MappedFileBuffer(filePath);
+        if (buffer.size() < GraphSnapshotWriter.HEADER_SIZE || buffer.getLong(0) != GraphSnapshotWriter.MAGIC) {
+            buffer.close();
+            throw new IOException("File '" + filePath + "' is not a graph snapshot");
+        }
+        if (buffer.getInt(8) != GraphSnapshotWriter.FORMAT_VERSION) {
+            buffer.close();
+            throw new IOException("Unsupported graph snapshot format version " + buffer.getInt(8));
+        }
+        final String[] strings = readStrings(buffer.getLong(16));
+        final long valuesOffset = buffer.getLong(56);
+        nodes = new SnapshotTable(buffer, strings, buffer.getLong(24), false, valuesOffset);
+        edges = new SnapshotTable(buffer, strings, buffer.getLong(32), true, valuesOffset);
+        outAdjacencyOffset = buffer.getLong(40);
+        inAdjacencyOffset = buffer.getLong(48);
+    }
+
+    private String[] readStrings(long position) {
+        final String[] strings = new String[buffer.getInt(position)];
+        position += Integer.BYTES;
+        for (int i = 0; i < strings.length; i++) {
+            final int length = buffer.getInt(position);
+            strings[i] = buffer.getString(position + Integer.BYTES, length);
+            position += Integer.BYTES + length;
+        }
+        return strings;
+    }
+
+    public long getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    public long getNumberOfNodes(final String label) {
+        final int labelIndex = nodes.getLabelIndex(label);
+        return labelIndex != -1 ? nodes.getLabelLength(labelIndex) : 0;
+    }
+
+    public long getNumberOfEdges() {
+        return edges.size();
+    }
+
+    public long getNumberOfEdges(final String label) {
+        final int labelIndex = edges.getLabelIndex(label);
+        return labelIndex != -1 ? edges.getLabelLength(labelIndex) : 0;
+    }
+
+    public String[] getNodeLabels() {
+        return nodes.getLabels();
+    }
+
+    public String[] getEdgeLabels() {
+        return edges.getLabels();
+    }
+
+    public SnapshotNode getNode(final long nodeId) {
+        final int position = nodes.findPosition(nodeId);
+        return position != -1 ? new SnapshotNode(nodes, position) : null;
+    }
+
+    public SnapshotEdge getEdge(final long edgeId) {
+        final int position = edges.findPosition(edgeId);
+        return position != -1 ? new SnapshotEdge(edges, nodes, position) : null;
+    }
+
+    public Iterable<SnapshotNode> getNodes(final String label) {
+        return () -> scanLabel(nodes, label, (position) -> new SnapshotNode(nodes, position));
+    }
+
+    public Iterable<SnapshotEdge> getEdges(final String label) {
+        return () -> scanLabel(edges, label, (position) -> new SnapshotEdge(edges, nodes, position));
+    }
+
+    private static <T> Iterator<T> scanLabel(final SnapshotTable table, final String label,
+                                             final IntFunction<T> factory) {
+        final int labelIndex = table.getLabelIndex(label);
+        final int start = labelIndex != -1 ? table.getLabelStart(labelIndex) : 0;
+        final int end = labelIndex != -1 ? start + table.getLabelLength(labelIndex) : 0;
+        return new Iterator<T>() {
+            private int position = start;
+
+            @Override
+            public boolean hasNext() {
+                return position < end;
+            }
+
+            @Override
+            public T next() {
+                if (position >= end)
+                    throw new NoSuchElementException();
+                return factory.apply(position++);
+            }
+        };
+    }
+
+    /**
+     * Find nodes directly connected to the provided node with a specified edge label and direction.
+     *
+     * @param nodeId    ID of the node to find adjacent nodes for
+     * @param edgeLabel Label filter for connected edges or null for all edges
+     * @param direction Direction filter for connected edges
+     * @return Sorted array of distinct directly connected node IDs
+     */
+    public long[] getAdjacentNodeIds(final long nodeId, final String edgeLabel, final EdgeDirection direction) {
+        final int position = nodes.findPosition(nodeId);
+        if (position == -1)
+            return new long[0];
+        int start = 0;
+        int end = edges.size();
+        if (edgeLabel != null) {
+            final int labelIndex = edges.getLabelIndex(edgeLabel);
+            if (labelIndex == -1)
+                return new long[0];
+            start = edges.getLabelStart(labelIndex);
+            end = start + edges.getLabelLength(labelIndex);
+        }
+        long[] result = new long[0];
+        if (direction != EdgeDirection.BACKWARD)
+            result = collectAdjacentNodeIds(result, outAdjacencyOffset, position, start, end, true);
+        if (direction != EdgeDirection.FORWARD)
+            result = collectAdjacentNodeIds(result, inAdjacencyOffset, position, start, end, false);
+        Arrays.sort(result);
+        int distinctCount = 0;
+        for (int i = 0; i < result.length; i++)
+            if (i == 0 || result[i] != result[i - 1])
+                result[distinctCount++] = result[i];
+        return Arrays.copyOf(result, distinctCount);
+    }
+
+    private long[] collectAdjacentNodeIds(final long[] result, final long adjacencyOffset, final int position,
+                                          final int edgeStart, final int edgeEnd, final boolean outgoing) {
+        final long entriesOffset = adjacencyOffset + (long) (nodes.size() + 1) * Long.BYTES;
+        final long first = buffer.getLong(adjacencyOffset + (long) position * Long.BYTES);
+        final long last = buffer.getLong(adjacencyOffset + (long) (position + 1) * Long.BYTES);
+        final long[] ids = Arrays.copyOf(result, result.length + (int) (last - first));
+        int count = result.length;
+        // Entries of a node are sorted by edge position, so edges of one label form a contiguous run
+        for (long i = first; i < last; i++) {
+            final int edgePosition = buffer.getInt(entriesOffset + i * Integer.BYTES);
+            if (edgePosition >= edgeEnd)
+                break;
+            if (edgePosition >= edgeStart)
+                ids[count++] = nodes.getId(outgoing ? edges.getToIndex(edgePosition) :
+                                           edges.getFromIndex(edgePosition));
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.close();
+    }
+}
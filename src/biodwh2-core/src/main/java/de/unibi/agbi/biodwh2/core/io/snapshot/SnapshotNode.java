@@ -0,0 +1,32 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+public final class SnapshotNode {
+    private final SnapshotTable table;
+    private final int position;
+
+    SnapshotNode(final SnapshotTable table, final int position) {
+        this.table = table;
+        this.position = position;
+    }
+
+    public long getId() {
+        return table.getId(position);
+    }
+
+    public String getLabel() {
+        return table.getLabel(position);
+    }
+
+    public String[] getPropertyKeys() {
+        return table.getPropertyKeys(position);
+    }
+
+    public <T> T getProperty(final String key) {
+        //noinspection unchecked
+        return (T) table.getValue(position, key);
+    }
+
+    public boolean hasProperty(final String key) {
+        return table.getValue(position, key) != null;
+    }
+}
@@ -0,0 +1,146 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Label grouped table of nodes or edges inside a snapshot file. Objects of the same label occupy a contiguous range of
+ * positions and each property of a label is stored as a column of value offsets for that range.
+ */
+final class SnapshotTable {
+    private final MappedFileBuffer buffer;
+    private final long valuesOffset;
+    private final int count;
+    private final String[] labels;
+    private final Map<String, Integer> labelIndices;
+    private final int[] labelStarts;
+    private final int[] labelLengths;
+    private final Map<String, Long>[] columnOffsets;
+    private final long idsOffset;
+    private final long fromIndicesOffset;
+    private final long toIndicesOffset;
+    private final long sortedIdsOffset;
+    private final long sortedPositionsOffset;
+
+    SnapshotTable(final MappedFileBuffer buffer, final String[] strings, final long offset, final boolean edges,
+                  final long valuesOffset) {
+        this.buffer = buffer;
+        this.valuesOffset = valuesOffset;
+        count = (int) buffer.getLong(offset);
+        final int labelCount = buffer.getInt(offset + 8);
+        labels = new String[labelCount];
+        labelIndices = new HashMap<>();
+        labelStarts = new int[labelCount];
+        labelLengths = new int[labelCount];
+        //noinspection unchecked
+        columnOffsets = new Map[labelCount];
+        long position = offset + 12;
+        for (int i = 0; i < labelCount; i++) {
+            labels[i] = strings[buffer.getInt(position)];
+            labelIndices.put(labels[i], i);
+            labelStarts[i] = buffer.getInt(position + 4);
+            labelLengths[i] = buffer.getInt(position + 8);
+            final int columnCount = buffer.getInt(position + 12);
+            position += 16;
+            columnOffsets[i] = new HashMap<>();
+            for (int j = 0; j < columnCount; j++) {
+                columnOffsets[i].put(strings[buffer.getInt(position)], buffer.getLong(position + 4));
+                position += 12;
+            }
+        }
+        idsOffset = position;
+        position += (long) count * Long.BYTES;
+        if (edges) {
+            fromIndicesOffset = position;
+            toIndicesOffset = position + (long) count * Integer.BYTES;
+            position += (long) count * Integer.BYTES * 2;
+        } else {
+            fromIndicesOffset = -1;
+            toIndicesOffset = -1;
+        }
+        sortedIdsOffset = position;
+        sortedPositionsOffset = position + (long) count * Long.BYTES;
+    }
+
+    int size() {
+        return count;
+    }
+
+    String[] getLabels() {
+        return Arrays.copyOf(labels, labels.length);
+    }
+
+    int getLabelIndex(final String label) {
+        final Integer index = labelIndices.get(label);
+        return index != null ? index : -1;
+    }
+
+    int getLabelStart(final int labelIndex) {
+        return labelStarts[labelIndex];
+    }
+
+    int getLabelLength(final int labelIndex) {
+        return labelLengths[labelIndex];
+    }
+
+    long getId(final int position) {
+        return buffer.getLong(idsOffset + (long) position * Long.BYTES);
+    }
+
+    int getFromIndex(final int position) {
+        return buffer.getInt(fromIndicesOffset + (long) position * Integer.BYTES);
+    }
+
+    int getToIndex(final int position) {
+        return buffer.getInt(toIndicesOffset + (long) position * Integer.BYTES);
+    }
+
+    int findPosition(final long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final long middleId = buffer.getLong(sortedIdsOffset + (long) middle * Long.BYTES);
+            if (middleId < id)
+                low = middle + 1;
+            else if (middleId > id)
+                high = middle - 1;
+            else
+                return buffer.getInt(sortedPositionsOffset + (long) middle * Integer.BYTES);
+        }
+        return -1;
+    }
+
+    int getLabelIndexOfPosition(final int position) {
+        int low = 0;
+        int high = labelStarts.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (position < labelStarts[middle])
+                high = middle - 1;
+            else if (position >= labelStarts[middle] + labelLengths[middle])
+                low = middle + 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    String getLabel(final int position) {
+        return labels[getLabelIndexOfPosition(position)];
+    }
+
+    String[] getPropertyKeys(final int position) {
+        return columnOffsets[getLabelIndexOfPosition(position)].keySet().toArray(new String[0]);
+    }
+
+    Object getValue(final int position, final String key) {
+        final int labelIndex = getLabelIndexOfPosition(position);
+        final Long columnOffset = columnOffsets[labelIndex].get(key);
+        if (columnOffset == null)
+            return null;
+        final long valueOffset = buffer.getLong(columnOffset + (long) (position - labelStarts[labelIndex]) * Long.BYTES);
+        return valueOffset < 0 ? null : SnapshotValueCodec.read(buffer, valuesOffset + valueOffset);
+    }
+}
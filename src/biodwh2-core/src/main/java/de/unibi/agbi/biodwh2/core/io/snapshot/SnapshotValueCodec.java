@@ -0,0 +1,221 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+final class SnapshotValueCodec {
+    private static final byte STRING = 0;
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte SHORT = 3;
+    private static final byte BYTE = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte CHARACTER = 8;
+    private static final byte ARRAY = 16;
+    private static final byte COLLECTION = 17;
+    private static final byte PRIMITIVE_COMPONENT_FLAG = 0x40;
+
+    private SnapshotValueCodec() {
+    }
+
+    static void write(final DataOutput output, final Object value) throws IOException {
+        if (value instanceof Collection<?>) {
+            final Collection<?> collection = (Collection<?>) value;
+            output.writeByte(COLLECTION);
+            output.writeInt(collection.size());
+            for (final Object element : collection)
+                write(output, element);
+        } else if (value != null && value.getClass().isArray()) {
+            final Class<?> componentType = value.getClass().getComponentType();
+            final byte componentTag = getTag(componentType);
+            final int length = Array.getLength(value);
+            output.writeByte(ARRAY);
+            output.writeByte(componentType.isPrimitive() ? componentTag | PRIMITIVE_COMPONENT_FLAG : componentTag);
+            output.writeInt(length);
+            for (int i = 0; i < length; i++)
+                writeUntagged(output, componentTag, Array.get(value, i));
+        } else {
+            final byte tag = value != null ? getTag(value.getClass()) : STRING;
+            output.writeByte(tag);
+            writeUntagged(output, tag, value);
+        }
+    }
+
+    private static byte getTag(final Class<?> type) {
+        if (type == Long.class || type == long.class)
+            return LONG;
+        if (type == Integer.class || type == int.class)
+            return INTEGER;
+        if (type == Short.class || type == short.class)
+            return SHORT;
+        if (type == Byte.class || type == byte.class)
+            return BYTE;
+        if (type == Double.class || type == double.class)
+            return DOUBLE;
+        if (type == Float.class || type == float.class)
+            return FLOAT;
+        if (type == Boolean.class || type == boolean.class)
+            return BOOLEAN;
+        if (type == Character.class || type == char.class)
+            return CHARACTER;
+        return STRING;
+    }
+
+    private static void writeUntagged(final DataOutput output, final byte tag, final Object value) throws IOException {
+        if (value == null) {
+            writeNull(output, tag);
+            return;
+        }
+        switch (tag) {
+            case LONG:
+                output.writeLong((Long) value);
+                break;
+            case INTEGER:
+                output.writeInt((Integer) value);
+                break;
+            case SHORT:
+                output.writeShort((Short) value);
+                break;
+            case BYTE:
+                output.writeByte((Byte) value);
+                break;
+            case DOUBLE:
+                output.writeDouble((Double) value);
+                break;
+            case FLOAT:
+                output.writeFloat((Float) value);
+                break;
+            case BOOLEAN:
+                output.writeBoolean((Boolean) value);
+                break;
+            case CHARACTER:
+                output.writeChar((Character) value);
+                break;
+            default:
+                final byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                break;
+        }
+    }
+
+    private static void writeNull(final DataOutput output, final byte tag) throws IOException {
+        switch (tag) {
+            case LONG:
+            case DOUBLE:
+                output.writeLong(0);
+                break;
+            case INTEGER:
+            case FLOAT:
+                output.writeInt(0);
+                break;
+            case SHORT:
+            case CHARACTER:
+                output.writeShort(0);
+                break;
+            case BYTE:
+            case BOOLEAN:
+                output.writeByte(0);
+                break;
+            default:
+                output.writeInt(-1);
+                break;
+        }
+    }
+
+    static Object read(final MappedFileBuffer buffer, final long position) {
+        return read(buffer, new long[]{position});
+    }
+
+    private static Object read(final MappedFileBuffer buffer, final long[] position) {
+        final byte tag = buffer.getByte(position[0]++);
+        if (tag == COLLECTION) {
+            final int length = buffer.getInt(position[0]);
+            position[0] += Integer.BYTES;
+            final List<Object> result = new ArrayList<>(length);
+            for (int i = 0; i < length; i++)
+                result.add(read(buffer, position));
+            return result;
+        }
+        if (tag == ARRAY) {
+            final byte componentTag = buffer.getByte(position[0]++);
+            final int length = buffer.getInt(position[0]);
+            position[0] += Integer.BYTES;
+            final byte elementTag = (byte) (componentTag & ~PRIMITIVE_COMPONENT_FLAG);
+            final Object result = Array.newInstance(
+                    getComponentType(elementTag, (componentTag & PRIMITIVE_COMPONENT_FLAG) != 0), length);
+            for (int i = 0; i < length; i++)
+                Array.set(result, i, readUntagged(buffer, elementTag, position));
+            return result;
+        }
+        return readUntagged(buffer, tag, position);
+    }
+
+    private static Class<?> getComponentType(final byte tag, final boolean primitive) {
+        switch (tag) {
+            case LONG:
+                return primitive ? long.class : Long.class;
+            case INTEGER:
+                return primitive ? int.class : Integer.class;
+            case SHORT:
+                return primitive ? short.class : Short.class;
+            case BYTE:
+                return primitive ? byte.class : Byte.class;
+            case DOUBLE:
+                return primitive ? double.class : Double.class;
+            case FLOAT:
+                return primitive ? float.class : Float.class;
+            case BOOLEAN:
+                return primitive ? boolean.class : Boolean.class;
+            case CHARACTER:
+                return primitive ? char.class : Character.class;
+            default:
+                return String.class;
+        }
+    }
+
+    private static Object readUntagged(final MappedFileBuffer buffer, final byte tag, final long[] position) {
+        final long start = position[0];
+        switch (tag) {
+            case LONG:
+                position[0] += Long.BYTES;
+                return buffer.getLong(start);
+            case INTEGER:
+                position[0] += Integer.BYTES;
+                return buffer.getInt(start);
+            case SHORT:
+                position[0] += Short.BYTES;
+                return (short) ((buffer.getByte(start) << 8) | (buffer.getByte(start + 1) & 0xFF));
+            case BYTE:
+                position[0] += Byte.BYTES;
+                return buffer.getByte(start);
+            case DOUBLE:
+                position[0] += Double.BYTES;
+                return Double.longBitsToDouble(buffer.getLong(start));
+            case FLOAT:
+                position[0] += Float.BYTES;
+                return Float.intBitsToFloat(buffer.getInt(start));
+            case BOOLEAN:
+                position[0] += Byte.BYTES;
+                return buffer.getByte(start) != 0;
+            case CHARACTER:
+                position[0] += Character.BYTES;
+                return (char) (((buffer.getByte(start) & 0xFF) << 8) | (buffer.getByte(start + 1) & 0xFF));
+            default:
+                final int length = buffer.getInt(start);
+                if (length < 0) {
+                    position[0] += Integer.BYTES;
+                    return null;
+                }
+                position[0] += Integer.BYTES + length;
+                return buffer.getString(start + Integer.BYTES, length);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+import de.unibi.agbi.biodwh2.core.lang.Type;
+
+import java.util.Map;
+
+/**
+ * Property handling shared by storage collections, such as matching find criteria which aren't covered by an index.
+ */
+public final class PropertyCriteria {
+    private PropertyCriteria() {
+    }
+
+    public static boolean modelMatchesCriteria(final StorageModel obj, final String[] propertyKeys,
+                                               final Comparable<?>[] propertyValues, final boolean[] hasIndexFlags) {
+        if (obj == null)
+            return false;
+        boolean matched = false;
+        for (int i = 0; i < propertyKeys.length; i++) {
+            if (hasIndexFlags[i])
+                continue;
+            final Comparable<?> searchValue = propertyValues[i];
+            final Object value = obj.get(propertyKeys[i]);
+            if (value instanceof Comparable<?>) {
+                if (!propertyMatchesCriteria((Comparable<?>) value, searchValue))
+                    return false;
+            } else if (value instanceof Comparable<?>[]) {
+                final Comparable<?>[] valueArray = (Comparable<?>[]) value;
+                boolean matchedAnyInArray = false;
+                for (final Comparable<?> comparable : valueArray) {
+                    if (propertyMatchesCriteria(comparable, searchValue)) {
+                        matchedAnyInArray = true;
+                        break;
+                    }
+                }
+                if (!matchedAnyInArray)
+                    return false;
+            } else
+                return false;
+            matched = true;
+        }
+        return matched;
+    }
+
+    private static boolean propertyMatchesCriteria(final Comparable<?> a, final Comparable<?> b) {
+        if (a == null || b == null)
+            return false;
+        return normalizeIntegral(a).equals(normalizeIntegral(b));
+    }
+
+    /**
+     * @return Integral numbers as Long, so they match regardless of their boxed type, otherwise the value itself
+     */
+    public static Comparable<?> normalizeIntegral(final Comparable<?> value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return ((Number) value).longValue();
+        return value;
+    }
+
+    public static boolean isFindOnNonIndexedProperties(final boolean[] hasIndexFlags) {
+        for (final boolean hasIndexFlag : hasIndexFlags)
+            if (!hasIndexFlag)
+                return true;
+        return false;
+    }
+
+    /**
+     * Add the types of all properties of the model to the property key types of a collection. List types are narrowed
+     * when a more specific component type is found.
+     *
+     * @return true if the property key types changed
+     */
+    public static boolean updatePropertyKeyTypes(final Map<String, Type> propertyKeyTypes, final StorageModel obj) {
+        boolean changed = false;
+        for (final String key : obj.keySet()) {
+            final Object value = obj.getProperty(key);
+            if (value == null)
+                continue;
+            if (!propertyKeyTypes.containsKey(key)) {
+                propertyKeyTypes.put(key, Type.fromObject(value));
+                changed = true;
+            } else if (propertyKeyTypes.get(key) != null) {
+                final Type oldType = propertyKeyTypes.get(key);
+                final Type newType = Type.fromObject(value);
+                if (oldType.isList() && newType.getComponentType() != null) {
+                    if (oldType.getComponentType() == null || newType.getComponentType().isAssignableFrom(
+                            oldType.getComponentType())) {
+                        propertyKeyTypes.put(key, newType);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,66 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage backend for graphs holding named collections of models and plain key-value maps.
+ *
+ * @param <M> Base type of all models the storage can hold
+ */
+public interface Storage<M extends StorageModel> extends AutoCloseable {
+    <K, V> Map<K, V> openMap(final String name);
+
+    boolean hasCollection(final String name);
+
+    <T extends M> StorageCollection<T> getCollection(final String name);
+
+    String[] getCollectionNames();
+
+    /**
+     * Remove a collection with all of its objects, indices and columns. This is not covered by transactions.
+     */
+    void removeCollection(final String name);
+
+    /**
+     * Switch this storage to dense id allocation from a per-storage counter. Dense ids are only enabled for empty
+     * storages.
+     *
+     * @return true if the storage uses dense ids afterwards
+     */
+    boolean enableDenseIds();
+
+    boolean hasDenseIds();
+
+    /**
+     * @param blobThreshold Minimum length of string property values to be stored compressed out-of-line. Storages
+     *                      keeping all values in memory ignore it.
+     */
+    void setBlobThreshold(final int blobThreshold);
+
+    long nextId();
+
+    /**
+     * @return Exclusive upper bound of all ids allocated by this storage if dense ids are used, otherwise -1
+     */
+    long getIdUpperBound();
+
+    /**
+     * @return Empty set for ids of this storage, backed by a bitset if dense ids are used
+     */
+    Set<Long> newIdSet();
+
+    /**
+     * Start a transaction covering all collection changes until it is committed or rolled back. Closing a transaction
+     * which wasn't committed rolls it back.
+     */
+    StorageTransaction beginTransaction();
+
+    /**
+     * Persist all changes made so far at once. After a crash the storage reopens with at least these changes.
+     */
+    void commit();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,69 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
+import de.unibi.agbi.biodwh2.core.lang.Type;
+
+import java.util.Map;
+
+public interface StorageCollection<T extends StorageModel> extends Iterable<T> {
+    String getName();
+
+    StorageIndex getIndex(final String key);
+
+    StorageIndex getIndex(final String key, final boolean arrayIndex, final StorageIndexType type);
+
+    StorageIndex[] getIndices();
+
+    StorageIndexDescription[] getIndexDescriptions();
+
+    Map<String, Type> getPropertyKeyTypes();
+
+    /**
+     * Store the values of a property key additionally in a separate column, so they can be scanned without loading
+     * whole objects. Objects already in the collection are added to the new column.
+     *
+     * @param key Property key to store in a column
+     */
+    void addColumn(final String key);
+
+    String[] getColumnKeys();
+
+    /**
+     * Scan the values of a property key. Values are read from the column if one exists for the key, otherwise from
+     * the objects themselves.
+     *
+     * @param key Property key to scan
+     * @return Ids and values of all objects with a non-null value for the property key
+     */
+    <V> Iterable<Tuple2<Long, V>> scanColumn(final String key);
+
+    void put(final T obj);
+
+    T get(final long id);
+
+    boolean contains(final long id);
+
+    void remove(final T obj);
+
+    Iterable<T> find(final String propertyKey, final Comparable<?> propertyValue);
+
+    Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                     final Comparable<?> propertyValue2);
+
+    Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                     final Comparable<?> propertyValue2, final String propertyKey3,
+                     final Comparable<?> propertyValue3);
+
+    Iterable<T> find(final String propertyKey1, final Comparable<?> propertyValue1, final String propertyKey2,
+                     final Comparable<?> propertyValue2, final String propertyKey3, final Comparable<?> propertyValue3,
+                     final String propertyKey4, final Comparable<?> propertyValue4);
+
+    Iterable<T> find(final String[] propertyKeys, final Comparable<?>[] propertyValues);
+
+    /**
+     * @return Ids of all objects in this collection without loading the objects
+     */
+    Iterable<Long> getIds();
+
+    long size();
+}
@@ -0,0 +1,23 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+import java.util.Set;
+
+public interface StorageIndex {
+    String getName();
+
+    String getKey();
+
+    boolean isArrayIndex();
+
+    StorageIndexType getType();
+
+    Set<Long> find(final Comparable<?> propertyValue);
+
+    void remove(final Object propertyValue, final long id);
+
+    void put(final Object propertyValue, final long id);
+
+    boolean contains(final Comparable<?> propertyValue);
+
+    StorageIndexDescription getIndexDescription();
+}
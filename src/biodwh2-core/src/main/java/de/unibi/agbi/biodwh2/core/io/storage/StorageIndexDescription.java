@@ -1,11 +1,12 @@
-package de.unibi.agbi.biodwh2.core.io.mvstore;
+package de.unibi.agbi.biodwh2.core.io.storage;
 
-public final class MVIndexDescription {
+public final class StorageIndexDescription {
     private final String property;
     private final boolean isArrayProperty;
-    private final MVStoreIndexType type;
+    private final StorageIndexType type;
 
-    MVIndexDescription(final String property, final boolean isArrayProperty, final MVStoreIndexType type) {
+    public StorageIndexDescription(final String property, final boolean isArrayProperty,
+                                   final StorageIndexType type) {
         this.property = property;
         this.isArrayProperty = isArrayProperty;
         this.type = type;
@@ -19,7 +20,7 @@ public final class MVIndexDescription {
         return isArrayProperty;
     }
 
-    public MVStoreIndexType getType() {
+    public StorageIndexType getType() {
         return type;
     }
 }
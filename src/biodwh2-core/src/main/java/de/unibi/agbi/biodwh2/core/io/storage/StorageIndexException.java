@@ -0,0 +1,25 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+public class StorageIndexException extends RuntimeException {
+    private static final long serialVersionUID = 6150713286870459312L;
+
+    public StorageIndexException() {
+    }
+
+    public StorageIndexException(String message) {
+        super(message);
+    }
+
+    public StorageIndexException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public StorageIndexException(Throwable cause) {
+        super(cause);
+    }
+
+    public StorageIndexException(String message, Throwable cause, boolean enableSuppression,
+                                 boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -0,0 +1,6 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+public enum StorageIndexType {
+    UNIQUE,
+    NON_UNIQUE
+}
@@ -0,0 +1,26 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+import java.util.Set;
+
+/**
+ * Object stored in a {@link StorageCollection}, which is a map of property values identified by a unique id.
+ */
+public interface StorageModel {
+    Long getId();
+
+    Object get(final String key);
+
+    <T> T getProperty(final String key);
+
+    Set<String> keySet();
+
+    /**
+     * Replace references to values stored out-of-line by the values, so the model no longer depends on its storage.
+     */
+    void resolveBlobs();
+
+    /**
+     * @return Independent copy of this model of the same class
+     */
+    <T extends StorageModel> T copy();
+}
@@ -0,0 +1,13 @@
+package de.unibi.agbi.biodwh2.core.io.storage;
+
+public interface StorageTransaction extends AutoCloseable {
+    void commit();
+
+    void rollback();
+
+    /**
+     * Roll back the transaction if it was neither committed nor rolled back before.
+     */
+    @Override
+    void close();
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import de.unibi.agbi.biodwh2.core.Workspace;
+import de.unibi.agbi.biodwh2.core.io.mvstore.MVStoreDB;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -26,6 +27,24 @@ public final class Configuration {
     private Boolean skipGraphMLExport;
     @JsonProperty("skipMetaGraphGeneration")
     private Boolean skipMetaGraphGeneration;
+    @JsonProperty("exportGraphSnapshot")
+    private Boolean exportGraphSnapshot;
+    @JsonProperty("diffExportedGraphs")
+    private Boolean diffExportedGraphs;
+    @JsonProperty("cacheParsedData")
+    private Boolean cacheParsedData;
+    @JsonProperty("networkThreads")
+    private Integer networkThreads;
+    @JsonProperty("diskThreads")
+    private Integer diskThreads;
+    @JsonProperty("memoryBudgetPercentage")
+    private Integer memoryBudgetPercentage;
+    @JsonProperty("httpCacheTimeToLiveMinutes")
+    private Integer httpCacheTimeToLiveMinutes;
+    @JsonProperty("blobThreshold")
+    private Integer blobThreshold;
+    @JsonProperty("denseGraphIds")
+    private Boolean denseGraphIds;
 
     public Configuration() {
         version = Workspace.VERSION;
@@ -73,4 +92,72 @@ public final class Configuration {
     public boolean shouldSkipMetaGraphGeneration() {
         return Boolean.TRUE.equals(skipMetaGraphGeneration);
     }
+
+    public boolean shouldExportGraphSnapshot() {
+        return Boolean.TRUE.equals(exportGraphSnapshot);
+    }
+
+    /**
+     * @return Whether exported graphs are compared with the previous export to keep unchanged graphs
+     */
+    public boolean shouldDiffExportedGraphs() {
+        return Boolean.TRUE.equals(diffExportedGraphs);
+    }
+
+    /**
+     * @return Whether parsed data of data sources supporting it is cached to skip parsing unchanged source files
+     */
+    public boolean shouldCacheParsedData() {
+        return Boolean.TRUE.equals(cacheParsedData);
+    }
+
+    /**
+     * @return Whether new exported and merged graphs allocate dense ids, which enables resuming interrupted exports and
+     * mappings from checkpoints
+     */
+    public boolean shouldUseDenseGraphIds() {
+        return Boolean.TRUE.equals(denseGraphIds);
+    }
+
+    /**
+     * @return Number of threads for download stages in parallel processing
+     */
+    @JsonIgnore
+    public int getNumberOfNetworkThreads() {
+        return networkThreads != null && networkThreads > 0 ? networkThreads : 4;
+    }
+
+    /**
+     * @return Number of threads for file writing stages in parallel processing
+     */
+    @JsonIgnore
+    public int getNumberOfDiskThreads() {
+        return diskThreads != null && diskThreads > 0 ? diskThreads : 2;
+    }
+
+    /**
+     * @return Percentage of the maximum heap data sources may be estimated to use concurrently in parallel processing
+     */
+    @JsonIgnore
+    public int getMemoryBudgetPercentage() {
+        return memoryBudgetPercentage != null && memoryBudgetPercentage > 0 && memoryBudgetPercentage <= 100 ?
+               memoryBudgetPercentage : 75;
+    }
+
+    /**
+     * @return Minutes cached update check websites are used without asking the server whether they changed
+     */
+    @JsonIgnore
+    public int getHttpCacheTimeToLiveMinutes() {
+        return httpCacheTimeToLiveMinutes != null && httpCacheTimeToLiveMinutes >= 0 ? httpCacheTimeToLiveMinutes :
+               60;
+    }
+
+    /**
+     * @return Minimum length of string property values stored compressed out-of-line in persisted graphs
+     */
+    @JsonIgnore
+    public int getBlobThreshold() {
+        return blobThreshold != null && blobThreshold > 0 ? blobThreshold : MVStoreDB.DEFAULT_BLOB_THRESHOLD;
+    }
 }
@@ -5,11 +5,16 @@ import de.unibi.agbi.biodwh2.core.model.graph.GraphFileFormat;
 
 public enum DataSourceFileType {
     METADATA("metadata.json"),
+    PARSED_DATA_CACHE("parsed-data.cache"),
     PERSISTENT_GRAPH("intermediate." + Graph.EXTENSION),
+    PREVIOUS_PERSISTENT_GRAPH("intermediate-previous." + Graph.EXTENSION),
+    GRAPH_CHANGE_LOG("intermediate-changes.tsv"),
     INTERMEDIATE_GRAPHML("intermediate." + GraphFileFormat.GRAPH_ML.extension),
     META_GRAPH_IMAGE("meta-graph.png"),
     META_GRAPH_STATISTICS("meta-graph-statistics.txt"),
-    META_GRAPH_DYNAMIC_VIS("meta-graph.html");
+    META_GRAPH_DYNAMIC_VIS("meta-graph.html"),
+    WORKER_LOCK("worker.lock"),
+    WORKER_FINISHED_RUN("worker-finished-run");
 
     private final String name;
 
@@ -8,6 +8,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public final class DataSourceMetadata {
@@ -25,6 +26,10 @@ public final class DataSourceMetadata {
     public Boolean exportSuccessful;
     @JsonProperty("exportVersion")
     public Long exportVersion;
+    @JsonProperty("parseMemoryUsage")
+    public Long parseMemoryUsage;
+    @JsonProperty("exportedSourceFileHashes")
+    public Map<String, String> exportedSourceFileHashes;
 
     public DataSourceMetadata() {
         sourceFileNames = new ArrayList<>();
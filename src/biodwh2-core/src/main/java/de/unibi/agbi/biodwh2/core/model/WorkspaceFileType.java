@@ -13,7 +13,8 @@ public enum WorkspaceFileType {
     MAPPED_GRAPHML("mapped." + GraphFileFormat.GRAPH_ML.extension),
     MAPPED_META_GRAPH_IMAGE("mapped-meta-graph.png"),
     MAPPED_META_GRAPH_STATISTICS("mapped-meta-graph-statistics.txt"),
-    MAPPED_META_GRAPH_DYNAMIC_VIS("mapped-meta-graph.html");
+    MAPPED_META_GRAPH_DYNAMIC_VIS("mapped-meta-graph.html"),
+    MAPPED_GRAPH_SNAPSHOT("mapped.snapshot");
 
     private final String name;
 
@@ -1,13 +1,17 @@
 package de.unibi.agbi.biodwh2.core.model.graph;
 
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
 import de.unibi.agbi.biodwh2.core.exceptions.GraphCacheException;
+import de.unibi.agbi.biodwh2.core.io.memory.MemoryStorage;
 import de.unibi.agbi.biodwh2.core.io.mvstore.*;
+import de.unibi.agbi.biodwh2.core.io.storage.*;
 import de.unibi.agbi.biodwh2.core.lang.Type;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 abstract class BaseGraph implements AutoCloseable {
     public static final int VERSION = 3;
@@ -15,32 +19,97 @@ abstract class BaseGraph implements AutoCloseable {
     private static final char NODE_REPOSITORY_PREFIX = '$';
     private static final char EDGE_REPOSITORY_PREFIX = '!';
     private static final String VERSION_KEY = "version";
+    private static final String BASE_FILE_PATH_KEY = "base_file_path";
+    private static final String MERGED_NODE_LABELS_KEY_PREFIX = "merged_node_labels!";
+    private static final String MERGED_EDGE_LABELS_KEY_PREFIX = "merged_edge_labels!";
+    private static final String MERGED_REVISION_KEY_PREFIX = "merged_revision!";
+    private static final String MERGED_ID_OFFSET_KEY_PREFIX = "merged_id_offset!";
+    private static final String METADATA_MAP_NAME_PREFIX = "metadata!";
+    private static final String CHECKPOINT_RUN_KEY = "checkpoint_run";
+    private static final String CHECKPOINT_ID_BOUND_KEY = "checkpoint_id_bound";
+    private static final String CHECKPOINT_KEY_PREFIX = "checkpoint!";
     public static final String EXTENSION = "db";
 
     private final Path filePath;
-    private MVStoreDB database;
-    private final MVMapWrapper<String, Object> metaMap;
-    private final Map<String, MVStoreCollection<Node>> nodeRepositories;
-    private final Map<String, MVStoreCollection<Edge>> edgeRepositories;
+    private final Path baseFilePath;
+    private Storage<? super MVStoreModel> database;
+    private final Map<String, Object> metaMap;
+    private final Map<String, StorageCollection<Node>> nodeRepositories;
+    private final Map<String, StorageCollection<Edge>> edgeRepositories;
+    private final List<Runnable> closeListeners = new ArrayList<>();
 
     protected BaseGraph(final Path filePath, final boolean reopen, final boolean readOnly) {
+        this(filePath, null, reopen, readOnly, false);
+    }
+
+    /**
+     * @param denseIds Whether a new graph allocates node and edge ids densely, which enables flat id mappings and
+     *                 checkpoints. Ignored when reopening a graph.
+     */
+    protected BaseGraph(final Path filePath, final Path baseFilePath, final boolean reopen, final boolean readOnly,
+                        final boolean denseIds) {
         this.filePath = filePath;
         if (!reopen)
             deleteOldDatabaseFile(filePath);
-        nodeRepositories = new HashMap<>();
-        edgeRepositories = new HashMap<>();
-        database = openDatabase(filePath, readOnly);
+        nodeRepositories = new ConcurrentHashMap<>();
+        edgeRepositories = new ConcurrentHashMap<>();
+        final MVStoreDB mvStoreDatabase = openDatabase(filePath, readOnly);
+        database = mvStoreDatabase;
         metaMap = database.openMap("metadata");
-        if (!reopen)
+        if (!reopen) {
+            metaMap.put(VERSION_KEY, VERSION);
+            if (baseFilePath != null)
+                metaMap.put(BASE_FILE_PATH_KEY, getParentPath(filePath).relativize(baseFilePath.toAbsolutePath())
+                                                                       .toString());
+        }
+        this.baseFilePath = getStoredBaseFilePath();
+        if (this.baseFilePath != null)
+            openBaseDatabase(mvStoreDatabase);
+        if (!reopen && denseIds)
+            database.enableDenseIds();
+        loadRepositories();
+        if (!readOnly)
+            createInternalIndicesIfNotExist();
+    }
+
+    /**
+     * Create a graph on top of a non-persistent storage such as {@link MemoryStorage}.
+     */
+    protected BaseGraph(final Storage<? super MVStoreModel> storage) {
+        this(storage, false);
+    }
+
+    /**
+     * Create a graph on top of a non-persistent storage such as {@link MemoryStorage}.
+     *
+     * @param denseIds Whether a new graph allocates node and edge ids densely. Ignored for storages already holding a
+     *                 graph.
+     */
+    protected BaseGraph(final Storage<? super MVStoreModel> storage, final boolean denseIds) {
+        filePath = null;
+        baseFilePath = null;
+        nodeRepositories = new ConcurrentHashMap<>();
+        edgeRepositories = new ConcurrentHashMap<>();
+        database = storage;
+        metaMap = database.openMap("metadata");
+        if (!metaMap.containsKey(VERSION_KEY)) {
             metaMap.put(VERSION_KEY, VERSION);
+            if (denseIds)
+                database.enableDenseIds();
+        }
+        loadRepositories();
+        createInternalIndicesIfNotExist();
+    }
+
+    private void loadRepositories() {
+        nodeRepositories.clear();
+        edgeRepositories.clear();
         for (final String repositoryKey : database.getCollectionNames()) {
             if (repositoryKey.charAt(0) == EDGE_REPOSITORY_PREFIX)
                 edgeRepositories.put(repositoryKey.substring(1), database.getCollection(repositoryKey));
             else if (repositoryKey.charAt(0) == NODE_REPOSITORY_PREFIX)
                 nodeRepositories.put(repositoryKey.substring(1), database.getCollection(repositoryKey));
         }
-        if (!readOnly)
-            createInternalIndicesIfNotExist();
     }
 
     private void deleteOldDatabaseFile(final Path filePath) {
@@ -55,14 +124,62 @@ abstract class BaseGraph implements AutoCloseable {
         return new MVStoreDB(filePath.toString(), readOnly);
     }
 
+    private static Path getParentPath(final Path filePath) {
+        return filePath.toAbsolutePath().getParent();
+    }
+
+    private Path getStoredBaseFilePath() {
+        return resolveBaseFilePath(filePath, metaMap);
+    }
+
+    private static Path resolveBaseFilePath(final Path filePath, final Map<String, Object> metaMap) {
+        final String relativeBaseFilePath = (String) metaMap.get(BASE_FILE_PATH_KEY);
+        return relativeBaseFilePath != null ? getParentPath(filePath).resolve(relativeBaseFilePath).normalize() : null;
+    }
+
+    /**
+     * Read the base file path of a graph file without opening the graph.
+     *
+     * @return Path of the base graph if the graph is an overlay, otherwise null
+     */
+    public static Path peekBaseFilePath(final Path filePath) {
+        try (MVStoreDB database = openDatabase(filePath, true)) {
+            return resolveBaseFilePath(filePath, database.openMap("metadata"));
+        }
+    }
+
+    private void openBaseDatabase(final MVStoreDB mvStoreDatabase) {
+        mvStoreDatabase.setBase(openBaseDatabase(filePath, baseFilePath));
+    }
+
+    /**
+     * Open the base database read-only, including the base of the base if it is an overlay itself.
+     */
+    private static MVStoreDB openBaseDatabase(final Path filePath, final Path baseFilePath) {
+        if (!Files.exists(baseFilePath))
+            throw new GraphCacheException("Base database file '" + baseFilePath + "' of overlay graph '" + filePath +
+                                          "' does not exist");
+        final MVStoreDB baseDatabase = openDatabase(baseFilePath, true);
+        final Path nextBaseFilePath = resolveBaseFilePath(baseFilePath, baseDatabase.openMap("metadata"));
+        if (nextBaseFilePath != null) {
+            try {
+                baseDatabase.setBase(openBaseDatabase(baseFilePath, nextBaseFilePath));
+            } catch (final RuntimeException e) {
+                baseDatabase.close();
+                throw e;
+            }
+        }
+        return baseDatabase;
+    }
+
     private void createInternalIndicesIfNotExist() {
-        for (final MVStoreCollection<Edge> edges : edgeRepositories.values())
+        for (final StorageCollection<Edge> edges : edgeRepositories.values())
             createEdgeRepositoryIndicesIfNotExist(edges);
     }
 
-    private void createEdgeRepositoryIndicesIfNotExist(final MVStoreCollection<Edge> edges) {
-        edges.getIndex(Edge.FROM_ID_FIELD, false, MVStoreIndexType.NON_UNIQUE);
-        edges.getIndex(Edge.TO_ID_FIELD, false, MVStoreIndexType.NON_UNIQUE);
+    private void createEdgeRepositoryIndicesIfNotExist(final StorageCollection<Edge> edges) {
+        edges.getIndex(Edge.FROM_ID_FIELD, false, StorageIndexType.NON_UNIQUE);
+        edges.getIndex(Edge.TO_ID_FIELD, false, StorageIndexType.NON_UNIQUE);
     }
 
     public final Integer getVersion() {
@@ -73,11 +190,71 @@ abstract class BaseGraph implements AutoCloseable {
         return filePath;
     }
 
+    public final Path getBaseFilePath() {
+        return baseFilePath;
+    }
+
+    public final boolean isOverlay() {
+        return baseFilePath != null;
+    }
+
+    /**
+     * @return true if ids are allocated from a per-graph counter in the range 0..{@link #getIdUpperBound()} instead of
+     * the global sparse id space. Graphs created with older versions keep using global ids.
+     */
+    public final boolean hasDenseIds() {
+        return database.hasDenseIds();
+    }
+
+    /**
+     * @return Exclusive upper bound of all node and edge ids if dense ids are used, otherwise -1
+     */
+    public final long getIdUpperBound() {
+        return database.getIdUpperBound();
+    }
+
+    protected final long nextId() {
+        return database.nextId();
+    }
+
+    /**
+     * @return Empty set for node or edge ids of this graph, backed by a bitset if dense ids are used
+     */
+    public final Set<Long> newIdSet() {
+        return database.newIdSet();
+    }
+
+    /**
+     * Start a transaction over all node and edge changes. Closing the transaction without committing it rolls back all
+     * changes made since it was started.
+     */
+    public final StorageTransaction beginTransaction() {
+        final StorageTransaction transaction = database.beginTransaction();
+        return new StorageTransaction() {
+            @Override
+            public void commit() {
+                transaction.commit();
+            }
+
+            @Override
+            public void rollback() {
+                transaction.rollback();
+                loadRepositories();
+            }
+
+            @Override
+            public void close() {
+                transaction.close();
+                loadRepositories();
+            }
+        };
+    }
+
     public void addIndex(final IndexDescription description) {
         if (description.getLabel() == null)
             throw new GraphCacheException("Indices with null label are not allowed");
-        final MVStoreIndexType type = description.getType() == IndexDescription.Type.UNIQUE ? MVStoreIndexType.UNIQUE :
-                                      MVStoreIndexType.NON_UNIQUE;
+        final StorageIndexType type = description.getType() == IndexDescription.Type.UNIQUE ?
+                                      StorageIndexType.UNIQUE : StorageIndexType.NON_UNIQUE;
         if (description.getTarget() == IndexDescription.Target.NODE) {
             getOrCreateNodeRepository(description.getLabel()).getIndex(description.getProperty(),
                                                                        description.isArrayProperty(), type);
@@ -87,6 +264,30 @@ abstract class BaseGraph implements AutoCloseable {
         }
     }
 
+    /**
+     * @param blobThreshold Minimum length of string property values to be stored compressed out-of-line, which only
+     *                      applies to values written afterwards
+     */
+    public final void setBlobThreshold(final int blobThreshold) {
+        database.setBlobThreshold(blobThreshold);
+    }
+
+    /**
+     * Store the values of a node property additionally in a column, so {@link #scanProperty(String, String)} doesn't
+     * need to load the nodes.
+     */
+    public final void addPropertyColumn(final String label, final String propertyKey) {
+        getOrCreateNodeRepository(label).addColumn(propertyKey);
+    }
+
+    /**
+     * @return Ids and values of all nodes with the label having a non-null value for the property key
+     */
+    public final <T> Iterable<Tuple2<Long, T>> scanProperty(final String label, final String propertyKey) {
+        final StorageCollection<Node> nodes = nodeRepositories.get(label);
+        return nodes != null ? nodes.scanColumn(propertyKey) : Collections.emptyList();
+    }
+
     @Override
     public void close() {
         if (database != null)
@@ -94,6 +295,16 @@ abstract class BaseGraph implements AutoCloseable {
         nodeRepositories.clear();
         edgeRepositories.clear();
         database = null;
+        for (final Runnable listener : closeListeners)
+            listener.run();
+        closeListeners.clear();
+    }
+
+    /**
+     * Run the listener once the graph is closed, for example to release a lease on the graph file.
+     */
+    public final void onClose(final Runnable listener) {
+        closeListeners.add(listener);
     }
 
     public final void update(final Node node) {
@@ -105,8 +316,16 @@ abstract class BaseGraph implements AutoCloseable {
         getOrCreateNodeRepository(label).put(node);
     }
 
-    private MVStoreCollection<Node> getOrCreateNodeRepository(final String label) {
-        MVStoreCollection<Node> nodes = nodeRepositories.get(label);
+    /**
+     * Repositories are created on first access, which may happen during concurrent reads, so creation is synchronized.
+     */
+    private StorageCollection<Node> getOrCreateNodeRepository(final String label) {
+        final StorageCollection<Node> nodes = nodeRepositories.get(label);
+        return nodes != null ? nodes : createNodeRepository(label);
+    }
+
+    private synchronized StorageCollection<Node> createNodeRepository(final String label) {
+        StorageCollection<Node> nodes = nodeRepositories.get(label);
         if (nodes == null) {
             nodes = database.getCollection(NODE_REPOSITORY_PREFIX + label);
             nodeRepositories.put(label, nodes);
@@ -123,8 +342,13 @@ abstract class BaseGraph implements AutoCloseable {
         getOrCreateEdgeRepository(label).put(edge);
     }
 
-    private MVStoreCollection<Edge> getOrCreateEdgeRepository(final String label) {
-        MVStoreCollection<Edge> edges = edgeRepositories.get(label);
+    private StorageCollection<Edge> getOrCreateEdgeRepository(final String label) {
+        final StorageCollection<Edge> edges = edgeRepositories.get(label);
+        return edges != null ? edges : createEdgeRepository(label);
+    }
+
+    private synchronized StorageCollection<Edge> createEdgeRepository(final String label) {
+        StorageCollection<Edge> edges = edgeRepositories.get(label);
         if (edges == null) {
             edges = database.getCollection(EDGE_REPOSITORY_PREFIX + label);
             edgeRepositories.put(label, edges);
@@ -136,30 +360,30 @@ abstract class BaseGraph implements AutoCloseable {
     public final IndexDescription[] indexDescriptions() {
         final List<IndexDescription> result = new ArrayList<>();
         for (final String label : nodeRepositories.keySet())
-            for (final MVIndexDescription indexDescription : nodeRepositories.get(label).getIndexDescriptions())
+            for (final StorageIndexDescription indexDescription : nodeRepositories.get(label).getIndexDescriptions())
                 result.add(convertIndexDescription(IndexDescription.Target.NODE, label, indexDescription));
         for (final String label : edgeRepositories.keySet())
-            for (final MVIndexDescription indexDescription : edgeRepositories.get(label).getIndexDescriptions())
+            for (final StorageIndexDescription indexDescription : edgeRepositories.get(label).getIndexDescriptions())
                 result.add(convertIndexDescription(IndexDescription.Target.EDGE, label, indexDescription));
         return result.toArray(new IndexDescription[0]);
     }
 
     private IndexDescription convertIndexDescription(final IndexDescription.Target target, final String label,
-                                                     final MVIndexDescription indexDescription) {
+                                                     final StorageIndexDescription indexDescription) {
         return new IndexDescription(target, label, indexDescription.getProperty(), indexDescription.isArrayProperty(),
-                                    indexDescription.getType() == MVStoreIndexType.UNIQUE ?
+                                    indexDescription.getType() == StorageIndexType.UNIQUE ?
                                     IndexDescription.Type.UNIQUE : IndexDescription.Type.NON_UNIQUE);
     }
 
     public final Map<String, Type> getPropertyKeyTypesForNodeLabel(final String label) {
-        final MVStoreCollection<Node> nodes = nodeRepositories.get(label);
+        final StorageCollection<Node> nodes = nodeRepositories.get(label);
         if (nodes != null)
             return nodes.getPropertyKeyTypes();
         return new HashMap<>();
     }
 
     public final Map<String, Type> getPropertyKeyTypesForEdgeLabel(final String label) {
-        final MVStoreCollection<Edge> edges = edgeRepositories.get(label);
+        final StorageCollection<Edge> edges = edgeRepositories.get(label);
         if (edges != null)
             return edges.getPropertyKeyTypes();
         return new HashMap<>();
@@ -175,25 +399,25 @@ abstract class BaseGraph implements AutoCloseable {
 
     public final long getNumberOfNodes() {
         long result = 0;
-        for (final MVStoreCollection<Node> nodes : nodeRepositories.values())
+        for (final StorageCollection<Node> nodes : nodeRepositories.values())
             result += nodes.size();
         return result;
     }
 
     public final long getNumberOfNodes(final String label) {
-        final MVStoreCollection<Node> nodes = nodeRepositories.get(label);
+        final StorageCollection<Node> nodes = nodeRepositories.get(label);
         return nodes != null ? nodes.size() : 0;
     }
 
     public final long getNumberOfEdges() {
         long result = 0;
-        for (final MVStoreCollection<Edge> edges : edgeRepositories.values())
+        for (final StorageCollection<Edge> edges : edgeRepositories.values())
             result += edges.size();
         return result;
     }
 
     public final long getNumberOfEdges(final String label) {
-        final MVStoreCollection<Edge> edges = edgeRepositories.get(label);
+        final StorageCollection<Edge> edges = edgeRepositories.get(label);
         return edges != null ? edges.size() : 0;
     }
 
@@ -206,7 +430,7 @@ abstract class BaseGraph implements AutoCloseable {
     }
 
     public final Node getNode(final long nodeId) {
-        for (final MVStoreCollection<Node> nodes : nodeRepositories.values()) {
+        for (final StorageCollection<Node> nodes : nodeRepositories.values()) {
             final Node node = nodes.get(nodeId);
             if (node != null)
                 return node;
@@ -215,7 +439,7 @@ abstract class BaseGraph implements AutoCloseable {
     }
 
     public final Edge getEdge(final long edgeId) {
-        for (final MVStoreCollection<Edge> edges : edgeRepositories.values()) {
+        for (final StorageCollection<Edge> edges : edgeRepositories.values()) {
             final Edge edge = edges.get(edgeId);
             if (edge != null)
                 return edge;
@@ -223,6 +447,16 @@ abstract class BaseGraph implements AutoCloseable {
         return null;
     }
 
+    public final NodeLabelLookup createNodeLabelLookup() {
+        final String[] labels = getNodeLabels();
+        final NodeLabelLookup lookup = new NodeLabelLookup(labels, getIdUpperBound());
+        for (int i = 0; i < labels.length; i++)
+            for (final Long nodeId : nodeRepositories.get(labels[i]).getIds())
+                lookup.put(nodeId, i);
+        lookup.sortSparseIds();
+        return lookup;
+    }
+
     public Iterable<Node> findNodes(final String label) {
         return () -> getOrCreateNodeRepository(label).iterator();
     }
@@ -258,7 +492,7 @@ abstract class BaseGraph implements AutoCloseable {
     public Iterable<Node> findNodes(final String propertyKey, final Comparable<?> value) {
         return () -> new RepositoriesIterator<Node>(nodeRepositories.values()) {
             @Override
-            protected Iterator<Node> filterNextRepository(MVStoreCollection<Node> next) {
+            protected Iterator<Node> filterNextRepository(StorageCollection<Node> next) {
                 return next.find(propertyKey, value).iterator();
             }
         };
@@ -268,7 +502,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final Comparable<?> value2) {
         return () -> new RepositoriesIterator<Node>(nodeRepositories.values()) {
             @Override
-            protected Iterator<Node> filterNextRepository(MVStoreCollection<Node> next) {
+            protected Iterator<Node> filterNextRepository(StorageCollection<Node> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2).iterator();
             }
         };
@@ -278,7 +512,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final Comparable<?> value2, final String propertyKey3, final Comparable<?> value3) {
         return () -> new RepositoriesIterator<Node>(nodeRepositories.values()) {
             @Override
-            protected Iterator<Node> filterNextRepository(MVStoreCollection<Node> next) {
+            protected Iterator<Node> filterNextRepository(StorageCollection<Node> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2, propertyKey3, value3).iterator();
             }
         };
@@ -289,7 +523,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final String propertyKey4, final Comparable<?> value4) {
         return () -> new RepositoriesIterator<Node>(nodeRepositories.values()) {
             @Override
-            protected Iterator<Node> filterNextRepository(MVStoreCollection<Node> next) {
+            protected Iterator<Node> filterNextRepository(StorageCollection<Node> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2, propertyKey3, value3, propertyKey4, value4)
                            .iterator();
             }
@@ -308,7 +542,7 @@ abstract class BaseGraph implements AutoCloseable {
         }
         return () -> new RepositoriesIterator<Node>(nodeRepositories.values()) {
             @Override
-            protected Iterator<Node> filterNextRepository(MVStoreCollection<Node> next) {
+            protected Iterator<Node> filterNextRepository(StorageCollection<Node> next) {
                 return next.find(keys, values).iterator();
             }
         };
@@ -349,7 +583,7 @@ abstract class BaseGraph implements AutoCloseable {
     public Iterable<Edge> findEdges(final String propertyKey, final Comparable<?> value) {
         return () -> new RepositoriesIterator<Edge>(edgeRepositories.values()) {
             @Override
-            protected Iterator<Edge> filterNextRepository(MVStoreCollection<Edge> next) {
+            protected Iterator<Edge> filterNextRepository(StorageCollection<Edge> next) {
                 return next.find(propertyKey, value).iterator();
             }
         };
@@ -359,7 +593,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final Comparable<?> value2) {
         return () -> new RepositoriesIterator<Edge>(edgeRepositories.values()) {
             @Override
-            protected Iterator<Edge> filterNextRepository(MVStoreCollection<Edge> next) {
+            protected Iterator<Edge> filterNextRepository(StorageCollection<Edge> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2).iterator();
             }
         };
@@ -369,7 +603,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final Comparable<?> value2, final String propertyKey3, final Comparable<?> value3) {
         return () -> new RepositoriesIterator<Edge>(edgeRepositories.values()) {
             @Override
-            protected Iterator<Edge> filterNextRepository(MVStoreCollection<Edge> next) {
+            protected Iterator<Edge> filterNextRepository(StorageCollection<Edge> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2, propertyKey3, value3).iterator();
             }
         };
@@ -380,7 +614,7 @@ abstract class BaseGraph implements AutoCloseable {
                                     final String propertyKey4, final Comparable<?> value4) {
         return () -> new RepositoriesIterator<Edge>(edgeRepositories.values()) {
             @Override
-            protected Iterator<Edge> filterNextRepository(MVStoreCollection<Edge> next) {
+            protected Iterator<Edge> filterNextRepository(StorageCollection<Edge> next) {
                 return next.find(propertyKey1, value1, propertyKey2, value2, propertyKey3, value3, propertyKey4, value4)
                            .iterator();
             }
@@ -399,14 +633,28 @@ abstract class BaseGraph implements AutoCloseable {
         }
         return () -> new RepositoriesIterator<Edge>(edgeRepositories.values()) {
             @Override
-            protected Iterator<Edge> filterNextRepository(MVStoreCollection<Edge> next) {
+            protected Iterator<Edge> filterNextRepository(StorageCollection<Edge> next) {
                 return next.find(keys, values).iterator();
             }
         };
     }
 
+    public final void removeNode(final Node node) {
+        for (final StorageCollection<Edge> edges : edgeRepositories.values()) {
+            for (final Edge edge : edges.find(Edge.FROM_ID_FIELD, node.getId()))
+                edges.remove(edge);
+            for (final Edge edge : edges.find(Edge.TO_ID_FIELD, node.getId()))
+                edges.remove(edge);
+        }
+        getOrCreateNodeRepository(node.getLabel()).remove(node);
+    }
+
+    public final void removeEdge(final Edge edge) {
+        getOrCreateEdgeRepository(edge.getLabel()).remove(edge);
+    }
+
     public void mergeNodes(final Node first, final Node second) {
-        for (final MVStoreCollection<Edge> edges : edgeRepositories.values()) {
+        for (final StorageCollection<Edge> edges : edgeRepositories.values()) {
             for (final Edge edge : edges.find(Edge.FROM_ID_FIELD, second.getId())) {
                 edge.setFromId(first.getId());
                 update(edge);
@@ -421,23 +669,42 @@ abstract class BaseGraph implements AutoCloseable {
     }
 
     public void mergeDatabase(final String dataSourceId, final BaseGraph databaseToMerge) {
+        mergeDatabase(dataSourceId, databaseToMerge, null);
+    }
+
+    /**
+     * Merge all nodes and edges of another graph with labels prefixed by the data source id. The labels are recorded
+     * per data source, so the merged objects can be removed again with {@link #removeMergedDatabase}.
+     *
+     * @param revision Optional revision of the merged graph, which is available by {@link #getMergedRevision} once
+     *                 the merge completed
+     */
+    public void mergeDatabase(final String dataSourceId, final BaseGraph databaseToMerge, final String revision) {
         final String dataSourcePrefix = dataSourceId + LABEL_PREFIX_SEPARATOR;
+        recordMergedLabels(MERGED_NODE_LABELS_KEY_PREFIX + dataSourceId, dataSourcePrefix,
+                           databaseToMerge.nodeRepositories.keySet());
+        recordMergedLabels(MERGED_EDGE_LABELS_KEY_PREFIX + dataSourceId, dataSourcePrefix,
+                           databaseToMerge.edgeRepositories.keySet());
+        if (hasDenseIds())
+            metaMap.put(MERGED_ID_OFFSET_KEY_PREFIX + dataSourceId, getIdUpperBound());
         for (final String sourceLabel : databaseToMerge.nodeRepositories.keySet()) {
             final String targetLabel = dataSourcePrefix + sourceLabel;
-            for (final MVStoreIndex index : databaseToMerge.nodeRepositories.get(sourceLabel).getIndices())
+            for (final StorageIndex index : databaseToMerge.nodeRepositories.get(sourceLabel).getIndices())
                 getOrCreateNodeRepository(targetLabel).getIndex(index.getKey(), index.isArrayIndex(), index.getType());
+            for (final String columnKey : databaseToMerge.nodeRepositories.get(sourceLabel).getColumnKeys())
+                getOrCreateNodeRepository(targetLabel).addColumn(columnKey);
         }
         for (final String sourceLabel : databaseToMerge.edgeRepositories.keySet()) {
             final String targetLabel = dataSourcePrefix + sourceLabel;
-            for (final MVStoreIndex index : databaseToMerge.edgeRepositories.get(sourceLabel).getIndices())
+            for (final StorageIndex index : databaseToMerge.edgeRepositories.get(sourceLabel).getIndices())
                 getOrCreateEdgeRepository(targetLabel).getIndex(index.getKey(), index.isArrayIndex(), index.getType());
         }
-        final Map<Long, Long> mapping = new HashMap<>();
+        final IdMapping mapping = new IdMapping(databaseToMerge.getIdUpperBound());
         for (final String sourceLabel : databaseToMerge.nodeRepositories.keySet()) {
             final String targetLabel = dataSourcePrefix + sourceLabel;
             for (final Node n : databaseToMerge.nodeRepositories.get(sourceLabel)) {
-                final Long oldId = n.getId();
-                n.resetId();
+                final long oldId = n.getId();
+                n.resetId(nextId());
                 n.setProperty(Node.LABEL_FIELD, targetLabel);
                 getOrCreateNodeRepository(targetLabel).put(n);
                 mapping.put(oldId, n.getId());
@@ -446,20 +713,241 @@ abstract class BaseGraph implements AutoCloseable {
         for (final String sourceLabel : databaseToMerge.edgeRepositories.keySet()) {
             final String targetLabel = dataSourcePrefix + sourceLabel;
             for (final Edge e : databaseToMerge.edgeRepositories.get(sourceLabel)) {
-                e.resetId();
+                e.resetId(nextId());
                 e.setProperty(Edge.LABEL_FIELD, targetLabel);
                 e.setFromId(mapping.get(e.getFromId()));
                 e.setToId(mapping.get(e.getToId()));
                 getOrCreateEdgeRepository(targetLabel).put(e);
             }
         }
+        // The revision is recorded last, so an interrupted merge leaves no revision for partially merged data
+        if (revision != null)
+            metaMap.put(MERGED_REVISION_KEY_PREFIX + dataSourceId, revision);
+    }
+
+    private void recordMergedLabels(final String key, final String dataSourcePrefix, final Set<String> sourceLabels) {
+        final Set<String> labels = new LinkedHashSet<>();
+        final String[] previousLabels = (String[]) metaMap.get(key);
+        if (previousLabels != null)
+            Collections.addAll(labels, previousLabels);
+        for (final String sourceLabel : sourceLabels)
+            labels.add(dataSourcePrefix + sourceLabel);
+        metaMap.put(key, labels.toArray(new String[0]));
+    }
+
+    /**
+     * @return Ids of all data sources merged into this graph with {@link #mergeDatabase}
+     */
+    public final String[] getMergedDataSourceIds() {
+        final List<String> result = new ArrayList<>();
+        for (final String key : metaMap.keySet())
+            if (key.startsWith(MERGED_NODE_LABELS_KEY_PREFIX))
+                result.add(key.substring(MERGED_NODE_LABELS_KEY_PREFIX.length()));
+        return result.toArray(new String[0]);
+    }
+
+    public final String getMergedRevision(final String dataSourceId) {
+        return (String) metaMap.get(MERGED_REVISION_KEY_PREFIX + dataSourceId);
+    }
+
+    /**
+     * Merging the same graph at the same id offset assigns the same ids, so the revision and id offset of a merged
+     * data source together identify its node and edge ids.
+     *
+     * @return First id allocated when the data source was merged or null if unknown
+     */
+    public final Long getMergedIdOffset(final String dataSourceId) {
+        return (Long) metaMap.get(MERGED_ID_OFFSET_KEY_PREFIX + dataSourceId);
+    }
+
+    /**
+     * Take over the records of all data sources merged into the base graph, so they can be removed with
+     * {@link #removeMergedDatabase} and merged again in this overlay.
+     */
+    public final void inheritMergedDatabases() {
+        if (!isOverlay())
+            throw new IllegalStateException("Only overlay graphs can inherit merged data sources of a base graph");
+        final Map<String, Object> baseMetaMap = ((MVStoreDB) database).getBase().openMap("metadata");
+        for (final Map.Entry<String, Object> entry : baseMetaMap.entrySet()) {
+            final String key = entry.getKey();
+            if (key.startsWith(MERGED_NODE_LABELS_KEY_PREFIX) || key.startsWith(MERGED_EDGE_LABELS_KEY_PREFIX) ||
+                key.startsWith(MERGED_REVISION_KEY_PREFIX) || key.startsWith(MERGED_ID_OFFSET_KEY_PREFIX))
+                metaMap.put(key, entry.getValue());
+        }
+    }
+
+    /**
+     * Remove all nodes and edges previously merged from a data source by dropping their label repositories. Merged
+     * data sources don't share labels or edges, so no other objects are affected.
+     */
+    public final void removeMergedDatabase(final String dataSourceId) {
+        final String[] nodeLabels = (String[]) metaMap.remove(MERGED_NODE_LABELS_KEY_PREFIX + dataSourceId);
+        if (nodeLabels != null)
+            for (final String label : nodeLabels)
+                if (nodeRepositories.remove(label) != null)
+                    database.removeCollection(NODE_REPOSITORY_PREFIX + label);
+        final String[] edgeLabels = (String[]) metaMap.remove(MERGED_EDGE_LABELS_KEY_PREFIX + dataSourceId);
+        if (edgeLabels != null)
+            for (final String label : edgeLabels)
+                if (edgeRepositories.remove(label) != null)
+                    database.removeCollection(EDGE_REPOSITORY_PREFIX + label);
+        metaMap.remove(MERGED_REVISION_KEY_PREFIX + dataSourceId);
+        metaMap.remove(MERGED_ID_OFFSET_KEY_PREFIX + dataSourceId);
+    }
+
+    /**
+     * Open a map stored alongside the graph, for data about the graph which is not part of the graph itself.
+     */
+    public final <K, V> Map<K, V> openMetadataMap(final String name) {
+        return database.openMap(METADATA_MAP_NAME_PREFIX + name);
+    }
+
+    /**
+     * Persist all changes made so far at once.
+     */
+    public final void commit() {
+        database.commit();
+    }
+
+    /**
+     * @return Key of the unfinished checkpoint run of this graph or null if there is none
+     */
+    public final String getCheckpointRunKey() {
+        return (String) metaMap.get(CHECKPOINT_RUN_KEY);
+    }
+
+    /**
+     * Begin a run of named steps whose completion is recorded with {@link #completeCheckpoint}. Checkpoints of a
+     * previous run are forgotten. Checkpoints need dense ids to roll back interrupted steps, otherwise nothing is
+     * recorded and no step counts as completed.
+     *
+     * @param runKey Key identifying the run, for example the version of the input data
+     */
+    public final void beginCheckpoints(final String runKey) {
+        clearCheckpoints();
+        if (!hasDenseIds())
+            return;
+        metaMap.put(CHECKPOINT_RUN_KEY, runKey);
+        metaMap.put(CHECKPOINT_ID_BOUND_KEY, getIdUpperBound());
+        database.commit();
+    }
+
+    /**
+     * Resume the unfinished checkpoint run of this graph after it was interrupted, for example by a crash. All nodes
+     * and edges created after the last completed checkpoint are removed. Changes to nodes and edges which existed
+     * before aren't reverted, so steps should only create nodes and edges.
+     *
+     * @return Number of removed nodes and edges
+     */
+    public final long resumeCheckpoints() {
+        final Long idBound = (Long) metaMap.get(CHECKPOINT_ID_BOUND_KEY);
+        if (idBound == null)
+            return 0;
+        long removed = 0;
+        for (final StorageCollection<Edge> edges : edgeRepositories.values())
+            removed += removeObjectsFromIdBound(edges, idBound);
+        for (final StorageCollection<Node> nodes : nodeRepositories.values())
+            removed += removeObjectsFromIdBound(nodes, idBound);
+        database.commit();
+        return removed;
+    }
+
+    private static <T extends MVStoreModel> long removeObjectsFromIdBound(final StorageCollection<T> collection,
+                                                                          final long idBound) {
+        final List<Long> ids = new ArrayList<>();
+        for (final Long id : collection.getIds())
+            if (id >= idBound)
+                ids.add(id);
+        for (final Long id : ids)
+            collection.remove(collection.get(id));
+        return ids.size();
+    }
+
+    public final boolean hasCheckpoint(final String name) {
+        return metaMap.containsKey(CHECKPOINT_KEY_PREFIX + name);
+    }
+
+    /**
+     * Record the completion of a named step of the current checkpoint run and persist it together with all changes
+     * made so far.
+     */
+    public final void completeCheckpoint(final String name) {
+        if (getCheckpointRunKey() == null)
+            return;
+        metaMap.put(CHECKPOINT_KEY_PREFIX + name, System.currentTimeMillis());
+        metaMap.put(CHECKPOINT_ID_BOUND_KEY, getIdUpperBound());
+        database.commit();
+    }
+
+    /**
+     * @return Number of completed steps of the current checkpoint run
+     */
+    public final int getCheckpointCount() {
+        int result = 0;
+        for (final String key : metaMap.keySet())
+            if (key.startsWith(CHECKPOINT_KEY_PREFIX))
+                result++;
+        return result;
+    }
+
+    /**
+     * Finish the current checkpoint run after all steps completed.
+     */
+    public final void endCheckpoints() {
+        clearCheckpoints();
+        database.commit();
+    }
+
+    private void clearCheckpoints() {
+        metaMap.remove(CHECKPOINT_RUN_KEY);
+        metaMap.remove(CHECKPOINT_ID_BOUND_KEY);
+        for (final String key : new ArrayList<>(metaMap.keySet()))
+            if (key.startsWith(CHECKPOINT_KEY_PREFIX))
+                metaMap.remove(key);
+    }
+
+    /**
+     * Old to new node id mapping, which is a flat array for dense old ids.
+     */
+    private static final class IdMapping {
+        private final long[] denseMapping;
+        private final BitSet denseMapped;
+        private final Map<Long, Long> sparseMapping;
+
+        IdMapping(final long idUpperBound) {
+            denseMapping = idUpperBound >= 0 && idUpperBound < Integer.MAX_VALUE ? new long[(int) idUpperBound] : null;
+            denseMapped = denseMapping != null ? new BitSet(denseMapping.length) : null;
+            sparseMapping = new HashMap<>();
+        }
+
+        private boolean isDenseId(final long id) {
+            return denseMapping != null && id >= 0 && id < denseMapping.length;
+        }
+
+        void put(final long oldId, final long newId) {
+            if (isDenseId(oldId)) {
+                denseMapping[(int) oldId] = newId;
+                denseMapped.set((int) oldId);
+            } else
+                sparseMapping.put(oldId, newId);
+        }
+
+        /**
+         * @throws GraphCacheException if no node with the id was merged, for example for an edge referencing a node
+         *                             missing in the merged graph
+         */
+        long get(final long oldId) {
+            if (isDenseId(oldId) ? !denseMapped.get((int) oldId) : !sparseMapping.containsKey(oldId))
+                throw new GraphCacheException("Failed to merge edge referencing the missing node with id " + oldId);
+            return isDenseId(oldId) ? denseMapping[(int) oldId] : sparseMapping.get(oldId);
+        }
     }
 
     private static class RepositoriesIterator<T extends MVStoreModel> implements Iterator<T> {
         private Iterator<T> current;
-        private final Iterator<MVStoreCollection<T>> repositories;
+        private final Iterator<StorageCollection<T>> repositories;
 
-        RepositoriesIterator(final Collection<MVStoreCollection<T>> repositories) {
+        RepositoriesIterator(final Collection<StorageCollection<T>> repositories) {
             this.repositories = repositories.iterator();
         }
 
@@ -474,7 +962,7 @@ abstract class BaseGraph implements AutoCloseable {
                 current = filterNextRepository(repositories.next());
         }
 
-        protected Iterator<T> filterNextRepository(final MVStoreCollection<T> next) {
+        protected Iterator<T> filterNextRepository(final StorageCollection<T> next) {
             return next.iterator();
         }
 
@@ -20,16 +20,20 @@ public final class Edge extends MVStoreModel {
     }
 
     static Edge newEdge(final long fromId, final long toId, final String label) {
+        return newEdge(new MVStoreId().getIdValue(), fromId, toId, label);
+    }
+
+    static Edge newEdge(final long id, final long fromId, final long toId, final String label) {
         final Edge edge = new Edge();
-        edge.put(ID_FIELD, new MVStoreId().getIdValue());
+        edge.put(ID_FIELD, id);
         edge.put(FROM_ID_FIELD, fromId);
         edge.put(TO_ID_FIELD, toId);
         edge.put(LABEL_FIELD, label);
         return edge;
     }
 
-    void resetId() {
-        put(ID_FIELD, new MVStoreId().getIdValue());
+    void resetId(final long id) {
+        put(ID_FIELD, id);
     }
 
     public Long getFromId() {
@@ -1,6 +1,9 @@
 package de.unibi.agbi.biodwh2.core.model.graph;
 
 import de.unibi.agbi.biodwh2.core.exceptions.GraphCacheException;
+import de.unibi.agbi.biodwh2.core.io.memory.MemoryStorage;
+import de.unibi.agbi.biodwh2.core.io.mvstore.MVStoreModel;
+import de.unibi.agbi.biodwh2.core.io.storage.Storage;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -28,14 +31,52 @@ public final class Graph extends BaseGraph {
         super(filePath, reopen, readOnly);
     }
 
+    /**
+     * @param denseIds Whether a new graph allocates ids densely, which enables flat id mappings and checkpoints.
+     *                 Otherwise the graph uses globally unique sparse ids, which is the default.
+     */
+    public Graph(final Path filePath, final boolean reopen, final boolean readOnly, final boolean denseIds) {
+        super(filePath, null, reopen, readOnly, denseIds);
+    }
+
+    /**
+     * Create a new overlay graph on top of the read-only graph at the base file path. All changes are stored in the
+     * overlay file only and the base file is never modified. Reopening the overlay file resolves the base file again.
+     * The overlay allocates dense ids if the base graph does.
+     *
+     * @param filePath     Path of the overlay graph file, an existing file is replaced
+     * @param baseFilePath Path of the immutable base graph file
+     */
+    public Graph(final Path filePath, final Path baseFilePath) {
+        super(filePath, baseFilePath, false, false, true);
+    }
+
+    /**
+     * Create a graph on top of the provided storage backend. The graph has no file path and lives as long as the
+     * storage does.
+     *
+     * @param storage Storage backend of the graph
+     */
+    public Graph(final Storage<? super MVStoreModel> storage) {
+        super(storage);
+    }
+
+    /**
+     * @param storage  Storage backend of the graph
+     * @param denseIds Whether a new graph allocates ids densely
+     */
+    public Graph(final Storage<? super MVStoreModel> storage, final boolean denseIds) {
+        super(storage, denseIds);
+    }
+
     public Node addNode(final String label) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         update(n);
         return n;
     }
 
     public Node addNode(final String label, final String propertyKey, final Object propertyValue) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         n.setProperty(propertyKey, propertyValue);
         update(n);
         return n;
@@ -43,7 +84,7 @@ public final class Graph extends BaseGraph {
 
     public Node addNode(final String label, final String propertyKey1, final Object propertyValue1,
                         final String propertyKey2, final Object propertyValue2) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
         update(n);
@@ -53,7 +94,7 @@ public final class Graph extends BaseGraph {
     public Node addNode(final String label, final String propertyKey1, final Object propertyValue1,
                         final String propertyKey2, final Object propertyValue2, final String propertyKey3,
                         final Object propertyValue3) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
         n.setProperty(propertyKey3, propertyValue3);
@@ -64,7 +105,7 @@ public final class Graph extends BaseGraph {
     public Node addNode(final String label, final String propertyKey1, final Object propertyValue1,
                         final String propertyKey2, final Object propertyValue2, final String propertyKey3,
                         final Object propertyValue3, final String propertyKey4, final Object propertyValue4) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
         n.setProperty(propertyKey3, propertyValue3);
@@ -74,7 +115,7 @@ public final class Graph extends BaseGraph {
     }
 
     public Node addNode(final String label, final Map<String, Object> properties) {
-        final Node n = Node.newNode(label);
+        final Node n = Node.newNode(nextId(), label);
         for (final Map.Entry<String, Object> entry : properties.entrySet())
             n.setProperty(entry.getKey(), entry.getValue());
         update(n);
@@ -87,7 +128,7 @@ public final class Graph extends BaseGraph {
 
     public <T> Node addNodeFromModel(final T obj) {
         final ClassMapping mapping = getClassMappingFromCache(obj.getClass());
-        final Node n = Node.newNode(mapping.label);
+        final Node n = Node.newNode(nextId(), mapping.label);
         mapping.setNodeProperties(n, obj);
         update(n);
         return n;
@@ -101,7 +142,7 @@ public final class Graph extends BaseGraph {
 
     public <T> Node addNodeFromModel(final T obj, final String propertyKey, final Object propertyValue) {
         final ClassMapping mapping = getClassMappingFromCache(obj.getClass());
-        final Node n = Node.newNode(mapping.label);
+        final Node n = Node.newNode(nextId(), mapping.label);
         mapping.setNodeProperties(n, obj);
         n.setProperty(propertyKey, propertyValue);
         update(n);
@@ -111,7 +152,7 @@ public final class Graph extends BaseGraph {
     public <T> Node addNodeFromModel(final T obj, final String propertyKey1, final Object propertyValue1,
                                      final String propertyKey2, final Object propertyValue2) {
         final ClassMapping mapping = getClassMappingFromCache(obj.getClass());
-        final Node n = Node.newNode(mapping.label);
+        final Node n = Node.newNode(nextId(), mapping.label);
         mapping.setNodeProperties(n, obj);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
@@ -123,7 +164,7 @@ public final class Graph extends BaseGraph {
                                      final String propertyKey2, final Object propertyValue2, final String propertyKey3,
                                      final Object propertyValue3) {
         final ClassMapping mapping = getClassMappingFromCache(obj.getClass());
-        final Node n = Node.newNode(mapping.label);
+        final Node n = Node.newNode(nextId(), mapping.label);
         mapping.setNodeProperties(n, obj);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
@@ -137,7 +178,7 @@ public final class Graph extends BaseGraph {
                                      final Object propertyValue3, final String propertyKey4,
                                      final Object propertyValue4) {
         final ClassMapping mapping = getClassMappingFromCache(obj.getClass());
-        final Node n = Node.newNode(mapping.label);
+        final Node n = Node.newNode(nextId(), mapping.label);
         mapping.setNodeProperties(n, obj);
         n.setProperty(propertyKey1, propertyValue1);
         n.setProperty(propertyKey2, propertyValue2);
@@ -174,7 +215,7 @@ public final class Graph extends BaseGraph {
     }
 
     public Edge addEdge(final long fromId, final long toId, final String label) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         update(e);
         return e;
     }
@@ -200,7 +241,7 @@ public final class Graph extends BaseGraph {
 
     public Edge addEdge(final long fromId, final long toId, final String label, final String propertyKey,
                         final Object propertyValue) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         e.setProperty(propertyKey, propertyValue);
         update(e);
         return e;
@@ -227,7 +268,7 @@ public final class Graph extends BaseGraph {
 
     public Edge addEdge(final long fromId, final long toId, final String label, final String propertyKey1,
                         final Object propertyValue1, final String propertyKey2, final Object propertyValue2) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         e.setProperty(propertyKey1, propertyValue1);
         e.setProperty(propertyKey2, propertyValue2);
         update(e);
@@ -262,7 +303,7 @@ public final class Graph extends BaseGraph {
     public Edge addEdge(final long fromId, final long toId, final String label, final String propertyKey1,
                         final Object propertyValue1, final String propertyKey2, final Object propertyValue2,
                         final String propertyKey3, final Object propertyValue3) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         e.setProperty(propertyKey1, propertyValue1);
         e.setProperty(propertyKey2, propertyValue2);
         e.setProperty(propertyKey3, propertyValue3);
@@ -302,7 +343,7 @@ public final class Graph extends BaseGraph {
                         final Object propertyValue1, final String propertyKey2, final Object propertyValue2,
                         final String propertyKey3, final Object propertyValue3, final String propertyKey4,
                         final Object propertyValue4) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         e.setProperty(propertyKey1, propertyValue1);
         e.setProperty(propertyKey2, propertyValue2);
         e.setProperty(propertyKey3, propertyValue3);
@@ -328,7 +369,7 @@ public final class Graph extends BaseGraph {
     }
 
     public Edge addEdge(final long fromId, final long toId, final String label, final Map<String, Object> properties) {
-        final Edge e = Edge.newEdge(fromId, toId, label);
+        final Edge e = Edge.newEdge(nextId(), fromId, toId, label);
         for (final Map.Entry<String, Object> entry : properties.entrySet())
             e.setProperty(entry.getKey(), entry.getValue());
         update(e);
@@ -483,4 +524,12 @@ public final class Graph extends BaseGraph {
         final Path tempFilePath = Files.createTempFile("graphdb_test", ".db");
         return new Graph(tempFilePath.toString());
     }
+
+    /**
+     * Create a graph which is only held in memory, for small data sources and tests which don't need the graph to be
+     * persisted.
+     */
+    public static Graph createInMemoryGraph() {
+        return new Graph(new MemoryStorage());
+    }
 }
@@ -17,14 +17,18 @@ public final class Node extends MVStoreModel {
     }
 
     static Node newNode(final String label) {
+        return newNode(new MVStoreId().getIdValue(), label);
+    }
+
+    static Node newNode(final long id, final String label) {
         final Node node = new Node();
-        node.put(ID_FIELD, new MVStoreId().getIdValue());
+        node.put(ID_FIELD, id);
         node.put(LABEL_FIELD, label);
         return node;
     }
 
-    void resetId() {
-        put(ID_FIELD, new MVStoreId().getIdValue());
+    void resetId(final long id) {
+        put(ID_FIELD, id);
     }
 
     public String getLabel() {
@@ -0,0 +1,76 @@
+package de.unibi.agbi.biodwh2.core.model.graph;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the label of every node in a graph, built from the node ids only without loading the nodes themselves.
+ * Dense ids are stored in a flat array indexed by node id, other ids are kept in a sorted array searched binary. Nodes
+ * added to the graph after the lookup was created are unknown to the lookup.
+ */
+public final class NodeLabelLookup {
+    private final String[] labels;
+    private final short[] denseLabelIndices;
+    private long[] sparseIds;
+    private int[] sparseLabelIndices;
+    private int sparseCount;
+
+    NodeLabelLookup(final String[] labels, final long idUpperBound) {
+        this.labels = labels;
+        // Label indices are stored shifted by one so that zero marks unknown ids
+        final boolean dense = idUpperBound >= 0 && idUpperBound < Integer.MAX_VALUE &&
+                              labels.length < Short.MAX_VALUE;
+        denseLabelIndices = dense ? new short[(int) idUpperBound] : null;
+        sparseIds = new long[0];
+        sparseLabelIndices = new int[0];
+    }
+
+    void put(final long nodeId, final int labelIndex) {
+        if (isDenseId(nodeId))
+            denseLabelIndices[(int) nodeId] = (short) (labelIndex + 1);
+        else {
+            if (sparseCount == sparseIds.length) {
+                final int capacity = Math.max(16, sparseCount * 2);
+                sparseIds = Arrays.copyOf(sparseIds, capacity);
+                sparseLabelIndices = Arrays.copyOf(sparseLabelIndices, capacity);
+            }
+            sparseIds[sparseCount] = nodeId;
+            sparseLabelIndices[sparseCount] = labelIndex;
+            sparseCount++;
+        }
+    }
+
+    /**
+     * Sort the sparse ids after all nodes were put, so they can be searched binary.
+     */
+    void sortSparseIds() {
+        final long[] ids = Arrays.copyOf(sparseIds, sparseCount);
+        final long[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        final int[] sortedLabelIndices = new int[sparseCount];
+        for (int i = 0; i < sparseCount; i++)
+            sortedLabelIndices[Arrays.binarySearch(sortedIds, ids[i])] = sparseLabelIndices[i];
+        sparseIds = sortedIds;
+        sparseLabelIndices = sortedLabelIndices;
+    }
+
+    private boolean isDenseId(final long nodeId) {
+        return denseLabelIndices != null && nodeId >= 0 && nodeId < denseLabelIndices.length;
+    }
+
+    /**
+     * @param nodeId ID of the node
+     * @return Label of the node or null if the node is unknown
+     */
+    public String getLabel(final long nodeId) {
+        if (isDenseId(nodeId)) {
+            final short labelIndex = denseLabelIndices[(int) nodeId];
+            return labelIndex > 0 ? labels[labelIndex - 1] : null;
+        }
+        final int index = Arrays.binarySearch(sparseIds, 0, sparseCount, nodeId);
+        return index >= 0 ? labels[sparseLabelIndices[index]] : null;
+    }
+
+    public boolean contains(final long nodeId) {
+        return getLabel(nodeId) != null;
+    }
+}
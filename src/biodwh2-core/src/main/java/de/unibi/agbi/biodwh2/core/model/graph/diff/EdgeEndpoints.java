@@ -0,0 +1,44 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+/**
+ * Start and end node of an edge in the id space of the new graph. Edges of the old graph without matching start or end
+ * node are unmatched and sort before all matched edges.
+ */
+final class EdgeEndpoints implements Comparable<EdgeEndpoints> {
+    final boolean matched;
+    final long fromId;
+    final long toId;
+    final long edgeId;
+
+    EdgeEndpoints(final boolean matched, final long fromId, final long toId, final long edgeId) {
+        this.matched = matched;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.edgeId = edgeId;
+    }
+
+    EdgeEndpoints(final long fromId, final long toId, final long edgeId) {
+        this(true, fromId, toId, edgeId);
+    }
+
+    static EdgeEndpoints unmatched(final long edgeId) {
+        return new EdgeEndpoints(false, 0, 0, edgeId);
+    }
+
+    boolean hasSameEndpoints(final EdgeEndpoints other) {
+        return matched && other.matched && fromId == other.fromId && toId == other.toId;
+    }
+
+    int compareEndpoints(final EdgeEndpoints other) {
+        final int result = Long.compare(fromId, other.fromId);
+        return result != 0 ? result : Long.compare(toId, other.toId);
+    }
+
+    @Override
+    public int compareTo(final EdgeEndpoints other) {
+        if (matched != other.matched)
+            return matched ? 1 : -1;
+        final int result = compareEndpoints(other);
+        return result != 0 ? result : Long.compare(edgeId, other.edgeId);
+    }
+}
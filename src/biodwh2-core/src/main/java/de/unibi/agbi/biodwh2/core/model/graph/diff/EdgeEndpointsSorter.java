@@ -0,0 +1,139 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * External sort of edge endpoints in bounded memory. Endpoints are collected in chunks, which are sorted and spilled to
+ * temporary files once full. The sorted runs are read back in a k-way merge.
+ */
+final class EdgeEndpointsSorter implements AutoCloseable {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 19;
+
+    private final int chunkSize;
+    private final List<EdgeEndpoints> chunk;
+    private final List<Path> runFilePaths;
+    private final List<Integer> runSizes;
+    private final List<DataInputStream> openInputs;
+
+    EdgeEndpointsSorter(final int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+        chunk = new ArrayList<>();
+        runFilePaths = new ArrayList<>();
+        runSizes = new ArrayList<>();
+        openInputs = new ArrayList<>();
+    }
+
+    void add(final EdgeEndpoints endpoints) throws IOException {
+        chunk.add(endpoints);
+        if (chunk.size() >= chunkSize)
+            spillChunk();
+    }
+
+    private void spillChunk() throws IOException {
+        Collections.sort(chunk);
+        final Path filePath = Files.createTempFile("graph_diff_edges", ".tmp");
+        runFilePaths.add(filePath);
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(filePath)))) {
+            for (final EdgeEndpoints endpoints : chunk) {
+                output.writeBoolean(endpoints.matched);
+                output.writeLong(endpoints.fromId);
+                output.writeLong(endpoints.toId);
+                output.writeLong(endpoints.edgeId);
+            }
+        }
+        runSizes.add(chunk.size());
+        chunk.clear();
+    }
+
+    /**
+     * @return Iterator over all added endpoints in ascending order, which fails with an {@link UncheckedIOException} if
+     * a spilled run can't be read
+     */
+    Iterator<EdgeEndpoints> sortedIterator() throws IOException {
+        Collections.sort(chunk);
+        if (runFilePaths.isEmpty())
+            return chunk.iterator();
+        final List<Iterator<EdgeEndpoints>> runs = new ArrayList<>();
+        for (int i = 0; i < runFilePaths.size(); i++)
+            runs.add(readRun(runFilePaths.get(i), runSizes.get(i)));
+        runs.add(chunk.iterator());
+        return new MergingIterator(runs);
+    }
+
+    private Iterator<EdgeEndpoints> readRun(final Path filePath, final int size) throws IOException {
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath)));
+        openInputs.add(input);
+        return new Iterator<EdgeEndpoints>() {
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public EdgeEndpoints next() {
+                if (remaining == 0)
+                    throw new NoSuchElementException();
+                remaining--;
+                try {
+                    return new EdgeEndpoints(input.readBoolean(), input.readLong(), input.readLong(),
+                                             input.readLong());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        for (final DataInputStream input : openInputs) {
+            try {
+                input.close();
+            } catch (IOException ignored) {
+            }
+        }
+        openInputs.clear();
+        for (final Path filePath : runFilePaths)
+            FileUtils.safeDelete(filePath);
+        runFilePaths.clear();
+        runSizes.clear();
+        chunk.clear();
+    }
+
+    private static final class MergingIterator implements Iterator<EdgeEndpoints> {
+        private final PriorityQueue<Map.Entry<EdgeEndpoints, Iterator<EdgeEndpoints>>> heads;
+
+        MergingIterator(final List<Iterator<EdgeEndpoints>> runs) {
+            heads = new PriorityQueue<>(Math.max(1, runs.size()), Map.Entry.comparingByKey());
+            for (final Iterator<EdgeEndpoints> run : runs)
+                advance(run);
+        }
+
+        private void advance(final Iterator<EdgeEndpoints> run) {
+            if (run.hasNext())
+                heads.add(new AbstractMap.SimpleImmutableEntry<>(run.next(), run));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public EdgeEndpoints next() {
+            final Map.Entry<EdgeEndpoints, Iterator<EdgeEndpoints>> head = heads.poll();
+            if (head == null)
+                throw new NoSuchElementException();
+            advance(head.getValue());
+            return head.getKey();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+
+/**
+ * A single added, removed or changed node or edge found by {@link GraphDiff}.
+ */
+public final class GraphChange {
+    public enum Type {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    private final Type type;
+    private final IndexDescription.Target target;
+    private final String label;
+    private final Object key;
+    private final Long oldId;
+    private final Long newId;
+
+    GraphChange(final Type type, final IndexDescription.Target target, final String label, final Object key,
+                final Long oldId, final Long newId) {
+        this.type = type;
+        this.target = target;
+        this.label = label;
+        this.key = key;
+        this.oldId = oldId;
+        this.newId = newId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public IndexDescription.Target getTarget() {
+        return target;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return Natural key value of a node, or null if the node was matched by id or the change is an edge
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return Id in the old graph or null if the node or edge was added
+     */
+    public Long getOldId() {
+        return oldId;
+    }
+
+    /**
+     * @return Id in the new graph or null if the node or edge was removed
+     */
+    public Long getNewId() {
+        return newId;
+    }
+
+    @Override
+    public String toString() {
+        return type + "\t" + target + "\t" + label + "\t" + (key != null ? key : "") + "\t" +
+               (oldId != null ? oldId : "") + "\t" + (newId != null ? newId : "");
+    }
+}
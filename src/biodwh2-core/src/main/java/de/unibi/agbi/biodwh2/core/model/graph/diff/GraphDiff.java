@@ -0,0 +1,407 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+import de.unibi.agbi.biodwh2.core.collections.LongObjectHashMap;
+import de.unibi.agbi.biodwh2.core.io.mvstore.MVStoreModel;
+import de.unibi.agbi.biodwh2.core.model.graph.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Record-level comparison of two versions of a graph, such as the previous and the new intermediate graph of a data
+ * source. Nodes are matched by a natural key per label, which is either configured or taken from the unique index the
+ * exporter declared for the label. Ids aren't stable across exports, so labels without a natural key present in both
+ * graphs are reported as not diffable instead. Edges are matched in a sorted merge by their matched start and end
+ * nodes, where parallel edges between the same nodes are matched by multiplicity.
+ * <p>
+ * Node lookups go through the graph indices. The ids of matched nodes are kept in memory while comparing, so edges
+ * don't need lookups of their start and end nodes. Edges are sorted externally in bounded chunks spilled to temporary
+ * files, so their number doesn't limit the comparison.
+ */
+public final class GraphDiff {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GraphDiff.class);
+    private static final String CHANGE_LOG_HEADER = "type\ttarget\tlabel\tkey\told_id\tnew_id";
+
+    @FunctionalInterface
+    public interface ChangeListener {
+        void onChange(final GraphChange change);
+    }
+
+    private final Graph oldGraph;
+    private final Graph newGraph;
+    private final Map<String, String> configuredNodeKeys;
+    private final Map<String, String> nodeKeys;
+    private final Set<String> oldNodeLabels;
+    private final Set<String> newNodeLabels;
+    private final Set<String> oldEdgeLabels;
+    private final Set<String> newEdgeLabels;
+    /**
+     * Matching new node id per compared old node id, or null if the old node has no match
+     */
+    private final LongObjectHashMap<Long> oldNodeMatches;
+    private Set<Long> comparedNewNodeIds;
+    private int edgeChunkSize;
+
+    public GraphDiff(final Graph oldGraph, final Graph newGraph) {
+        this.oldGraph = oldGraph;
+        this.newGraph = newGraph;
+        configuredNodeKeys = new HashMap<>();
+        nodeKeys = new HashMap<>();
+        oldNodeLabels = new HashSet<>();
+        newNodeLabels = new HashSet<>();
+        oldEdgeLabels = new HashSet<>();
+        newEdgeLabels = new HashSet<>();
+        oldNodeMatches = new LongObjectHashMap<>();
+        edgeChunkSize = EdgeEndpointsSorter.DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Use the property as natural key of nodes with the label instead of the declared unique index. The property has to
+     * be indexed in both graphs.
+     */
+    public GraphDiff setNodeKey(final String label, final String propertyKey) {
+        configuredNodeKeys.put(label, propertyKey);
+        return this;
+    }
+
+    /**
+     * @param edgeChunkSize Number of edges sorted in memory before they are spilled to a temporary file
+     */
+    GraphDiff setEdgeChunkSize(final int edgeChunkSize) {
+        this.edgeChunkSize = edgeChunkSize;
+        return this;
+    }
+
+    public GraphDiffResult compare() {
+        return compare(change -> {
+        });
+    }
+
+    /**
+     * Compare the graphs and write every change as a tab separated line to the change log file.
+     */
+    public GraphDiffResult compare(final Path changeLogFilePath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(changeLogFilePath, StandardCharsets.UTF_8)) {
+            writer.write(CHANGE_LOG_HEADER);
+            writer.newLine();
+            return compare(change -> {
+                try {
+                    writer.write(change.toString());
+                    writer.newLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compare the graphs and pass every change to the listener as soon as it is found.
+     */
+    public GraphDiffResult compare(final ChangeListener listener) {
+        final GraphDiffResult result = new GraphDiffResult();
+        final ChangeListener collector = change -> {
+            result.count(change);
+            listener.onChange(change);
+        };
+        loadLabels();
+        resolveNodeKeys();
+        oldNodeMatches.clear();
+        comparedNewNodeIds = newGraph.newIdSet();
+        for (final String label : new TreeSet<>(union(oldNodeLabels, newNodeLabels))) {
+            if (nodeKeys.containsKey(label) || !oldNodeLabels.contains(label) || !newNodeLabels.contains(label))
+                compareNodesByKey(label, nodeKeys.get(label), collector);
+            else {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Label '" + label + "' has no natural key, its nodes can't be compared");
+                result.addNotDiffableNodeLabel(label);
+            }
+        }
+        for (final String label : new TreeSet<>(union(oldEdgeLabels, newEdgeLabels)))
+            compareEdges(label, result, collector);
+        return result;
+    }
+
+    private void loadLabels() {
+        oldNodeLabels.clear();
+        oldNodeLabels.addAll(Arrays.asList(oldGraph.getNodeLabels()));
+        newNodeLabels.clear();
+        newNodeLabels.addAll(Arrays.asList(newGraph.getNodeLabels()));
+        oldEdgeLabels.clear();
+        oldEdgeLabels.addAll(Arrays.asList(oldGraph.getEdgeLabels()));
+        newEdgeLabels.clear();
+        newEdgeLabels.addAll(Arrays.asList(newGraph.getEdgeLabels()));
+    }
+
+    private static Set<String> union(final Set<String> first, final Set<String> second) {
+        final Set<String> result = new HashSet<>(first);
+        result.addAll(second);
+        return result;
+    }
+
+    private void resolveNodeKeys() {
+        nodeKeys.clear();
+        final IndexDescription[] oldIndexDescriptions = oldGraph.indexDescriptions();
+        final IndexDescription[] newIndexDescriptions = newGraph.indexDescriptions();
+        for (final String label : union(oldNodeLabels, newNodeLabels)) {
+            String key = configuredNodeKeys.get(label);
+            if (key == null)
+                key = findDeclaredNodeKey(label, newIndexDescriptions, oldIndexDescriptions);
+            if (key == null)
+                continue;
+            if (isIndexed(oldNodeLabels, oldIndexDescriptions, label, key) &&
+                isIndexed(newNodeLabels, newIndexDescriptions, label, key))
+                nodeKeys.put(label, key);
+            else if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Natural key '" + key + "' of label '" + label + "' is not indexed in both graphs");
+        }
+    }
+
+    private static String findDeclaredNodeKey(final String label, final IndexDescription[]... indexDescriptions) {
+        for (final IndexDescription[] descriptions : indexDescriptions) {
+            final Optional<String> key = Arrays.stream(descriptions).filter(
+                    d -> d.getTarget() == IndexDescription.Target.NODE && d.getType() == IndexDescription.Type.UNIQUE &&
+                         !d.isArrayProperty() && label.equals(d.getLabel())).map(IndexDescription::getProperty)
+                                               .sorted().findFirst();
+            if (key.isPresent())
+                return key.get();
+        }
+        return null;
+    }
+
+    private static boolean isIndexed(final Set<String> labels, final IndexDescription[] indexDescriptions,
+                                     final String label, final String key) {
+        // A graph without the label needs no lookups
+        if (!labels.contains(label))
+            return true;
+        for (final IndexDescription description : indexDescriptions)
+            if (description.getTarget() == IndexDescription.Target.NODE && !description.isArrayProperty() &&
+                label.equals(description.getLabel()) && key.equals(description.getProperty()))
+                return true;
+        return false;
+    }
+
+    private void compareNodesByKey(final String label, final String key, final ChangeListener listener) {
+        if (oldNodeLabels.contains(label)) {
+            for (final Node node : oldGraph.findNodes(label)) {
+                final Object value = key != null ? node.get(key) : null;
+                final Node match = findMatchingNode(newGraph, newNodeLabels, label, key, value);
+                oldNodeMatches.put(node.getId(), match != null ? match.getId() : null);
+                if (match == null)
+                    listener.onChange(createNodeChange(GraphChange.Type.REMOVED, label, value, node.getId(), null));
+                else if (!haveEqualProperties(node, match, Node.IGNORED_FIELDS))
+                    listener.onChange(
+                            createNodeChange(GraphChange.Type.CHANGED, label, value, node.getId(), match.getId()));
+            }
+        }
+        if (newNodeLabels.contains(label)) {
+            for (final Node node : newGraph.findNodes(label)) {
+                comparedNewNodeIds.add(node.getId());
+                final Object value = key != null ? node.get(key) : null;
+                if (findMatchingNode(oldGraph, oldNodeLabels, label, key, value) == null)
+                    listener.onChange(createNodeChange(GraphChange.Type.ADDED, label, value, null, node.getId()));
+            }
+        }
+    }
+
+    private static Node findMatchingNode(final Graph graph, final Set<String> labels, final String label,
+                                         final String key, final Object value) {
+        if (!labels.contains(label) || key == null || !(value instanceof Comparable))
+            return null;
+        final Iterator<Node> matches = graph.findNodes(label, key, (Comparable<?>) value).iterator();
+        return matches.hasNext() ? matches.next() : null;
+    }
+
+    private static GraphChange createNodeChange(final GraphChange.Type type, final String label, final Object key,
+                                                final Long oldId, final Long newId) {
+        return new GraphChange(type, IndexDescription.Target.NODE, label, key, oldId, newId);
+    }
+
+    private void compareEdges(final String label, final GraphDiffResult result, final ChangeListener listener) {
+        try (EdgeEndpointsSorter oldEdges = new EdgeEndpointsSorter(edgeChunkSize);
+             EdgeEndpointsSorter newEdges = new EdgeEndpointsSorter(edgeChunkSize)) {
+            if (oldEdgeLabels.contains(label)) {
+                for (final Edge edge : oldGraph.findEdges(label)) {
+                    final Long fromId = findMatchingNodeId(edge.getFromId(), label, result);
+                    final Long toId = fromId != null ? findMatchingNodeId(edge.getToId(), label, result) : null;
+                    if (result.getNotDiffableEdgeLabels().contains(label))
+                        return;
+                    if (toId == null)
+                        oldEdges.add(EdgeEndpoints.unmatched(edge.getId()));
+                    else
+                        oldEdges.add(new EdgeEndpoints(fromId, toId, edge.getId()));
+                }
+            }
+            if (newEdgeLabels.contains(label)) {
+                for (final Edge edge : newGraph.findEdges(label)) {
+                    if (!isDiffableNewNode(edge.getFromId()) || !isDiffableNewNode(edge.getToId())) {
+                        markEdgeLabelNotDiffable(label, result);
+                        return;
+                    }
+                    newEdges.add(new EdgeEndpoints(edge.getFromId(), edge.getToId(), edge.getId()));
+                }
+            }
+            mergeSortedEdges(label, oldEdges.sortedIterator(), newEdges.sortedIterator(), listener);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return Id of the matching node in the new graph or null if there is none
+     */
+    private Long findMatchingNodeId(final long oldNodeId, final String edgeLabel, final GraphDiffResult result) {
+        if (oldNodeMatches.containsKey(oldNodeId))
+            return oldNodeMatches.get(oldNodeId);
+        // Only nodes which weren't compared are looked up, which are missing or have a label without natural key
+        final Node node = oldGraph.getNode(oldNodeId);
+        if (node == null)
+            return null;
+        if (result.getNotDiffableNodeLabels().contains(node.getLabel())) {
+            markEdgeLabelNotDiffable(edgeLabel, result);
+            return null;
+        }
+        final String key = nodeKeys.get(node.getLabel());
+        final Node match = findMatchingNode(newGraph, newNodeLabels, node.getLabel(), key,
+                                            key != null ? node.get(key) : null);
+        return match != null ? match.getId() : null;
+    }
+
+    private boolean isDiffableNewNode(final long nodeId) {
+        if (comparedNewNodeIds.contains(nodeId))
+            return true;
+        final Node node = newGraph.getNode(nodeId);
+        return node == null || nodeKeys.containsKey(node.getLabel()) || !oldNodeLabels.contains(node.getLabel());
+    }
+
+    private static void markEdgeLabelNotDiffable(final String label, final GraphDiffResult result) {
+        if (LOGGER.isWarnEnabled())
+            LOGGER.warn("Edges with label '" + label + "' connect nodes without natural key and can't be compared");
+        result.addNotDiffableEdgeLabel(label);
+    }
+
+    private void mergeSortedEdges(final String label, final Iterator<EdgeEndpoints> oldEdges,
+                                  final Iterator<EdgeEndpoints> newEdges, final ChangeListener listener) {
+        final EdgeGroupReader oldGroups = new EdgeGroupReader(oldEdges);
+        final EdgeGroupReader newGroups = new EdgeGroupReader(newEdges);
+        List<EdgeEndpoints> oldGroup = oldGroups.next();
+        List<EdgeEndpoints> newGroup = newGroups.next();
+        while (!oldGroup.isEmpty() || !newGroup.isEmpty()) {
+            final int order;
+            if (oldGroup.isEmpty())
+                order = 1;
+            else if (newGroup.isEmpty() || !oldGroup.get(0).matched)
+                order = -1;
+            else
+                order = oldGroup.get(0).compareEndpoints(newGroup.get(0));
+            if (order < 0) {
+                for (final EdgeEndpoints endpoints : oldGroup)
+                    listener.onChange(createEdgeChange(GraphChange.Type.REMOVED, label, endpoints.edgeId, null));
+                oldGroup = oldGroups.next();
+            } else if (order > 0) {
+                for (final EdgeEndpoints endpoints : newGroup)
+                    listener.onChange(createEdgeChange(GraphChange.Type.ADDED, label, null, endpoints.edgeId));
+                newGroup = newGroups.next();
+            } else {
+                matchParallelEdges(label, oldGroup, newGroup, listener);
+                oldGroup = oldGroups.next();
+                newGroup = newGroups.next();
+            }
+        }
+    }
+
+    /**
+     * Reads sorted edge endpoints in groups of parallel edges between the same nodes.
+     */
+    private static final class EdgeGroupReader {
+        private final Iterator<EdgeEndpoints> edges;
+        private EdgeEndpoints pending;
+
+        EdgeGroupReader(final Iterator<EdgeEndpoints> edges) {
+            this.edges = edges;
+            pending = edges.hasNext() ? edges.next() : null;
+        }
+
+        /**
+         * @return The next group or an empty list if all edges were read
+         */
+        List<EdgeEndpoints> next() {
+            final List<EdgeEndpoints> group = new ArrayList<>();
+            if (pending == null)
+                return group;
+            group.add(pending);
+            pending = null;
+            while (edges.hasNext()) {
+                final EdgeEndpoints next = edges.next();
+                if (!next.hasSameEndpoints(group.get(0))) {
+                    pending = next;
+                    break;
+                }
+                group.add(next);
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Match the parallel edges between the same nodes by multiplicity. Edges with equal properties are paired first,
+     * the remaining edges are paired as changed and any surplus is removed or added.
+     */
+    private void matchParallelEdges(final String label, final List<EdgeEndpoints> oldGroup,
+                                    final List<EdgeEndpoints> newGroup, final ChangeListener listener) {
+        final Edge[] newEdges = new Edge[newGroup.size()];
+        for (int i = 0; i < newEdges.length; i++)
+            newEdges[i] = newGraph.getEdge(newGroup.get(i).edgeId);
+        final boolean[] matched = new boolean[newEdges.length];
+        final List<Edge> unmatchedOldEdges = new ArrayList<>();
+        for (final EdgeEndpoints endpoints : oldGroup) {
+            final Edge edge = oldGraph.getEdge(endpoints.edgeId);
+            boolean found = false;
+            for (int i = 0; i < newEdges.length && !found; i++)
+                if (!matched[i] && haveEqualProperties(edge, newEdges[i], Edge.IGNORED_FIELDS)) {
+                    matched[i] = true;
+                    found = true;
+                }
+            if (!found)
+                unmatchedOldEdges.add(edge);
+        }
+        int next = 0;
+        for (final Edge edge : unmatchedOldEdges) {
+            while (next < newEdges.length && matched[next])
+                next++;
+            if (next < newEdges.length) {
+                matched[next] = true;
+                listener.onChange(
+                        createEdgeChange(GraphChange.Type.CHANGED, label, edge.getId(), newEdges[next].getId()));
+            } else
+                listener.onChange(createEdgeChange(GraphChange.Type.REMOVED, label, edge.getId(), null));
+        }
+        for (int i = 0; i < newEdges.length; i++)
+            if (!matched[i])
+                listener.onChange(createEdgeChange(GraphChange.Type.ADDED, label, null, newEdges[i].getId()));
+    }
+
+    private static GraphChange createEdgeChange(final GraphChange.Type type, final String label, final Long oldId,
+                                                final Long newId) {
+        return new GraphChange(type, IndexDescription.Target.EDGE, label, null, oldId, newId);
+    }
+
+    private static boolean haveEqualProperties(final MVStoreModel first, final MVStoreModel second,
+                                               final Set<String> ignoredKeys) {
+        final Set<String> keys = new HashSet<>(first.keySet());
+        keys.addAll(second.keySet());
+        for (final String key : keys)
+            if (!ignoredKeys.contains(key) && !Objects.deepEquals(first.get(key), second.get(key)))
+                return false;
+        return true;
+    }
+}
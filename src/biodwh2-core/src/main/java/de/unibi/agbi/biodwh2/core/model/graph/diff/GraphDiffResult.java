@@ -0,0 +1,123 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public final class GraphDiffResult {
+    public static final class LabelStatistics {
+        private long added;
+        private long removed;
+        private long changed;
+
+        public long getAdded() {
+            return added;
+        }
+
+        public long getRemoved() {
+            return removed;
+        }
+
+        public long getChanged() {
+            return changed;
+        }
+
+        public boolean hasChanges() {
+            return added > 0 || removed > 0 || changed > 0;
+        }
+
+        void count(final GraphChange.Type type) {
+            if (type == GraphChange.Type.ADDED)
+                added++;
+            else if (type == GraphChange.Type.REMOVED)
+                removed++;
+            else
+                changed++;
+        }
+    }
+
+    private final Map<String, LabelStatistics> nodeStatistics = new TreeMap<>();
+    private final Map<String, LabelStatistics> edgeStatistics = new TreeMap<>();
+    private final Set<String> notDiffableNodeLabels = new TreeSet<>();
+    private final Set<String> notDiffableEdgeLabels = new TreeSet<>();
+
+    void count(final GraphChange change) {
+        final Map<String, LabelStatistics> statistics = change.getTarget() == IndexDescription.Target.NODE ?
+                                                        nodeStatistics : edgeStatistics;
+        statistics.computeIfAbsent(change.getLabel(), k -> new LabelStatistics()).count(change.getType());
+    }
+
+    /**
+     * @return Statistics of all node labels with at least one change
+     */
+    public Map<String, LabelStatistics> getNodeStatistics() {
+        return nodeStatistics;
+    }
+
+    /**
+     * @return Statistics of all edge labels with at least one change
+     */
+    public Map<String, LabelStatistics> getEdgeStatistics() {
+        return edgeStatistics;
+    }
+
+    public long getAddedNodeCount() {
+        return nodeStatistics.values().stream().mapToLong(LabelStatistics::getAdded).sum();
+    }
+
+    public long getRemovedNodeCount() {
+        return nodeStatistics.values().stream().mapToLong(LabelStatistics::getRemoved).sum();
+    }
+
+    public long getChangedNodeCount() {
+        return nodeStatistics.values().stream().mapToLong(LabelStatistics::getChanged).sum();
+    }
+
+    public long getAddedEdgeCount() {
+        return edgeStatistics.values().stream().mapToLong(LabelStatistics::getAdded).sum();
+    }
+
+    public long getRemovedEdgeCount() {
+        return edgeStatistics.values().stream().mapToLong(LabelStatistics::getRemoved).sum();
+    }
+
+    public long getChangedEdgeCount() {
+        return edgeStatistics.values().stream().mapToLong(LabelStatistics::getChanged).sum();
+    }
+
+    public boolean hasChanges() {
+        return !nodeStatistics.isEmpty() || !edgeStatistics.isEmpty();
+    }
+
+    void addNotDiffableNodeLabel(final String label) {
+        notDiffableNodeLabels.add(label);
+    }
+
+    void addNotDiffableEdgeLabel(final String label) {
+        notDiffableEdgeLabels.add(label);
+    }
+
+    /**
+     * @return Node labels present in both graphs without a natural key, whose changes are unknown
+     */
+    public Set<String> getNotDiffableNodeLabels() {
+        return notDiffableNodeLabels;
+    }
+
+    /**
+     * @return Edge labels connecting nodes of not diffable labels, whose changes are unknown
+     */
+    public Set<String> getNotDiffableEdgeLabels() {
+        return notDiffableEdgeLabels;
+    }
+
+    /**
+     * @return Whether all labels could be compared, so the absence of changes means the graphs hold the same records
+     */
+    public boolean isComplete() {
+        return notDiffableNodeLabels.isEmpty() && notDiffableEdgeLabels.isEmpty();
+    }
+}
@@ -2,7 +2,7 @@ package de.unibi.agbi.biodwh2.core.model.graph.meta;
 
 import de.unibi.agbi.biodwh2.core.model.graph.Edge;
 import de.unibi.agbi.biodwh2.core.model.graph.Graph;
-import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import de.unibi.agbi.biodwh2.core.model.graph.NodeLabelLookup;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,13 +28,12 @@ public final class MetaGraph {
     }
 
     private void addMetaEdges(final Graph graph) {
+        final NodeLabelLookup nodeLabels = graph.createNodeLabelLookup();
         for (final Edge edge : graph.getEdges()) {
-            final Node fromNode = graph.getNode(edge.getFromId());
-            final Node toNode = graph.getNode(edge.getToId());
-            if (fromNode == null || toNode == null)
+            final String fromLabel = nodeLabels.getLabel(edge.getFromId());
+            final String toLabel = nodeLabels.getLabel(edge.getToId());
+            if (fromLabel == null || toLabel == null)
                 continue;
-            final String fromLabel = fromNode.getLabel();
-            final String toLabel = toNode.getLabel();
             final String key = edge.getLabel() + "|" + fromLabel + "|" + toLabel;
             if (!edges.containsKey(key))
                 edges.put(key, new MetaEdge(fromLabel, toLabel, edge.getLabel()));
@@ -1,5 +1,6 @@
 package de.unibi.agbi.biodwh2.core.net;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.unibi.agbi.biodwh2.core.io.ResourceUtils;
@@ -11,26 +12,105 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public final class BioDWH2Updater {
     private static final Logger LOGGER = LoggerFactory.getLogger(BioDWH2Updater.class);
+    /**
+     * System property overriding the releases URL, for example to point at a mirror or a local stub server.
+     */
+    public static final String RELEASES_URL_PROPERTY = "biodwh2.updateUrl";
+    private static final long CACHE_TIME_TO_LIVE_MILLIS = TimeUnit.HOURS.toMillis(24);
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 10000;
 
     private BioDWH2Updater() {
     }
 
-    public static void checkForUpdate(final String toolRepositoryName, final String githubReleasesUrl) {
-        final Version currentVersion = ResourceUtils.getManifestBioDWH2Version();
-        Version latestVersion = null;
-        String latestDownloadUrl = null;
-        GithubRelease latestRelease = null;
+    /**
+     * Check for a newer release in the background and log it if there is one. The result of the last check is cached
+     * in the home directory of the user for a day, also if the check failed, so hosts without internet access don't
+     * wait for the connection to time out on every start.
+     *
+     * @return Future of the newest available version or null if the current version is the newest or unknown
+     */
+    public static CompletableFuture<Version> checkForUpdate(final String toolRepositoryName,
+                                                            final String githubReleasesUrl) {
+        final String releasesUrl = System.getProperty(RELEASES_URL_PROPERTY, githubReleasesUrl);
+        final Path cacheFilePath = Paths.get(System.getProperty("user.home"), ".biodwh2", "update-check.json");
+        return checkForUpdate(toolRepositoryName, releasesUrl, cacheFilePath, CACHE_TIME_TO_LIVE_MILLIS);
+    }
+
+    static CompletableFuture<Version> checkForUpdate(final String toolRepositoryName, final String releasesUrl,
+                                                     final Path cacheFilePath, final long cacheTimeToLiveMillis) {
+        final CompletableFuture<Version> result = new CompletableFuture<>();
+        final Thread thread = new Thread(() -> {
+            try {
+                final LatestRelease release = getLatestRelease(toolRepositoryName, releasesUrl, cacheFilePath,
+                                                               cacheTimeToLiveMillis);
+                result.complete(logIfNewer(toolRepositoryName, release));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, "update-check");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    private static LatestRelease getLatestRelease(final String toolRepositoryName, final String releasesUrl,
+                                                  final Path cacheFilePath, final long cacheTimeToLiveMillis) {
         final ObjectMapper mapper = new ObjectMapper();
+        final LatestRelease cached = tryLoadCachedRelease(mapper, cacheFilePath);
+        if (cached != null && toolRepositoryName.equals(cached.toolRepositoryName) && releasesUrl.equals(
+                cached.releasesUrl) && System.currentTimeMillis() - cached.checkTime < cacheTimeToLiveMillis)
+            return cached;
+        final LatestRelease release = requestLatestRelease(mapper, toolRepositoryName, releasesUrl);
+        try {
+            Files.createDirectories(cacheFilePath.getParent());
+            mapper.writeValue(cacheFilePath.toFile(), release);
+        } catch (IOException e) {
+            if (LOGGER.isDebugEnabled())
+                LOGGER.debug("Failed to cache the update check", e);
+        }
+        return release;
+    }
+
+    private static LatestRelease tryLoadCachedRelease(final ObjectMapper mapper, final Path cacheFilePath) {
+        if (!Files.exists(cacheFilePath))
+            return null;
         try {
-            final URL releaseUrl = new URL(githubReleasesUrl);
-            final List<GithubRelease> releases = mapper.readValue(releaseUrl, new TypeReference<List<GithubRelease>>() {
-            });
+            return mapper.readValue(cacheFilePath.toFile(), LatestRelease.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static LatestRelease requestLatestRelease(final ObjectMapper mapper, final String toolRepositoryName,
+                                                      final String releasesUrl) {
+        final LatestRelease result = new LatestRelease();
+        result.toolRepositoryName = toolRepositoryName;
+        result.releasesUrl = releasesUrl;
+        result.checkTime = System.currentTimeMillis();
+        Version latestVersion = null;
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) new URL(releasesUrl).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            final List<GithubRelease> releases;
+            try (InputStream stream = connection.getInputStream()) {
+                releases = mapper.readValue(stream, new TypeReference<List<GithubRelease>>() {
+                });
+            }
             for (final GithubRelease release : releases) {
                 final Version version = Version.tryParse(release.tagName.replace("v", ""));
                 if (version != null) {
@@ -39,21 +119,45 @@ public final class BioDWH2Updater {
                             asset -> asset.name.equalsIgnoreCase(jarName)).findFirst();
                     if (jarAsset.isPresent() && (latestVersion == null || version.compareTo(latestVersion) > 0)) {
                         latestVersion = version;
-                        latestRelease = release;
-                        latestDownloadUrl = jarAsset.get().browserDownloadUrl;
+                        result.version = version.toString();
+                        result.downloadUrl = jarAsset.get().browserDownloadUrl;
+                        result.description = release.body;
                     }
                 }
             }
         } catch (IOException | ClassCastException ignored) {
         }
+        return result;
+    }
+
+    private static Version logIfNewer(final String toolRepositoryName, final LatestRelease release) {
+        final Version currentVersion = ResourceUtils.getManifestBioDWH2Version();
+        final Version latestVersion = release.version == null ? null : Version.tryParse(release.version);
         if (currentVersion == null && latestVersion != null || currentVersion != null && currentVersion.compareTo(
                 latestVersion) < 0) {
             LOGGER.info("=======================================");
             LOGGER.info("New version " + latestVersion + " of " + toolRepositoryName + " is available at:");
-            LOGGER.info(latestDownloadUrl);
-            if (latestRelease != null && StringUtils.isNotEmpty(latestRelease.body))
-                LOGGER.info("Description: " + latestRelease.body);
+            LOGGER.info(release.downloadUrl);
+            if (StringUtils.isNotEmpty(release.description))
+                LOGGER.info("Description: " + release.description);
             LOGGER.info("=======================================");
+            return latestVersion;
         }
+        return null;
+    }
+
+    static final class LatestRelease {
+        @JsonProperty("toolRepositoryName")
+        public String toolRepositoryName;
+        @JsonProperty("releasesUrl")
+        public String releasesUrl;
+        @JsonProperty("checkTime")
+        public long checkTime;
+        @JsonProperty("version")
+        public String version;
+        @JsonProperty("downloadUrl")
+        public String downloadUrl;
+        @JsonProperty("description")
+        public String description;
     }
 }
@@ -0,0 +1,527 @@
+package de.unibi.agbi.biodwh2.core.net;
+
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Downloads files over HTTP(S) into a ".part" file next to the target, which only replaces the target once the
+ * download completed and was verified. Interrupted downloads are resumed using HTTP range requests if the server
+ * supports them, both on retries and when a previous run left a ".part" file behind. The ETag or Last-Modified
+ * validator of the remote file is stored next to the ".part" file and sent as "If-Range" condition, so a part file of
+ * a remote file changed in between is downloaded again from the start. Large files can be downloaded in multiple
+ * parallel segments.
+ */
+public final class DownloadManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownloadManager.class);
+    public static final String PART_FILE_EXTENSION = ".part";
+    public static final String SEGMENTS_FILE_EXTENSION = ".segments";
+    public static final String VALIDATOR_FILE_EXTENSION = ".validator";
+    public static final int DEFAULT_PARALLEL_DOWNLOADS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REDIRECTS = 5;
+    private static final long SEGMENT_PROGRESS_SAVE_INTERVAL = 8L * 1024 * 1024;
+
+    public static final class Download {
+        private final String uri;
+        private final Path targetFilePath;
+        private Long expectedSize;
+        private String checksumAlgorithm;
+        private String expectedChecksum;
+
+        public Download(final String uri, final Path targetFilePath) {
+            this.uri = uri;
+            this.targetFilePath = targetFilePath;
+        }
+
+        public Download expectSize(final long size) {
+            expectedSize = size;
+            return this;
+        }
+
+        /**
+         * @param algorithm Digest algorithm name such as "MD5" or "SHA-256"
+         * @param checksum  Expected digest as hexadecimal string
+         */
+        public Download expectChecksum(final String algorithm, final String checksum) {
+            checksumAlgorithm = algorithm;
+            expectedChecksum = checksum.toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        public Path getTargetFilePath() {
+            return targetFilePath;
+        }
+
+        Path getPartFilePath() {
+            return targetFilePath.resolveSibling(targetFilePath.getFileName() + PART_FILE_EXTENSION);
+        }
+
+        Path getSegmentsFilePath() {
+            return targetFilePath.resolveSibling(
+                    targetFilePath.getFileName() + PART_FILE_EXTENSION + SEGMENTS_FILE_EXTENSION);
+        }
+
+        Path getValidatorFilePath() {
+            return targetFilePath.resolveSibling(
+                    targetFilePath.getFileName() + PART_FILE_EXTENSION + VALIDATOR_FILE_EXTENSION);
+        }
+    }
+
+    private static final class RemoteFile {
+        private final long length;
+        private final boolean rangesSupported;
+        private final boolean notModified;
+        private final String eTag;
+        private final String lastModified;
+
+        private RemoteFile(final long length, final boolean rangesSupported, final boolean notModified,
+                           final String eTag, final String lastModified) {
+            this.length = length;
+            this.rangesSupported = rangesSupported;
+            this.notModified = notModified;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return Validator usable as "If-Range" condition or null if the server provided none. Weak ETags can't be
+         * used for range requests.
+         */
+        private String getRangeValidator() {
+            if (eTag != null && !eTag.startsWith("W/"))
+                return eTag;
+            return lastModified;
+        }
+    }
+
+    private final int parallelDownloads;
+    private int maxRetries = 3;
+    private int connectTimeout = 30000;
+    private int readTimeout = 120000;
+    private long segmentThreshold = 256L * 1024 * 1024;
+    private int segments = 4;
+    private HTTPCache cache;
+
+    public DownloadManager() {
+        this(DEFAULT_PARALLEL_DOWNLOADS);
+    }
+
+    public DownloadManager(final int parallelDownloads) {
+        this.parallelDownloads = Math.max(1, parallelDownloads);
+    }
+
+    public void setMaxRetries(final int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    public void setTimeouts(final int connectTimeout, final int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @param cache Cache of the workspace used for conditional requests of unchanged files or null to disable them
+     */
+    public void setCache(final HTTPCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Files of at least the threshold size are downloaded in the given number of parallel segments if the server
+     * supports range requests.
+     */
+    public void setSegmentation(final long segmentThreshold, final int segments) {
+        this.segmentThreshold = segmentThreshold;
+        this.segments = Math.max(1, segments);
+    }
+
+    /**
+     * Download all files concurrently. If any download fails, the others are still finished and the first failure is
+     * thrown with all further failures attached as suppressed exceptions.
+     */
+    public void download(final List<Download> downloads) throws IOException {
+        if (downloads.size() == 1) {
+            download(downloads.get(0));
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelDownloads, downloads.size()));
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Download download : downloads)
+                futures.add(executor.submit(() -> {
+                    download(download);
+                    return null;
+                }));
+            IOException exception = null;
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    final IOException cause = e.getCause() instanceof IOException ? (IOException) e.getCause() :
+                                              new IOException(e.getCause());
+                    if (exception == null)
+                        exception = cause;
+                    else
+                        exception.addSuppressed(cause);
+                }
+            }
+            if (exception != null)
+                throw exception;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download was interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void download(final Download download) throws IOException {
+        RemoteFile remoteFile = null;
+        IOException lastException = null;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0 && LOGGER.isWarnEnabled())
+                LOGGER.warn("Retrying download of '" + download.uri + "' (" + attempt + "/" + maxRetries + ")",
+                            lastException);
+            try {
+                remoteFile = downloadToPartFile(download);
+                lastException = null;
+                break;
+            } catch (VerificationException e) {
+                throw e;
+            } catch (IOException e) {
+                lastException = e;
+            }
+        }
+        if (lastException != null)
+            throw lastException;
+        if (remoteFile.notModified) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Keeping '" + download.targetFilePath + "' as '" + download.uri + "' was not modified");
+            return;
+        }
+        verifyPartFile(download);
+        moveToTarget(download);
+        Files.deleteIfExists(download.getValidatorFilePath());
+        if (cache != null)
+            cache.storeDownloadValidators(download.uri, remoteFile.eTag, remoteFile.lastModified,
+                                          Files.size(download.targetFilePath));
+    }
+
+    private RemoteFile downloadToPartFile(final Download download) throws IOException {
+        final RemoteFile remoteFile = queryRemoteFile(download);
+        if (remoteFile.notModified)
+            return remoteFile;
+        if (download.expectedSize != null && remoteFile.length >= 0 && remoteFile.length != download.expectedSize)
+            throw new VerificationException(
+                    "Server reports " + remoteFile.length + " bytes for '" + download.uri + "' but " +
+                    download.expectedSize + " bytes were expected");
+        if (Files.exists(download.getPartFilePath()) && !isPartFileResumable(download, remoteFile)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Discarding partial download of '" + download.uri + "' as the remote file changed");
+            Files.delete(download.getPartFilePath());
+            Files.deleteIfExists(download.getSegmentsFilePath());
+        }
+        if (!Files.exists(download.getPartFilePath()))
+            saveRangeValidator(download, remoteFile.getRangeValidator());
+        if (remoteFile.rangesSupported && remoteFile.length >= segmentThreshold && segments > 1)
+            downloadSegmented(download, remoteFile);
+        else
+            downloadSequential(download, remoteFile);
+        return remoteFile;
+    }
+
+    private RemoteFile queryRemoteFile(final Download download) throws IOException {
+        // A left over part file belongs to a newer version than the target, so the target can't be kept
+        final Map<String, String> headers = cache == null || Files.exists(download.getPartFilePath()) ? null :
+                                            cache.getDownloadConditionalHeaders(download.uri,
+                                                                                download.targetFilePath);
+        final HttpURLConnection connection = openConnection(download.uri, "HEAD", null, headers);
+        try {
+            final int responseCode = connection.getResponseCode();
+            if (headers != null && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED)
+                return new RemoteFile(-1, false, true, null, null);
+            if (responseCode >= 400)
+                return new RemoteFile(-1, false, false, null, null);
+            return new RemoteFile(connection.getContentLengthLong(),
+                                  "bytes".equalsIgnoreCase(connection.getHeaderField("Accept-Ranges")), false,
+                                  connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * A part file can only be resumed if the remote file still has the validator stored when the part file was
+     * started. Without validators a change of the remote file can't be detected, so the part file isn't resumed.
+     */
+    private static boolean isPartFileResumable(final Download download, final RemoteFile remoteFile) {
+        final String validator = remoteFile.getRangeValidator();
+        return validator != null && validator.equals(loadRangeValidator(download));
+    }
+
+    private static String loadRangeValidator(final Download download) {
+        try {
+            final Path filePath = download.getValidatorFilePath();
+            return Files.exists(filePath) ? new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void saveRangeValidator(final Download download, final String validator) throws IOException {
+        if (validator != null)
+            Files.write(download.getValidatorFilePath(), validator.getBytes(StandardCharsets.UTF_8));
+        else
+            Files.deleteIfExists(download.getValidatorFilePath());
+    }
+
+    private static Map<String, String> getRangeConditionHeaders(final RemoteFile remoteFile) {
+        final String validator = remoteFile.getRangeValidator();
+        return validator != null ? Collections.singletonMap("If-Range", validator) : null;
+    }
+
+    private void downloadSequential(final Download download, final RemoteFile remoteFile) throws IOException {
+        final Path partFilePath = download.getPartFilePath();
+        long offset = Files.exists(partFilePath) ? Files.size(partFilePath) : 0;
+        // A preallocated part file of a segmented download can't be resumed sequentially
+        if (Files.deleteIfExists(download.getSegmentsFilePath()) || !remoteFile.rangesSupported ||
+            (remoteFile.length >= 0 && offset > remoteFile.length))
+            offset = 0;
+        if (offset > 0 && offset == remoteFile.length)
+            return;
+        final String range = offset > 0 ? offset + "-" : null;
+        final HttpURLConnection connection = openConnection(download.uri, "GET", range,
+                                                            range != null ? getRangeConditionHeaders(remoteFile) :
+                                                            null);
+        try {
+            final int responseCode = connection.getResponseCode();
+            if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL)
+                throw new IOException("Server responded with " + responseCode + " for '" + download.uri + "'");
+            // A full response to a range request restarts the file, as the remote file changed or ranges are ignored
+            final boolean append = offset > 0 && responseCode == HttpURLConnection.HTTP_PARTIAL;
+            if (!append)
+                saveRangeValidator(download, new RemoteFile(-1, false, false, connection.getHeaderField("ETag"),
+                                                            connection.getHeaderField("Last-Modified"))
+                        .getRangeValidator());
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info(append ? "Resuming download of '" + download.uri + "' at byte " + offset :
+                            "Downloading '" + download.uri + "'");
+            try (InputStream input = connection.getInputStream();
+                 OutputStream output = new FileOutputStream(partFilePath.toFile(), append)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) != -1)
+                    output.write(buffer, 0, read);
+            }
+        } finally {
+            connection.disconnect();
+        }
+        if (remoteFile.length >= 0 && Files.size(partFilePath) != remoteFile.length)
+            throw new EOFException("Download of '" + download.uri + "' ended early");
+    }
+
+    private void downloadSegmented(final Download download, final RemoteFile remoteFile) throws IOException {
+        final long length = remoteFile.length;
+        final long[] starts = new long[segments];
+        final long[] ends = new long[segments];
+        final long segmentLength = (length + segments - 1) / segments;
+        for (int i = 0; i < segments; i++) {
+            starts[i] = Math.min(length, i * segmentLength);
+            ends[i] = Math.min(length, starts[i] + segmentLength);
+        }
+        final long[] progress = loadSegmentProgress(download, length, starts);
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Downloading '" + download.uri + "' in " + segments + " segments");
+        try (RandomAccessFile file = new RandomAccessFile(download.getPartFilePath().toFile(), "rw")) {
+            file.setLength(length);
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < segments; i++) {
+                final int segment = i;
+                futures.add(executor.submit(() -> {
+                    downloadSegment(download, remoteFile, segment, progress, ends[segment]);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures)
+                future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Download was interrupted");
+        } finally {
+            executor.shutdownNow();
+            saveSegmentProgress(download, length, progress);
+        }
+        Files.deleteIfExists(download.getSegmentsFilePath());
+    }
+
+    private void downloadSegment(final Download download, final RemoteFile remoteFile, final int segment,
+                                 final long[] progress, final long end) throws IOException {
+        if (progress[segment] >= end)
+            return;
+        final long length = remoteFile.length;
+        final String range = progress[segment] + "-" + (end - 1);
+        final HttpURLConnection connection = openConnection(download.uri, "GET", range,
+                                                            getRangeConditionHeaders(remoteFile));
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                // The remote file changed or ranges are ignored, so the next attempt starts from scratch
+                Files.deleteIfExists(download.getValidatorFilePath());
+                throw new IOException("Server ignored the range request for '" + download.uri + "'");
+            }
+            try (InputStream input = connection.getInputStream();
+                 RandomAccessFile file = new RandomAccessFile(download.getPartFilePath().toFile(), "rw")) {
+                file.seek(progress[segment]);
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                long unsaved = 0;
+                while (progress[segment] < end) {
+                    final int read = input.read(buffer, 0, (int) Math.min(buffer.length, end - progress[segment]));
+                    if (read == -1)
+                        break;
+                    file.write(buffer, 0, read);
+                    synchronized (progress) {
+                        progress[segment] += read;
+                    }
+                    unsaved += read;
+                    if (unsaved >= SEGMENT_PROGRESS_SAVE_INTERVAL) {
+                        saveSegmentProgress(download, length, progress);
+                        unsaved = 0;
+                    }
+                }
+            }
+            if (progress[segment] < end)
+                throw new EOFException("Segment " + segment + " of '" + download.uri + "' ended early");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * The segments file stores the total length followed by the current offset of each segment. Offsets are only
+     * saved after the corresponding bytes were written, so resuming never skips missing data.
+     */
+    private long[] loadSegmentProgress(final Download download, final long length, final long[] starts) {
+        final Path segmentsFilePath = download.getSegmentsFilePath();
+        if (Files.exists(segmentsFilePath) && Files.exists(download.getPartFilePath())) {
+            try (DataInputStream input = new DataInputStream(Files.newInputStream(segmentsFilePath))) {
+                if (input.readLong() == length && input.readInt() == starts.length) {
+                    final long[] progress = new long[starts.length];
+                    for (int i = 0; i < progress.length; i++)
+                        progress[i] = input.readLong();
+                    if (LOGGER.isInfoEnabled())
+                        LOGGER.info("Resuming segmented download of '" + download.uri + "'");
+                    return progress;
+                }
+            } catch (IOException e) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Failed to read segment progress of '" + download.uri + "', restarting", e);
+            }
+        }
+        return starts.clone();
+    }
+
+    private void saveSegmentProgress(final Download download, final long length, final long[] progress) {
+        synchronized (progress) {
+            try (DataOutputStream output = new DataOutputStream(
+                    Files.newOutputStream(download.getSegmentsFilePath()))) {
+                output.writeLong(length);
+                output.writeInt(progress.length);
+                for (final long offset : progress)
+                    output.writeLong(offset);
+            } catch (IOException e) {
+                if (LOGGER.isWarnEnabled())
+                    LOGGER.warn("Failed to save segment progress of '" + download.uri + "'", e);
+            }
+        }
+    }
+
+    private void verifyPartFile(final Download download) throws IOException {
+        final Path partFilePath = download.getPartFilePath();
+        if (download.expectedSize != null && Files.size(partFilePath) != download.expectedSize) {
+            final long size = Files.size(partFilePath);
+            Files.delete(partFilePath);
+            Files.deleteIfExists(download.getValidatorFilePath());
+            throw new VerificationException(
+                    "Downloaded " + size + " bytes from '" + download.uri + "' but " + download.expectedSize +
+                    " bytes were expected");
+        }
+        if (download.expectedChecksum != null) {
+            final String checksum = FileUtils.computeChecksum(partFilePath, download.checksumAlgorithm);
+            if (!checksum.equals(download.expectedChecksum)) {
+                Files.delete(partFilePath);
+                Files.deleteIfExists(download.getValidatorFilePath());
+                throw new VerificationException(
+                        download.checksumAlgorithm + " checksum " + checksum + " of '" + download.uri +
+                        "' doesn't match the expected " + download.expectedChecksum);
+            }
+        }
+    }
+
+    private static void moveToTarget(final Download download) throws IOException {
+        try {
+            Files.move(download.getPartFilePath(), download.targetFilePath, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(download.getPartFilePath(), download.targetFilePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private HttpURLConnection openConnection(final String uri, final String method, final String range,
+                                             final Map<String, String> headers) throws IOException {
+        String location = uri;
+        for (int i = 0; i <= MAX_REDIRECTS; i++) {
+            final HttpURLConnection connection = (HttpURLConnection) new URL(location).openConnection();
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("User-Agent", HTTPClient.USER_AGENT);
+            if (range != null)
+                connection.setRequestProperty("Range", "bytes=" + range);
+            if (headers != null)
+                for (final Map.Entry<String, String> header : headers.entrySet())
+                    connection.setRequestProperty(header.getKey(), header.getValue());
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            // Redirects are followed manually, as HttpURLConnection doesn't follow redirects between protocols
+            connection.setInstanceFollowRedirects(false);
+            connection.connect();
+            final int responseCode = connection.getResponseCode();
+            final String target = connection.getHeaderField("Location");
+            if (responseCode < 300 || responseCode >= 400 || target == null)
+                return connection;
+            connection.disconnect();
+            location = new URL(new URL(location), target).toString();
+        }
+        throw new IOException("Too many redirects for '" + uri + "'");
+    }
+
+    /**
+     * Thrown if a download doesn't match its expected size or checksum. Retrying won't help in this case.
+     */
+    public static final class VerificationException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        VerificationException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package de.unibi.agbi.biodwh2.core.net;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent cache for HTTP requests made while checking for updates. Website sources and resolved URLs are reused
+ * without any request within the time to live. Afterwards, and for downloads, the stored ETag and Last-Modified
+ * validators are sent as conditional request headers, so unchanged resources only cost a "304 Not Modified".
+ */
+public final class HTTPCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HTTPCache.class);
+    private static final String ENTRY_FILE_EXTENSION = ".json";
+    private static final String BODY_FILE_EXTENSION = ".body";
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static final class Entry {
+        @JsonProperty("key")
+        public String key;
+        @JsonProperty("eTag")
+        public String eTag;
+        @JsonProperty("lastModified")
+        public String lastModified;
+        @JsonProperty("fetchedAt")
+        public long fetchedAt;
+        @JsonProperty("value")
+        public String value;
+    }
+
+    @FunctionalInterface
+    interface Resolver {
+        String resolve() throws IOException;
+    }
+
+    private final Path directory;
+    private final long timeToLive;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param timeToLive Milliseconds a cached website source or resolved URL is used without revalidation
+     */
+    public HTTPCache(final Path directory, final long timeToLive) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        objectMapper = new ObjectMapper();
+    }
+
+    public String getWebsiteSource(final String url) throws IOException {
+        final String key = "source " + url;
+        final Entry entry = loadEntry(key);
+        final Path bodyFilePath = getFilePath(key, BODY_FILE_EXTENSION);
+        final boolean bodyAvailable = entry != null && Files.exists(bodyFilePath);
+        if (bodyAvailable && isFresh(entry))
+            return readBody(bodyFilePath);
+        final HttpURLConnection connection = HTTPClient.openConnection(url, null, null, bodyAvailable ?
+                                                                                        getConditionalHeaders(entry) :
+                                                                                        null);
+        try {
+            if (bodyAvailable && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                if (LOGGER.isDebugEnabled())
+                    LOGGER.debug("Website '" + url + "' was not modified");
+                entry.fetchedAt = System.currentTimeMillis();
+                saveEntry(entry);
+                return readBody(bodyFilePath);
+            }
+            final String source = HTTPClient.readWebsiteSource(connection.getInputStream());
+            final Entry newEntry = createEntry(key, connection);
+            writeAtomically(bodyFilePath, source.getBytes(StandardCharsets.UTF_8));
+            saveEntry(newEntry);
+            return source;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    String resolve(final String kind, final String url, final Resolver resolver) throws IOException {
+        final String key = kind + " " + url;
+        final Entry entry = loadEntry(key);
+        if (entry != null && isFresh(entry))
+            return entry.value;
+        final Entry newEntry = new Entry();
+        newEntry.key = key;
+        newEntry.fetchedAt = System.currentTimeMillis();
+        newEntry.value = resolver.resolve();
+        saveEntry(newEntry);
+        return newEntry.value;
+    }
+
+    /**
+     * Get the conditional request headers for a previous download of the url, if the local file still has the size
+     * it had after that download.
+     */
+    Map<String, String> getDownloadConditionalHeaders(final String url, final Path filePath) throws IOException {
+        final Entry entry = loadEntry("download " + url);
+        if (entry == null || !Files.exists(filePath) || !String.valueOf(Files.size(filePath)).equals(entry.value))
+            return null;
+        return getConditionalHeaders(entry);
+    }
+
+    void storeDownloadValidators(final String url, final String eTag, final String lastModified, final long size) {
+        final Entry entry = new Entry();
+        entry.key = "download " + url;
+        entry.eTag = eTag;
+        entry.lastModified = lastModified;
+        entry.fetchedAt = System.currentTimeMillis();
+        entry.value = String.valueOf(size);
+        if (entry.eTag != null || entry.lastModified != null)
+            saveEntry(entry);
+    }
+
+    private boolean isFresh(final Entry entry) {
+        return System.currentTimeMillis() - entry.fetchedAt < timeToLive;
+    }
+
+    private static Map<String, String> getConditionalHeaders(final Entry entry) {
+        final Map<String, String> headers = new HashMap<>();
+        if (entry.eTag != null)
+            headers.put("If-None-Match", entry.eTag);
+        if (entry.lastModified != null)
+            headers.put("If-Modified-Since", entry.lastModified);
+        return headers;
+    }
+
+    private static Entry createEntry(final String key, final HttpURLConnection connection) {
+        final Entry entry = new Entry();
+        entry.key = key;
+        entry.eTag = connection.getHeaderField("ETag");
+        entry.lastModified = connection.getHeaderField("Last-Modified");
+        entry.fetchedAt = System.currentTimeMillis();
+        return entry;
+    }
+
+    private Entry loadEntry(final String key) {
+        final Path filePath = getFilePath(key, ENTRY_FILE_EXTENSION);
+        if (!Files.exists(filePath))
+            return null;
+        try {
+            final Entry entry = objectMapper.readValue(filePath.toFile(), Entry.class);
+            // Guard against hash collisions
+            return key.equals(entry.key) ? entry : null;
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Ignoring unreadable HTTP cache entry '" + filePath + "'", e);
+            return null;
+        }
+    }
+
+    private void saveEntry(final Entry entry) {
+        try {
+            writeAtomically(getFilePath(entry.key, ENTRY_FILE_EXTENSION), objectMapper.writeValueAsBytes(entry));
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to save HTTP cache entry for '" + entry.key + "'", e);
+        }
+    }
+
+    private void writeAtomically(final Path filePath, final byte[] content) throws IOException {
+        Files.createDirectories(directory);
+        final Path tempFilePath = Files.createTempFile(directory, filePath.getFileName().toString(), ".tmp");
+        Files.write(tempFilePath, content);
+        try {
+            Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFilePath, filePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String readBody(final Path filePath) throws IOException {
+        return new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8);
+    }
+
+    private Path getFilePath(final String key, final String extension) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder fileName = new StringBuilder();
+            for (final byte b : hash)
+                fileName.append(String.format("%02x", b));
+            return directory.resolve(fileName.append(extension).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -11,11 +11,15 @@ import java.net.URL;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 public final class HTTPClient {
     @SuppressWarnings("SpellCheckingInspection")
     public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/90.0.4430.212 Safari/537.36";
 
+    public static final int CONNECT_TIMEOUT = 30000;
+    public static final int READ_TIMEOUT = 60000;
+
     private HTTPClient() {
     }
 
@@ -46,11 +50,21 @@ public final class HTTPClient {
         return getWebsiteSource(url, null, null);
     }
 
+    /**
+     * @param cache Cache of the workspace or null to always request the website
+     */
+    public static String getWebsiteSource(final HTTPCache cache, final String url) throws IOException {
+        return cache != null ? cache.getWebsiteSource(url) : getWebsiteSource(url);
+    }
+
     public static String getWebsiteSource(final String url, final String username,
                                           final String password) throws IOException {
+        return readWebsiteSource(getUrlInputStream(url, username, password));
+    }
+
+    static String readWebsiteSource(final InputStream stream) throws IOException {
         final StringBuilder result = new StringBuilder();
-        try (BufferedReader reader = FileUtils.createBufferedReaderFromStream(
-                getUrlInputStream(url, username, password))) {
+        try (BufferedReader reader = FileUtils.createBufferedReaderFromStream(stream)) {
             String inputLine = reader.readLine();
             while (inputLine != null) {
                 result.append(inputLine);
@@ -66,14 +80,35 @@ public final class HTTPClient {
 
     public static InputStream getUrlInputStream(final String url, final String username,
                                                 final String password) throws IOException {
-        HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        return openConnection(url, username, password, null).getInputStream();
+    }
+
+    static HttpURLConnection openConnection(final String url, final String username, final String password,
+                                            final Map<String, String> headers) throws IOException {
+        HttpURLConnection urlConnection = openConnection(new URL(url));
         if (username != null && password != null)
             urlConnection.setRequestProperty("Authorization", getBasicAuthForCredentials(username, password));
         urlConnection.setRequestProperty("User-Agent", USER_AGENT);
+        setRequestProperties(urlConnection, headers);
         urlConnection.setInstanceFollowRedirects(false);
         urlConnection.connect();
-        urlConnection = redirectURLConnectionIfNecessary(urlConnection);
-        return urlConnection.getInputStream();
+        final HttpURLConnection redirectedConnection = redirectURLConnectionIfNecessary(urlConnection);
+        if (redirectedConnection != urlConnection)
+            setRequestProperties(redirectedConnection, headers);
+        return redirectedConnection;
+    }
+
+    private static void setRequestProperties(final HttpURLConnection connection, final Map<String, String> headers) {
+        if (headers != null)
+            for (final Map.Entry<String, String> header : headers.entrySet())
+                connection.setRequestProperty(header.getKey(), header.getValue());
+    }
+
+    private static HttpURLConnection openConnection(final URL url) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT);
+        connection.setReadTimeout(READ_TIMEOUT);
+        return connection;
     }
 
     private static String getBasicAuthForCredentials(final String username, final String password) {
@@ -83,11 +118,23 @@ public final class HTTPClient {
 
     private static HttpURLConnection redirectURLConnectionIfNecessary(HttpURLConnection connection) throws IOException {
         final String target = connection.getHeaderField("location");
-        return target == null ? connection : (HttpURLConnection) new URL(target).openConnection();
+        return target == null ? connection : openConnection(new URL(target));
     }
 
     public static String resolveUrlLocation(final String url) throws IOException {
-        final HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        return resolveUrlLocation(null, url);
+    }
+
+    /**
+     * @param cache Cache of the workspace or null to always request the location
+     */
+    public static String resolveUrlLocation(final HTTPCache cache, final String url) throws IOException {
+        return cache != null ? cache.resolve("location", url, () -> resolveUncachedUrlLocation(url)) :
+               resolveUncachedUrlLocation(url);
+    }
+
+    private static String resolveUncachedUrlLocation(final String url) throws IOException {
+        final HttpURLConnection urlConnection = openConnection(new URL(url));
         urlConnection.setRequestProperty("User-Agent", USER_AGENT);
         urlConnection.setInstanceFollowRedirects(false);
         urlConnection.connect();
@@ -97,7 +144,19 @@ public final class HTTPClient {
     }
 
     public static String resolveFileName(final String url) throws IOException {
-        HttpURLConnection urlConnection = (HttpURLConnection) new URL(url).openConnection();
+        return resolveFileName(null, url);
+    }
+
+    /**
+     * @param cache Cache of the workspace or null to always request the file name
+     */
+    public static String resolveFileName(final HTTPCache cache, final String url) throws IOException {
+        return cache != null ? cache.resolve("file name", url, () -> resolveUncachedFileName(url)) :
+               resolveUncachedFileName(url);
+    }
+
+    private static String resolveUncachedFileName(final String url) throws IOException {
+        HttpURLConnection urlConnection = openConnection(new URL(url));
         urlConnection.setRequestProperty("User-Agent", USER_AGENT);
         urlConnection.setInstanceFollowRedirects(false);
         urlConnection.connect();
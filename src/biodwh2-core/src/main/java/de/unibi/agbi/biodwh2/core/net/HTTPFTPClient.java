@@ -24,10 +24,19 @@ public final class HTTPFTPClient {
     private static final String PRE_TABLE_ENTRY_REGEX = "<a\\s+href=\"[a-zA-Z0-9-_.]+\">([a-zA-Z0-9-_.]+)</a>\\s+([0-9]{4}-[0-9]{2}-[0-9]{2}\\s+[0-9]{2}:[0-9]{2})\\s+([0-9.]+[KMG]?)";
 
     private final String url;
+    private final HTTPCache cache;
     private final Map<String, Entry[]> entryCache;
 
     public HTTPFTPClient(final String url) {
+        this(url, null);
+    }
+
+    /**
+     * @param cache Cache of the workspace for directory listings or null to always request them
+     */
+    public HTTPFTPClient(final String url, final HTTPCache cache) {
         this.url = url;
+        this.cache = cache;
         entryCache = new HashMap<>();
     }
 
@@ -39,7 +48,7 @@ public final class HTTPFTPClient {
         final String fullDirectoryUrl = path == null ? url : url + "/" + path;
         if (entryCache.containsKey(fullDirectoryUrl))
             return entryCache.get(fullDirectoryUrl);
-        final String source = HTTPClient.getWebsiteSource(fullDirectoryUrl);
+        final String source = HTTPClient.getWebsiteSource(cache, fullDirectoryUrl);
         final Entry[] entries = parseWebSource(path, source);
         entryCache.put(fullDirectoryUrl, entries);
         return entries;
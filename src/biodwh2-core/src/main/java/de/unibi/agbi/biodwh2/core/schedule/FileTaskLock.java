@@ -0,0 +1,131 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock of a task shared by several processes, possibly on different hosts, through a lock file. The lock file is
+ * created exclusively, which is atomic on local and network file systems, and holds the owner of the lock. While the
+ * lock is held, the modification time of the lock file is refreshed regularly. A lock file not refreshed within the
+ * stale timeout belongs to a crashed process and may be taken over.
+ */
+public final class FileTaskLock implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileTaskLock.class);
+    private static final String OWNER_PREFIX = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final Path filePath;
+    private final String owner;
+    private final ScheduledExecutorService heartbeat;
+
+    private FileTaskLock(final Path filePath, final String owner, final long staleTimeoutMillis) {
+        this.filePath = filePath;
+        this.owner = owner;
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "lock-heartbeat " + filePath.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long interval = Math.max(1, staleTimeoutMillis / 4);
+        heartbeat.scheduleAtFixedRate(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Try to acquire the lock without waiting.
+     *
+     * @return The acquired lock or null if it's held by another owner
+     */
+    public static FileTaskLock tryAcquire(final Path filePath, final long staleTimeoutMillis) throws IOException {
+        final String owner = OWNER_PREFIX + "/" + UUID.randomUUID();
+        if (tryCreate(filePath, owner) || (breakStaleLock(filePath, staleTimeoutMillis) && tryCreate(filePath, owner)))
+            return new FileTaskLock(filePath, owner, staleTimeoutMillis);
+        return null;
+    }
+
+    private static boolean tryCreate(final Path filePath, final String owner) throws IOException {
+        try {
+            Files.write(filePath, owner.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Move a stale lock file out of the way. Moving is atomic, so only one of several processes breaking the same
+     * stale lock succeeds. If the moved lock file turns out to be refreshed in between, it is moved back.
+     */
+    private static boolean breakStaleLock(final Path filePath, final long staleTimeoutMillis) throws IOException {
+        if (!isStale(filePath, staleTimeoutMillis))
+            return false;
+        final Path brokenFilePath = filePath.resolveSibling(filePath.getFileName() + "." + UUID.randomUUID());
+        try {
+            Files.move(filePath, brokenFilePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        if (!isStale(brokenFilePath, staleTimeoutMillis)) {
+            try {
+                Files.move(brokenFilePath, filePath, StandardCopyOption.ATOMIC_MOVE);
+                return false;
+            } catch (FileAlreadyExistsException ignored) {
+                // Another process already took the lock over, which fails the creation below
+            }
+        }
+        if (LOGGER.isWarnEnabled())
+            LOGGER.warn("Took over stale lock '" + filePath + "' of " + readOwner(brokenFilePath));
+        FileUtils.safeDelete(brokenFilePath);
+        return true;
+    }
+
+    private static boolean isStale(final Path filePath, final long staleTimeoutMillis) throws IOException {
+        try {
+            final long modified = Files.getLastModifiedTime(filePath).toMillis();
+            return System.currentTimeMillis() - modified > staleTimeoutMillis;
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+    }
+
+    private static String readOwner(final Path filePath) {
+        try {
+            return new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "an unknown owner";
+        }
+    }
+
+    private void refresh() {
+        try {
+            Files.setLastModifiedTime(filePath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            if (LOGGER.isWarnEnabled())
+                LOGGER.warn("Failed to refresh lock '" + filePath + "'", e);
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Release the lock, unless it was taken over by another owner in between.
+     */
+    @Override
+    public void close() {
+        heartbeat.shutdownNow();
+        if (owner.equals(readOwner(filePath)))
+            FileUtils.safeDelete(filePath);
+    }
+}
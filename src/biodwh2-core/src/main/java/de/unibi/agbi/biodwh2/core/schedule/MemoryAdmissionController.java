@@ -0,0 +1,40 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+/**
+ * Keeps track of the estimated heap usage of running work. Work is only admitted if its estimated cost fits into the
+ * remaining budget, or if nothing else is running, so work larger than the whole budget still runs on its own.
+ */
+final class MemoryAdmissionController {
+    private final long budget;
+    private long reserved;
+    private int admitted;
+
+    MemoryAdmissionController(final long budget) {
+        if (budget < 1)
+            throw new IllegalArgumentException("The memory budget must be positive");
+        this.budget = budget;
+    }
+
+    long getBudget() {
+        return budget;
+    }
+
+    synchronized long getReserved() {
+        return reserved;
+    }
+
+    synchronized boolean tryAdmit(final long cost) {
+        if (admitted > 0 && reserved + cost > budget)
+            return false;
+        reserved += cost;
+        admitted++;
+        return true;
+    }
+
+    synchronized void release(final long cost) {
+        if (admitted == 0)
+            throw new IllegalStateException("Released more memory than was admitted");
+        reserved -= cost;
+        admitted--;
+    }
+}
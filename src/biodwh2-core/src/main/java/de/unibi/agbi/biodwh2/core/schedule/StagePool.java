@@ -0,0 +1,10 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+/**
+ * Thread pools of the {@link StageScheduler}, separating stages by the resource they are mostly bound by.
+ */
+public enum StagePool {
+    NETWORK,
+    CPU,
+    DISK
+}
@@ -0,0 +1,293 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Scheduler for a directed acyclic graph of tasks. Each task runs in the thread pool of its {@link StagePool} as soon
+ * as all of its dependencies finished, so tasks bound by different resources don't compete for the same threads.
+ * <p>
+ * A task returning false stops its chain: dependents requiring success are skipped, as are dependents of failed
+ * tasks. Tasks added with {@link #addTaskIgnoringFailures} run once their dependencies finished in any state.
+ * <p>
+ * If a memory budget is set, a chain of tasks may reserve an estimated amount of heap with {@link #reserveMemory}. The
+ * first task of the chain is held back until the reservation fits into the budget, and the reservation is released as
+ * soon as the last task of the chain finished in any state.
+ */
+public final class StageScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StageScheduler.class);
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        STOPPED,
+        FAILED,
+        SKIPPED
+    }
+
+    public static final class Task {
+        private final String name;
+        private final StagePool pool;
+        private final BooleanSupplier action;
+        private final List<Task> dependencies;
+        private final List<Task> dependents;
+        private final boolean requireSuccess;
+        private int remainingDependencies;
+        private volatile State state;
+
+        private Task(final String name, final StagePool pool, final BooleanSupplier action,
+                     final List<Task> dependencies, final boolean requireSuccess) {
+            this.name = name;
+            this.pool = pool;
+            this.action = action;
+            this.dependencies = dependencies;
+            this.requireSuccess = requireSuccess;
+            dependents = new ArrayList<>();
+            remainingDependencies = dependencies.size();
+            state = State.PENDING;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public StagePool getPool() {
+            return pool;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public boolean isCompleted() {
+            return state == State.COMPLETED;
+        }
+
+        @Override
+        public String toString() {
+            return name + "[" + pool + ", " + state + "]";
+        }
+    }
+
+    private static final class MemoryReservation {
+        private final long bytes;
+        private boolean admitted;
+
+        private MemoryReservation(final long bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final Map<StagePool, Integer> limits;
+    private final List<Task> tasks;
+    private final Map<StagePool, ExecutorService> executors;
+    private final Map<Task, MemoryReservation> reservationsByFirstTask;
+    private final Map<Task, MemoryReservation> reservationsByLastTask;
+    private final List<Task> tasksWaitingForMemory;
+    private MemoryAdmissionController memoryAdmission;
+    private CountDownLatch remainingTasks;
+
+    public StageScheduler() {
+        limits = new EnumMap<>(StagePool.class);
+        for (final StagePool pool : StagePool.values())
+            limits.put(pool, 1);
+        tasks = new ArrayList<>();
+        executors = new EnumMap<>(StagePool.class);
+        reservationsByFirstTask = new HashMap<>();
+        reservationsByLastTask = new HashMap<>();
+        tasksWaitingForMemory = new ArrayList<>();
+    }
+
+    /**
+     * @param pool    Thread pool to configure
+     * @param threads Maximum number of tasks of this pool running at the same time
+     */
+    public void setLimit(final StagePool pool, final int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("The thread limit of pool " + pool + " must be at least 1");
+        limits.put(pool, threads);
+    }
+
+    public int getLimit(final StagePool pool) {
+        return limits.get(pool);
+    }
+
+    /**
+     * @param bytes Estimated heap available for all memory reservations running at the same time
+     */
+    public synchronized void setMemoryBudget(final long bytes) {
+        if (remainingTasks != null)
+            throw new IllegalStateException("The memory budget can't be changed after the scheduler was started");
+        memoryAdmission = new MemoryAdmissionController(bytes);
+    }
+
+    /**
+     * Reserve memory for the chain of tasks from first to last, where last has to depend on first directly or
+     * transitively. Without a memory budget reservations are ignored.
+     *
+     * @param bytes Estimated heap usage of the chain
+     */
+    public synchronized void reserveMemory(final Task first, final Task last, final long bytes) {
+        if (remainingTasks != null)
+            throw new IllegalStateException("Memory can't be reserved after the scheduler was started");
+        if (reservationsByFirstTask.containsKey(first) || reservationsByLastTask.containsKey(last))
+            throw new IllegalArgumentException("Tasks can only be part of a single memory reservation");
+        final MemoryReservation reservation = new MemoryReservation(Math.max(0, bytes));
+        reservationsByFirstTask.put(first, reservation);
+        reservationsByLastTask.put(last, reservation);
+    }
+
+    /**
+     * Add a task, which only runs if all dependencies completed successfully.
+     *
+     * @param action Action returning true if dependent tasks should run
+     */
+    public synchronized Task addTask(final String name, final StagePool pool, final BooleanSupplier action,
+                                     final Task... dependencies) {
+        return addTask(name, pool, action, Arrays.asList(dependencies), true);
+    }
+
+    /**
+     * Add a task, which runs once all dependencies finished regardless of whether they completed, stopped, failed or
+     * were skipped.
+     */
+    public synchronized Task addTaskIgnoringFailures(final String name, final StagePool pool,
+                                                     final BooleanSupplier action, final Task... dependencies) {
+        return addTask(name, pool, action, Arrays.asList(dependencies), false);
+    }
+
+    public synchronized Task addTaskIgnoringFailures(final String name, final StagePool pool,
+                                                     final BooleanSupplier action, final Collection<Task> dependencies) {
+        return addTask(name, pool, action, new ArrayList<>(dependencies), false);
+    }
+
+    private Task addTask(final String name, final StagePool pool, final BooleanSupplier action,
+                         final List<Task> dependencies, final boolean requireSuccess) {
+        if (remainingTasks != null)
+            throw new IllegalStateException("Tasks can't be added after the scheduler was started");
+        for (final Task dependency : dependencies)
+            if (!tasks.contains(dependency))
+                throw new IllegalArgumentException("Dependency " + dependency + " of task '" + name +
+                                                   "' is not part of this scheduler");
+        final Task task = new Task(name, pool, action, dependencies, requireSuccess);
+        for (final Task dependency : dependencies)
+            dependency.dependents.add(task);
+        tasks.add(task);
+        return task;
+    }
+
+    /**
+     * Run all tasks and wait until every task finished or was skipped.
+     */
+    public void run() throws InterruptedException {
+        synchronized (this) {
+            if (remainingTasks != null)
+                throw new IllegalStateException("The scheduler was already started");
+            remainingTasks = new CountDownLatch(tasks.size());
+            for (final StagePool pool : StagePool.values())
+                executors.put(pool, Executors.newFixedThreadPool(limits.get(pool), new StageThreadFactory(pool)));
+            // Dependencies are always added before their dependents, so this order is a valid topological order
+            for (final Task task : tasks)
+                if (task.remainingDependencies == 0)
+                    schedule(task);
+        }
+        try {
+            remainingTasks.await();
+        } finally {
+            for (final ExecutorService executor : executors.values())
+                executor.shutdownNow();
+            executors.clear();
+        }
+    }
+
+    private void schedule(final Task task) {
+        if (task.requireSuccess && task.dependencies.stream().anyMatch(d -> d.state != State.COMPLETED)) {
+            finish(task, State.SKIPPED);
+            return;
+        }
+        if (!tryAdmitMemory(task)) {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Task '" + task.name + "' waits for memory to become available");
+            tasksWaitingForMemory.add(task);
+            return;
+        }
+        task.state = State.RUNNING;
+        executors.get(task.pool).execute(() -> execute(task));
+    }
+
+    private boolean tryAdmitMemory(final Task task) {
+        final MemoryReservation reservation = reservationsByFirstTask.get(task);
+        if (memoryAdmission == null || reservation == null)
+            return true;
+        reservation.admitted = memoryAdmission.tryAdmit(reservation.bytes);
+        return reservation.admitted;
+    }
+
+    private void execute(final Task task) {
+        State result = State.FAILED;
+        try {
+            result = task.action.getAsBoolean() ? State.COMPLETED : State.STOPPED;
+        } catch (RuntimeException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Task '" + task.name + "' failed", e);
+        } finally {
+            synchronized (this) {
+                finish(task, result);
+            }
+        }
+    }
+
+    private void finish(final Task task, final State state) {
+        task.state = state;
+        remainingTasks.countDown();
+        final boolean memoryReleased = releaseMemory(task);
+        for (final Task dependent : task.dependents) {
+            dependent.remainingDependencies--;
+            if (dependent.remainingDependencies == 0)
+                schedule(dependent);
+        }
+        if (memoryReleased && !tasksWaitingForMemory.isEmpty()) {
+            final List<Task> waiting = new ArrayList<>(tasksWaitingForMemory);
+            tasksWaitingForMemory.clear();
+            for (final Task waitingTask : waiting)
+                schedule(waitingTask);
+        }
+    }
+
+    private boolean releaseMemory(final Task task) {
+        final MemoryReservation reservation = reservationsByLastTask.get(task);
+        if (reservation == null || !reservation.admitted)
+            return false;
+        reservation.admitted = false;
+        memoryAdmission.release(reservation.bytes);
+        return true;
+    }
+
+    public synchronized List<Task> getTasks() {
+        return new ArrayList<>(tasks);
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+        private final StagePool pool;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        StageThreadFactory(final StagePool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable,
+                                             "stage-" + pool.name().toLowerCase(Locale.ROOT) + "-" +
+                                             counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
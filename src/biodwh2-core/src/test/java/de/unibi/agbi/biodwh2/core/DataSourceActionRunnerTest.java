@@ -0,0 +1,88 @@
+package de.unibi.agbi.biodwh2.core;
+
+import de.unibi.agbi.biodwh2.core.etl.GraphExporter;
+import de.unibi.agbi.biodwh2.core.etl.MappingDescriber;
+import de.unibi.agbi.biodwh2.core.etl.Parser;
+import de.unibi.agbi.biodwh2.core.etl.Updater;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceActionRunnerTest {
+    @Test
+    void runYieldsFallbackForTimedOutAndFailedActions() {
+        final DataSource[] dataSources = {new TestDataSource("ok"), new TestDataSource("slow"),
+                                          new TestDataSource("failing")};
+        final DataSourceActionRunner runner = new DataSourceActionRunner(3, 200);
+        final List<String> results = runner.run(dataSources, "test", DataSourceActionRunnerTest::runAction, "fallback");
+        assertEquals(Arrays.asList("ok", "fallback", "fallback"), results);
+    }
+
+    @Test
+    void selectSkipsTimedOutAndFailedDataSources() {
+        final DataSource first = new TestDataSource("ok");
+        final DataSource second = new TestDataSource("ok");
+        final DataSource[] dataSources = {first, new TestDataSource("slow"), new TestDataSource("failing"),
+                                          new TestDataSource("rejected"), second};
+        final DataSourceActionRunner runner = new DataSourceActionRunner(2, 200);
+        final DataSource[] selected = runner.select(dataSources, "test", d -> "ok".equals(runAction(d)));
+        assertArrayEquals(new DataSource[]{first, second}, selected);
+    }
+
+    private static String runAction(final DataSource dataSource) {
+        final String id = dataSource.getId();
+        if ("slow".equals(id)) {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException ignored) {
+            }
+        } else if ("failing".equals(id))
+            throw new IllegalStateException("Failed");
+        return id;
+    }
+
+    private static class TestDataSource extends DataSource {
+        private final String id;
+
+        TestDataSource(final String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public DevelopmentState getDevelopmentState() {
+            return null;
+        }
+
+        @Override
+        protected Updater<? extends DataSource> getUpdater() {
+            return null;
+        }
+
+        @Override
+        protected Parser<? extends DataSource> getParser() {
+            return null;
+        }
+
+        @Override
+        protected GraphExporter<? extends DataSource> getGraphExporter() {
+            return null;
+        }
+
+        @Override
+        public MappingDescriber getMappingDescriber() {
+            return null;
+        }
+
+        @Override
+        protected void unloadData() {
+        }
+    }
+}
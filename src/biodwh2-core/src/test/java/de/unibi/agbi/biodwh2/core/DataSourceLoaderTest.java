@@ -0,0 +1,22 @@
+package de.unibi.agbi.biodwh2.core;
+
+import de.unibi.agbi.biodwh2.core.mocks.mock2.Mock2DataSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceLoaderTest {
+    @Test
+    void getDataSourcesReturnsRegisteredDataSources() {
+        final DataSourceLoader loader = new DataSourceLoader();
+        final DataSource[] dataSources = loader.getDataSources("Mock2", "Unknown");
+        assertEquals(1, dataSources.length);
+        assertTrue(dataSources[0] instanceof Mock2DataSource);
+        assertSame(dataSources[0], loader.getDataSources("Mock2")[0]);
+        final List<String> ids = Arrays.asList(loader.getDataSourceIds());
+        assertTrue(ids.containsAll(Arrays.asList("Mock1", "Mock2", "Mock3")));
+    }
+}
@@ -0,0 +1,165 @@
+package de.unibi.agbi.biodwh2.core;
+
+import de.unibi.agbi.biodwh2.core.etl.GraphExporter;
+import de.unibi.agbi.biodwh2.core.etl.MappingDescriber;
+import de.unibi.agbi.biodwh2.core.etl.Parser;
+import de.unibi.agbi.biodwh2.core.etl.Updater;
+import de.unibi.agbi.biodwh2.core.exceptions.DataSourceException;
+import de.unibi.agbi.biodwh2.core.exceptions.ExporterException;
+import de.unibi.agbi.biodwh2.core.model.DataSourceFileType;
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSourceTest {
+    @Test
+    void interruptedExportIsResumedAfterCompletedSteps() throws IOException, DataSourceException {
+        final Path workingDirectory = Files.createTempDirectory("data_source_test");
+        Files.write(workingDirectory.resolve("config.json"),
+                    "{\"denseGraphIds\": true}".getBytes(StandardCharsets.UTF_8));
+        final Workspace workspace = new Workspace(workingDirectory.toString());
+        final TestDataSource dataSource = new TestDataSource();
+        dataSource.prepare(workspace);
+        dataSource.interruptSecondStep = true;
+        assertFalse(dataSource.exportPersistentGraph(workspace));
+        assertEquals(1, dataSource.firstStepRuns);
+        dataSource.interruptSecondStep = false;
+        assertTrue(dataSource.exportPersistentGraph(workspace));
+        // The completed step is skipped and the nodes of the interrupted step are rolled back
+        assertEquals(1, dataSource.firstStepRuns);
+        assertEquals(2, dataSource.secondStepRuns);
+        try (Graph graph = new Graph(dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH), true,
+                                     true)) {
+            assertEquals(1, countNodes(graph, "First"));
+            assertEquals(2, countNodes(graph, "Second"));
+            assertEquals(1, countNodes(graph, "Third"));
+            assertNull(graph.getCheckpointRunKey());
+        }
+    }
+
+    @Test
+    void unchangedExportKeepsPreviousGraph() throws IOException, DataSourceException {
+        final Path workingDirectory = Files.createTempDirectory("data_source_test");
+        Files.write(workingDirectory.resolve("config.json"),
+                    "{\"diffExportedGraphs\": true}".getBytes(StandardCharsets.UTF_8));
+        final Workspace workspace = new Workspace(workingDirectory.toString());
+        final KeyedDataSource dataSource = new KeyedDataSource();
+        dataSource.prepare(workspace);
+        final Path filePath = dataSource.getFilePath(workspace, DataSourceFileType.PERSISTENT_GRAPH);
+        final Path changeLogFilePath = dataSource.getFilePath(workspace, DataSourceFileType.GRAPH_CHANGE_LOG);
+        assertTrue(dataSource.exportPersistentGraph(workspace));
+        final FileTime exportTime = Files.getLastModifiedTime(filePath);
+        assertTrue(dataSource.exportPersistentGraph(workspace));
+        assertEquals(exportTime, Files.getLastModifiedTime(filePath));
+        assertEquals(1, Files.readAllLines(changeLogFilePath).size());
+        dataSource.name = "changed";
+        assertTrue(dataSource.exportPersistentGraph(workspace));
+        assertEquals(2, Files.readAllLines(changeLogFilePath).size());
+        assertFalse(Files.exists(dataSource.getFilePath(workspace, DataSourceFileType.PREVIOUS_PERSISTENT_GRAPH)));
+        try (Graph graph = new Graph(filePath, true, true)) {
+            assertEquals("changed", graph.findNode("Gene", "id", "A").getProperty("name"));
+        }
+    }
+
+    private static int countNodes(final Graph graph, final String label) {
+        final List<Node> nodes = new ArrayList<>();
+        for (final Node node : graph.findNodes(label))
+            nodes.add(node);
+        return nodes.size();
+    }
+
+    private static class TestDataSource extends DataSource {
+        boolean interruptSecondStep;
+        int firstStepRuns;
+        int secondStepRuns;
+
+        @Override
+        public String getId() {
+            return "DataSourceTest";
+        }
+
+        @Override
+        public DevelopmentState getDevelopmentState() {
+            return null;
+        }
+
+        @Override
+        protected Updater<? extends DataSource> getUpdater() {
+            return null;
+        }
+
+        @Override
+        protected Parser<? extends DataSource> getParser() {
+            return null;
+        }
+
+        @Override
+        protected GraphExporter<? extends DataSource> getGraphExporter() {
+            return new GraphExporter<TestDataSource>(this) {
+                @Override
+                public long getExportVersion() {
+                    return 1;
+                }
+
+                @Override
+                protected boolean exportGraph(final Workspace workspace, final Graph graph) throws ExporterException {
+                    runStep(graph, "first", () -> {
+                        firstStepRuns++;
+                        graph.addNode("First");
+                    });
+                    runStep(graph, "second", () -> {
+                        secondStepRuns++;
+                        graph.addNode("Second");
+                        if (interruptSecondStep)
+                            throw new ExporterException("Interrupted");
+                        graph.addNode("Second");
+                    });
+                    runStep(graph, "third", () -> graph.addNode("Third"));
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public MappingDescriber getMappingDescriber() {
+            return null;
+        }
+
+        @Override
+        protected void unloadData() {
+        }
+    }
+
+    private static class KeyedDataSource extends TestDataSource {
+        String name = "first";
+
+        @Override
+        protected GraphExporter<? extends DataSource> getGraphExporter() {
+            return new GraphExporter<KeyedDataSource>(this) {
+                @Override
+                public long getExportVersion() {
+                    return 1;
+                }
+
+                @Override
+                protected boolean exportGraph(final Workspace workspace, final Graph graph) {
+                    graph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+                    graph.addNode("Gene", "id", "A", "name", name);
+                    graph.addNode("Gene", "id", "B", "name", "second");
+                    return true;
+                }
+            };
+        }
+    }
+}
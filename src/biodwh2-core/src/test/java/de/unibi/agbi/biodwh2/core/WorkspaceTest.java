@@ -0,0 +1,121 @@
+package de.unibi.agbi.biodwh2.core;
+
+import de.unibi.agbi.biodwh2.core.model.WorkspaceFileType;
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceTest {
+    @Test
+    void publishedOutputVersionBecomesCurrentAndPinnedGraphsStayOpen() throws IOException {
+        final Path workingDirectory = Files.createTempDirectory("workspace_test");
+        final Workspace workspace = new Workspace(workingDirectory.toString());
+        assertNull(workspace.getCurrentOutputVersion());
+        assertEquals(workingDirectory.resolve("sources").resolve("mapped.db"),
+                     workspace.getFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH));
+        final String firstVersion = buildOutputVersion(workspace, "first");
+        assertEquals(firstVersion, workspace.getCurrentOutputVersion());
+        final Path firstFilePath = workspace.getFilePath(firstVersion, WorkspaceFileType.MAPPED_PERSISTENT_GRAPH);
+        try (Graph pinned = workspace.openGraph(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH)) {
+            final String secondVersion = buildOutputVersion(workspace, "second");
+            assertEquals(secondVersion, workspace.getCurrentOutputVersion());
+            assertNotNull(pinned.findNode("Test", "value", "first"));
+            try (Graph current = workspace.openGraph(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH)) {
+                assertNotNull(current.findNode("Test", "value", "second"));
+            }
+            buildOutputVersion(workspace, "third");
+            // The pinned version survives although only the current and the previous version are kept
+            assertEquals(3, workspace.getOutputVersions().length);
+            assertTrue(Files.exists(firstFilePath));
+            assertNotNull(pinned.findNode("Test", "value", "first"));
+        }
+        buildOutputVersion(workspace, "fourth");
+        assertEquals(2, workspace.getOutputVersions().length);
+        assertFalse(Files.exists(firstFilePath));
+    }
+
+    @Test
+    void outputVersionIsKeptWhileMergedGraphsAreBasedOnIt() throws IOException {
+        final Path workingDirectory = Files.createTempDirectory("workspace_test");
+        final Workspace workspace = new Workspace(workingDirectory.toString());
+        final String firstVersion = buildMergedOutputVersion(workspace, null);
+        final Path baseFilePath = workspace.getFilePath(firstVersion, WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
+        buildMergedOutputVersion(workspace, baseFilePath);
+        buildMergedOutputVersion(workspace, baseFilePath);
+        buildMergedOutputVersion(workspace, null);
+        assertTrue(Files.exists(baseFilePath));
+        assertEquals(3, workspace.getOutputVersions().length);
+        buildMergedOutputVersion(workspace, null);
+        assertFalse(Files.exists(baseFilePath));
+        assertEquals(2, workspace.getOutputVersions().length);
+    }
+
+    @Test
+    void interruptedOutputVersionIsResumed() throws IOException {
+        final Path workingDirectory = Files.createTempDirectory("workspace_test");
+        final Workspace workspace = new Workspace(workingDirectory.toString());
+        final String firstVersion = buildOutputVersion(workspace, "first");
+        workspace.beginOutputVersion();
+        final Path filePath = workspace.getFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH);
+        final String interruptedVersion = filePath.getParent().getFileName().toString();
+        assertNotEquals(firstVersion, interruptedVersion);
+        final Workspace restarted = new Workspace(workingDirectory.toString());
+        assertEquals(interruptedVersion, buildOutputVersion(restarted, "second"));
+        assertNotEquals(interruptedVersion, buildOutputVersion(restarted, "third"));
+    }
+
+    @Test
+    void coordinatorAndWorkerProcessAllDataSources() throws Exception {
+        final Path workingDirectory = Files.createTempDirectory("workspace_test");
+        final Workspace setup = new Workspace(workingDirectory.toString());
+        for (final String dataSourceId : new String[]{"Mock1", "Mock2", "Mock3"})
+            setup.addDataSource(dataSourceId);
+        setup.saveConfiguration();
+        final Workspace coordinator = new Workspace(workingDirectory.toString());
+        final Workspace worker = new Workspace(workingDirectory.toString());
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> workerResult = executor.submit(() -> worker.processDataSourcesAsWorker(false));
+            coordinator.processDataSourcesAsCoordinator(false);
+            workerResult.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertNotNull(coordinator.getCurrentOutputVersion());
+        assertFalse(Files.exists(workingDirectory.resolve("sources").resolve("worker-run")));
+        for (final String dataSourceId : new String[]{"Mock1", "Mock2", "Mock3"}) {
+            final Path sourceDirectory = workingDirectory.resolve("sources").resolve(dataSourceId);
+            assertTrue(Files.exists(sourceDirectory.resolve("intermediate.db")));
+            assertFalse(Files.exists(sourceDirectory.resolve("worker.lock")));
+        }
+    }
+
+    private String buildMergedOutputVersion(final Workspace workspace, final Path baseFilePath) {
+        workspace.beginOutputVersion();
+        final Path filePath = workspace.getFilePath(WorkspaceFileType.MERGED_PERSISTENT_GRAPH);
+        try (Graph graph = baseFilePath != null ? new Graph(filePath, baseFilePath) : new Graph(filePath)) {
+            graph.addNode("Test", "value", filePath.toString());
+        }
+        workspace.publishOutputVersion();
+        return filePath.getParent().getFileName().toString();
+    }
+
+    private String buildOutputVersion(final Workspace workspace, final String value) {
+        workspace.beginOutputVersion();
+        final Path filePath = workspace.getFilePath(WorkspaceFileType.MAPPED_PERSISTENT_GRAPH);
+        try (Graph graph = new Graph(filePath)) {
+            graph.addNode("Test", "value", value);
+        }
+        workspace.publishOutputVersion();
+        return filePath.getParent().getFileName().toString();
+    }
+}
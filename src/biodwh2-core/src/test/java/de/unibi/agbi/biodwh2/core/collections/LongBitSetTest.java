@@ -0,0 +1,60 @@
+package de.unibi.agbi.biodwh2.core.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBitSetTest {
+    @Test
+    void addContainsRemoveTest() {
+        final LongBitSet set = new LongBitSet();
+        assertTrue(set.add(0L));
+        assertTrue(set.add(63L));
+        assertTrue(set.add(64L));
+        assertTrue(set.add(100_000L));
+        assertFalse(set.add(64L));
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(100_000L));
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains("64"));
+        assertTrue(set.remove(63L));
+        assertFalse(set.remove(63L));
+        assertFalse(set.contains(63L));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void iteratesInAscendingOrderTest() {
+        final LongBitSet set = new LongBitSet(Arrays.asList(9000L, -5L, 3L, Long.MAX_VALUE, 4096L, 4095L));
+        final List<Long> values = new ArrayList<>(set);
+        assertEquals(Arrays.asList(-5L, 3L, 4095L, 4096L, 9000L, Long.MAX_VALUE), values);
+    }
+
+    @Test
+    void iteratorRemoveTest() {
+        final LongBitSet set = new LongBitSet(Arrays.asList(1L, 2L, 3L, 5000L));
+        final Iterator<Long> iterator = set.iterator();
+        while (iterator.hasNext())
+            if (iterator.next() % 2 == 1)
+                iterator.remove();
+        assertEquals(Arrays.asList(2L, 5000L), new ArrayList<>(set));
+    }
+
+    @Test
+    void retainAllAndAddAllTest() {
+        final LongBitSet first = new LongBitSet(Arrays.asList(1L, 2L, 3L, 10_000L, 20_000L));
+        final LongBitSet second = new LongBitSet(Arrays.asList(2L, 3L, 4L, 20_000L));
+        assertTrue(first.retainAll(second));
+        assertEquals(Arrays.asList(2L, 3L, 20_000L), new ArrayList<>(first));
+        assertTrue(first.addAll(new LongBitSet(Arrays.asList(4L, 50_000L))));
+        assertFalse(first.addAll(second));
+        assertEquals(Arrays.asList(2L, 3L, 4L, 20_000L, 50_000L), new ArrayList<>(first));
+        assertEquals(5, first.size());
+    }
+}
@@ -0,0 +1,52 @@
+package de.unibi.agbi.biodwh2.core.collections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectHashMapTest {
+    @Test
+    void putGetRemoveTest() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(1L, "a"));
+        assertNull(map.put(-7L, "b"));
+        assertEquals("a", map.put(1L, "c"));
+        assertEquals(2, map.size());
+        assertEquals("c", map.get(1L));
+        assertEquals("b", map.get(-7L));
+        assertNull(map.get(2L));
+        assertEquals("c", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperationsTest() {
+        final LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final long key = random.nextInt(5000);
+            if (random.nextBoolean())
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            else
+                assertEquals(expected.remove(key), map.remove(key));
+        }
+        assertEquals(expected.size(), map.size());
+        for (final Map.Entry<Long, Long> entry : expected.entrySet())
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        int count = 0;
+        final PrimitiveIterator.OfLong keys = map.keyIterator();
+        while (keys.hasNext()) {
+            assertTrue(expected.containsKey(keys.nextLong()));
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+}
@@ -2,13 +2,17 @@ package de.unibi.agbi.biodwh2.core.etl;
 
 import de.unibi.agbi.biodwh2.core.DataSource;
 import de.unibi.agbi.biodwh2.core.DevelopmentState;
+import de.unibi.agbi.biodwh2.core.io.memory.MemoryStorage;
 import de.unibi.agbi.biodwh2.core.model.IdentifierType;
 import de.unibi.agbi.biodwh2.core.model.graph.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,7 +45,7 @@ class GraphMapperTest {
                 return new String[]{"Drug"};
             }
         };
-        final Graph graph = Graph.createTempGraph();
+        final Graph graph = new Graph(new MemoryStorage(), true);
         graph.addNode(dataSource.getId() + "_Drug", "id", "D4693", "name", "TestDrug");
         new GraphMapper().mapGraph(graph, new DataSource[]{dataSource});
         final List<Node> nodes = new ArrayList<>();
@@ -74,7 +78,7 @@ class GraphMapperTest {
                 return new String[]{"Drug"};
             }
         };
-        final Graph graph = Graph.createTempGraph();
+        final Graph graph = new Graph(new MemoryStorage(), true);
         int sharedIndex = 0;
         for (int i = 0; i < 1000; i++) {
             if (i % 100 == 0)
@@ -101,6 +105,162 @@ class GraphMapperTest {
         }
     }
 
+    @Test
+    void mapGraphReplaysMappingsOfUnchangedDataSources() throws IOException {
+        final AtomicInteger describeCalls = new AtomicInteger();
+        dataSource.mappingDescriber = new TestMappingDescriber(dataSource) {
+            @Override
+            public NodeMappingDescription[] describe(final Graph graph, final Node node,
+                                                     final String localMappingLabel) {
+                describeCalls.incrementAndGet();
+                final NodeMappingDescription description = new NodeMappingDescription(
+                        NodeMappingDescription.NodeType.DRUG);
+                description.addIdentifier(IdentifierType.DUMMY, node.<String>getProperty("id"));
+                description.addIdentifier("Shared", node.<String>getProperty("id2"));
+                description.addName(node.getProperty("name"));
+                return new NodeMappingDescription[]{description};
+            }
+
+            @Override
+            protected String[] getNodeMappingLabels() {
+                return new String[]{"Drug"};
+            }
+        };
+        final Path previousDirectory = Files.createTempDirectory("GraphMapperTest");
+        final Path directory = Files.createTempDirectory("GraphMapperTest");
+        try (Graph mergedGraph = new Graph(previousDirectory.resolve("merged.db"))) {
+            for (int i = 0; i < 10; i++)
+                mergedGraph.addNode(dataSource.getId() + "_Drug", "id", "D" + i, "name", "Drug" + i, "id2",
+                                    "S" + i / 5);
+        }
+        Files.copy(previousDirectory.resolve("merged.db"), directory.resolve("merged.db"));
+        final Map<String, String> revisions = new HashMap<>();
+        revisions.put(dataSource.getId(), "1");
+        try (Graph graph = new Graph(previousDirectory.resolve("mapped.db"), previousDirectory.resolve("merged.db"))) {
+            new GraphMapper().mapGraph(graph, null, new DataSource[]{dataSource}, revisions, null);
+        }
+        assertEquals(10, describeCalls.getAndSet(0));
+        try (Graph previousGraph = new Graph(previousDirectory.resolve("mapped.db"), true, true);
+             Graph graph = new Graph(directory.resolve("mapped.db"), directory.resolve("merged.db"))) {
+            new GraphMapper().mapGraph(graph, previousGraph, new DataSource[]{dataSource}, revisions, null);
+            assertEquals(0, describeCalls.get());
+            assertEquals(2, graph.getNumberOfNodes(NodeMappingDescription.NodeType.DRUG.name()));
+            assertEquals(10, graph.getNumberOfEdges("MAPPED_TO"));
+            for (final Node node : graph.findNodes(NodeMappingDescription.NodeType.DRUG.name()))
+                assertEquals(6, node.<Collection<String>>getProperty("ids").size());
+        }
+        revisions.put(dataSource.getId(), "2");
+        try (Graph previousGraph = new Graph(directory.resolve("mapped.db"), true, true);
+             Graph graph = new Graph(previousDirectory.resolve("mapped.db"), previousDirectory.resolve("merged.db"))) {
+            new GraphMapper().mapGraph(graph, previousGraph, new DataSource[]{dataSource}, revisions, null);
+            assertEquals(10, describeCalls.get());
+            assertEquals(2, graph.getNumberOfNodes(NodeMappingDescription.NodeType.DRUG.name()));
+        }
+    }
+
+    @Test
+    void mapGraphDescribingNodesConcurrentlyEqualsSequentialMapping() throws IOException {
+        final Set<String> describeThreads = Collections.synchronizedSet(new HashSet<>());
+        dataSource.mappingDescriber = new TestMappingDescriber(dataSource) {
+            @Override
+            public NodeMappingDescription[] describe(final Graph graph, final Node node,
+                                                     final String localMappingLabel) {
+                describeThreads.add(Thread.currentThread().getName());
+                final NodeMappingDescription description = new NodeMappingDescription(
+                        NodeMappingDescription.NodeType.DRUG);
+                description.addIdentifier(IdentifierType.DUMMY, node.<String>getProperty("id"));
+                final Node sharedNode = graph.getNode(node.<Long>getProperty("shared_node_id"));
+                description.addIdentifier("Shared", sharedNode.<String>getProperty("id"));
+                description.addName(node.getProperty("name"));
+                return new NodeMappingDescription[]{description};
+            }
+
+            @Override
+            protected String[] getNodeMappingLabels() {
+                return new String[]{"Drug"};
+            }
+        };
+        final Path directory = Files.createTempDirectory("GraphMapperTest");
+        final Map<String, Long> sequentialEdges;
+        try (Graph graph = createSharedDrugGraph(directory.resolve("sequential.db"))) {
+            new GraphMapper(1).mapGraph(graph, new DataSource[]{dataSource});
+            sequentialEdges = getMappedToEdges(graph);
+        }
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), describeThreads);
+        describeThreads.clear();
+        try (Graph graph = createSharedDrugGraph(directory.resolve("concurrent.db"))) {
+            new GraphMapper(4).mapGraph(graph, new DataSource[]{dataSource});
+            assertEquals(sequentialEdges, getMappedToEdges(graph));
+            assertEquals(20, graph.getNumberOfNodes(NodeMappingDescription.NodeType.DRUG.name()));
+        }
+        assertTrue(describeThreads.size() > 1);
+    }
+
+    @Test
+    void mapGraphDescribingSharedStoredNodesConcurrentlyEqualsSequentialMapping() throws IOException {
+        dataSource.mappingDescriber = new TestMappingDescriber(dataSource) {
+            @Override
+            public NodeMappingDescription[] describe(final Graph graph, final Node node,
+                                                     final String localMappingLabel) {
+                final NodeMappingDescription description = new NodeMappingDescription(
+                        NodeMappingDescription.NodeType.DRUG);
+                description.addIdentifier(IdentifierType.DUMMY, node.<String>getProperty("id"));
+                // All threads read the same few shared nodes, which are decoded lazily after reopening the graph
+                final Node sharedNode = graph.getNode(node.<Long>getProperty("shared_node_id"));
+                for (int i = 0; i < 100; i++)
+                    if (!("value" + i).equals(sharedNode.getProperty("extra" + i)))
+                        throw new IllegalStateException("Missing property of shared node " + sharedNode.getId());
+                description.addIdentifier("Shared", sharedNode.<String>getProperty("id"));
+                description.addName(node.getProperty("name"));
+                return new NodeMappingDescription[]{description};
+            }
+
+            @Override
+            protected String[] getNodeMappingLabels() {
+                return new String[]{"Drug"};
+            }
+        };
+        final Path directory = Files.createTempDirectory("GraphMapperTest");
+        final Map<String, Long> sequentialEdges;
+        try (Graph graph = reopenSharedDrugGraph(directory.resolve("sequential.db"))) {
+            new GraphMapper(1).mapGraph(graph, new DataSource[]{dataSource});
+            sequentialEdges = getMappedToEdges(graph);
+        }
+        try (Graph graph = reopenSharedDrugGraph(directory.resolve("concurrent.db"))) {
+            new GraphMapper(8).mapGraph(graph, new DataSource[]{dataSource});
+            assertEquals(sequentialEdges, getMappedToEdges(graph));
+        }
+    }
+
+    private Graph reopenSharedDrugGraph(final Path filePath) {
+        try (Graph graph = createSharedDrugGraph(filePath)) {
+            for (final Node sharedNode : graph.getNodes(dataSource.getId() + "_Shared")) {
+                for (int i = 0; i < 100; i++)
+                    sharedNode.setProperty("extra" + i, "value" + i);
+                graph.update(sharedNode);
+            }
+        }
+        return new Graph(filePath, true);
+    }
+
+    private Graph createSharedDrugGraph(final Path filePath) {
+        final Graph graph = new Graph(filePath, false, false, true);
+        final long[] sharedNodeIds = new long[20];
+        for (int i = 0; i < sharedNodeIds.length; i++)
+            sharedNodeIds[i] = graph.addNode(dataSource.getId() + "_Shared", "id", "S" + i).getId();
+        for (int i = 0; i < 5000; i++)
+            graph.addNode(dataSource.getId() + "_Drug", "id", "D" + i, "name", "Drug" + i, "shared_node_id",
+                          sharedNodeIds[i % sharedNodeIds.length]);
+        return graph;
+    }
+
+    private static Map<String, Long> getMappedToEdges(final Graph graph) {
+        final Map<String, Long> result = new HashMap<>();
+        for (final Edge edge : graph.getEdges("MAPPED_TO"))
+            result.put(graph.getNode(edge.getFromId()).getProperty("id"), edge.getToId());
+        return result;
+    }
+
     private static class TestMappingDescriber extends MappingDescriber {
         public TestMappingDescriber(final DataSource dataSource) {
             super(dataSource);
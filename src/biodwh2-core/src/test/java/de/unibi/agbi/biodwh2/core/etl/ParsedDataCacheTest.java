@@ -0,0 +1,26 @@
+package de.unibi.agbi.biodwh2.core.etl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParsedDataCacheTest {
+    @Test
+    void readReturnsDataOnlyForMatchingKey() throws IOException {
+        final Path filePath = Files.createTempDirectory("parsed_data_cache_test").resolve("parsed-data.cache");
+        final ParsedDataCache cache = new ParsedDataCache(filePath);
+        assertNull(cache.read("key"));
+        cache.write("key", new ArrayList<>(Arrays.asList("a", "b")));
+        assertEquals(Arrays.asList("a", "b"), cache.read("key"));
+        assertNull(cache.read("other key"));
+        assertFalse(Files.exists(filePath.resolveSibling("parsed-data.cache.tmp")));
+        cache.delete();
+        assertFalse(Files.exists(filePath));
+    }
+}
@@ -1,10 +1,20 @@
 package de.unibi.agbi.biodwh2.core.io.mvstore;
 
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.WriteBuffer;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 class MVStoreCollectionTest {
     private static class TestModel1 extends MVStoreModel {
@@ -49,4 +59,220 @@ class MVStoreCollectionTest {
             collection2.put(TestModel2.newTestModel());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void dictionaryEncodedValuesSurviveReopenTest() throws IOException {
+        final Path tempFilePath = Files.createTempFile("MVStoreCollectionTest.dictionaryTest", ".db");
+        final TestModel1 model = TestModel1.newTestModel();
+        model.put("role", "agonist");
+        model.put("synonyms", new String[]{"a", null, "b"});
+        model.put("description", String.join("", Collections.nCopies(200, "x")));
+        model.put("score", 42);
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            collection.put(model);
+            for (int i = 0; i < 300; i++) {
+                final TestModel1 other = TestModel1.newTestModel();
+                other.put("role", "role" + i);
+                collection.put(other);
+            }
+        }
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString(), true)) {
+            final TestModel1 stored = db.<TestModel1>getCollection("test").get(model.getId());
+            assertEquals("agonist", stored.getProperty("role"));
+            assertArrayEquals(new String[]{"a", null, "b"}, stored.getProperty("synonyms"));
+            assertEquals(model.<String>getProperty("description"), stored.getProperty("description"));
+            assertEquals(42, stored.<Integer>getProperty("score"));
+            assertEquals(301, db.getCollection("test").size());
+        }
+    }
+
+    @Test
+    void readsLegacySerializedModelsTest() throws IOException {
+        final Path tempFilePath = Files.createTempFile("MVStoreCollectionTest.legacyTest", ".db");
+        final TestModel1 model = TestModel1.newTestModel();
+        model.put("names", Arrays.asList("a", "b"));
+        final MVStore store = new MVStore.Builder().fileName(tempFilePath.toString()).open();
+        final MVMap<Long, TestModel1> legacyMap = store.openMap("test");
+        legacyMap.put(model.getId(), model);
+        store.close();
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            assertEquals(Arrays.asList("a", "b"), collection.get(model.getId()).getProperty("names"));
+            final TestModel1 other = TestModel1.newTestModel();
+            collection.put(other);
+            assertNotNull(collection.get(other.getId()));
+        }
+    }
+
+    @Test
+    void largeValuesAreStoredOutOfLineTest() throws IOException {
+        final Path tempFilePath = Files.createTempFile("MVStoreCollectionTest.blobTest", ".db");
+        final String description = String.join(" ", Collections.nCopies(2000, "lorem ipsum"));
+        final TestModel1 model = TestModel1.newTestModel();
+        model.put("name", "short");
+        model.put("description", description);
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            collection.put(model);
+            assertEquals(description, model.getProperty("description"));
+            assertEquals(1, db.openMap("!blobs").size());
+            // Storing an unchanged model keeps the existing blob
+            collection.put(collection.get(model.getId()));
+            assertEquals(1, db.openMap("!blobs").size());
+        }
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            final TestModel1 stored = collection.get(model.getId());
+            assertEquals("short", stored.getProperty("name"));
+            assertEquals(description, stored.getProperty("description"));
+            stored.put("description", description + " changed");
+            collection.put(stored);
+            assertEquals(1, db.openMap("!blobs").size());
+            assertEquals(description + " changed", collection.get(model.getId()).getProperty("description"));
+            collection.remove(stored);
+            assertEquals(0, db.openMap("!blobs").size());
+        }
+    }
+
+    @Test
+    void lazyPropertiesKeepValuesSetBeforeDecodingTest() throws IOException {
+        final Path tempFilePath = Files.createTempFile("MVStoreCollectionTest.lazyTest", ".db");
+        final TestModel1 model = TestModel1.newTestModel();
+        model.put("name", "original");
+        model.put("role", "agonist");
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            db.<TestModel1>getCollection("test").put(model);
+        }
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            final TestModel1 stored = collection.get(model.getId());
+            assertEquals(model.getId(), stored.getId());
+            stored.put("name", "changed");
+            assertEquals(new HashSet<>(Arrays.asList(MVStoreModel.ID_FIELD, "name", "role")), stored.keySet());
+            assertEquals("changed", stored.getProperty("name"));
+            assertEquals("agonist", stored.getProperty("role"));
+            collection.put(stored);
+            assertEquals("changed", collection.get(model.getId()).getProperty("name"));
+        }
+    }
+
+    @Test
+    void readsWhileCommittingKeepAllPropertiesTest() throws Exception {
+        final Path tempFilePath = Files.createTempFile("MVStoreCollectionTest.concurrentTest", ".db");
+        final long[] ids = new long[2000];
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            for (int i = 0; i < ids.length; i++) {
+                final TestModel1 model = TestModel1.newTestModel();
+                model.put("name", "model" + i);
+                model.put("role", "agonist");
+                collection.put(model);
+                ids[i] = model.getId();
+            }
+        }
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString())) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            final List<Thread> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                final Thread reader = new Thread(() -> {
+                    try {
+                        while (writing.get())
+                            for (int i = 0; i < ids.length; i++) {
+                                final TestModel1 stored = collection.get(ids[i]);
+                                assertEquals("model" + i, stored.getProperty("name"));
+                                assertEquals("agonist", stored.getProperty("role"));
+                            }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+            // Updating some models rewrites their pages including the cached models read by the readers
+            for (int round = 0; round < 20 && failure.get() == null; round++) {
+                for (int i = round % 10; i < ids.length; i += 10) {
+                    final TestModel1 stored = collection.get(ids[i]);
+                    stored.put("round", round);
+                    collection.put(stored);
+                }
+                db.commit();
+            }
+            writing.set(false);
+            for (final Thread reader : readers)
+                reader.join();
+        }
+        assertNull(failure.get());
+        try (MVStoreDB db = new MVStoreDB(tempFilePath.toString(), true)) {
+            final MVStoreCollection<TestModel1> collection = db.getCollection("test");
+            for (int i = 0; i < ids.length; i++) {
+                final TestModel1 stored = collection.get(ids[i]);
+                assertEquals("model" + i, stored.getProperty("name"));
+                assertEquals("agonist", stored.getProperty("role"));
+            }
+        }
+    }
+
+    @Test
+    void writingLazyModelDoesNotDecodeItTest() {
+        final ModelDataType dataType = new ModelDataType(new StringDictionary(null));
+        final TestModel1 model = TestModel1.newTestModel();
+        model.put("name", "original");
+        model.put("role", "agonist");
+        final TestModel1 lazy = (TestModel1) dataType.read(write(dataType, model));
+        lazy.put("name", "changed");
+        final TestModel1 rewritten = (TestModel1) dataType.read(write(dataType, lazy));
+        assertNotNull(lazy.snapshotProperties().encodedProperties);
+        assertEquals("changed", rewritten.getProperty("name"));
+        assertEquals("agonist", rewritten.getProperty("role"));
+        assertEquals(new HashSet<>(Arrays.asList(MVStoreModel.ID_FIELD, "name", "role")), rewritten.keySet());
+    }
+
+    @Test
+    void concurrentReadsOfLazyModelSeeAllPropertiesTest() throws Exception {
+        final ModelDataType dataType = new ModelDataType(new StringDictionary(null));
+        final TestModel1 model = TestModel1.newTestModel();
+        for (int i = 0; i < 512; i++)
+            model.put("key" + i, "value" + i);
+        final ByteBuffer encoded = write(dataType, model);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int round = 0; round < 500 && failure.get() == null; round++) {
+            // Cached models are shared between readers, so all of them decode the same instance
+            final TestModel1 lazy = (TestModel1) dataType.read(encoded.duplicate());
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> readers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int offset = t * 128;
+                final Thread reader = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 512; i++) {
+                            final int index = (offset + i) % 512;
+                            assertEquals("value" + index, lazy.getProperty("key" + index));
+                        }
+                        assertEquals(513, lazy.keySet().size());
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+            start.countDown();
+            for (final Thread reader : readers)
+                reader.join();
+        }
+        assertNull(failure.get());
+    }
+
+    private static ByteBuffer write(final ModelDataType dataType, final MVStoreModel model) {
+        final WriteBuffer buffer = new WriteBuffer();
+        dataType.write(buffer, model);
+        final ByteBuffer result = buffer.getBuffer();
+        result.flip();
+        return result;
+    }
+}
@@ -0,0 +1,85 @@
+package de.unibi.agbi.biodwh2.core.io.snapshot;
+
+import de.unibi.agbi.biodwh2.core.model.graph.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotWriterTest {
+    @Test
+    void snapshotMatchesGraph() throws IOException {
+        final Path snapshotFilePath = Files.createTempFile("graph_snapshot_test", ".snapshot");
+        try (Graph graph = Graph.createTempGraph()) {
+            final Node tlr4 = graph.addNode("Gene", "hgnc_id", "TLR4", "array_test",
+                                            new String[]{"value1", "value2", "value3"}, "int_test", 10);
+            tlr4.setProperty("bool_test", true);
+            tlr4.setProperty("long_array_test", new long[]{1, 2, 3});
+            tlr4.setProperty("double_test", 0.5);
+            graph.update(tlr4);
+            final Node il10 = graph.addNode("Gene", "hgnc_id", "IL10");
+            final Node drug = graph.addNode("Drug", "drugbank_id", "DB01183");
+            graph.addEdge(drug, drug, "INTERACTS");
+            graph.addEdge(drug, tlr4, "TARGETS", "source", "test");
+            graph.addEdge(drug, il10, "TARGETS");
+            assertTrue(new GraphSnapshotWriter().write(snapshotFilePath, graph));
+            try (SnapshotGraph snapshot = new SnapshotGraph(snapshotFilePath)) {
+                assertEquals(graph.getNumberOfNodes(), snapshot.getNumberOfNodes());
+                assertEquals(graph.getNumberOfEdges(), snapshot.getNumberOfEdges());
+                assertEquals(new HashSet<>(Arrays.asList(graph.getNodeLabels())),
+                             new HashSet<>(Arrays.asList(snapshot.getNodeLabels())));
+                for (final Node node : graph.getNodes())
+                    assertNodeEquals(node, snapshot.getNode(node.getId()));
+                for (final String label : graph.getEdgeLabels())
+                    for (final Edge edge : graph.getEdges(label)) {
+                        final SnapshotEdge snapshotEdge = snapshot.getEdge(edge.getId());
+                        assertEquals(edge.getLabel(), snapshotEdge.getLabel());
+                        assertEquals(edge.getFromId(), snapshotEdge.getFromId());
+                        assertEquals(edge.getToId(), snapshotEdge.getToId());
+                        assertEquals(edge.<String>getProperty("source"), snapshotEdge.getProperty("source"));
+                    }
+                int geneCount = 0;
+                for (final SnapshotNode node : snapshot.getNodes("Gene")) {
+                    assertEquals("Gene", node.getLabel());
+                    geneCount++;
+                }
+                assertEquals(2, geneCount);
+                assertAdjacentNodeIdsEqual(graph, snapshot, drug.getId(), "TARGETS", EdgeDirection.FORWARD);
+                assertAdjacentNodeIdsEqual(graph, snapshot, drug.getId(), null, EdgeDirection.BIDIRECTIONAL);
+                assertAdjacentNodeIdsEqual(graph, snapshot, tlr4.getId(), "TARGETS", EdgeDirection.BACKWARD);
+                assertAdjacentNodeIdsEqual(graph, snapshot, tlr4.getId(), "INTERACTS", EdgeDirection.BIDIRECTIONAL);
+                assertNull(snapshot.getNode(-1));
+            }
+        } finally {
+            Files.deleteIfExists(snapshotFilePath);
+        }
+    }
+
+    private void assertNodeEquals(final Node expected, final SnapshotNode actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getLabel(), actual.getLabel());
+        for (final String key : expected.keySet()) {
+            if (Node.IGNORED_FIELDS.contains(key))
+                continue;
+            final Object value = expected.getProperty(key);
+            if (value.getClass().isArray())
+                assertTrue(Objects.deepEquals(value, actual.getProperty(key)));
+            else
+                assertEquals(value, actual.getProperty(key));
+        }
+    }
+
+    private void assertAdjacentNodeIdsEqual(final Graph graph, final SnapshotGraph snapshot, final long nodeId,
+                                            final String edgeLabel, final EdgeDirection direction) {
+        final long[] expected = Arrays.stream(graph.getAdjacentNodeIdsForEdgeLabel(nodeId, edgeLabel, direction))
+                                      .mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(expected, snapshot.getAdjacentNodeIds(nodeId, edgeLabel, direction));
+    }
+}
@@ -1,14 +1,22 @@
 package de.unibi.agbi.biodwh2.core.model.graph;
 
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
+import de.unibi.agbi.biodwh2.core.exceptions.GraphCacheException;
+import de.unibi.agbi.biodwh2.core.io.memory.MemoryStorage;
+import de.unibi.agbi.biodwh2.core.io.storage.StorageTransaction;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -174,4 +182,311 @@ class GraphTest {
         assertFalse(description.get().isArrayProperty());
         assertEquals(IndexDescription.Type.NON_UNIQUE, description.get().getType());
     }
+
+    @Test
+    void overlayGraphReadsThroughToBase() throws IOException {
+        final Path baseFilePath = Files.createTempFile("graphdb_test", ".db");
+        final Path overlayFilePath = Files.createTempFile("graphdb_test", ".db");
+        final Node baseNode;
+        final Node removedNode;
+        try (Graph base = new Graph(baseFilePath)) {
+            base.addIndex(IndexDescription.forNode("Test", "id", false, IndexDescription.Type.UNIQUE));
+            baseNode = base.addNode("Test", "id", "a", "value", 1);
+            removedNode = base.addNode("Test", "id", "b", "value", 2);
+            base.addEdge(baseNode, removedNode, "LABEL1");
+        }
+        try (Graph overlay = new Graph(overlayFilePath, baseFilePath)) {
+            assertTrue(overlay.isOverlay());
+            assertEquals(2, overlay.getNumberOfNodes());
+            assertEquals(1, overlay.getNumberOfEdges());
+            assertEquals(baseNode.getId(), overlay.findNode("Test", "id", "a").getId());
+            final Node node = overlay.getNode(baseNode.getId());
+            node.setProperty("value", 3);
+            overlay.update(node);
+            overlay.addNode("Test", "id", "c", "value", 4);
+            overlay.removeNode(removedNode);
+            assertEquals(2, overlay.getNumberOfNodes());
+            assertEquals(0, overlay.getNumberOfEdges());
+            assertNull(overlay.findNode("Test", "id", "b"));
+            assertNull(overlay.findNode("Test", "value", 1));
+            assertNotNull(overlay.findNode("Test", "value", 3));
+            assertNotNull(overlay.findNode("Test", "id", "c"));
+        }
+        try (Graph base = new Graph(baseFilePath, true, true)) {
+            assertEquals(2, base.getNumberOfNodes());
+            assertEquals(1, base.getNumberOfEdges());
+            assertEquals(1, base.getNode(baseNode.getId()).<Integer>getProperty("value"));
+        }
+        try (Graph overlay = new Graph(overlayFilePath, true, true)) {
+            assertEquals(baseFilePath.toAbsolutePath(), overlay.getBaseFilePath());
+            assertEquals(2, overlay.getNumberOfNodes());
+            assertEquals(3, overlay.getNode(baseNode.getId()).<Integer>getProperty("value"));
+            assertNull(overlay.getNode(removedNode.getId()));
+        }
+    }
+
+    @Test
+    void newGraphAllocatesDenseIds() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_test", ".db");
+        final Node first;
+        try (Graph g = new Graph(tempFilePath, false, false, true)) {
+            assertTrue(g.hasDenseIds());
+            first = g.addNode("A");
+            final Node second = g.addNode("B");
+            final Edge edge = g.addEdge(first, second, "LABEL1");
+            assertEquals(0, first.getId());
+            assertEquals(1, second.getId());
+            assertEquals(2, edge.getId());
+            assertEquals(3, g.getIdUpperBound());
+            final NodeLabelLookup lookup = g.createNodeLabelLookup();
+            assertEquals("A", lookup.getLabel(first.getId()));
+            assertEquals("B", lookup.getLabel(second.getId()));
+            assertNull(lookup.getLabel(edge.getId()));
+        }
+        try (Graph g = new Graph(tempFilePath, true)) {
+            assertTrue(g.hasDenseIds());
+            assertEquals(3, g.getIdUpperBound());
+            assertEquals(3, g.addNode("A").getId());
+            assertEquals("A", g.getNode(first.getId()).getLabel());
+        }
+    }
+
+    @Test
+    void newGraphWithoutDenseIdsLooksUpSparseLabels() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_test", ".db");
+        try (Graph g = new Graph(tempFilePath, false, false, false)) {
+            assertFalse(g.hasDenseIds());
+            assertEquals(-1, g.getIdUpperBound());
+            final Node[] nodes = new Node[]{g.addNode("A"), g.addNode("B"), g.addNode("A"), g.addNode("C")};
+            final Edge edge = g.addEdge(nodes[0], nodes[1], "LABEL1");
+            final NodeLabelLookup lookup = g.createNodeLabelLookup();
+            for (final Node node : nodes)
+                assertEquals(node.getLabel(), lookup.getLabel(node.getId()));
+            assertNull(lookup.getLabel(edge.getId()));
+            assertFalse(lookup.contains(edge.getId()));
+        }
+    }
+
+    @Test
+    void inMemoryGraphFindsAndIsolatesNodes() {
+        try (Graph g = Graph.createInMemoryGraph()) {
+            assertNull(g.getFilePath());
+            assertFalse(g.hasDenseIds());
+            g.addIndex(IndexDescription.forNode("Test", "id", false, IndexDescription.Type.UNIQUE));
+            final Node first = g.addNode("Test", "id", "a", "names", new String[]{"x", "y"});
+            final Node second = g.addNode("Test", "id", "b", "names", new String[]{"y"});
+            g.addEdge(first, second, "LABEL1");
+            assertEquals(first.getId(), g.findNode("Test", "id", "a").getId());
+            assertEquals(2, StreamSupport.stream(g.findNodes("Test", "names", "y").spliterator(), false).count());
+            assertEquals(1, g.getNumberOfEdges("LABEL1"));
+            final Node retrieved = g.getNode(first.getId());
+            retrieved.setProperty("id", "c");
+            assertNotNull(g.findNode("Test", "id", "a"));
+            g.update(retrieved);
+            assertNull(g.findNode("Test", "id", "a"));
+            assertNotNull(g.findNode("Test", "id", "c"));
+        }
+    }
+
+    @Test
+    void inMemoryIndexMatchesIntegralKeysAcrossTypes() {
+        try (Graph g = Graph.createInMemoryGraph()) {
+            g.addIndex(IndexDescription.forNode("Test", "id", false, IndexDescription.Type.UNIQUE));
+            g.addIndex(IndexDescription.forNode("Test", "code", false, IndexDescription.Type.NON_UNIQUE));
+            final Node first = g.addNode("Test", "id", 1, "code", 7L);
+            final Node second = g.addNode("Test", "id", 2L, "code", 7);
+            assertEquals(first.getId(), g.findNode("Test", "id", 1L).getId());
+            assertEquals(second.getId(), g.findNode("Test", "id", 2).getId());
+            assertEquals(2, StreamSupport.stream(g.findNodes("Test", "code", 7).spliterator(), false).count());
+            assertNull(g.findNode("Test", "id", 3));
+        }
+    }
+
+    @Test
+    void transactionRollbackRevertsChanges() throws IOException {
+        try (Graph g = Graph.createTempGraph()) {
+            assertTransactionRollbackRevertsChanges(g);
+        }
+        try (Graph g = Graph.createInMemoryGraph()) {
+            assertTransactionRollbackRevertsChanges(g);
+        }
+    }
+
+    private void assertTransactionRollbackRevertsChanges(final Graph g) {
+        final Node kept = g.addNode("Test", "value", 1);
+        try (StorageTransaction transaction = g.beginTransaction()) {
+            g.addNode("Test", "value", 2);
+            g.addNode("Other", "value", 3);
+            kept.setProperty("value", 4);
+            g.update(kept);
+            transaction.commit();
+        }
+        try (StorageTransaction ignored = g.beginTransaction()) {
+            g.addNode("Test", "value", 5);
+            g.addNode("Removed", "value", 6);
+            g.removeNode(kept);
+        }
+        assertEquals(2, g.getNumberOfNodes("Test"));
+        assertEquals(0, g.getNumberOfNodes("Removed"));
+        assertEquals(4, g.getNode(kept.getId()).<Integer>getProperty("value"));
+        assertNull(g.findNode("Test", "value", 5));
+        assertNotNull(g.findNode("Other", "value", 3));
+    }
+
+    @Test
+    void scanPropertyReadsColumnValues() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_test", ".db");
+        final Node first;
+        final Node second;
+        try (Graph g = new Graph(tempFilePath)) {
+            first = g.addNode("Gene", "symbol", "BRCA1", "name", "first");
+            g.addPropertyColumn("Gene", "symbol");
+            second = g.addNode("Gene", "symbol", "TP53");
+            g.addNode("Gene", "name", "no symbol");
+            assertEquals(2, scanPropertyToMap(g, "Gene", "symbol").size());
+            // Keys without a column fall back to the nodes
+            assertEquals(2, scanPropertyToMap(g, "Gene", "name").size());
+            second.setProperty("symbol", "TP63");
+            g.update(second);
+            g.removeNode(first);
+        }
+        try (Graph g = new Graph(tempFilePath, true, true)) {
+            final Map<Long, String> symbols = scanPropertyToMap(g, "Gene", "symbol");
+            assertEquals(1, symbols.size());
+            assertEquals("TP63", symbols.get(second.getId()));
+            assertTrue(scanPropertyToMap(g, "Missing", "symbol").isEmpty());
+        }
+    }
+
+    @Test
+    void valuesAboveBlobThresholdAreStoredOutOfLine() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_test", ".db");
+        final String longValue = String.join("", Collections.nCopies(8, "description "));
+        final Node node;
+        try (Graph g = new Graph(tempFilePath)) {
+            g.setBlobThreshold(16);
+            node = g.addNode("Test", "description", longValue, "name", "short");
+            node.setProperty("description", longValue + "updated");
+            g.update(node);
+        }
+        try (Graph g = new Graph(tempFilePath, true, true)) {
+            final Node stored = g.getNode(node.getId());
+            assertEquals(longValue + "updated", stored.getProperty("description"));
+            assertEquals("short", stored.getProperty("name"));
+        }
+    }
+
+    private Map<Long, String> scanPropertyToMap(final Graph g, final String label, final String key) {
+        final Map<Long, String> result = new HashMap<>();
+        for (final Tuple2<Long, String> value : g.<String>scanProperty(label, key))
+            result.put(value.getFirst(), value.getSecond());
+        return result;
+    }
+
+    @Test
+    void removeMergedDatabaseOnlyRemovesItsLabels() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_merge_test", ".db");
+        try (Graph merged = new Graph(tempFilePath)) {
+            for (final String dataSourceId : new String[]{"A", "B"}) {
+                try (Graph source = Graph.createTempGraph()) {
+                    final Node n1 = source.addNode("Gene", "id", dataSourceId + "1");
+                    final Node n2 = source.addNode("Gene", "id", dataSourceId + "2");
+                    source.addEdge(n1, n2, "LINKS");
+                    merged.mergeDatabase(dataSourceId, source, dataSourceId + "-r1");
+                }
+            }
+            assertEquals(new HashSet<>(Arrays.asList("A", "B")),
+                         new HashSet<>(Arrays.asList(merged.getMergedDataSourceIds())));
+            merged.removeMergedDatabase("A");
+            assertArrayEquals(new String[]{"B"}, merged.getMergedDataSourceIds());
+            assertNull(merged.getMergedRevision("A"));
+            assertEquals("B-r1", merged.getMergedRevision("B"));
+            assertArrayEquals(new String[]{"B_Gene"}, merged.getNodeLabels());
+            assertEquals(2, merged.getNumberOfNodes());
+            assertEquals(1, merged.getNumberOfEdges());
+        }
+        try (Graph reopened = new Graph(tempFilePath, true)) {
+            assertArrayEquals(new String[]{"B_Gene"}, reopened.getNodeLabels());
+            assertArrayEquals(new String[]{"B_LINKS"}, reopened.getEdgeLabels());
+            assertNotNull(reopened.findNode("B_Gene", "id", "B1"));
+        }
+    }
+
+    @Test
+    void mergeDatabaseRejectsEdgesReferencingMissingNodes() throws IOException {
+        for (final boolean denseIds : new boolean[]{true, false}) {
+            try (Graph merged = Graph.createTempGraph();
+                 Graph source = new Graph(new MemoryStorage(), denseIds)) {
+                final Node node = source.addNode("Gene", "id", "A");
+                source.addEdge(node, node.getId() + 1000, "LINKS");
+                assertThrows(GraphCacheException.class, () -> merged.mergeDatabase("A", source));
+            }
+        }
+    }
+
+    @Test
+    void overlayOfMergedGraphReplacesMergedDatabaseWithoutChangingBase() throws IOException {
+        final Path baseFilePath = Files.createTempFile("graphdb_merge_test", ".db");
+        final Path overlayFilePath = Files.createTempFile("graphdb_merge_test", ".db");
+        final Path mappedFilePath = Files.createTempFile("graphdb_merge_test", ".db");
+        try (Graph base = new Graph(baseFilePath)) {
+            for (final String dataSourceId : new String[]{"A", "B"})
+                mergeGenes(base, dataSourceId, dataSourceId + "-r1");
+        }
+        try (Graph overlay = new Graph(overlayFilePath, baseFilePath)) {
+            overlay.inheritMergedDatabases();
+            assertEquals("A-r1", overlay.getMergedRevision("A"));
+            overlay.removeMergedDatabase("A");
+            assertArrayEquals(new String[]{"B_Gene"}, overlay.getNodeLabels());
+            mergeGenes(overlay, "A", "A-r2");
+            assertEquals("A-r2", overlay.getMergedRevision("A"));
+        }
+        try (Graph mapped = new Graph(mappedFilePath, overlayFilePath)) {
+            assertEquals(4, mapped.getNumberOfNodes());
+            assertNotNull(mapped.findNode("A_Gene", "id", "A-r2"));
+            assertNull(mapped.findNode("A_Gene", "id", "A-r1"));
+        }
+        assertEquals(baseFilePath.toAbsolutePath(), Graph.peekBaseFilePath(overlayFilePath));
+        try (Graph base = new Graph(baseFilePath, true, true)) {
+            assertEquals("A-r1", base.getMergedRevision("A"));
+            assertNotNull(base.findNode("A_Gene", "id", "A-r1"));
+            assertEquals(4, base.getNumberOfNodes());
+        }
+    }
+
+    private static void mergeGenes(final Graph merged, final String dataSourceId,
+                                   final String revision) throws IOException {
+        try (Graph source = Graph.createTempGraph()) {
+            final Node n1 = source.addNode("Gene", "id", revision);
+            final Node n2 = source.addNode("Gene", "id", dataSourceId + "2");
+            source.addEdge(n1, n2, "LINKS");
+            merged.mergeDatabase(dataSourceId, source, revision);
+        }
+    }
+
+    @Test
+    void resumeCheckpointsRemovesObjectsCreatedAfterLastCheckpoint() throws IOException {
+        final Path tempFilePath = Files.createTempFile("graphdb_checkpoint_test", ".db");
+        try (Graph g = new Graph(tempFilePath, false, false, true)) {
+            g.beginCheckpoints("run");
+            final Node first = g.addNode("Gene", "id", "1");
+            final Node second = g.addNode("Gene", "id", "2");
+            g.addEdge(first, second, "LINKS");
+            g.completeCheckpoint("genes");
+            final Node third = g.addNode("Gene", "id", "3");
+            g.addEdge(second, third, "LINKS");
+        }
+        try (Graph g = new Graph(tempFilePath, true)) {
+            assertEquals("run", g.getCheckpointRunKey());
+            assertTrue(g.hasCheckpoint("genes"));
+            assertFalse(g.hasCheckpoint("proteins"));
+            assertEquals(2, g.resumeCheckpoints());
+            assertEquals(2, g.getNumberOfNodes());
+            assertEquals(1, g.getNumberOfEdges());
+            assertNull(g.findNode("Gene", "id", "3"));
+            g.endCheckpoints();
+            assertNull(g.getCheckpointRunKey());
+            assertEquals(0, g.getCheckpointCount());
+        }
+    }
 }
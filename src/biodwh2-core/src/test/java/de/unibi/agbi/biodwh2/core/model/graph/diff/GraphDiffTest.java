@@ -0,0 +1,147 @@
+package de.unibi.agbi.biodwh2.core.model.graph.diff;
+
+import de.unibi.agbi.biodwh2.core.model.graph.Graph;
+import de.unibi.agbi.biodwh2.core.model.graph.IndexDescription;
+import de.unibi.agbi.biodwh2.core.model.graph.Node;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphDiffTest {
+    @Test
+    void compareMatchesNodesByDeclaredUniqueKey() throws IOException {
+        try (Graph oldGraph = Graph.createTempGraph(); Graph newGraph = Graph.createTempGraph()) {
+            oldGraph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+            final Node a = oldGraph.addNode("Gene", "id", "A", "name", "alpha");
+            final Node b = oldGraph.addNode("Gene", "id", "B", "name", "beta");
+            oldGraph.addNode("Gene", "id", "C", "name", "gamma");
+            oldGraph.addEdge(a, b, "INTERACTS");
+            newGraph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+            // Ids differ between the versions, so nodes have to be matched by key
+            final Node d = newGraph.addNode("Gene", "id", "D", "name", "delta");
+            final Node newB = newGraph.addNode("Gene", "id", "B", "name", "beta");
+            final Node newA = newGraph.addNode("Gene", "id", "A", "name", "ALPHA");
+            newGraph.addEdge(newA, newB, "INTERACTS");
+            newGraph.addEdge(newB, d, "INTERACTS");
+            final List<GraphChange> changes = new ArrayList<>();
+            final GraphDiffResult result = new GraphDiff(oldGraph, newGraph).compare(changes::add);
+            assertEquals(1, result.getAddedNodeCount());
+            assertEquals(1, result.getRemovedNodeCount());
+            assertEquals(1, result.getChangedNodeCount());
+            assertEquals(1, result.getAddedEdgeCount());
+            assertEquals(0, result.getRemovedEdgeCount());
+            assertEquals(0, result.getChangedEdgeCount());
+            assertEquals(4, changes.size());
+            final GraphChange changed = changes.stream().filter(c -> c.getType() == GraphChange.Type.CHANGED)
+                                               .findFirst().orElseThrow(AssertionError::new);
+            assertEquals("A", changed.getKey());
+            assertEquals(a.getId(), changed.getOldId());
+            assertEquals(newA.getId(), changed.getNewId());
+        }
+    }
+
+    @Test
+    void compareReportsLabelsWithoutKeyAsNotDiffable() throws IOException {
+        try (Graph oldGraph = Graph.createTempGraph(); Graph newGraph = Graph.createTempGraph()) {
+            final Node x = oldGraph.addNode("Term", "name", "x");
+            oldGraph.addEdge(x, oldGraph.addNode("Term", "name", "y"), "IS_A");
+            newGraph.addNode("Term", "name", "x");
+            newGraph.addNode("Synonym", "name", "z");
+            final GraphDiffResult result = new GraphDiff(oldGraph, newGraph).compare();
+            assertFalse(result.isComplete());
+            assertEquals(Collections.singleton("Term"), result.getNotDiffableNodeLabels());
+            assertEquals(Collections.singleton("IS_A"), result.getNotDiffableEdgeLabels());
+            // Labels only present in one graph are still fully added or removed
+            assertEquals(1, result.getAddedNodeCount());
+            assertEquals(0, result.getRemovedEdgeCount());
+        }
+    }
+
+    @Test
+    void compareMatchesParallelEdgesByMultiplicity() throws IOException {
+        try (Graph oldGraph = Graph.createTempGraph(); Graph newGraph = Graph.createTempGraph()) {
+            oldGraph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+            final Node oldA = oldGraph.addNode("Gene", "id", "A");
+            final Node oldB = oldGraph.addNode("Gene", "id", "B");
+            oldGraph.addEdge(oldA, oldB, "INTERACTS", "source", "first");
+            oldGraph.addEdge(oldA, oldB, "INTERACTS", "source", "second");
+            oldGraph.addEdge(oldA, oldB, "INTERACTS", "source", "third");
+            oldGraph.addEdge(oldB, oldA, "INTERACTS", "source", "first");
+            newGraph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+            final Node newB = newGraph.addNode("Gene", "id", "B");
+            final Node newA = newGraph.addNode("Gene", "id", "A");
+            newGraph.addEdge(newA, newB, "INTERACTS", "source", "second");
+            newGraph.addEdge(newA, newB, "INTERACTS", "source", "fourth");
+            newGraph.addEdge(newB, newA, "INTERACTS", "source", "first");
+            newGraph.addEdge(newB, newA, "INTERACTS", "source", "first");
+            final GraphDiffResult result = new GraphDiff(oldGraph, newGraph).compare();
+            assertTrue(result.isComplete());
+            assertEquals(0, result.getChangedNodeCount());
+            assertEquals(1, result.getChangedEdgeCount());
+            assertEquals(1, result.getRemovedEdgeCount());
+            assertEquals(1, result.getAddedEdgeCount());
+            assertFalse(new GraphDiff(newGraph, newGraph).compare().hasChanges());
+        }
+    }
+
+    @Test
+    void compareWithSpilledEdgeChunksEqualsInMemoryComparison() throws IOException {
+        try (Graph oldGraph = Graph.createTempGraph(); Graph newGraph = Graph.createTempGraph()) {
+            final Random random = new Random(42);
+            final Node[] oldNodes = addGenes(oldGraph, 30);
+            final Node[] newNodes = addGenes(newGraph, 30);
+            for (int i = 0; i < 300; i++) {
+                final int from = random.nextInt(30);
+                final int to = random.nextInt(30);
+                final int source = random.nextInt(3);
+                if (random.nextInt(4) != 0)
+                    oldGraph.addEdge(oldNodes[from], oldNodes[to], "INTERACTS", "source", source);
+                if (random.nextInt(4) != 0) {
+                    final int newSource = random.nextInt(4) != 0 ? source : source + 1;
+                    newGraph.addEdge(newNodes[from], newNodes[to], "INTERACTS", "source", newSource);
+                }
+            }
+            final List<String> expected = new ArrayList<>();
+            final GraphDiffResult expectedResult = new GraphDiff(oldGraph, newGraph).compare(
+                    change -> expected.add(change.toString()));
+            final List<String> actual = new ArrayList<>();
+            final GraphDiffResult result = new GraphDiff(oldGraph, newGraph).setEdgeChunkSize(7).compare(
+                    change -> actual.add(change.toString()));
+            assertTrue(expectedResult.getAddedEdgeCount() > 0);
+            assertTrue(expectedResult.getChangedEdgeCount() > 0);
+            assertEquals(expected, actual);
+            assertEquals(expectedResult.getRemovedEdgeCount(), result.getRemovedEdgeCount());
+        }
+    }
+
+    private static Node[] addGenes(final Graph graph, final int count) {
+        graph.addIndex(IndexDescription.forNode("Gene", "id", IndexDescription.Type.UNIQUE));
+        final Node[] nodes = new Node[count];
+        for (int i = count - 1; i >= 0; i--)
+            nodes[i] = graph.addNode("Gene", "id", "G" + i);
+        return nodes;
+    }
+
+    @Test
+    void compareWritesChangeLog() throws IOException {
+        try (Graph oldGraph = Graph.createTempGraph(); Graph newGraph = Graph.createTempGraph()) {
+            newGraph.addIndex(IndexDescription.forNode("Gene", "id"));
+            newGraph.addNode("Gene", "id", "A");
+            final Path changeLogFilePath = Files.createTempFile("graph_diff_test", ".tsv");
+            final GraphDiffResult result = new GraphDiff(oldGraph, newGraph).setNodeKey("Gene", "id").compare(
+                    changeLogFilePath);
+            assertTrue(result.hasChanges());
+            final List<String> lines = Files.readAllLines(changeLogFilePath);
+            assertEquals(2, lines.size());
+            assertTrue(lines.get(1).startsWith("ADDED\tNODE\tGene\tA\t"));
+        }
+    }
+}
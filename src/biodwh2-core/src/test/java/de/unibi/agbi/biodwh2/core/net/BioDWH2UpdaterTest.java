@@ -0,0 +1,77 @@
+package de.unibi.agbi.biodwh2.core.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.unibi.agbi.biodwh2.core.model.Version;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BioDWH2UpdaterTest {
+    private static final byte[] RELEASES = ("[{\"tag_name\": \"v99.0.0\", \"body\": \"Test release\", \"assets\": " +
+                                            "[{\"name\": \"BioDWH2-v99.0.0.jar\", \"browser_download_url\": " +
+                                            "\"http://localhost/BioDWH2-v99.0.0.jar\"}]}]").getBytes(
+            StandardCharsets.UTF_8);
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private String releasesUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        releasesUrl = "http://localhost:" + server.getAddress().getPort() + "/releases";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        exchange.sendResponseHeaders(200, RELEASES.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(RELEASES);
+        }
+    }
+
+    @Test
+    void checkForUpdateCachesResult() throws Exception {
+        final Path cacheFilePath = Files.createTempDirectory("BioDWH2UpdaterTest").resolve("update-check.json");
+        final long timeToLive = TimeUnit.HOURS.toMillis(1);
+        final Version version = BioDWH2Updater.checkForUpdate("BioDWH2", releasesUrl, cacheFilePath, timeToLive)
+                                              .get(10, TimeUnit.SECONDS);
+        assertEquals(new Version(99, 0, 0), version);
+        assertEquals(1, requests.get());
+        assertEquals(version, BioDWH2Updater.checkForUpdate("BioDWH2", releasesUrl, cacheFilePath, timeToLive).get(
+                10, TimeUnit.SECONDS));
+        assertEquals(1, requests.get());
+        BioDWH2Updater.checkForUpdate("BioDWH2", releasesUrl, cacheFilePath, 0).get(10, TimeUnit.SECONDS);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void checkForUpdateCachesUnreachableEndpoint() throws Exception {
+        final Path cacheFilePath = Files.createTempDirectory("BioDWH2UpdaterTest").resolve("update-check.json");
+        final String unreachableUrl = releasesUrl.replace("/releases", "/missing");
+        server.removeContext("/");
+        assertNull(BioDWH2Updater.checkForUpdate("BioDWH2", unreachableUrl, cacheFilePath,
+                                                 TimeUnit.HOURS.toMillis(1)).get(10, TimeUnit.SECONDS));
+        assertTrue(Files.exists(cacheFilePath));
+    }
+}
@@ -0,0 +1,196 @@
+package de.unibi.agbi.biodwh2.core.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.unibi.agbi.biodwh2.core.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadManagerTest {
+    private final Map<String, byte[]> files = new HashMap<>();
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicBoolean dropNextFullResponse = new AtomicBoolean();
+    private HttpServer server;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final Random random = new Random(42);
+        for (final int size : new int[]{1000, 100000, 300000}) {
+            final byte[] content = new byte[size];
+            random.nextBytes(content);
+            files.put("/file" + size + ".bin", content);
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        directory = Files.createTempDirectory("DownloadManagerTest");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        final byte[] content = files.get(exchange.getRequestURI().getPath());
+        if (content == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        final String eTag = "\"" + Arrays.hashCode(content) + "\"";
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().add("ETag", eTag);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        final String range = ifRange == null || ifRange.equals(eTag) ? exchange.getRequestHeaders().getFirst("Range") :
+                             null;
+        int start = 0;
+        int end = content.length;
+        if (range != null) {
+            ranges.add(range);
+            final String[] parts = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(parts[0]);
+            if (!parts[1].isEmpty())
+                end = Integer.parseInt(parts[1]) + 1;
+            exchange.getResponseHeaders().add("Content-Range",
+                                              "bytes " + start + "-" + (end - 1) + "/" + content.length);
+        }
+        exchange.sendResponseHeaders(range != null ? 206 : 200, end - start);
+        try (OutputStream output = exchange.getResponseBody()) {
+            if (range == null && dropNextFullResponse.getAndSet(false))
+                end = start + (end - start) / 2;
+            output.write(content, start, end - start);
+        }
+    }
+
+    private String getUri(final String fileName) {
+        return "http://localhost:" + server.getAddress().getPort() + fileName;
+    }
+
+    @Test
+    void downloadsFilesConcurrentlyTest() throws IOException {
+        final DownloadManager manager = new DownloadManager(2);
+        final List<DownloadManager.Download> downloads = new ArrayList<>();
+        for (final String fileName : files.keySet())
+            downloads.add(new DownloadManager.Download(getUri(fileName), directory.resolve(fileName.substring(1))));
+        manager.download(downloads);
+        for (final Map.Entry<String, byte[]> file : files.entrySet())
+            assertArrayEquals(file.getValue(), Files.readAllBytes(directory.resolve(file.getKey().substring(1))));
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    void resumesExistingPartFileTest() throws IOException {
+        final byte[] content = files.get("/file100000.bin");
+        final Path target = directory.resolve("file.bin");
+        Files.write(directory.resolve("file.bin" + DownloadManager.PART_FILE_EXTENSION),
+                    Arrays.copyOf(content, 40000));
+        Files.write(directory.resolve(
+                "file.bin" + DownloadManager.PART_FILE_EXTENSION + DownloadManager.VALIDATOR_FILE_EXTENSION),
+                    ("\"" + Arrays.hashCode(content) + "\"").getBytes(StandardCharsets.UTF_8));
+        new DownloadManager().download(new DownloadManager.Download(getUri("/file100000.bin"), target));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(Collections.singletonList("bytes=40000-"), ranges);
+        assertFalse(Files.exists(directory.resolve("file.bin" + DownloadManager.PART_FILE_EXTENSION)));
+    }
+
+    @Test
+    void restartsPartFileOfChangedRemoteFileTest() throws IOException {
+        final byte[] content = files.get("/file100000.bin");
+        final Path target = directory.resolve("file.bin");
+        Files.write(directory.resolve("file.bin" + DownloadManager.PART_FILE_EXTENSION), new byte[40000]);
+        final Path validatorFilePath = directory.resolve(
+                "file.bin" + DownloadManager.PART_FILE_EXTENSION + DownloadManager.VALIDATOR_FILE_EXTENSION);
+        Files.write(validatorFilePath, "\"outdated\"".getBytes(StandardCharsets.UTF_8));
+        new DownloadManager().download(new DownloadManager.Download(getUri("/file100000.bin"), target));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue(ranges.isEmpty());
+        assertFalse(Files.exists(validatorFilePath));
+    }
+
+    @Test
+    void ignoresChangedRangeResponseTest() throws IOException {
+        final byte[] content = files.get("/file100000.bin");
+        final Path target = directory.resolve("file.bin");
+        Files.write(directory.resolve("file.bin" + DownloadManager.PART_FILE_EXTENSION), new byte[40000]);
+        // The part file belongs to the current version, but the file changes before the range request
+        Files.write(directory.resolve(
+                "file.bin" + DownloadManager.PART_FILE_EXTENSION + DownloadManager.VALIDATOR_FILE_EXTENSION),
+                    ("\"" + Arrays.hashCode(content) + "\"").getBytes(StandardCharsets.UTF_8));
+        final byte[] changedContent = content.clone();
+        changedContent[0]++;
+        server.createContext("/changing.bin", exchange -> {
+            files.put("/changing.bin", "HEAD".equals(exchange.getRequestMethod()) ? content : changedContent);
+            handle(exchange);
+        });
+        new DownloadManager().download(new DownloadManager.Download(getUri("/changing.bin"), target));
+        assertArrayEquals(changedContent, Files.readAllBytes(target));
+    }
+
+    @Test
+    void resumesDroppedConnectionTest() throws IOException {
+        final byte[] content = files.get("/file100000.bin");
+        final Path target = directory.resolve("file.bin");
+        dropNextFullResponse.set(true);
+        new DownloadManager().download(new DownloadManager.Download(getUri("/file100000.bin"), target));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(1, ranges.size());
+        assertNotEquals("bytes=0-", ranges.get(0));
+    }
+
+    @Test
+    void downloadsLargeFilesInSegmentsTest() throws IOException {
+        final byte[] content = files.get("/file300000.bin");
+        final Path target = directory.resolve("file.bin");
+        final DownloadManager manager = new DownloadManager();
+        manager.setSegmentation(200000, 3);
+        final String checksum = FileUtils.computeChecksum(writeTempFile(content), "SHA-256");
+        manager.download(new DownloadManager.Download(getUri("/file300000.bin"), target).expectSize(content.length)
+                                                                                       .expectChecksum("SHA-256",
+                                                                                                       checksum));
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(new HashSet<>(Arrays.asList("bytes=0-99999", "bytes=100000-199999", "bytes=200000-299999")),
+                     new HashSet<>(ranges));
+    }
+
+    @Test
+    void checksumMismatchKeepsExistingFileTest() throws IOException {
+        final Path target = directory.resolve("file.bin");
+        Files.write(target, new byte[]{1, 2, 3});
+        final DownloadManager.Download download = new DownloadManager.Download(getUri("/file1000.bin"), target)
+                .expectChecksum("MD5", "00000000000000000000000000000000");
+        assertThrows(DownloadManager.VerificationException.class, () -> new DownloadManager().download(download));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target));
+        assertFalse(Files.exists(directory.resolve("file.bin" + DownloadManager.PART_FILE_EXTENSION)));
+        final DownloadManager.Download sizeMismatch = new DownloadManager.Download(getUri("/file1000.bin"), target)
+                .expectSize(999);
+        assertThrows(DownloadManager.VerificationException.class,
+                     () -> new DownloadManager().download(sizeMismatch));
+    }
+
+    private Path writeTempFile(final byte[] content) throws IOException {
+        final Path path = Files.createTempFile(directory, "expected", ".bin");
+        Files.write(path, content);
+        return path;
+    }
+}
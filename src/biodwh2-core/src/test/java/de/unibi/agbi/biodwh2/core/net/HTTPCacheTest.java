@@ -0,0 +1,98 @@
+package de.unibi.agbi.biodwh2.core.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HTTPCacheTest {
+    private static final String ETAG = "\"v1\"";
+    private static final byte[] CONTENT = "<html><body><pre>listing</pre></body></html>".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private HttpServer server;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        directory = Files.createTempDirectory("HTTPCacheTest");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Length", String.valueOf(CONTENT.length));
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        fullResponses.incrementAndGet();
+        exchange.sendResponseHeaders(200, CONTENT.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(CONTENT);
+        }
+    }
+
+    private String getUri(final String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    @Test
+    void websiteSourceIsRevalidatedAfterTimeToLiveTest() throws IOException {
+        final String expected = new String(CONTENT, StandardCharsets.UTF_8);
+        final HTTPCache cache = new HTTPCache(directory.resolve("fresh"), 60000);
+        assertEquals(expected, HTTPClient.getWebsiteSource(cache, getUri("/index.html")));
+        assertEquals(expected, HTTPClient.getWebsiteSource(cache, getUri("/index.html")));
+        assertEquals(1, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+        // A new cache on the same directory, as in the next run, revalidates expired entries
+        final HTTPCache expiredCache = new HTTPCache(directory.resolve("fresh"), 0);
+        assertEquals(expected, HTTPClient.getWebsiteSource(expiredCache, getUri("/index.html")));
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    void unchangedDownloadIsNotTransferredAgainTest() throws IOException {
+        final Path target = directory.resolve("file.txt");
+        final DownloadManager manager = new DownloadManager();
+        manager.setCache(new HTTPCache(directory.resolve("cache"), 0));
+        manager.download(new DownloadManager.Download(getUri("/file.txt"), target));
+        manager.download(new DownloadManager.Download(getUri("/file.txt"), target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        // A modified local file is downloaded again
+        Files.write(target, new byte[]{1});
+        manager.download(new DownloadManager.Download(getUri("/file.txt"), target));
+        assertArrayEquals(CONTENT, Files.readAllBytes(target));
+        assertEquals(2, fullResponses.get());
+    }
+}
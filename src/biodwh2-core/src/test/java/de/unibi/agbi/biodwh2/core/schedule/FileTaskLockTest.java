@@ -0,0 +1,37 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTaskLockTest {
+    @Test
+    void lockIsExclusiveUntilReleased() throws IOException {
+        final Path filePath = Files.createTempDirectory("file_task_lock_test").resolve("task.lock");
+        try (FileTaskLock lock = FileTaskLock.tryAcquire(filePath, 60000)) {
+            assertNotNull(lock);
+            assertNull(FileTaskLock.tryAcquire(filePath, 60000));
+        }
+        assertFalse(Files.exists(filePath));
+        try (FileTaskLock lock = FileTaskLock.tryAcquire(filePath, 60000)) {
+            assertNotNull(lock);
+        }
+    }
+
+    @Test
+    void staleLockIsTakenOver() throws IOException {
+        final Path filePath = Files.createTempDirectory("file_task_lock_test").resolve("task.lock");
+        Files.write(filePath, "crashed".getBytes());
+        Files.setLastModifiedTime(filePath, FileTime.fromMillis(System.currentTimeMillis() - 120000));
+        try (FileTaskLock lock = FileTaskLock.tryAcquire(filePath, 60000)) {
+            assertNotNull(lock);
+            assertEquals(lock.getOwner(), new String(Files.readAllBytes(filePath)));
+        }
+        assertFalse(Files.exists(filePath));
+    }
+}
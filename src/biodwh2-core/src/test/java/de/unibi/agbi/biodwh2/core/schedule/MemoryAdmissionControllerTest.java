@@ -0,0 +1,45 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryAdmissionControllerTest {
+    @Test
+    void admissionBlocksUntilReleaseTest() {
+        final MemoryAdmissionController controller = new MemoryAdmissionController(100);
+        assertTrue(controller.tryAdmit(60));
+        assertTrue(controller.tryAdmit(40));
+        assertEquals(100, controller.getReserved());
+        assertFalse(controller.tryAdmit(1));
+        controller.release(40);
+        assertFalse(controller.tryAdmit(41));
+        assertTrue(controller.tryAdmit(40));
+        controller.release(40);
+        controller.release(60);
+        assertEquals(0, controller.getReserved());
+    }
+
+    @Test
+    void oversizedWorkIsOnlyAdmittedAloneTest() {
+        final MemoryAdmissionController controller = new MemoryAdmissionController(100);
+        assertTrue(controller.tryAdmit(10));
+        assertFalse(controller.tryAdmit(200));
+        controller.release(10);
+        assertTrue(controller.tryAdmit(200));
+        assertFalse(controller.tryAdmit(1));
+        controller.release(200);
+        assertTrue(controller.tryAdmit(1));
+    }
+
+    @Test
+    void releaseWithoutAdmissionFailsTest() {
+        final MemoryAdmissionController controller = new MemoryAdmissionController(100);
+        assertThrows(IllegalStateException.class, () -> controller.release(10));
+    }
+
+    @Test
+    void nonPositiveBudgetFailsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryAdmissionController(0));
+    }
+}
@@ -0,0 +1,121 @@
+package de.unibi.agbi.biodwh2.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageSchedulerTest {
+    @Test
+    void dependenciesRunBeforeDependentsTest() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final StageScheduler scheduler = new StageScheduler();
+        final StageScheduler.Task update = scheduler.addTask("update", StagePool.NETWORK, () -> order.add("update"));
+        final StageScheduler.Task parse = scheduler.addTask("parse", StagePool.CPU, () -> order.add("parse"), update);
+        final StageScheduler.Task write = scheduler.addTask("write", StagePool.DISK, () -> order.add("write"), parse);
+        scheduler.run();
+        assertEquals(Arrays.asList("update", "parse", "write"), order);
+        assertTrue(write.isCompleted());
+    }
+
+    @Test
+    void stoppedTaskSkipsDependentsTest() throws InterruptedException {
+        final AtomicInteger runs = new AtomicInteger();
+        final StageScheduler scheduler = new StageScheduler();
+        final StageScheduler.Task first = scheduler.addTask("first", StagePool.CPU, () -> false);
+        final StageScheduler.Task second = scheduler.addTask("second", StagePool.CPU, () -> runs.incrementAndGet() > 0,
+                                                             first);
+        final StageScheduler.Task third = scheduler.addTask("third", StagePool.CPU, () -> runs.incrementAndGet() > 0,
+                                                            second);
+        final StageScheduler.Task failing = scheduler.addTask("failing", StagePool.DISK, () -> {
+            throw new IllegalStateException("expected");
+        });
+        final StageScheduler.Task collect = scheduler.addTaskIgnoringFailures("collect", StagePool.CPU,
+                                                                              () -> runs.incrementAndGet() > 0, third,
+                                                                              failing);
+        scheduler.run();
+        assertEquals(StageScheduler.State.STOPPED, first.getState());
+        assertEquals(StageScheduler.State.SKIPPED, second.getState());
+        assertEquals(StageScheduler.State.SKIPPED, third.getState());
+        assertEquals(StageScheduler.State.FAILED, failing.getState());
+        assertTrue(collect.isCompleted());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void poolLimitIsRespectedTest() throws InterruptedException {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final StageScheduler scheduler = new StageScheduler();
+        scheduler.setLimit(StagePool.CPU, 2);
+        for (int i = 0; i < 8; i++)
+            scheduler.addTask("task" + i, StagePool.CPU, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return true;
+            });
+        scheduler.run();
+        assertEquals(2, maxRunning.get());
+        assertTrue(scheduler.getTasks().stream().allMatch(StageScheduler.Task::isCompleted));
+    }
+
+    @Test
+    void memoryReservationsExceedingTheBudgetRunOneAfterAnotherTest() throws InterruptedException {
+        final AtomicInteger reservedChains = new AtomicInteger();
+        final AtomicInteger maxReservedChains = new AtomicInteger();
+        final StageScheduler scheduler = new StageScheduler();
+        scheduler.setMemoryBudget(100);
+        final List<StageScheduler.Task> lastTasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final StageScheduler.Task first = scheduler.addTask("parse" + i, StagePool.CPU, () -> {
+                maxReservedChains.accumulateAndGet(reservedChains.incrementAndGet(), Math::max);
+                sleep();
+                return true;
+            });
+            final StageScheduler.Task last = scheduler.addTask("export" + i, StagePool.DISK, () -> {
+                sleep();
+                reservedChains.decrementAndGet();
+                return true;
+            }, first);
+            scheduler.reserveMemory(first, last, 60);
+            lastTasks.add(last);
+        }
+        scheduler.run();
+        assertEquals(1, maxReservedChains.get());
+        assertTrue(lastTasks.stream().allMatch(StageScheduler.Task::isCompleted));
+    }
+
+    @Test
+    void memoryReservationIsReleasedWhenChainStopsTest() throws InterruptedException {
+        final StageScheduler scheduler = new StageScheduler();
+        scheduler.setMemoryBudget(100);
+        final StageScheduler.Task stoppedFirst = scheduler.addTask("parse0", StagePool.CPU, () -> false);
+        final StageScheduler.Task stoppedLast = scheduler.addTask("export0", StagePool.DISK, () -> true,
+                                                                  stoppedFirst);
+        scheduler.reserveMemory(stoppedFirst, stoppedLast, 80);
+        final StageScheduler.Task first = scheduler.addTask("parse1", StagePool.CPU, () -> true);
+        final StageScheduler.Task last = scheduler.addTask("export1", StagePool.DISK, () -> true, first);
+        scheduler.reserveMemory(first, last, 80);
+        scheduler.run();
+        assertEquals(StageScheduler.State.SKIPPED, stoppedLast.getState());
+        assertTrue(last.isCompleted());
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -40,13 +40,13 @@ public class DGIdbUpdater extends Updater<DGIdbDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
-        final DownloadVersion newestVersion = getNewestDownloadVersion();
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
+        final DownloadVersion newestVersion = getNewestDownloadVersion(workspace);
         return newestVersion == null ? null : newestVersion.version;
     }
 
-    private DownloadVersion getNewestDownloadVersion() throws UpdaterConnectionException {
-        final DownloadVersion[] versions = getDownloadVersions();
+    private DownloadVersion getNewestDownloadVersion(final Workspace workspace) throws UpdaterConnectionException {
+        final DownloadVersion[] versions = getDownloadVersions(workspace);
         int latestVersionIndex = -1;
         for (int i = 0; i < versions.length; i++)
             if (versions[i] != null && versions[i].version != null)
@@ -55,10 +55,10 @@ public class DGIdbUpdater extends Updater<DGIdbDataSource> {
         return latestVersionIndex == -1 ? null : versions[latestVersionIndex];
     }
 
-    private DownloadVersion[] getDownloadVersions() throws UpdaterConnectionException {
+    private DownloadVersion[] getDownloadVersions(final Workspace workspace) throws UpdaterConnectionException {
         final String source;
         try {
-            source = HTTPClient.getWebsiteSource(LATEST_RELEASE_URL);
+            source = HTTPClient.getWebsiteSource(workspace.getHTTPCache(), LATEST_RELEASE_URL);
         } catch (IOException e) {
             throw new UpdaterConnectionException(e);
         }
@@ -88,7 +88,7 @@ public class DGIdbUpdater extends Updater<DGIdbDataSource> {
 
     @Override
     protected boolean tryUpdateFiles(final Workspace workspace) throws UpdaterException {
-        final DownloadVersion newestVersion = getNewestDownloadVersion();
+        final DownloadVersion newestVersion = getNewestDownloadVersion(workspace);
         if (newestVersion == null)
             return false;
         for (final String fileName : newestVersion.files.keySet())
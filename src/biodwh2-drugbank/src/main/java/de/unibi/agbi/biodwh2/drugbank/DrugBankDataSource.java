@@ -43,6 +43,12 @@ public class DrugBankDataSource extends DataSource {
         return new DrugBankMappingDescriber(this);
     }
 
+    @Override
+    protected long getMemoryCostHint() {
+        // The full database XML is deserialized while parsing and the structures are held until export
+        return 4L * 1024 * 1024 * 1024;
+    }
+
     @Override
     protected void unloadData() {
         drugStructures = null;
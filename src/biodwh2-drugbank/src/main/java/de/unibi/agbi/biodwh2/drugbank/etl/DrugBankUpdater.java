@@ -29,16 +29,17 @@ public class DrugBankUpdater extends Updater<DrugBankDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
-        final JsonNode json = loadReleasesJson();
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
+        final JsonNode json = loadReleasesJson(workspace);
         final String version = getFirstReleaseVersion(json);
         return parseVersion(version);
     }
 
-    private JsonNode loadReleasesJson() throws UpdaterException {
+    private JsonNode loadReleasesJson(final Workspace workspace) throws UpdaterException {
         final String source;
         try {
-            source = HTTPClient.getWebsiteSource("https://go.drugbank.com/releases.json");
+            source = HTTPClient.getWebsiteSource(workspace.getHTTPCache(),
+                                                 "https://go.drugbank.com/releases.json");
         } catch (IOException e) {
             throw new UpdaterConnectionException(e);
         }
@@ -75,7 +76,7 @@ public class DrugBankUpdater extends Updater<DrugBankDataSource> {
         final String username = drugBankProperties.getOrDefault("username", null);
         final String password = drugBankProperties.getOrDefault("password", null);
         if (username != null && username.length() > 0 && password != null && password.length() > 0) {
-            final JsonNode releases = loadReleasesJson();
+            final JsonNode releases = loadReleasesJson(workspace);
             final JsonNode latestRelease = releases.get(0);
             final String latestReleaseUrl = latestRelease.get("url").asText();
             try {
@@ -2,6 +2,7 @@ package de.unibi.agbi.biodwh2.drugcentral.etl;
 
 import com.fasterxml.jackson.databind.MappingIterator;
 import de.unibi.agbi.biodwh2.core.Workspace;
+import de.unibi.agbi.biodwh2.core.collections.Tuple2;
 import de.unibi.agbi.biodwh2.core.etl.GraphExporter;
 import de.unibi.agbi.biodwh2.core.exceptions.*;
 import de.unibi.agbi.biodwh2.core.io.FileUtils;
@@ -61,39 +62,37 @@ public class DrugCentralGraphExporter extends GraphExporter<DrugCentralDataSourc
         g.addIndex(IndexDescription.forNode(GO_TERM_LABEL, "id", IndexDescription.Type.UNIQUE));
         g.addIndex(IndexDescription.forNode(TARGET_KEYWORD_LABEL, "id", IndexDescription.Type.UNIQUE));
         g.addIndex(IndexDescription.forNode(INN_STEM_LABEL, "stem", IndexDescription.Type.UNIQUE));
+        g.addPropertyColumn(STRUCTURE_LABEL, "id");
         // "ddi_risk.tsv", "approval_type.tsv", "target_class.tsv", "ref_type.tsv", "protein_type.tsv"
         // are ignored because no necessary additional info is included
-        createNodesFromTsvFile(workspace, g, DataSource.class, "data_source.tsv");
-        createNodesFromTsvFile(workspace, g, DbVersion.class, "dbversion.tsv");
-        createNodesFromTsvFile(workspace, g, AttributeType.class, "attr_type.tsv");
-        createNodesFromTsvFile(workspace, g, InnStem.class, "inn_stem.tsv");
-        createNodesFromTsvFile(workspace, g, IdType.class, "id_type.tsv");
-        createNodesFromTsvFile(workspace, g, ActionType.class, "action_type.tsv");
-        createNodesFromTsvFile(workspace, g, Reference.class, "reference.tsv");
-        final Map<Integer, Long> structureIdNodeIdMap = addStructuresWithType(workspace, g);
-        for (final Approval approval : parseTsvFile(workspace, Approval.class, "approval.tsv")) {
-            final Node approvalNode = g.addNodeFromModel(approval);
-            g.addEdge(structureIdNodeIdMap.get(approval.structId), approvalNode, "HAS_APPROVAL");
-        }
-        addAtcCodeHierarchy(workspace, g, structureIdNodeIdMap);
-        for (final Identifier identifier : parseTsvFile(workspace, Identifier.class, "identifier.tsv")) {
-            final Node identifierNode = g.addNodeFromModel(identifier);
-            g.addEdge(structureIdNodeIdMap.get(identifier.structId), identifierNode, "HAS_IDENTIFIER");
-        }
-        addStructureProperties(workspace, g, structureIdNodeIdMap);
-        addStructurePharmaClasses(workspace, g, structureIdNodeIdMap);
-        addOrangeBookPatentProducts(workspace, g, structureIdNodeIdMap);
-        addOMOPRelationships(workspace, g, structureIdNodeIdMap);
-        addDrugClassesAndDrugInteractions(workspace, g, structureIdNodeIdMap);
-        addPDBEntries(workspace, g, structureIdNodeIdMap);
-        addParentDrugMoleculesAndSynonyms(workspace, g, structureIdNodeIdMap);
-        addProductsWithLabelsAndIngredients(workspace, g, structureIdNodeIdMap, skipDrugLabelFullTexts);
-        addTargets(workspace, g, structureIdNodeIdMap);
-        addDiseaseOntology(workspace, g);
+        runStep(g, "data_source", () -> createNodesFromTsvFile(workspace, g, DataSource.class, "data_source.tsv"));
+        runStep(g, "dbversion", () -> createNodesFromTsvFile(workspace, g, DbVersion.class, "dbversion.tsv"));
+        runStep(g, "attr_type", () -> createNodesFromTsvFile(workspace, g, AttributeType.class, "attr_type.tsv"));
+        runStep(g, "inn_stem", () -> createNodesFromTsvFile(workspace, g, InnStem.class, "inn_stem.tsv"));
+        runStep(g, "id_type", () -> createNodesFromTsvFile(workspace, g, IdType.class, "id_type.tsv"));
+        runStep(g, "action_type", () -> createNodesFromTsvFile(workspace, g, ActionType.class, "action_type.tsv"));
+        runStep(g, "reference", () -> createNodesFromTsvFile(workspace, g, Reference.class, "reference.tsv"));
+        runStep(g, "structures", () -> addStructuresWithType(workspace, g));
+        // The structure node ids are collected from the graph, so steps after the structures can be resumed
+        final Map<Integer, Long> structureIdNodeIdMap = collectStructureIdNodeIdMap(g);
+        runStep(g, "approval", () -> addApprovals(workspace, g, structureIdNodeIdMap));
+        runStep(g, "atc", () -> addAtcCodeHierarchy(workspace, g, structureIdNodeIdMap));
+        runStep(g, "identifier", () -> addIdentifiers(workspace, g, structureIdNodeIdMap));
+        runStep(g, "property", () -> addStructureProperties(workspace, g, structureIdNodeIdMap));
+        runStep(g, "pharma_class", () -> addStructurePharmaClasses(workspace, g, structureIdNodeIdMap));
+        runStep(g, "orange_book", () -> addOrangeBookPatentProducts(workspace, g, structureIdNodeIdMap));
+        runStep(g, "omop_relationship", () -> addOMOPRelationships(workspace, g, structureIdNodeIdMap));
+        runStep(g, "drug_class", () -> addDrugClassesAndDrugInteractions(workspace, g, structureIdNodeIdMap));
+        runStep(g, "pdb", () -> addPDBEntries(workspace, g, structureIdNodeIdMap));
+        runStep(g, "parentmol", () -> addParentDrugMoleculesAndSynonyms(workspace, g, structureIdNodeIdMap));
+        runStep(g, "product", () -> addProductsWithLabelsAndIngredients(workspace, g, structureIdNodeIdMap,
+                                                                          skipDrugLabelFullTexts));
+        runStep(g, "target", () -> addTargets(workspace, g, structureIdNodeIdMap));
+        runStep(g, "doid", () -> addDiseaseOntology(workspace, g));
         if (!skipFAERSReports)
-            addFAERSEntries(workspace, g, structureIdNodeIdMap);
+            runStep(g, "faers", () -> addFAERSEntries(workspace, g, structureIdNodeIdMap));
         if (!skipLINCSSignatures)
-            addLINCSSignatures(workspace, g, structureIdNodeIdMap);
+            runStep(g, "lincs_signature", () -> addLINCSSignatures(workspace, g, structureIdNodeIdMap));
         return true;
     }
 
@@ -116,8 +115,7 @@ public class DrugCentralGraphExporter extends GraphExporter<DrugCentralDataSourc
         }
     }
 
-    private Map<Integer, Long> addStructuresWithType(final Workspace workspace,
-                                                     final Graph g) throws ExporterException {
+    private void addStructuresWithType(final Workspace workspace, final Graph g) throws ExporterException {
         final Map<Integer, List<String>> structureIdTypeMap = new HashMap<>();
         for (final StructureType structureType : parseTsvFile(workspace, StructureType.class, "structure_type.tsv")) {
             if (!structureIdTypeMap.containsKey(structureType.structId))
@@ -127,7 +125,6 @@ public class DrugCentralGraphExporter extends GraphExporter<DrugCentralDataSourc
         final Map<Integer, Pka> structureIdPkaMap = new HashMap<>();
         for (final Pka pka : parseTsvFile(workspace, Pka.class, "pka.tsv"))
             structureIdPkaMap.put(pka.structId, pka);
-        final Map<Integer, Long> structureIdNodeIdMap = new HashMap<>();
         for (final Structure structure : parseTsvFile(workspace, Structure.class, "structures.tsv")) {
             final Node node;
             final boolean hasType = structureIdTypeMap.containsKey(structure.id);
@@ -143,13 +140,34 @@ public class DrugCentralGraphExporter extends GraphExporter<DrugCentralDataSourc
                                           pka.value);
             else
                 node = g.addNodeFromModel(structure);
-            structureIdNodeIdMap.put(structure.id, node.getId());
             if (structure.stem != null)
                 g.addEdge(node, g.findNode("InnStem", "stem", structure.stem), "HAS_INN_STEM");
         }
+    }
+
+    private Map<Integer, Long> collectStructureIdNodeIdMap(final Graph g) {
+        final Map<Integer, Long> structureIdNodeIdMap = new HashMap<>();
+        for (final Tuple2<Long, Integer> idNodeId : g.<Integer>scanProperty(STRUCTURE_LABEL, "id"))
+            structureIdNodeIdMap.put(idNodeId.getSecond(), idNodeId.getFirst());
         return structureIdNodeIdMap;
     }
 
+    private void addApprovals(final Workspace workspace, final Graph g,
+                              final Map<Integer, Long> structureIdNodeIdMap) throws ExporterException {
+        for (final Approval approval : parseTsvFile(workspace, Approval.class, "approval.tsv")) {
+            final Node approvalNode = g.addNodeFromModel(approval);
+            g.addEdge(structureIdNodeIdMap.get(approval.structId), approvalNode, "HAS_APPROVAL");
+        }
+    }
+
+    private void addIdentifiers(final Workspace workspace, final Graph g,
+                                final Map<Integer, Long> structureIdNodeIdMap) throws ExporterException {
+        for (final Identifier identifier : parseTsvFile(workspace, Identifier.class, "identifier.tsv")) {
+            final Node identifierNode = g.addNodeFromModel(identifier);
+            g.addEdge(structureIdNodeIdMap.get(identifier.structId), identifierNode, "HAS_IDENTIFIER");
+        }
+    }
+
     private void addAtcCodeHierarchy(final Workspace workspace, final Graph g,
                                      final Map<Integer, Long> structureIdNodeIdMap) throws ExporterException {
         final Map<String, Long> atcCodeNodeIdMap = new HashMap<>();
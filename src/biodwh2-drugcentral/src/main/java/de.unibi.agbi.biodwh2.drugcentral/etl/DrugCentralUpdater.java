@@ -27,15 +27,15 @@ public class DrugCentralUpdater extends Updater<DrugCentralDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
-        final String url = getDrugCentralFileUrl();
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
+        final String url = getDrugCentralFileUrl(workspace);
         final String version = StringUtils.split(StringUtils.splitByWholeSeparator(url, "pgdump_")[1], '.')[0];
         return parseVersion(version.substring(0, 4) + "." + version.substring(4, 6) + "." + version.substring(6));
     }
 
-    private String getDrugCentralFileUrl() throws UpdaterException {
+    private String getDrugCentralFileUrl(final Workspace workspace) throws UpdaterException {
         try {
-            final String html = HTTPClient.getWebsiteSource(DOWNLOAD_PAGE_URL);
+            final String html = HTTPClient.getWebsiteSource(workspace.getHTTPCache(), DOWNLOAD_PAGE_URL);
             final Matcher matcher = DOWNLOAD_URL_PATTERN.matcher(html);
             if (matcher.find())
                 return matcher.group(1);
@@ -56,15 +56,16 @@ public class DrugCentralUpdater extends Updater<DrugCentralDataSource> {
     @Override
     protected boolean tryUpdateFiles(final Workspace workspace) throws UpdaterException {
         final String dumpFilePath = dataSource.resolveSourceFilePath(workspace, SQL_DUMP_FILE_PATH);
-        downloadDrugCentralDatabase(dumpFilePath);
+        downloadDrugCentralDatabase(workspace, dumpFilePath);
         removeOldExtractedTsvFiles(workspace);
         extractTsvFilesFromDatabaseDump(workspace, dumpFilePath);
         return true;
     }
 
-    private void downloadDrugCentralDatabase(final String dumpFilePath) throws UpdaterException {
+    private void downloadDrugCentralDatabase(final Workspace workspace,
+                                             final String dumpFilePath) throws UpdaterException {
         try {
-            HTTPClient.downloadFileAsBrowser(getDrugCentralFileUrl(), dumpFilePath);
+            HTTPClient.downloadFileAsBrowser(getDrugCentralFileUrl(workspace), dumpFilePath);
         } catch (IOException e) {
             throw new UpdaterConnectionException(e);
         }
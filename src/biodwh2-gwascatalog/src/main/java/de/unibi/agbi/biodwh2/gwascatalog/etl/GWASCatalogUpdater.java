@@ -26,9 +26,9 @@ public final class GWASCatalogUpdater extends Updater<GWASCatalogDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
         try {
-            final String fileName = HTTPClient.resolveFileName(ASSOCIATIONS_FILE_URL);
+            final String fileName = HTTPClient.resolveFileName(workspace.getHTTPCache(), ASSOCIATIONS_FILE_URL);
             final Matcher matcher = VERSION_PATTERN.matcher(fileName);
             if (matcher.find())
                 return new Version(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
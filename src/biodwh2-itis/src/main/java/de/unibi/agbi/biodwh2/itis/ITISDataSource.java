@@ -10,6 +10,7 @@ import de.unibi.agbi.biodwh2.core.etl.Updater;
 import de.unibi.agbi.biodwh2.itis.etl.*;
 import de.unibi.agbi.biodwh2.itis.model.*;
 
+import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 
@@ -74,6 +75,37 @@ public class ITISDataSource extends DataSource {
         return new ITISMappingDescriber(this);
     }
 
+    @Override
+    protected Serializable getParsedData() {
+        return new Object[]{comments, experts, geographicDivisions, hierarchies, jurisdictions, kingdoms, longNames,
+                nodcIds, otherSources, publications, referenceLinks, synonymLinks, taxonAuthorsLkps, taxonUnitTypes,
+                taxonomicUnits, taxonomicUnitCommentLinks, vernacularReferenceLinks, vernaculars};
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setParsedData(final Serializable data) {
+        final Object[] parsedData = (Object[]) data;
+        comments = (List<Comment>) parsedData[0];
+        experts = (List<Expert>) parsedData[1];
+        geographicDivisions = (List<GeographicDivision>) parsedData[2];
+        hierarchies = (List<Hierarchy>) parsedData[3];
+        jurisdictions = (List<Jurisdiction>) parsedData[4];
+        kingdoms = (List<Kingdom>) parsedData[5];
+        longNames = (Map<Integer, String>) parsedData[6];
+        nodcIds = (Map<Integer, String>) parsedData[7];
+        otherSources = (List<OtherSource>) parsedData[8];
+        publications = (List<Publication>) parsedData[9];
+        referenceLinks = (List<ReferenceLink>) parsedData[10];
+        synonymLinks = (Map<Integer, Integer>) parsedData[11];
+        taxonAuthorsLkps = (List<TaxonAuthorLkp>) parsedData[12];
+        taxonUnitTypes = (List<TaxonUnitType>) parsedData[13];
+        taxonomicUnits = (List<TaxonomicUnit>) parsedData[14];
+        taxonomicUnitCommentLinks = (List<TaxonomicUnitCommentLink>) parsedData[15];
+        vernacularReferenceLinks = (List<VernacularReferenceLink>) parsedData[16];
+        vernaculars = (List<Vernacular>) parsedData[17];
+    }
+
     @Override
     protected void unloadData() {
         comments = null;
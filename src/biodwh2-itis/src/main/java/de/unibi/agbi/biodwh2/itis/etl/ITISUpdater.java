@@ -34,9 +34,9 @@ public class ITISUpdater extends Updater<ITISDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
         try {
-            String html = HTTPClient.getWebsiteSource(VERSION_URL);
+            String html = HTTPClient.getWebsiteSource(workspace.getHTTPCache(), VERSION_URL);
             html = StringUtils.splitByWholeSeparator(html, "Database download files are currently from the")[1];
             html = StringUtils.splitByWholeSeparator(html, "<b>")[1];
             html = StringUtils.splitByWholeSeparator(html, "</b>")[0].trim();
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"comment_id", "commentator", "comment_detail", "comment_time_stamp", "update_date"})
 @GraphNodeLabel("Comment")
-public class Comment {
+public class Comment implements Serializable {
+    private static final long serialVersionUID = -3472807262480110924L;
     @JsonProperty("comment_id")
     @GraphProperty("id")
     public int id;
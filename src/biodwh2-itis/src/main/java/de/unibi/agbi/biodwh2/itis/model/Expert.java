@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"expert_id_prefix", "expert_id", "expert", "exp_comment", "update_date"})
 @GraphNodeLabel("Expert")
-public class Expert {
+public class Expert implements Serializable {
+    private static final long serialVersionUID = 4817646488458244503L;
     @JsonProperty("expert_id_prefix")
     public String idPrefix;
     @JsonProperty("expert_id")
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "geographic_value", "update_date"})
-public class GeographicDivision {
+public class GeographicDivision implements Serializable {
+    private static final long serialVersionUID = 6750747036926951409L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("geographic_value")
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"hierarchy_string", "TSN", "Parent_TSN", "level", "ChildrenCount"})
-public class Hierarchy {
+public class Hierarchy implements Serializable {
+    private static final long serialVersionUID = -6567217434451388175L;
     @JsonProperty("hierarchy_string")
     public String value;
     @JsonProperty("TSN")
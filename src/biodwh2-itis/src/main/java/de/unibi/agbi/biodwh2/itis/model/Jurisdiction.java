@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "jurisdiction_value", "origin", "update_date"})
-public class Jurisdiction {
+public class Jurisdiction implements Serializable {
+    private static final long serialVersionUID = 4449835827923575942L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("jurisdiction_value")
@@ -5,9 +5,12 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @JsonPropertyOrder({"kingdom_id", "kingdom_name", "update_date"})
 @GraphNodeLabel("Kingdom")
-public class Kingdom {
+public class Kingdom implements Serializable {
+    private static final long serialVersionUID = 1588952740439491405L;
     @JsonProperty("kingdom_id")
     @GraphProperty("id")
     public int id;
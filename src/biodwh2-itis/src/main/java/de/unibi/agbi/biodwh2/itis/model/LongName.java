@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings({"unused", "SpellCheckingInspection"})
 @JsonPropertyOrder({"tsn", "completename"})
-public class LongName {
+public class LongName implements Serializable {
+    private static final long serialVersionUID = 4641831112703840330L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("completename")
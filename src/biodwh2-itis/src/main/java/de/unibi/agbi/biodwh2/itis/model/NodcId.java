@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"nodc_id", "update_date", "tsn"})
-public class NodcId {
+public class NodcId implements Serializable {
+    private static final long serialVersionUID = 9116879684213984188L;
     @JsonProperty("nodc_id")
     public String id;
     @JsonProperty("update_date")
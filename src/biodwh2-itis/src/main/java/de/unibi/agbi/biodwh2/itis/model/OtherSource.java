@@ -5,13 +5,16 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({
         "source_id_prefix", "source_id", "source_type", "source", "version", "acquisition_date", "source_comment",
         "update_date"
 })
 @GraphNodeLabel("Source")
-public class OtherSource {
+public class OtherSource implements Serializable {
+    private static final long serialVersionUID = 2252920032335081027L;
     @JsonProperty("source_id_prefix")
     public String idPrefix;
     @JsonProperty("source_id")
@@ -5,13 +5,16 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings({"unused", "SpellCheckingInspection"})
 @JsonPropertyOrder({
         "pub_id_prefix", "publication_id", "reference_author", "title", "publication_name", "listed_pub_date",
         "actual_pub_date", "publisher", "pub_place", "isbn", "issn", "pages", "pub_comment", "update_date"
 })
 @GraphNodeLabel("Publication")
-public class Publication {
+public class Publication implements Serializable {
+    private static final long serialVersionUID = 497440286752196547L;
     @JsonProperty("pub_id_prefix")
     public String idPrefix;
     @JsonProperty("publication_id")
@@ -3,11 +3,14 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @JsonPropertyOrder({
         "tsn", "doc_id_prefix", "documentation_id", "original_desc_ind", "init_itis_desc_ind", "change_track_id",
         "vernacular_name", "update_date"
 })
-public class ReferenceLink {
+public class ReferenceLink implements Serializable {
+    private static final long serialVersionUID = -7437293213165763535L;
     @JsonProperty("tsn")
     public Integer tsn;
     @JsonProperty("doc_id_prefix")
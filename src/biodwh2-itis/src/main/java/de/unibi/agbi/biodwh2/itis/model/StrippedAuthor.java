@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"taxon_author_id", "shortauthor"})
-public class StrippedAuthor {
+public class StrippedAuthor implements Serializable {
+    private static final long serialVersionUID = 6406488667157207751L;
     @JsonProperty("taxon_author_id")
     public int taxonAuthorId;
     @JsonProperty("shortauthor")
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "tsn_accepted", "update_date"})
-public class SynonymLink {
+public class SynonymLink implements Serializable {
+    private static final long serialVersionUID = -8204795814353938871L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("tsn_accepted")
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"taxon_author_id", "taxon_author", "update_date", "kingdom_id", "short_author"})
 @GraphNodeLabel("TaxonAuthor")
-public class TaxonAuthorLkp {
+public class TaxonAuthorLkp implements Serializable {
+    private static final long serialVersionUID = -8983497888779095805L;
     @JsonProperty("taxon_author_id")
     @GraphProperty("id")
     public int id;
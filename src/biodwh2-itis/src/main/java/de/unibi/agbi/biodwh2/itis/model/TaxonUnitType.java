@@ -3,8 +3,11 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @JsonPropertyOrder({"kingdom_id", "rank_id", "rank_name", "dir_parent_rank_id", "req_parent_rank_id", "update_date"})
-public class TaxonUnitType {
+public class TaxonUnitType implements Serializable {
+    private static final long serialVersionUID = 5233218646586760114L;
     @JsonProperty("kingdom_id")
     public int kingdomId;
     @JsonProperty("rank_id")
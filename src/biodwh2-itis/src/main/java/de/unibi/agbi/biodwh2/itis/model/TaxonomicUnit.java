@@ -5,6 +5,8 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings({"unused", "SpellCheckingInspection"})
 @JsonPropertyOrder({
         "tsn", "unit_ind1", "unit_name1", "unit_ind2", "unit_name2", "unit_ind3", "unit_name3", "unit_ind4",
@@ -13,7 +15,8 @@ import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
         "kingdom_id", "rank_id", "update_date", "uncertain_prnt_ind", "name_usage", "complete_name"
 })
 @GraphNodeLabel("Taxon")
-public class TaxonomicUnit {
+public class TaxonomicUnit implements Serializable {
+    private static final long serialVersionUID = -6977178431275805221L;
     @JsonProperty("tsn")
     @GraphProperty("id")
     public Integer tsn;
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "comment_id", "update_date"})
-public class TaxonomicUnitCommentLink {
+public class TaxonomicUnitCommentLink implements Serializable {
+    private static final long serialVersionUID = 2240351901700378229L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("comment_id")
@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "vernacular_name", "language", "approved_ind", "update_date", "vern_id"})
 @GraphNodeLabel("Vernacular")
-public class Vernacular {
+public class Vernacular implements Serializable {
+    private static final long serialVersionUID = 5593843454767663905L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("vernacular_name")
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.itis.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @JsonPropertyOrder({"tsn", "doc_id_prefix", "documentation_id", "update_date", "vern_id"})
-public class VernacularReferenceLink {
+public class VernacularReferenceLink implements Serializable {
+    private static final long serialVersionUID = -4573583861106346477L;
     @JsonProperty("tsn")
     public int tsn;
     @JsonProperty("doc_id_prefix")
@@ -9,6 +9,7 @@ import de.unibi.agbi.biodwh2.kegg.etl.KeggParser;
 import de.unibi.agbi.biodwh2.kegg.etl.KeggUpdater;
 import de.unibi.agbi.biodwh2.kegg.model.*;
 
+import java.io.Serializable;
 import java.util.List;
 
 public class KeggDataSource extends DataSource {
@@ -48,6 +49,22 @@ public class KeggDataSource extends DataSource {
         return new KeggMappingDescriber(this);
     }
 
+    @Override
+    protected Serializable getParsedData() {
+        return new Object[]{drugGroups, diseases, drugs, networks, variants};
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void setParsedData(final Serializable data) {
+        final Object[] parsedData = (Object[]) data;
+        drugGroups = (List<DrugGroup>) parsedData[0];
+        diseases = (List<Disease>) parsedData[1];
+        drugs = (List<Drug>) parsedData[2];
+        networks = (List<Network>) parsedData[3];
+        variants = (List<Variant>) parsedData[4];
+    }
+
     @Override
     protected void unloadData() {
         drugGroups = null;
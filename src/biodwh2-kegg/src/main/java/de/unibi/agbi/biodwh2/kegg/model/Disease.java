@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Disease extends KeggEntry {
+    private static final long serialVersionUID = -3797453535918283533L;
     public String description;
     public final List<NameIdsPair> envFactors = new ArrayList<>();
     public final List<NameIdsPair> carcinogens = new ArrayList<>();
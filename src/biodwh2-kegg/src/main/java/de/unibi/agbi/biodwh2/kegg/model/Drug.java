@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Drug extends KeggEntry {
+    private static final long serialVersionUID = -1356269492488842771L;
     public String formula;
     public String exactMass;
     public String molecularWeight;
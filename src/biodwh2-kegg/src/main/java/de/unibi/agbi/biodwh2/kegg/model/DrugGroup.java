@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class DrugGroup extends KeggEntry {
+    private static final long serialVersionUID = 1170528974413416176L;
     public final List<ParentChildRelation> classes = new ArrayList<>();
     public final List<ParentChildRelation> members = new ArrayList<>();
     public final List<String> nameStems = new ArrayList<>();
@@ -1,6 +1,9 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
-public class Interaction {
+import java.io.Serializable;
+
+public class Interaction implements Serializable {
+    private static final long serialVersionUID = 682976259356231981L;
     public final String type;
     public final NameIdsPair target;
 
@@ -1,11 +1,13 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-public abstract class KeggEntry {
+public abstract class KeggEntry implements Serializable {
+    private static final long serialVersionUID = 9076119374081293870L;
     public String id;
     public final List<String> tags = new ArrayList<>();
     public final List<String> names = new ArrayList<>();
@@ -1,6 +1,9 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
-public class Metabolism {
+import java.io.Serializable;
+
+public class Metabolism implements Serializable {
+    private static final long serialVersionUID = -8403902009487379279L;
     public final String type;
     public final NameIdsPair target;
 
@@ -1,9 +1,11 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class NameIdsPair {
+public class NameIdsPair implements Serializable {
+    private static final long serialVersionUID = -6341862868243608868L;
     public String name;
     public final List<String> ids = new ArrayList<>();
 
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Network extends KeggEntry {
+    private static final long serialVersionUID = -5943398746523817172L;
     public String type;
     public String definition;
     public String expandedDefinition;
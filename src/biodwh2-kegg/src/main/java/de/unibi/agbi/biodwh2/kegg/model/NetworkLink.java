@@ -1,9 +1,11 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class NetworkLink {
+public class NetworkLink implements Serializable {
+    private static final long serialVersionUID = -8939388741720293303L;
     public NameIdsPair network;
     public List<NameIdsPair> elements = new ArrayList<>();
 }
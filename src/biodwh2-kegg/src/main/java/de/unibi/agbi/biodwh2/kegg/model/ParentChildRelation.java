@@ -1,6 +1,9 @@
 package de.unibi.agbi.biodwh2.kegg.model;
 
-public class ParentChildRelation {
+import java.io.Serializable;
+
+public class ParentChildRelation implements Serializable {
+    private static final long serialVersionUID = 7661015105010172877L;
     public NameIdsPair parent;
     public NameIdsPair child;
 }
@@ -3,8 +3,11 @@ package de.unibi.agbi.biodwh2.kegg.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @GraphNodeLabel("Reference")
-public class Reference {
+public class Reference implements Serializable {
+    private static final long serialVersionUID = -7541169559058665352L;
     @GraphProperty("pmid")
     public Integer pmid;
     public String remarks;
@@ -3,8 +3,11 @@ package de.unibi.agbi.biodwh2.kegg.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @GraphNodeLabel("Sequence")
-public class Sequence {
+public class Sequence implements Serializable {
+    private static final long serialVersionUID = 1439302177711171801L;
     @GraphProperty("sequence")
     public String sequence;
     @GraphProperty("type")
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 public class Variant extends KeggEntry {
+    private static final long serialVersionUID = -8307894673866872526L;
     public String organism;
     public final Map<String, NameIdsPair> genes = new HashMap<>();
     public final List<NetworkLink> networks = new ArrayList<>();
@@ -4,6 +4,7 @@ import de.unibi.agbi.biodwh2.core.DataSource;
 import de.unibi.agbi.biodwh2.core.DataSourceLoader;
 import de.unibi.agbi.biodwh2.core.Workspace;
 import de.unibi.agbi.biodwh2.core.io.ResourceUtils;
+import de.unibi.agbi.biodwh2.core.model.Version;
 import de.unibi.agbi.biodwh2.core.net.BioDWH2Updater;
 import de.unibi.agbi.biodwh2.core.text.TableFormatter;
 import org.apache.commons.lang3.StringUtils;
@@ -12,19 +13,92 @@ import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public final class BioDWH2 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BioDWH2.class);
+    private static final String RELEASES_URL = "https://api.github.com/repos/BioDWH2/BioDWH2/releases";
+    private static final long UPDATE_CHECK_WAIT_SECONDS = 2;
 
-    private BioDWH2() {
+    private final boolean daemon;
+    private final Map<Path, CachedWorkspace> workspaces = new HashMap<>();
+    /**
+     * Working directory of the client whose command the daemon currently runs
+     */
+    private Path clientWorkingDirectory;
+    private DataSourceLoader dataSourceLoader;
+
+    private BioDWH2(final boolean daemon) {
+        this.daemon = daemon;
     }
 
     public static void main(final String... args) {
         final CmdArgs commandLine = parseCommandLine(args);
-        new BioDWH2().run(commandLine);
+        if (commandLine.stopDaemon)
+            stopDaemon();
+        else if (commandLine.daemon)
+            new BioDWH2(true).runDaemon();
+        else if (!commandLine.useDaemon || !tryRunInDaemon(args))
+            new BioDWH2(false).run(commandLine);
+    }
+
+    private static void stopDaemon() {
+        try {
+            if (BioDWH2Daemon.sendCommand(new String[]{BioDWH2Daemon.STOP_COMMAND}, System.out) == null)
+                LOGGER.info("No daemon is running");
+        } catch (IOException e) {
+            LOGGER.error("Failed to stop the daemon", e);
+        }
+    }
+
+    private static boolean tryRunInDaemon(final String... args) {
+        final String[] forwardedArgs = Arrays.stream(args).filter(arg -> !"--use-daemon".equals(arg)).toArray(
+                String[]::new);
+        try {
+            final Integer status = BioDWH2Daemon.sendCommand(forwardedArgs, System.out);
+            if (status != null) {
+                if (status != BioDWH2Daemon.EXIT_SUCCESS)
+                    System.exit(status);
+                return true;
+            }
+            LOGGER.info("No daemon is running, executing the command directly");
+        } catch (IOException e) {
+            LOGGER.warn("Failed to execute the command in the daemon, executing the command directly", e);
+        }
+        return false;
+    }
+
+    private void runDaemon() {
+        BioDWH2Updater.checkForUpdate("BioDWH2", RELEASES_URL);
+        // Instantiate all registered data sources once before the first command
+        getDataSourceLoader().getDataSourceIds();
+        try {
+            new BioDWH2Daemon(this::runDaemonCommand).run();
+        } catch (IOException e) {
+            LOGGER.error("Failed to run the daemon", e);
+        }
+    }
+
+    private boolean runDaemonCommand(final Path workingDirectory, final String... args) {
+        final CmdArgs commandLine = parseCommandLine(args);
+        if (commandLine.daemon || commandLine.useDaemon) {
+            LOGGER.error("The daemon can't execute daemon commands");
+            return false;
+        }
+        clientWorkingDirectory = workingDirectory;
+        try {
+            run(commandLine);
+        } finally {
+            clientWorkingDirectory = null;
+        }
+        return true;
     }
 
     private static CmdArgs parseCommandLine(final String... args) {
@@ -36,7 +110,27 @@ public final class BioDWH2 {
     }
 
     private void run(final CmdArgs commandLine) {
-        BioDWH2Updater.checkForUpdate("BioDWH2", "https://api.github.com/repos/BioDWH2/BioDWH2/releases");
+        // The daemon checked for updates once when it was started
+        final CompletableFuture<Version> updateCheck = daemon ? null : BioDWH2Updater.checkForUpdate("BioDWH2",
+                                                                                                      RELEASES_URL);
+        runCommand(commandLine);
+        if (updateCheck != null)
+            awaitUpdateCheck(updateCheck);
+    }
+
+    /**
+     * Give the update check a moment to finish after short commands, so its notice isn't lost.
+     */
+    private static void awaitUpdateCheck(final CompletableFuture<Version> updateCheck) {
+        try {
+            updateCheck.get(UPDATE_CHECK_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ignored) {
+        }
+    }
+
+    private void runCommand(final CmdArgs commandLine) {
         if (commandLine.listDataSources)
             listDataSources(commandLine);
         else if (commandLine.addDataSource != null)
@@ -47,6 +141,10 @@ public final class BioDWH2 {
             createWorkspace(commandLine);
         else if (commandLine.status != null)
             checkWorkspaceState(commandLine);
+        else if (commandLine.worker != null)
+            runWorker(commandLine);
+        else if (commandLine.update != null && commandLine.coordinate)
+            coordinateWorkers(commandLine);
         else if (commandLine.update != null)
             updateWorkspace(commandLine.update, commandLine.skipUpdate, commandLine.runsInParallel, commandLine.numThreads);
         else if (commandLine.version)
@@ -56,7 +154,7 @@ public final class BioDWH2 {
     }
 
     private void listDataSources(final CmdArgs commandLine) {
-        final DataSourceLoader loader = new DataSourceLoader();
+        final DataSourceLoader loader = getDataSourceLoader();
         final String[] dataSourceIds = Arrays.stream(loader.getDataSourceIds()).filter(id -> !id.startsWith("Mock"))
                                              .sorted().toArray(String[]::new);
         if (commandLine.verbose) {
@@ -76,11 +174,11 @@ public final class BioDWH2 {
     private void addDataSource(final CmdArgs commandLine) {
         final String workspacePath = commandLine.addDataSource.get(0);
         final String dataSourceId = commandLine.addDataSource.get(1);
-        final DataSourceLoader loader = new DataSourceLoader();
+        final DataSourceLoader loader = getDataSourceLoader();
         final String[] matchedIds = Arrays.stream(loader.getDataSourceIds()).filter(
                 id -> id.equalsIgnoreCase(dataSourceId)).toArray(String[]::new);
         if (matchedIds.length > 0) {
-            final Workspace workspace = new Workspace(workspacePath);
+            final Workspace workspace = getWorkspace(workspacePath);
             workspace.addDataSource(dataSourceId);
             try {
                 workspace.saveConfiguration();
@@ -97,11 +195,11 @@ public final class BioDWH2 {
     private void removeDataSource(final CmdArgs commandLine) {
         final String workspacePath = commandLine.removeDataSource.get(0);
         final String dataSourceId = commandLine.removeDataSource.get(1);
-        final DataSourceLoader loader = new DataSourceLoader();
+        final DataSourceLoader loader = getDataSourceLoader();
         final String[] matchedIds = Arrays.stream(loader.getDataSourceIds()).filter(
                 id -> id.equalsIgnoreCase(dataSourceId)).toArray(String[]::new);
         if (matchedIds.length > 0) {
-            final Workspace workspace = new Workspace(workspacePath);
+            final Workspace workspace = getWorkspace(workspacePath);
             workspace.removeDataSource(dataSourceId);
             try {
                 workspace.saveConfiguration();
@@ -117,12 +215,12 @@ public final class BioDWH2 {
 
     private void createWorkspace(final CmdArgs commandLine) {
         final String workspacePath = commandLine.create;
-        new Workspace(workspacePath);
+        getWorkspace(workspacePath);
     }
 
     private void checkWorkspaceState(final CmdArgs commandLine) {
         final String workspacePath = commandLine.status;
-        final Workspace workspace = new Workspace(workspacePath);
+        final Workspace workspace = getWorkspace(workspacePath);
         workspace.checkState(commandLine.verbose);
     }
 
@@ -130,7 +228,7 @@ public final class BioDWH2 {
         final String workspacePath = updateParameters.get(0);
         final String dataSourceId = updateParameters.size() > 1 ? updateParameters.get(1) : null;
         final String version = updateParameters.size() > 2 ? updateParameters.get(2) : null;
-        final Workspace workspace = new Workspace(workspacePath);
+        final Workspace workspace = getWorkspace(workspacePath);
 
         if(runInParallel) {
             workspace.processDataSourcesInParallel(dataSourceId, version, skipUpdate, numThreads);
@@ -140,6 +238,61 @@ public final class BioDWH2 {
         }
     }
 
+    private void runWorker(final CmdArgs commandLine) {
+        final Workspace workspace = getWorkspace(commandLine.worker);
+        workspace.processDataSourcesAsWorker(commandLine.skipUpdate);
+    }
+
+    private void coordinateWorkers(final CmdArgs commandLine) {
+        if (commandLine.update.size() > 1 && LOGGER.isWarnEnabled())
+            LOGGER.warn("Worker runs process all data sources, the data source and version are ignored");
+        final Workspace workspace = getWorkspace(commandLine.update.get(0));
+        workspace.processDataSourcesAsCoordinator(commandLine.skipUpdate);
+    }
+
+    private DataSourceLoader getDataSourceLoader() {
+        if (dataSourceLoader == null || !daemon)
+            dataSourceLoader = new DataSourceLoader();
+        return dataSourceLoader;
+    }
+
+    /**
+     * Get the workspace of the path. The daemon keeps workspaces with their loaded data sources until the workspace
+     * configuration changes.
+     */
+    private Workspace getWorkspace(final String workspacePath) {
+        if (!daemon)
+            return new Workspace(workspacePath);
+        // Relative paths are relative to the client and not to the daemon
+        final Path path = clientWorkingDirectory.resolve(workspacePath).normalize();
+        final long configurationModified = getConfigurationModified(path);
+        CachedWorkspace cached = workspaces.get(path);
+        if (cached == null || cached.configurationModified != configurationModified) {
+            final Workspace workspace = new Workspace(path.toString());
+            cached = new CachedWorkspace(workspace, getConfigurationModified(path));
+            workspaces.put(path, cached);
+        }
+        return cached.workspace;
+    }
+
+    private static long getConfigurationModified(final Path workspacePath) {
+        try {
+            return Files.getLastModifiedTime(workspacePath.resolve("config.json")).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static final class CachedWorkspace {
+        final Workspace workspace;
+        final long configurationModified;
+
+        CachedWorkspace(final Workspace workspace, final long configurationModified) {
+            this.workspace = workspace;
+            this.configurationModified = configurationModified;
+        }
+    }
+
     private void printVersion() {
         LOGGER.info("Version " + ResourceUtils.getManifestBioDWH2Version());
     }
@@ -0,0 +1,245 @@
+package de.unibi.agbi.biodwh2;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-running process executing BioDWH2 commands sent by clients, so loaded data sources and workspaces stay warm
+ * across commands. The daemon only listens on the loopback interface and writes its port together with a random token
+ * to a file in the home directory of the user, which only the user can read. Commands run one at a time in the working
+ * directory of the client. Their log and console output is streamed back to the client in chunks followed by the exit
+ * status of the command.
+ */
+final class BioDWH2Daemon {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BioDWH2Daemon.class);
+    static final String STOP_COMMAND = "--stop-daemon";
+    private static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+    static final int EXIT_SUCCESS = 0;
+    static final int EXIT_FAILURE = 1;
+
+    interface CommandRunner {
+        /**
+         * @param workingDirectory Absolute working directory of the client, which relative paths are resolved against
+         * @return true if the command succeeded
+         */
+        boolean run(final Path workingDirectory, final String... args);
+    }
+
+    private final CommandRunner commandRunner;
+    private boolean stopped;
+
+    BioDWH2Daemon(final CommandRunner commandRunner) {
+        this.commandRunner = commandRunner;
+    }
+
+    static Path getDaemonFilePath() {
+        return Paths.get(System.getProperty("user.home"), ".biodwh2", "daemon");
+    }
+
+    void run() throws IOException {
+        final String token = createToken();
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            writeDaemonFile(serverSocket.getLocalPort(), token);
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Daemon listening on port " + serverSocket.getLocalPort());
+            try {
+                while (!stopped) {
+                    try (Socket socket = serverSocket.accept()) {
+                        handleConnection(socket, token);
+                    } catch (IOException e) {
+                        if (LOGGER.isWarnEnabled())
+                            LOGGER.warn("Failed to handle daemon client", e);
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(getDaemonFilePath());
+            }
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Daemon stopped");
+    }
+
+    private static String createToken() {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static void writeDaemonFile(final int port, final String token) throws IOException {
+        final Path filePath = getDaemonFilePath();
+        Files.createDirectories(filePath.getParent());
+        Files.deleteIfExists(filePath);
+        try {
+            Files.createFile(filePath, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(filePath);
+        }
+        Files.write(filePath, (port + "\n" + token).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read and authenticate the request. Clients which don't send their request in time are dropped, so they can't
+     * block the daemon. The token is compared in constant time.
+     */
+    private void handleConnection(final Socket socket, final String token) throws IOException {
+        socket.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                                   input.readUTF().getBytes(StandardCharsets.UTF_8)))
+            return;
+        final Path workingDirectory = Paths.get(input.readUTF());
+        final String[] args = new String[input.readInt()];
+        for (int i = 0; i < args.length; i++)
+            args[i] = input.readUTF();
+        socket.setSoTimeout(0);
+        final DataOutputStream response = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        final OutputStream output = new ChunkedOutputStream(response);
+        final int status;
+        if (args.length == 1 && STOP_COMMAND.equals(args[0])) {
+            stopped = true;
+            output.write("Daemon stopped\n".getBytes(StandardCharsets.UTF_8));
+            status = EXIT_SUCCESS;
+        } else
+            status = runCommand(workingDirectory, args, output);
+        // An empty chunk ends the output and is followed by the exit status
+        response.writeInt(0);
+        response.writeInt(status);
+        response.flush();
+    }
+
+    /**
+     * Run the command with the console redirected to the client. The console log appender writes to the current
+     * console, so log output is redirected as well. Most commands report failures by logging errors only, so a command
+     * which logged an error fails as well.
+     */
+    private int runCommand(final Path workingDirectory, final String[] args, final OutputStream output) {
+        final PrintStream consoleOutput = System.out;
+        System.setOut(new PrintStream(new CloseShieldOutputStream(output), true));
+        final ErrorCounter errorCounter = new ErrorCounter();
+        errorCounter.attach();
+        try {
+            final boolean success = commandRunner.run(workingDirectory, args);
+            return success && errorCounter.errors.get() == 0 ? EXIT_SUCCESS : EXIT_FAILURE;
+        } catch (RuntimeException e) {
+            if (LOGGER.isErrorEnabled())
+                LOGGER.error("Command failed", e);
+            return EXIT_FAILURE;
+        } finally {
+            errorCounter.detach();
+            System.out.flush();
+            System.setOut(consoleOutput);
+        }
+    }
+
+    /**
+     * Send a command to the running daemon together with the current working directory and copy its output.
+     *
+     * @return Exit status of the command or null if no daemon is running
+     */
+    static Integer sendCommand(final String[] args, final OutputStream output) throws IOException {
+        final Path filePath = getDaemonFilePath();
+        if (!Files.exists(filePath))
+            return null;
+        final String[] lines = new String(Files.readAllBytes(filePath), StandardCharsets.UTF_8).split("\n");
+        if (lines.length != 2)
+            return null;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(lines[0].trim()))) {
+            final DataOutputStream request = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            request.writeUTF(lines[1].trim());
+            request.writeUTF(Paths.get("").toAbsolutePath().toString());
+            request.writeInt(args.length);
+            for (final String arg : args)
+                request.writeUTF(arg);
+            request.flush();
+            final DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = response.readInt()) > 0) {
+                if (length > buffer.length)
+                    buffer = new byte[length];
+                response.readFully(buffer, 0, length);
+                output.write(buffer, 0, length);
+                output.flush();
+            }
+            return response.readInt();
+        } catch (ConnectException e) {
+            return null;
+        } catch (EOFException e) {
+            throw new IOException("The daemon closed the connection before the command finished", e);
+        }
+    }
+
+    private static final class ErrorCounter extends AppenderBase<ILoggingEvent> {
+        private final AtomicInteger errors = new AtomicInteger();
+        private final org.slf4j.Logger rootLogger = LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+
+        void attach() {
+            if (rootLogger instanceof ch.qos.logback.classic.Logger) {
+                start();
+                ((ch.qos.logback.classic.Logger) rootLogger).addAppender(this);
+            }
+        }
+
+        void detach() {
+            if (rootLogger instanceof ch.qos.logback.classic.Logger) {
+                ((ch.qos.logback.classic.Logger) rootLogger).detachAppender(this);
+                stop();
+            }
+        }
+
+        @Override
+        protected void append(final ILoggingEvent event) {
+            if (event.getLevel().isGreaterOrEqual(Level.ERROR))
+                errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes every write call as a length-prefixed chunk, so the end of the output can be told apart from the exit
+     * status.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+        private final DataOutputStream output;
+
+        ChunkedOutputStream(final DataOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0)
+                return;
+            output.writeInt(len);
+            output.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+    }
+}
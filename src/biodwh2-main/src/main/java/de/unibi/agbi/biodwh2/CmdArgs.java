@@ -33,12 +33,26 @@ public class CmdArgs {
             "-s", "--status"
     }, arity = "1", paramLabel = "<workspacePath>", description = "Check and output the state of a workspace", order = 15)
     public String status;
+    @CommandLine.Option(names = {
+            "--worker"
+    }, arity = "1", paramLabel = "<workspacePath>", description = "Process data sources of the worker run started by a coordinator in a workspace", order = 16)
+    public String worker;
+    @CommandLine.Option(names = {"--daemon"}, description = "Run as daemon executing commands sent with --use-daemon", order = 17)
+    public boolean daemon;
+    @CommandLine.Option(names = {"--stop-daemon"}, description = "Stop the running daemon", order = 18)
+    public boolean stopDaemon;
     @CommandLine.Option(names = {"--skip-update"}, description = "Skip update, only parse and export", order = 100)
     public boolean skipUpdate;
     @CommandLine.Option(names = {
             "-v", "--verbose"
     }, description = "Output detailed information about the state of the workspace", order = 101)
     public boolean verbose;
+    @CommandLine.Option(names = {
+            "--coordinate"
+    }, description = "Update as the coordinator of worker processes sharing the workspace and merge once all finished", order = 102)
+    public boolean coordinate;
+    @CommandLine.Option(names = {"--use-daemon"}, description = "Execute the command in the running daemon if there is one", order = 103)
+    public boolean useDaemon;
 
     @CommandLine.Option(names = {"-p", "--parallel"}, description = "Run parallelizable pipeline steps in parallel", order = 2)
     public boolean runsInParallel;
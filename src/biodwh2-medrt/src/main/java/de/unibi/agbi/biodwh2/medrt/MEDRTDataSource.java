@@ -6,6 +6,8 @@ import de.unibi.agbi.biodwh2.core.etl.*;
 import de.unibi.agbi.biodwh2.medrt.etl.*;
 import de.unibi.agbi.biodwh2.medrt.model.Terminology;
 
+import java.io.Serializable;
+
 public class MEDRTDataSource extends DataSource {
     public Terminology terminology;
 
@@ -39,6 +41,16 @@ public class MEDRTDataSource extends DataSource {
         return new MEDRTMappingDescriber(this);
     }
 
+    @Override
+    protected Serializable getParsedData() {
+        return terminology;
+    }
+
+    @Override
+    protected void setParsedData(final Serializable data) {
+        terminology = (Terminology) data;
+    }
+
     @Override
     protected void unloadData() {
         terminology = null;
@@ -2,7 +2,10 @@ package de.unibi.agbi.biodwh2.medrt.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public final class Association {
+import java.io.Serializable;
+
+public final class Association implements Serializable {
+    private static final long serialVersionUID = -544126597510943518L;
     public String namespace;
     public String name;
     @JsonProperty("from_namespace")
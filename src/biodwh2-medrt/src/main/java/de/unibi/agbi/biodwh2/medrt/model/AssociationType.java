@@ -2,7 +2,10 @@ package de.unibi.agbi.biodwh2.medrt.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public final class AssociationType {
+import java.io.Serializable;
+
+public final class AssociationType implements Serializable {
+    private static final long serialVersionUID = -924851531601022973L;
     public String type;
     public String name;
     public String namespace;
@@ -3,9 +3,11 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 
+import java.io.Serializable;
 import java.util.List;
 
-public final class Concept {
+public final class Concept implements Serializable {
+    private static final long serialVersionUID = -4505980285133342115L;
     public String namespace;
     public String name;
     public String code;
@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @GraphNodeLabel("Namespace")
-public final class Namespace {
+public final class Namespace implements Serializable {
+    private static final long serialVersionUID = 3151196855533983726L;
     @GraphProperty("name")
     public String name;
     @GraphProperty("code")
@@ -3,8 +3,11 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @GraphNodeLabel("Property")
-public final class Property {
+public final class Property implements Serializable {
+    private static final long serialVersionUID = 2286143564323169739L;
     public String namespace;
     @GraphProperty("name")
     public String name;
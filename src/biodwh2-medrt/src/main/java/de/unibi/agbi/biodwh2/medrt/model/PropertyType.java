@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @GraphNodeLabel("PropertyDefinition")
-public final class PropertyType {
+public final class PropertyType implements Serializable {
+    private static final long serialVersionUID = 3330687194174102357L;
     @GraphProperty("type")
     public String type;
     @GraphProperty("name")
@@ -1,6 +1,9 @@
 package de.unibi.agbi.biodwh2.medrt.model;
 
-public final class Qualifier {
+import java.io.Serializable;
+
+public final class Qualifier implements Serializable {
+    private static final long serialVersionUID = -708410430993436515L;
     public String namespace;
     public String name;
     public String value;
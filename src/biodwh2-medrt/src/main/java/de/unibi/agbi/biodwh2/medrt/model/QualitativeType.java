@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @GraphNodeLabel("QualitativeDefinition")
-public final class QualitativeType {
+public final class QualitativeType implements Serializable {
+    private static final long serialVersionUID = -176744923385025400L;
     @GraphProperty("type")
     public String type;
     @GraphProperty("name")
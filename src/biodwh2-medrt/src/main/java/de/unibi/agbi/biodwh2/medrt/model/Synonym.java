@@ -2,7 +2,10 @@ package de.unibi.agbi.biodwh2.medrt.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public final class Synonym {
+import java.io.Serializable;
+
+public final class Synonym implements Serializable {
+    private static final long serialVersionUID = 109590832864966951L;
     public String namespace;
     public String name;
     @JsonProperty("to_namespace")
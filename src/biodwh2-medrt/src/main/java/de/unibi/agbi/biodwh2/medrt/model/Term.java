@@ -3,9 +3,12 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphProperty;
 import de.unibi.agbi.biodwh2.core.model.graph.GraphNodeLabel;
 
+import java.io.Serializable;
+
 @SuppressWarnings("unused")
 @GraphNodeLabel("Term")
-public final class Term {
+public final class Term implements Serializable {
+    private static final long serialVersionUID = 5725175361890957376L;
     @GraphProperty("name")
     public String name;
     @GraphProperty("namespace")
@@ -3,9 +3,11 @@ package de.unibi.agbi.biodwh2.medrt.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlElementWrapper;
 
+import java.io.Serializable;
 import java.util.List;
 
-public final class Terminology {
+public final class Terminology implements Serializable {
+    private static final long serialVersionUID = 8457087873175420657L;
     public Namespace namespace;
     @JsonProperty("referencedNamespace")
     @JacksonXmlElementWrapper(useWrapping = false)
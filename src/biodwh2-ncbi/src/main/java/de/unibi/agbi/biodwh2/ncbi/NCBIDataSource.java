@@ -39,6 +39,12 @@ public class NCBIDataSource extends DataSource {
         return new NCBIMappingDescriber(this);
     }
 
+    @Override
+    protected long getMemoryCostHint() {
+        // The exporter maps every gene id to its node id in memory
+        return 2L * 1024 * 1024 * 1024;
+    }
+
     @Override
     protected void unloadData() {
     }
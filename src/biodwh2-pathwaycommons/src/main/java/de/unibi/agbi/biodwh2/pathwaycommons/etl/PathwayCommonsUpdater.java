@@ -1,5 +1,6 @@
 package de.unibi.agbi.biodwh2.pathwaycommons.etl;
 
+import de.unibi.agbi.biodwh2.core.Workspace;
 import de.unibi.agbi.biodwh2.core.etl.MultiFileFTPWebUpdater;
 import de.unibi.agbi.biodwh2.pathwaycommons.PathwayCommonsDataSource;
 
@@ -22,7 +23,7 @@ public class PathwayCommonsUpdater extends MultiFileFTPWebUpdater<PathwayCommons
     }
 
     @Override
-    protected String[] getFilePaths() {
+    protected String[] getFilePaths(final Workspace workspace) {
         return new String[]{
                 PATHWAYS_FILE_NAME, DATA_SOURCES_FILE_NAME, ALL_UNIPROT_GMT_FILE_PATH, ALL_HGNC_TXT_FILE_PATH,
                 ALL_HGNC_SIF_FILE_PATH, ALL_HGNC_GMT_FILE_PATH, ALL_BIOPAX_OWL_FILE_PATH
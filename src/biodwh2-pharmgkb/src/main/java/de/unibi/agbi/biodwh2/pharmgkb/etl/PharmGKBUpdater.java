@@ -28,7 +28,7 @@ public class PharmGKBUpdater extends Updater<PharmGKBDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
         LocalDateTime stringDate = null;
         try {
             File f = File.createTempFile("biodwh2pharmgkb-drugLabels", ".zip");
@@ -24,9 +24,10 @@ public final class ReDOTrialsDBUpdater extends Updater<ReDOTrialsDBDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
         try {
-            final String source = HTTPClient.getWebsiteSource("https://www.anticancerfund.org/en/redo-trials-db");
+            final String source = HTTPClient.getWebsiteSource(workspace.getHTTPCache(),
+                                                              "https://www.anticancerfund.org/en/redo-trials-db");
             final Matcher matcher = VERSION_PATTERN.matcher(source);
             if (matcher.find()) {
                 final String[] parts = StringUtils.split(matcher.group(1), '/');
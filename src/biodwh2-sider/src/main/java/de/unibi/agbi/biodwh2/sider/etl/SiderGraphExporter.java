@@ -59,15 +59,22 @@ public class SiderGraphExporter extends GraphExporter<SiderDataSource> {
         if (LOGGER.isInfoEnabled())
             LOGGER.info("Collecting drug names...");
         populateCombinedDrugsWithName(workspace, flatIdDrugMap);
-        if (LOGGER.isInfoEnabled())
-            LOGGER.info("Exporting indications...");
-        addAllIndications(workspace, graph, flatIdDrugMap);
-        if (LOGGER.isInfoEnabled())
-            LOGGER.info("Exporting side effects...");
-        addAllSideEffects(workspace, graph, flatIdDrugMap);
-        if (LOGGER.isInfoEnabled())
-            LOGGER.info("Exporting side effect frequencies...");
-        addAllSideEffectFrequencies(workspace, graph, flatIdDrugMap);
+        // Drug and term nodes are looked up in the graph, so each of the following steps can be resumed
+        runStep(graph, "indications", () -> {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Exporting indications...");
+            addAllIndications(workspace, graph, flatIdDrugMap);
+        });
+        runStep(graph, "side_effects", () -> {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Exporting side effects...");
+            addAllSideEffects(workspace, graph, flatIdDrugMap);
+        });
+        runStep(graph, "side_effect_frequencies", () -> {
+            if (LOGGER.isInfoEnabled())
+                LOGGER.info("Exporting side effect frequencies...");
+            addAllSideEffectFrequencies(workspace, graph, flatIdDrugMap);
+        });
         return true;
     }
 
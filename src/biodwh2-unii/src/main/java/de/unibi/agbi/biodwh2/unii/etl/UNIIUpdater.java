@@ -35,9 +35,9 @@ public class UNIIUpdater extends Updater<UNIIDataSource> {
     }
 
     @Override
-    public Version getNewestVersion() throws UpdaterException {
+    public Version getNewestVersion(final Workspace workspace) throws UpdaterException {
         try {
-            String html = HTTPClient.getWebsiteSource(WEBSITE_URL);
+            String html = HTTPClient.getWebsiteSource(workspace.getHTTPCache(), WEBSITE_URL);
             html = StringUtils.splitByWholeSeparator(html, "Last updated: ")[1];
             html = StringUtils.splitByWholeSeparator(html, "</span>")[0];
             return parseVersion(html);
@@ -42,6 +42,12 @@ public class UniProtDataSource extends DataSource {
         return new UniProtMappingDescriber(this);
     }
 
+    @Override
+    protected long getMemoryCostHint() {
+        // Entries are streamed, but the XML mapper and the citation lookups of Swiss-Prot exceed the default
+        return 2L * 1024 * 1024 * 1024;
+    }
+
     @Override
     protected void unloadData() {
     }